@@ -80,7 +80,92 @@ SELECT
 FROM cards
 GROUP BY set_code;
 
--- 10. Afficher les informations de la base créée
+-- 10. Stockage des images par empreinte de contenu (déduplication)
+CREATE TABLE IF NOT EXISTS image_blob (
+    hash CHAR(64) NOT NULL PRIMARY KEY,
+    file_path VARCHAR(500) NOT NULL,
+    size_bytes BIGINT NOT NULL,
+    ref_count INT NOT NULL DEFAULT 0,
+    created_at DATETIME NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS card_image_ref (
+    card_id BINARY(16) NOT NULL PRIMARY KEY,
+    blob_hash CHAR(64) NOT NULL,
+    source_url VARCHAR(1000),
+    linked_at DATETIME NOT NULL,
+    INDEX idx_card_image_ref_blob (blob_hash),
+    INDEX idx_card_image_ref_source (source_url(255))
+);
+
+-- 11. Empreinte de contenu des cartes (synchronisation différentielle)
+ALTER TABLE magic_card ADD COLUMN IF NOT EXISTS content_hash CHAR(64) NULL;
+
+-- 12. Index de pagination par curseur (tri extension/numéro/id et nom/id)
+CREATE INDEX IF NOT EXISTS idx_magic_card_set_keyset ON magic_card(z_post_extension, numero, id);
+CREATE INDEX IF NOT EXISTS idx_card_translation_name_keyset ON card_translation(locale, name, translatable_id);
+
+-- 13. Journal versionné des modifications du catalogue (GET /api/mtg/changes?since=N)
+CREATE TABLE IF NOT EXISTS catalogue_change (
+    version BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    set_code VARCHAR(50) NOT NULL,
+    external_id VARCHAR(255) NULL,
+    operation VARCHAR(16) NOT NULL,
+    changed_at DATETIME NOT NULL,
+    INDEX idx_catalogue_change_changed_at (changed_at)
+);
+
+-- 14. Empreinte amont des extensions (rafraîchissement planifié)
+ALTER TABLE magic_set ADD COLUMN IF NOT EXISTS upstream_fingerprint CHAR(64) NULL;
+
+-- 15. Statistiques du catalogue maintenues à l'écriture (scope '*' = global, sinon code d'extension)
+CREATE TABLE IF NOT EXISTS catalogue_stats (
+    scope VARCHAR(50) NOT NULL PRIMARY KEY,
+    cards BIGINT NOT NULL DEFAULT 0,
+    images BIGINT NOT NULL DEFAULT 0,
+    translated_cards BIGINT NOT NULL DEFAULT 0,
+    translations BIGINT NOT NULL DEFAULT 0,
+    artists BIGINT NOT NULL DEFAULT 0,
+    updated_at DATETIME NULL
+);
+
+CREATE TABLE IF NOT EXISTS catalogue_stats_value (
+    scope VARCHAR(50) NOT NULL,
+    dimension VARCHAR(16) NOT NULL,
+    stat_value VARCHAR(255) NOT NULL,
+    cards BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (scope, dimension, stat_value),
+    INDEX idx_stats_value_cards (scope, dimension, cards)
+);
+
+-- 16. Dimension artiste (table normalisée + lien carte -> artiste)
+CREATE TABLE IF NOT EXISTS artist (
+    id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    UNIQUE KEY uk_artist_name (name)
+);
+
+CREATE TABLE IF NOT EXISTS card_artist (
+    card_id BINARY(16) NOT NULL PRIMARY KEY,
+    artist_id BIGINT NOT NULL,
+    INDEX idx_card_artist_artist (artist_id, card_id),
+    CONSTRAINT fk_card_artist_artist FOREIGN KEY (artist_id) REFERENCES artist(id)
+);
+
+-- Fiche d'un artiste : ses comptages dans tous les périmètres
+CREATE INDEX IF NOT EXISTS idx_stats_value_lookup ON catalogue_stats_value(dimension, stat_value);
+
+-- 17. Versions du journal attribuées dans l'ordre des commits : compteur sur une ligne, verrouillé
+-- par chaque transaction juste avant son commit (remplace l'auto-incrément)
+CREATE TABLE IF NOT EXISTS catalogue_change_sequence (
+    id INT NOT NULL PRIMARY KEY,
+    version BIGINT NOT NULL
+);
+INSERT IGNORE INTO catalogue_change_sequence (id, version)
+SELECT 1, COALESCE(MAX(version), 0) FROM catalogue_change;
+ALTER TABLE catalogue_change MODIFY version BIGINT NOT NULL;
+
+-- 18. Afficher les informations de la base créée
 SELECT
     'Base de données créée avec succès' as status,
     DATABASE() as current_database,
@@ -9,6 +9,7 @@ declare module '*.vue' {
 interface ImportMetaEnv {
   readonly VITE_API_BASE_URL: string
   readonly VITE_APP_NAME?: string
+  readonly VITE_API_FORMAT?: 'json' | 'cbor'
 }
 
 interface ImportMeta {
@@ -0,0 +1,103 @@
+// src/services/cbor.ts - Décodeur CBOR (RFC 8949) minimal pour les réponses de l'API
+//
+// Couvre ce que produit Jackson côté serveur : entiers, flottants, chaînes, tableaux et objets
+// (longueur fixe ou indéfinie), booléens et null. Pas de dépendance npm supplémentaire.
+
+const utf8 = new TextDecoder()
+
+export function decodeCbor(buffer: ArrayBuffer): unknown {
+  const view = new DataView(buffer)
+  let offset = 0
+
+  const readLength = (info: number): number => {
+    if (info < 24) return info
+    if (info === 24) return view.getUint8(offset++)
+    if (info === 25) { const v = view.getUint16(offset); offset += 2; return v }
+    if (info === 26) { const v = view.getUint32(offset); offset += 4; return v }
+    if (info === 27) {
+      const v = Number(view.getBigUint64(offset)); offset += 8; return v
+    }
+    if (info === 31) return -1 // longueur indéfinie
+    throw new Error(`CBOR : longueur invalide (${info})`)
+  }
+
+  const isBreak = (): boolean => view.getUint8(offset) === 0xff
+
+  const readItem = (): unknown => {
+    const initial = view.getUint8(offset++)
+    const major = initial >> 5
+    const info = initial & 0x1f
+
+    switch (major) {
+      case 0:
+        return readLength(info)
+      case 1:
+        return -1 - readLength(info)
+      case 2:
+      case 3: {
+        const length = readLength(info)
+        if (length < 0) {
+          // Chaîne fragmentée : concaténation des morceaux jusqu'au marqueur de fin
+          const parts: string[] = []
+          while (!isBreak()) parts.push(readItem() as string)
+          offset++
+          return parts.join('')
+        }
+        const bytes = new Uint8Array(buffer, offset, length)
+        offset += length
+        return major === 3 ? utf8.decode(bytes) : bytes
+      }
+      case 4: {
+        const length = readLength(info)
+        const items: unknown[] = []
+        if (length < 0) {
+          while (!isBreak()) items.push(readItem())
+          offset++
+        } else {
+          for (let i = 0; i < length; i++) items.push(readItem())
+        }
+        return items
+      }
+      case 5: {
+        const length = readLength(info)
+        const object: Record<string, unknown> = {}
+        if (length < 0) {
+          while (!isBreak()) { const key = readItem() as string; object[key] = readItem() }
+          offset++
+        } else {
+          for (let i = 0; i < length; i++) { const key = readItem() as string; object[key] = readItem() }
+        }
+        return object
+      }
+      case 6:
+        readLength(info) // étiquette ignorée, valeur seule
+        return readItem()
+      default:
+        return readSimple(info)
+    }
+  }
+
+  const readSimple = (info: number): unknown => {
+    switch (info) {
+      case 20: return false
+      case 21: return true
+      case 22:
+      case 23: return null
+      case 25: { const v = halfToFloat(view.getUint16(offset)); offset += 2; return v }
+      case 26: { const v = view.getFloat32(offset); offset += 4; return v }
+      case 27: { const v = view.getFloat64(offset); offset += 8; return v }
+      default: throw new Error(`CBOR : valeur simple non gérée (${info})`)
+    }
+  }
+
+  return readItem()
+}
+
+function halfToFloat(half: number): number {
+  const exponent = (half >> 10) & 0x1f
+  const fraction = half & 0x3ff
+  const sign = half & 0x8000 ? -1 : 1
+  if (exponent === 0) return sign * 2 ** -14 * (fraction / 1024)
+  if (exponent === 31) return fraction ? NaN : sign * Infinity
+  return sign * 2 ** (exponent - 15) * (1 + fraction / 1024)
+}
@@ -1,11 +1,40 @@
 // src/services/mtgApi.ts - Version corrigée
 
 import axios from 'axios'
-import type { MtgSet, MtgCard, ApiResponse } from '@/types/mtg'
+import type { AxiosResponseHeaders, RawAxiosResponseHeaders } from 'axios'
+import type { MtgSet, MtgCard, ApiResponse, SpriteSheet, SpriteTile, ChangeFeed, FacetCounts, FacetSelection } from '@/types/mtg'
+import { decodeCbor } from './cbor'
+
+// Réponses en CBOR (schéma v1) plutôt qu'en JSON : VITE_API_FORMAT=cbor dans .env
+const CBOR_MEDIA_TYPE = 'application/vnd.pcagrad.mtg.v1+cbor'
+const useCbor = import.meta.env.VITE_API_FORMAT === 'cbor'
+
+// Le serveur peut toujours répondre en JSON (erreur, endpoint non négocié) : décodage selon Content-Type
+function decodeResponse(data: ArrayBuffer, headers: AxiosResponseHeaders | RawAxiosResponseHeaders): unknown {
+  if (!data || data.byteLength === 0) return null
+  const contentType = String(headers['content-type'] ?? '')
+  if (contentType.includes('cbor')) return decodeCbor(data)
+  const text = new TextDecoder().decode(data)
+  try {
+    return JSON.parse(text)
+  } catch {
+    return text
+  }
+}
 
 const api = axios.create({
   baseURL: '/api/mtg',
   timeout: 30000,
+  headers: {
+    'Content-Type': 'application/json',
+    ...(useCbor ? { Accept: `${CBOR_MEDIA_TYPE}, application/json;q=0.5` } : {})
+  },
+  ...(useCbor ? { responseType: 'arraybuffer' as const, transformResponse: [decodeResponse] } : {})
+})
+
+const imagesApi = axios.create({
+  baseURL: '/api/images',
+  timeout: 60000,
   headers: {
     'Content-Type': 'application/json'
   }
@@ -59,15 +88,102 @@ export const mtgApiService = {
     return response.data.data
   },
 
-  // Récupérer seulement les cartes d'une extension
-  async getCardsFromSet(setCode: string): Promise<MtgCard[]> {
-    const response = await api.get<ApiResponse<MtgCard[]>>(`/sets/${setCode}/cards`)
+  // Récupérer seulement les cartes d'une extension ; fields limite les champs calculés et renvoyés
+  async getCardsFromSet(setCode: string, fields?: (keyof MtgCard)[]): Promise<MtgCard[]> {
+    const response = await api.get<ApiResponse<MtgCard[]>>(`/sets/${setCode}/cards`, {
+      params: fields?.length ? { fields: fields.join(',') } : undefined
+    })
+    return response.data.data
+  },
+
+  // Cartes d'une extension en NDJSON, transmises par lots au fur et à mesure de la lecture du flux
+  async streamCardsFromSet(
+    setCode: string,
+    onCards: (cards: MtgCard[]) => void,
+    options: { fields?: (keyof MtgCard)[]; signal?: AbortSignal } = {}
+  ): Promise<number> {
+    const query = options.fields?.length ? `?fields=${encodeURIComponent(options.fields.join(','))}` : ''
+    console.log(`📡 API Stream: GET /sets/${setCode}/cards/stream${query}`)
+    const response = await fetch(`/api/mtg/sets/${encodeURIComponent(setCode)}/cards/stream${query}`, {
+      headers: { Accept: 'application/x-ndjson' },
+      signal: options.signal
+    })
+    if (!response.ok || !response.body) {
+      throw new Error(`Flux des cartes indisponible (HTTP ${response.status})`)
+    }
+
+    const reader = response.body.getReader()
+    const decoder = new TextDecoder()
+    let buffer = ''
+    let count = 0
+
+    const emitLines = (lines: string[]) => {
+      const cards = lines.filter((line) => line.trim()).map((line) => JSON.parse(line) as MtgCard)
+      if (cards.length) {
+        count += cards.length
+        onCards(cards)
+      }
+    }
+
+    for (;;) {
+      const { done, value } = await reader.read()
+      if (done) break
+      buffer += decoder.decode(value, { stream: true })
+      const lines = buffer.split('\n')
+      buffer = lines.pop() ?? ''
+      emitLines(lines)
+    }
+    emitLines([buffer + decoder.decode()])
+    return count
+  },
+
+  // Modifications depuis une version connue ; rappeler avec feed.version tant que feed.hasMore
+  async getChanges(since: number, fields?: (keyof MtgCard)[]): Promise<ChangeFeed> {
+    const response = await api.get<ApiResponse<ChangeFeed>>('/changes', {
+      params: { since, ...(fields?.length ? { fields: fields.join(',') } : {}) }
+    })
+    return response.data.data
+  },
+
+  // Comptages de toutes les facettes pour l'extension / la recherche et la sélection courantes
+  async getCardFacets(options: { setCode?: string; name?: string; selection?: FacetSelection } = {}): Promise<FacetCounts> {
+    const params: Record<string, string> = {}
+    if (options.setCode) params.setCode = options.setCode
+    if (options.name) params.name = options.name
+    for (const [facet, values] of Object.entries(options.selection ?? {})) {
+      if (values?.length) params[facet] = values.join(',')
+    }
+    const response = await api.get<ApiResponse<FacetCounts>>('/cards/facets', { params })
     return response.data.data
+  },
+
+  // Une seule planche d'images pour toute une grille (au lieu d'une requête par carte)
+  async getImageSprite(cardIds: string[], columns = 10): Promise<SpriteSheet> {
+    const response = await imagesApi.post<SpriteSheet>('/batch/sprite', { cardIds, columns })
+    return response.data
   }
 }
 
 // Utilitaires
 export const mtgUtils = {
+  // ID interne d'une carte dont l'image est servie localement (/api/images/{uuid})
+  localImageId(card: MtgCard): string | null {
+    const match = card.imageUrl?.match(/^\/api\/images\/([0-9a-f-]{36})$/i)
+    return match ? match[1] : null
+  },
+
+  // Style CSS affichant la tuile d'une carte depuis la planche, à la largeur souhaitée
+  spriteStyle(sheet: SpriteSheet, tile: SpriteTile, displayWidth: number): Record<string, string> {
+    const scale = displayWidth / tile.width
+    return {
+      width: `${displayWidth}px`,
+      height: `${Math.round(tile.height * scale)}px`,
+      backgroundImage: `url(${sheet.spriteUrl})`,
+      backgroundPosition: `-${Math.round(tile.x * scale)}px -${Math.round(tile.y * scale)}px`,
+      backgroundSize: `${Math.round(sheet.width * scale)}px ${Math.round(sheet.height * scale)}px`
+    }
+  },
+
   formatDate(dateString: string): string {
     try {
       return new Date(dateString).toLocaleDateString('fr-FR')
@@ -9,6 +9,8 @@ export const useMtgStore = defineStore('mtg', () => {
   const latestSet = ref<MtgSet | null>(null)
   const sets = ref<MtgSet[]>([])
   const loading = ref(false)
+  // Cartes encore en cours de réception (les premières sont déjà affichées)
+  const streaming = ref(false)
   const error = ref<string | null>(null)
 
   // Getters
@@ -29,13 +31,42 @@ export const useMtgStore = defineStore('mtg', () => {
   const totalCards = computed(() => latestSetCards.value.length)
 
   // Actions
+
+  // Affiche l'extension puis ses cartes au fil du flux ; repli sur la réponse complète si le flux échoue
+  const streamSetWithCards = async (
+    loadSet: () => Promise<MtgSet>,
+    loadSetWithCards: () => Promise<MtgSet>
+  ): Promise<void> => {
+    const set = await loadSet()
+    latestSet.value = { ...set, cards: [] }
+    streaming.value = true
+    let received = 0
+    try {
+      const count = await mtgApiService.streamCardsFromSet(set.code, (cards) => {
+        received += cards.length
+        latestSet.value?.cards?.push(...cards)
+        loading.value = false
+      })
+      console.log('✅ Cartes reçues en flux:', count)
+    } catch (err) {
+      if (received > 0) throw err
+      console.warn('⚠️ Flux indisponible, chargement complet:', err)
+      latestSet.value = await loadSetWithCards()
+    } finally {
+      streaming.value = false
+    }
+  }
+
   const fetchLatestSetWithCards = async (): Promise<void> => {
     loading.value = true
     error.value = null
 
     try {
       console.log('🔍 Récupération de la dernière extension...')
-      latestSet.value = await mtgApiService.getLatestSetWithCards()
+      await streamSetWithCards(
+        () => mtgApiService.getLatestSet(),
+        () => mtgApiService.getLatestSetWithCards()
+      )
       console.log('✅ Extension récupérée:', latestSet.value?.name)
     } catch (err: any) {
       const errorMessage = err.response?.data?.message || err.message || 'Erreur lors du chargement de la dernière extension'
@@ -90,6 +121,7 @@ export const useMtgStore = defineStore('mtg', () => {
     latestSet.value = null
     sets.value = []
     loading.value = false
+    streaming.value = false
     error.value = null
   }
 
@@ -100,7 +132,10 @@ export const useMtgStore = defineStore('mtg', () => {
 
     try {
       console.log('🔍 Récupération de l\'extension:', setCode)
-      latestSet.value = await mtgApiService.getSetWithCards(setCode)
+      await streamSetWithCards(
+        () => mtgApiService.getSetByCode(setCode),
+        () => mtgApiService.getSetWithCards(setCode)
+      )
       console.log('✅ Extension récupérée:', latestSet.value?.name)
     } catch (err: any) {
       const errorMessage = err.response?.data?.message || err.message || `Erreur lors du chargement de l'extension ${setCode}`
@@ -131,6 +166,7 @@ export const useMtgStore = defineStore('mtg', () => {
     latestSet,
     sets,
     loading,
+    streaming,
     error,
     // Getters
     hasLatestSet,
@@ -47,3 +47,58 @@ export interface MtgApiError {
   message: string
   status?: number
 }
+
+export interface SpriteTile {
+  x: number
+  y: number
+  width: number
+  height: number
+}
+
+export interface SpriteSheet {
+  key: string
+  spriteUrl: string
+  width: number
+  height: number
+  columns: number
+  tiles: Record<string, SpriteTile>
+  missing: Record<string, string | null>
+}
+
+// Journal des modifications du catalogue (GET /api/mtg/changes?since=N)
+export interface CatalogueChange {
+  version: number
+  op: 'UPSERT' | 'DELETE' | 'SET_RELOAD'
+  set: string
+  id?: string
+  card?: MtgCard
+}
+
+export interface ChangeFeed {
+  since: number
+  version: number
+  hasMore: boolean
+  resyncRequired: boolean
+  changes: CatalogueChange[]
+}
+
+export type Facet = 'RARITY' | 'COLOR' | 'COLOR_IDENTITY' | 'SUPERTYPE' | 'TYPE' | 'CMC' | 'LAYOUT' | 'SET' | 'FLAG'
+
+// Sélection par facette (valeurs combinées en OU), clés = paramètres de /cards/facets
+export interface FacetSelection {
+  rarity?: string[]
+  color?: string[]
+  colorIdentity?: string[]
+  supertype?: string[]
+  type?: string[]
+  cmc?: string[]
+  layout?: string[]
+  set?: string[]
+  flag?: string[]
+}
+
+export interface FacetCounts {
+  total: number
+  facets: Record<Facet, Record<string, number>>
+  tookMicros: number
+}
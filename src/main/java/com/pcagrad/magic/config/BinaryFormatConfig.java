@@ -0,0 +1,51 @@
+package com.pcagrad.magic.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.util.List;
+
+/**
+ * Réponses binaires par négociation de contenu : mêmes objets ({@code ApiResponse}, {@code MtgCard}...)
+ * et mêmes réglages Jackson que le JSON, encodés en CBOR ou Smile selon l'en-tête Accept.
+ * <p>
+ * Le schéma est versionné par le type vendeur ({@code application/vnd.pcagrad.mtg.v1+cbor}) : un client
+ * qui demande une version inconnue reçoit 406. Les types génériques désignent la version courante.
+ */
+@Configuration
+public class BinaryFormatConfig {
+
+    public static final int SCHEMA_VERSION = 1;
+
+    public static final MediaType MTG_CBOR = MediaType.parseMediaType("application/vnd.pcagrad.mtg.v" + SCHEMA_VERSION + "+cbor");
+    public static final MediaType MTG_SMILE = MediaType.parseMediaType("application/vnd.pcagrad.mtg.v" + SCHEMA_VERSION + "+smile");
+    public static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    // Bean Jackson2ObjectMapperBuilder de Spring Boot (spring.jackson.*) : une instance par injection
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        MappingJackson2CborHttpMessageConverter converter =
+                new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+        converter.setSupportedMediaTypes(List.of(MTG_CBOR, MediaType.APPLICATION_CBOR));
+        return converter;
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        // Noms de champs et valeurs courtes répétées (rareté, extension, artiste) écrits une fois puis référencés
+        SmileFactory factory = new SmileFactory();
+        factory.enable(SmileGenerator.Feature.CHECK_SHARED_NAMES);
+        factory.enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES);
+        MappingJackson2SmileHttpMessageConverter converter =
+                new MappingJackson2SmileHttpMessageConverter(builder.factory(factory).build());
+        converter.setSupportedMediaTypes(List.of(MTG_SMILE, SMILE));
+        return converter;
+    }
+}
@@ -0,0 +1,74 @@
+package com.pcagrad.magic.config;
+
+import com.pcagrad.magic.entity.MagicCard;
+import com.pcagrad.magic.entity.MagicSet;
+import com.pcagrad.magic.service.CatalogueEvents;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Mises à jour de cartes et d'extensions, écoutées au niveau Hibernate pour connaître les colonnes
+ * modifiées : une carte dont seule l'image a changé (téléchargement) ne rend pas son extension
+ * périmée, le téléchargement signale l'extension une fois le lot terminé.
+ */
+@Component
+public class CatalogueUpdateListener implements PostUpdateEventListener {
+
+    // has_img et fusion_pca (chemin local) : écrits par ImageDownloadService
+    private static final Set<String> IMAGE_PROPERTIES = Set.of("hasImg", "fusionPca");
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CatalogueEvents catalogueEvents;
+
+    @jakarta.annotation.PostConstruct
+    public void register() {
+        entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class)
+                .appendListeners(EventType.POST_UPDATE, this);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        Object entity = event.getEntity();
+        if (entity instanceof MagicCard card) {
+            if (!imageOnly(event)) {
+                catalogueEvents.setChanged(card.getSetCode());
+            }
+        } else if (entity instanceof MagicSet set) {
+            catalogueEvents.setChanged(set.getCode());
+        }
+    }
+
+    // Propriétés modifiées inconnues (mise à jour sans vérification) : traitée comme un vrai changement
+    private boolean imageOnly(PostUpdateEvent event) {
+        int[] dirty = event.getDirtyProperties();
+        if (dirty == null || dirty.length == 0) {
+            return false;
+        }
+        String[] names = event.getPersister().getPropertyNames();
+        for (int index : dirty) {
+            if (!IMAGE_PROPERTIES.contains(names[index])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+}
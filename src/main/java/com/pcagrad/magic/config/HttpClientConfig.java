@@ -0,0 +1,82 @@
+package com.pcagrad.magic.config;
+
+import com.pcagrad.magic.service.ScryfallRateLimiter;
+import com.pcagrad.magic.service.UpstreamHttpCache;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.InterruptedIOException;
+
+@Configuration
+public class HttpClientConfig {
+
+    private static final int MAX_RATE_LIMIT_RETRIES = 3;
+    private static final long DEFAULT_RETRY_AFTER_MS = 1000;
+    private static final int MAX_IN_MEMORY_SIZE = 10 * 1024 * 1024;
+
+    /**
+     * RestTemplate partagé pour Scryfall : chaque appel passe par le limiteur commun,
+     * et un 429 met tout le monde en pause avant de réessayer.
+     * Le cache disque passe en premier : une réponse encore fraîche ne consomme pas de créneau.
+     */
+    @Bean
+    public RestTemplate scryfallRestTemplate(ScryfallRateLimiter rateLimiter, UpstreamHttpCache httpCache) {
+        RestTemplate restTemplate = new RestTemplate();
+        restTemplate.getInterceptors().add(httpCache.interceptor());
+        restTemplate.getInterceptors().add(rateLimitInterceptor(rateLimiter));
+        return restTemplate;
+    }
+
+    /**
+     * WebClient partagé pour magicthegathering.io, derrière le même cache disque
+     */
+    @Bean
+    public WebClient mtgApiWebClient(UpstreamHttpCache httpCache) {
+        ExchangeStrategies strategies = ExchangeStrategies.builder()
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(MAX_IN_MEMORY_SIZE))
+                .build();
+        return WebClient.builder()
+                .exchangeStrategies(strategies)
+                .filter(httpCache.exchangeFilter(strategies))
+                .build();
+    }
+
+    private ClientHttpRequestInterceptor rateLimitInterceptor(ScryfallRateLimiter rateLimiter) {
+        return (request, body, execution) -> {
+            for (int attempt = 0; ; attempt++) {
+                try {
+                    rateLimiter.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Appel Scryfall interrompu");
+                }
+
+                ClientHttpResponse response = execution.execute(request, body);
+                if (response.getStatusCode() != HttpStatus.TOO_MANY_REQUESTS || attempt >= MAX_RATE_LIMIT_RETRIES) {
+                    return response;
+                }
+
+                rateLimiter.backOff(retryAfterMillis(response));
+                response.close();
+            }
+        };
+    }
+
+    private long retryAfterMillis(ClientHttpResponse response) {
+        String retryAfter = response.getHeaders().getFirst("Retry-After");
+        if (retryAfter != null) {
+            try {
+                return Long.parseLong(retryAfter.trim()) * 1000;
+            } catch (NumberFormatException ignored) {
+                // Format date HTTP : on garde la pause par défaut
+            }
+        }
+        return DEFAULT_RETRY_AFTER_MS;
+    }
+}
@@ -0,0 +1,55 @@
+package com.pcagrad.magic.config;
+
+import com.pcagrad.magic.service.QueryStatsService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Ouvre un compteur de requêtes SQL pour chaque appel /api/** et le transmet aux statistiques
+ */
+@Component
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private QueryInspector queryInspector;
+
+    @Autowired
+    private QueryStatsService queryStatsService;
+
+    @Value("${mtg.query-inspector.enabled:true}")
+    private boolean enabled;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long start = System.currentTimeMillis();
+        queryInspector.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            QueryInspector.RequestQueries queries = queryInspector.end();
+            if (queries != null) {
+                // Le motif (/api/mtg/sets/{setCode}/cards) regroupe les appels d'un même endpoint ;
+                // jamais l'URI brute, pour ne pas créer une série de métriques par valeur
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                String endpoint = request.getMethod() + " " + (pattern != null ? pattern : "UNMATCHED");
+                queryStatsService.recordRequest(endpoint, request.getRequestURI(), queries,
+                        System.currentTimeMillis() - start);
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.pcagrad.magic.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class QueryInspectionConfig {
+
+    @Value("${mtg.query-inspector.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Branche l'inspecteur de requêtes et les statistiques Hibernate (temps par requête JPQL)
+     */
+    @Bean
+    public HibernatePropertiesCustomizer queryInspectionCustomizer(QueryInspector queryInspector) {
+        return properties -> {
+            if (enabled) {
+                properties.put(AvailableSettings.STATEMENT_INSPECTOR, queryInspector);
+                properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+            }
+        };
+    }
+}
@@ -0,0 +1,72 @@
+package com.pcagrad.magic.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compte les requêtes SQL émises par Hibernate pendant la requête HTTP en cours.
+ * Le contexte est attaché au thread par {@link QueryCountFilter} : les requêtes exécutées
+ * sur un autre thread (CompletableFuture, Reactor) ne sont pas comptées.
+ */
+@Component
+public class QueryInspector implements StatementInspector {
+
+    // Au-delà, on ne garde plus le détail des requêtes distinctes (seulement le total)
+    private static final int MAX_DISTINCT_STATEMENTS = 200;
+
+    private static final ThreadLocal<RequestQueries> CURRENT = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        RequestQueries queries = CURRENT.get();
+        if (queries != null) {
+            queries.record(sql);
+        }
+        return sql;
+    }
+
+    public void begin() {
+        CURRENT.set(new RequestQueries());
+    }
+
+    public RequestQueries end() {
+        RequestQueries queries = CURRENT.get();
+        CURRENT.remove();
+        return queries;
+    }
+
+    /**
+     * Requêtes d'une requête HTTP
+     */
+    public static class RequestQueries {
+        private int total;
+        private final Map<String, Integer> byStatement = new HashMap<>();
+
+        void record(String sql) {
+            total++;
+            if (byStatement.containsKey(sql) || byStatement.size() < MAX_DISTINCT_STATEMENTS) {
+                byStatement.merge(sql, 1, Integer::sum);
+            }
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        /**
+         * Requêtes répétées, les plus fréquentes d'abord : c'est la signature d'un N+1
+         */
+        public List<Map.Entry<String, Integer>> topRepeated(int limit) {
+            return byStatement.entrySet().stream()
+                    .filter(e -> e.getValue() > 1)
+                    .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()))
+                    .limit(limit)
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.pcagrad.magic.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Surveille le retard de réplication de la réplique ({@code SHOW REPLICA STATUS}) :
+ * au-delà du seuil, ou si la réplication est arrêtée ou la réplique injoignable,
+ * les lectures repartent sur le primaire jusqu'au prochain contrôle favorable.
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final DataSource replica;
+    private final String lagQuery;
+    private final long maxLagSeconds;
+    private final long checkIntervalMs;
+
+    private ScheduledExecutorService scheduler;
+    private volatile boolean usable;
+    private volatile long lagSeconds = -1;
+    private volatile boolean notReplicatingWarned;
+
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, long maxLagSeconds, long checkIntervalMs) {
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLagSeconds;
+        this.checkIntervalMs = checkIntervalMs;
+    }
+
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        check();
+        scheduler.scheduleWithFixedDelay(this::check, checkIntervalMs, checkIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public boolean isReplicaUsable() {
+        return usable;
+    }
+
+    /**
+     * Dernier retard mesuré en secondes (-1 : inconnu ou réplication arrêtée)
+     */
+    public long getLagSeconds() {
+        return lagSeconds;
+    }
+
+    void check() {
+        boolean wasUsable = usable;
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(lagQuery)) {
+
+            if (!rs.next()) {
+                // Instance autonome (pas de statut de réplication) : considérée à jour,
+                // c'est le cas de deux bases locales indépendantes en test
+                if (!notReplicatingWarned) {
+                    logger.warn("⚠️ La réplique ne rapporte aucun statut de réplication : retard supposé nul");
+                    notReplicatingWarned = true;
+                }
+                lagSeconds = 0;
+                usable = true;
+            } else {
+                Long lag = readLag(rs);
+                lagSeconds = lag != null ? lag : -1;
+                usable = lag != null && lag <= maxLagSeconds;
+            }
+        } catch (Exception e) {
+            lagSeconds = -1;
+            usable = false;
+            if (wasUsable) {
+                logger.error("❌ Réplique injoignable, lectures sur le primaire : {}", e.getMessage());
+            }
+        }
+
+        if (wasUsable != usable) {
+            if (usable) {
+                logger.info("✅ Réplique utilisable (retard {} s), lectures readOnly sur la réplique", lagSeconds);
+            } else {
+                logger.warn("⏳ Réplique écartée (retard {} s, seuil {} s), lectures sur le primaire", lagSeconds, maxLagSeconds);
+            }
+        }
+    }
+
+    // MariaDB : Seconds_Behind_Master ; MySQL 8.0.22+ : Seconds_Behind_Source. NULL = réplication arrêtée
+    private Long readLag(ResultSet rs) throws Exception {
+        ResultSetMetaData meta = rs.getMetaData();
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            String column = meta.getColumnLabel(i);
+            if ("Seconds_Behind_Master".equalsIgnoreCase(column) || "Seconds_Behind_Source".equalsIgnoreCase(column)) {
+                long value = rs.getLong(i);
+                return rs.wasNull() ? null : value;
+            }
+        }
+        // Requête personnalisée : première colonne = retard en secondes
+        long value = rs.getLong(1);
+        return rs.wasNull() ? null : value;
+    }
+}
@@ -0,0 +1,46 @@
+package com.pcagrad.magic.config;
+
+import com.pcagrad.magic.service.MetricsService;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Aiguillage des connexions : transactions readOnly vers la réplique tant que son retard
+ * est acceptable, tout le reste vers le primaire.
+ * <p>
+ * Doit être enveloppé dans un {@code LazyConnectionDataSourceProxy} : la connexion n'est alors
+ * demandée qu'à la première requête, quand l'attribut readOnly de la transaction est connu.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final MetricsService metricsService;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica,
+                                    ReplicaLagMonitor lagMonitor, MetricsService metricsService) {
+        this.lagMonitor = lagMonitor;
+        this.metricsService = metricsService;
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            metricsService.dataSourceRouted(PRIMARY, "write");
+            return PRIMARY;
+        }
+        if (!lagMonitor.isReplicaUsable()) {
+            metricsService.dataSourceRouted(PRIMARY, "replica-lagging");
+            return PRIMARY;
+        }
+        metricsService.dataSourceRouted(REPLICA, "read-only");
+        return REPLICA;
+    }
+}
@@ -2,18 +2,24 @@ package com.pcagrad.magic.controller;
 
 import com.pcagrad.magic.entity.MagicCard;
 import com.pcagrad.magic.repository.CardRepository;
+import com.pcagrad.magic.service.ImageBatchService;
 import com.pcagrad.magic.service.ImageDownloadService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
 import com.pcagrad.magic.service.BackupService;
 
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
@@ -35,6 +41,9 @@ public class ImageController {
     @Autowired
     private BackupService backupService;
 
+    @Autowired
+    private ImageBatchService imageBatchService;
+
     /**
      * Sert une image de carte par son ID
      */
@@ -81,6 +90,87 @@ public class ImageController {
         }
     }
 
+    /**
+     * Images d'une grille en une seule réponse multipart/mixed (une partie par carte)
+     */
+    @PostMapping(value = "/batch", produces = MediaType.MULTIPART_MIXED_VALUE)
+    public ResponseEntity<MultiValueMap<String, Object>> getImageBatch(@RequestBody BatchImageRequest request) {
+        try {
+            ImageBatchService.ImageBundle bundle = imageBatchService.getImageBundle(request.cardIds());
+
+            MultiValueMap<String, Object> parts = new LinkedMultiValueMap<>();
+            bundle.images().forEach((cardId, bytes) -> {
+                HttpHeaders headers = new HttpHeaders();
+                headers.setContentType(MediaType.IMAGE_JPEG);
+                headers.set("Content-ID", cardId.toString());
+                parts.add(cardId.toString(), new HttpEntity<>(new ByteArrayResource(bytes) {
+                    @Override
+                    public String getFilename() {
+                        return cardId + ".jpg";
+                    }
+                }, headers));
+            });
+
+            // Les cartes sans image locale sont listées avec leur URL d'origine
+            if (!bundle.missing().isEmpty()) {
+                HttpHeaders headers = new HttpHeaders();
+                headers.setContentType(MediaType.APPLICATION_JSON);
+                parts.add("missing", new HttpEntity<>(bundle.missing(), headers));
+            }
+
+            return ResponseEntity.ok()
+                    .contentType(MediaType.MULTIPART_MIXED)
+                    .header(HttpHeaders.ETAG, "\"" + bundle.key() + "\"")
+                    .body(parts);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("❌ Erreur lors du lot d'images : {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Génère (ou reprend du cache) la planche d'une grille et renvoie les coordonnées de chaque carte
+     */
+    @PostMapping("/batch/sprite")
+    public ResponseEntity<ImageBatchService.SpriteSheetDescriptor> getImageSprite(@RequestBody BatchImageRequest request) {
+        try {
+            int columns = request.columns() != null ? request.columns() : 10;
+            ImageBatchService.SpriteSheet sheet = imageBatchService.getSpriteSheet(request.cardIds(), columns);
+            return ResponseEntity.ok(sheet.describe("/api/images/batch/sprite/" + sheet.key()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("❌ Erreur lors de la génération de la planche : {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Sert une planche déjà générée ; la clé inclut l'empreinte de chaque image, une planche
+     * recomposée après l'arrivée d'images a donc une autre URL et celle-ci peut être cachée longtemps.
+     * 404 si la planche a quitté le cache : le client redemande ses coordonnées.
+     */
+    @GetMapping("/batch/sprite/{key}")
+    public ResponseEntity<byte[]> getSpriteImage(@PathVariable String key) {
+        return imageBatchService.getCachedSpriteSheet(key)
+                .map(sheet -> ResponseEntity.ok()
+                        .contentType(MediaType.IMAGE_JPEG)
+                        .header(HttpHeaders.CACHE_CONTROL, "max-age=31536000, immutable")
+                        .body(sheet.image()))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Statistiques du cache des lots d'images
+     */
+    @GetMapping("/batch/cache")
+    public ResponseEntity<ImageBatchService.BatchCacheStats> getBatchCacheStats() {
+        return ResponseEntity.ok(imageBatchService.getCacheStats());
+    }
+
     /**
      * Déclenche le téléchargement d'une image spécifique
      */
@@ -153,14 +243,39 @@ public class ImageController {
      * Nettoyage des images orphelines
      */
     @DeleteMapping("/cleanup")
-    public ResponseEntity<String> cleanupOrphanedImages() {
+    public ResponseEntity<ImageDownloadService.CleanupResult> cleanupOrphanedImages() {
         try {
-            // TODO: Implémenter le nettoyage des images orphelines
-            return ResponseEntity.ok("Nettoyage en cours...");
+            return ResponseEntity.ok(imageDownloadService.cleanupOrphanedImages());
         } catch (Exception e) {
             logger.error("❌ Erreur lors du nettoyage : {}", e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Erreur lors du nettoyage");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Rapport de déduplication (blobs, références, octets économisés)
+     */
+    @GetMapping("/dedup-report")
+    public ResponseEntity<ImageDownloadService.DedupReport> getDedupReport() {
+        try {
+            return ResponseEntity.ok(imageDownloadService.getDedupReport());
+        } catch (Exception e) {
+            logger.error("❌ Erreur lors du rapport de déduplication : {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Convertit les images existantes en blobs adressés par contenu
+     */
+    @PostMapping("/dedup/migrate")
+    public ResponseEntity<ImageDownloadService.MigrationResult> migrateLegacyImages() {
+        try {
+            logger.info("♻️ Migration des images vers le stockage par contenu");
+            return ResponseEntity.ok(imageDownloadService.migrateLegacyImages());
+        } catch (Exception e) {
+            logger.error("❌ Erreur lors de la migration des images : {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
@@ -228,6 +343,5 @@ public class ImageController {
         }
     }
 
-
-
-}
\ No newline at end of file
+    public record BatchImageRequest(List<UUID> cardIds, Integer columns) {}
+}
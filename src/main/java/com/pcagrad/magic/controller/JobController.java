@@ -0,0 +1,68 @@
+package com.pcagrad.magic.controller;
+
+import com.pcagrad.magic.dto.ApiResponse;
+import com.pcagrad.magic.service.SyncJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Suivi des tâches de synchronisation lancées en arrière-plan
+ */
+@RestController
+@RequestMapping("/api/jobs")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173", "http://localhost:8080"})
+public class JobController {
+
+    private static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(15);
+
+    @Autowired
+    private SyncJobService syncJobService;
+
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<SyncJobService.JobStatus>>> getJobs() {
+        return ResponseEntity.ok(ApiResponse.success(syncJobService.getJobs()));
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ApiResponse<SyncJobService.JobStatus>> getJob(@PathVariable String jobId) {
+        return syncJobService.getJob(jobId)
+                .map(status -> ResponseEntity.ok(ApiResponse.success(status)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Progression en direct (pages récupérées, cartes sauvegardées, images en file).
+     * Les événements déjà émis sont rejoués : on peut s'abonner après le lancement.
+     */
+    @GetMapping(value = "/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<SyncJobService.JobEvent>>> streamEvents(@PathVariable String jobId) {
+        return syncJobService.getEvents(jobId)
+                .map(events -> {
+                    Flux<ServerSentEvent<SyncJobService.JobEvent>> data = events
+                            .map(event -> ServerSentEvent.builder(event)
+                                    .id(String.valueOf(event.sequence()))
+                                    .event(event.type())
+                                    .build());
+                    // Commentaire périodique pour que les proxys ne coupent pas une tâche silencieuse
+                    Flux<ServerSentEvent<SyncJobService.JobEvent>> heartbeat = Flux.interval(HEARTBEAT_INTERVAL)
+                            .map(tick -> ServerSentEvent.<SyncJobService.JobEvent>builder().comment("keep-alive").build())
+                            .takeUntilOther(events.then());
+                    return ResponseEntity.ok(Flux.merge(data, heartbeat));
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/{jobId}/cancel")
+    public ResponseEntity<ApiResponse<SyncJobService.JobStatus>> cancelJob(@PathVariable String jobId) {
+        return syncJobService.cancel(jobId)
+                .map(status -> ResponseEntity.ok(ApiResponse.success(status, "Annulation demandée")))
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
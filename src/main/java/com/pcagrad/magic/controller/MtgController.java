@@ -2,37 +2,58 @@ package com.pcagrad.magic.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pcagrad.magic.dto.ApiResponse;
+import com.pcagrad.magic.dto.CursorPage;
 import com.pcagrad.magic.entity.CardTranslation;
 import com.pcagrad.magic.entity.MagicCard;
 import com.pcagrad.magic.entity.MagicSet;
+import com.pcagrad.magic.model.CardField;
 import com.pcagrad.magic.model.MtgCard;
 import com.pcagrad.magic.model.MtgSet;
 import com.pcagrad.magic.repository.CardRepository;
 import com.pcagrad.magic.repository.SetRepository;
+import com.pcagrad.magic.service.ArtistService;
+import com.pcagrad.magic.service.CardCatalogueService;
 import com.pcagrad.magic.service.CardPersistenceService;
+import com.pcagrad.magic.service.CatalogueChangeService;
+import com.pcagrad.magic.service.CatalogueExportService;
+import com.pcagrad.magic.service.CatalogueRebuildService;
+import com.pcagrad.magic.service.CatalogueSnapshotService;
+import com.pcagrad.magic.service.CatalogueStatsService;
 import com.pcagrad.magic.service.EntityAdaptationService;
-import com.pcagrad.magic.service.ImageDownloadService;
 import com.pcagrad.magic.service.MtgService;
+import com.pcagrad.magic.service.QueryStatsService;
 import com.pcagrad.magic.service.ScryfallService;
+import com.pcagrad.magic.service.SetGenerationService;
+import com.pcagrad.magic.service.SyncJobService;
+import com.pcagrad.magic.service.UpstreamHttpCache;
+import com.pcagrad.magic.util.CardCatalogue;
+import com.pcagrad.magic.util.CardFacetIndex;
 import com.pcagrad.magic.util.Localization;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/mtg")
 @CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173", "http://localhost:8080"})
+// Lectures sur la réplique quand elle est configurée : tout endpoint qui écrit en requête déclare @Transactional
 @Transactional(readOnly = true)
 public class MtgController {
 
@@ -47,9 +68,6 @@ public class MtgController {
     @Autowired
     private CardRepository cardRepository;
 
-    @Autowired
-    private ImageDownloadService imageDownloadService;
-
     @Autowired
     private ScryfallService scryfallService;
 
@@ -59,6 +77,39 @@ public class MtgController {
     @Autowired
     private EntityAdaptationService adaptationService;
 
+    @Autowired
+    private QueryStatsService queryStatsService;
+
+    @Autowired
+    private UpstreamHttpCache upstreamHttpCache;
+
+    @Autowired
+    private SyncJobService syncJobService;
+
+    @Autowired
+    private SetGenerationService setGenerationService;
+
+    @Autowired
+    private CatalogueExportService catalogueExportService;
+
+    @Autowired
+    private CatalogueChangeService catalogueChangeService;
+
+    @Autowired
+    private CatalogueSnapshotService catalogueSnapshotService;
+
+    @Autowired
+    private CardCatalogueService cardCatalogueService;
+
+    @Autowired
+    private CatalogueRebuildService catalogueRebuildService;
+
+    @Autowired
+    private CatalogueStatsService catalogueStatsService;
+
+    @Autowired
+    private ArtistService artistService;
+
 
 
     // ========== ENDPOINTS ESSENTIELS ADAPTÉS ==========
@@ -100,39 +151,251 @@ public class MtgController {
                         .body(ApiResponse.error("Erreur lors de la récupération de la dernière extension avec cartes")));
     }
 
+    /**
+     * {@code fields=name,rarity,number,imageUrl} : seuls ces champs sont calculés et renvoyés
+     */
     @GetMapping("/sets/{setCode}/cards")
-    public Mono<ResponseEntity<ApiResponse<List<MtgCard>>>> getCardsFromSet(@PathVariable String setCode) {
-        return mtgService.getCardsFromSet(setCode)
+    public Mono<ResponseEntity<ApiResponse<List<MtgCard>>>> getCardsFromSet(
+            @PathVariable String setCode,
+            @RequestParam(required = false) String fields) {
+        Set<CardField> selected;
+        try {
+            selected = CardField.parse(fields);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage())));
+        }
+        return mtgService.getCardsFromSet(setCode, selected)
                 .map(cards -> ResponseEntity.ok(ApiResponse.success(cards,
                         "Cartes de l'extension " + setCode + " récupérées (adaptées)")))
                 .onErrorReturn(ResponseEntity.badRequest()
                         .body(ApiResponse.error("Erreur lors de la récupération des cartes de l'extension " + setCode)));
     }
 
-    @GetMapping("/sets/{setCode}/with-cards")
-    @Transactional(readOnly = true)
-    public ResponseEntity<ApiResponse<Object>> getSetWithCards(@PathVariable String setCode) {
+    /**
+     * Cartes d'une extension diffusées au fil de la lecture : une carte JSON par ligne
+     * ({@code Accept: application/x-ndjson}) ou un événement SSE par carte ({@code text/event-stream}),
+     * triées par nom
+     */
+    @GetMapping(value = "/sets/{setCode}/cards/stream",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public ResponseEntity<Flux<MtgCard>> streamCardsFromSet(@PathVariable String setCode,
+                                                            @RequestParam(required = false) String fields) {
+        Set<CardField> selected;
         try {
-            logger.info("🔍 Récupération de l'extension {} avec cartes (adaptée)", setCode);
+            selected = CardField.parse(fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(mtgService.streamCardsFromSet(setCode, selected)
+                .doOnError(e -> logger.error("❌ Flux des cartes de {} interrompu : {}", setCode, e.getMessage())));
+    }
 
-            Optional<MagicSet> setEntity = setRepository.findByCode(setCode);
+    /**
+     * Cartes d'une extension par pages de curseur : renvoyer {@code nextCursor} pour la page suivante
+     */
+    @GetMapping("/sets/{setCode}/cards/page")
+    public ResponseEntity<ApiResponse<CursorPage<MtgCard>>> getCardsFromSetPage(
+            @PathVariable String setCode,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(defaultValue = "false") boolean count,
+            @RequestParam(required = false) String fields) {
+        try {
+            CursorPage<MtgCard> page = mtgService.getSetCardsPage(setCode, cursor, limit, count, CardField.parse(fields));
+            return ResponseEntity.ok(ApiResponse.success(page,
+                    page.items().size() + " cartes de l'extension " + setCode));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("❌ Erreur pagination des cartes de {} : {}", setCode, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Erreur lors de la récupération des cartes : " + e.getMessage()));
+        }
+    }
 
-            if (setEntity.isEmpty()) {
-                logger.info("🔧 Extension {} non trouvée, création automatique", setCode);
+    @GetMapping("/cards/search")
+    public ResponseEntity<ApiResponse<CursorPage<MtgCard>>> searchCards(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String setCode,
+            @RequestParam(required = false) String rarity,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String artist,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(defaultValue = "false") boolean count,
+            @RequestParam(required = false) String fields) {
+        try {
+            CursorPage<MtgCard> page = mtgService.searchCardsPage(name, setCode, rarity, type, artist,
+                    cursor, limit, count, CardField.parse(fields));
+            return ResponseEntity.ok(ApiResponse.success(page, page.items().size() + " cartes trouvées"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("❌ Erreur recherche de cartes : {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Erreur lors de la recherche : " + e.getMessage()));
+        }
+    }
 
-                MagicSet newSet = new MagicSet();
-                newSet.setCode(setCode);
-                newSet.setName(getSetNameFromCode(setCode));
+    /**
+     * Comptages par facette (rareté, couleur, type, coût converti, extension, drapeaux...) du résultat
+     * filtré, calculés sur l'index en mémoire. Sélection par facette : {@code rarity=mythic,rare&color=U}
+     */
+    @GetMapping("/cards/facets")
+    public ResponseEntity<ApiResponse<CardFacetIndex.FacetCounts>> getCardFacets(
+            @RequestParam(required = false) String setCode,
+            @RequestParam(required = false) String name,
+            @RequestParam Map<String, String> params) {
+        Map<CardFacetIndex.Facet, Set<String>> selected = new EnumMap<>(CardFacetIndex.Facet.class);
+        for (CardFacetIndex.Facet facet : CardFacetIndex.Facet.values()) {
+            String values = params.get(facet.param());
+            if (values != null && !values.isBlank()) {
+                selected.put(facet, Arrays.stream(values.split(","))
+                        .map(String::trim)
+                        .filter(value -> !value.isEmpty())
+                        .collect(Collectors.toSet()));
+            }
+        }
 
-                adaptationService.setMagicSetType(newSet, "expansion");
-                adaptationService.prepareMagicSetForSave(newSet, "expansion");
-                setKnownReleaseDate(newSet, setCode);
+        String setFilter = setCode == null || setCode.isBlank() ? null : setCode;
+        String nameFilter = name == null || name.isBlank() ? null : name.trim();
+        return cardCatalogueService.facets()
+                .map(index -> {
+                    CardFacetIndex.FacetCounts counts = index.count(setFilter, nameFilter, selected);
+                    return ResponseEntity.ok(ApiResponse.success(counts, counts.total() + " cartes"));
+                })
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .body(ApiResponse.error("Catalogue en mémoire pas encore construit")));
+    }
+
+    /**
+     * Modifications du catalogue depuis la version {@code since} (0 = depuis le début du journal) ;
+     * rappeler avec la {@code version} renvoyée tant que {@code hasMore} est vrai
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<ApiResponse<CatalogueChangeService.ChangeFeed>> getChanges(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "500") int limit,
+            @RequestParam(required = false) String fields) {
+        try {
+            CatalogueChangeService.ChangeFeed feed = catalogueChangeService.getChanges(since, limit, CardField.parse(fields));
+            String message = feed.resyncRequired()
+                    ? "Journal tronqué avant la version " + since + " : rechargement complet nécessaire"
+                    : feed.changes().size() + " modifications depuis la version " + since;
+            return ResponseEntity.ok(ApiResponse.success(feed, message));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("❌ Erreur lecture du journal des modifications : {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Erreur lors de la lecture des modifications : " + e.getMessage()));
+        }
+    }
 
-                setEntity = Optional.of(setRepository.save(newSet));
-                logger.info("✅ Extension {} créée automatiquement avec adaptation", setCode);
+    /**
+     * Statistiques du catalogue, lues dans la table maintenue à l'écriture (aucun comptage)
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<ApiResponse<CatalogueStatsService.StatsView>> getCatalogueStats() {
+        return catalogueStatsService.getGlobalStats()
+                .map(stats -> ResponseEntity.ok(ApiResponse.success(stats, "Statistiques du catalogue")))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .body(ApiResponse.error("Statistiques du catalogue en cours de construction")));
+    }
+
+    @GetMapping("/sets/{setCode}/stats")
+    public ResponseEntity<ApiResponse<CatalogueStatsService.StatsView>> getSetStats(@PathVariable String setCode) {
+        return catalogueStatsService.getStats(setCode.toUpperCase())
+                .map(stats -> ResponseEntity.ok(ApiResponse.success(stats, "Statistiques de l'extension " + setCode)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.error("Aucune carte pour l'extension " + setCode)));
+    }
+
+    /**
+     * Artistes par nom ou par nombre de cartes ({@code sort=cards}), filtre par préfixe {@code q}
+     */
+    @GetMapping("/artists")
+    public ResponseEntity<ApiResponse<CursorPage<ArtistService.ArtistSummary>>> getArtists(
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "name") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        try {
+            CursorPage<ArtistService.ArtistSummary> page = artistService.listArtists(q, sort, cursor, limit);
+            return ResponseEntity.ok(ApiResponse.success(page, page.items().size() + " artistes"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/artists/{name}")
+    public ResponseEntity<ApiResponse<ArtistService.ArtistDetail>> getArtist(@PathVariable String name) {
+        return artistService.getArtist(name)
+                .map(artist -> ResponseEntity.ok(ApiResponse.success(artist, "Artiste " + artist.name())))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.error("Artiste inconnu : " + name)));
+    }
+
+    @GetMapping("/artists/{name}/cards")
+    public ResponseEntity<ApiResponse<CursorPage<MtgCard>>> getArtistCards(
+            @PathVariable String name,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String fields) {
+        try {
+            return artistService.getArtistCards(name, cursor, limit, CardField.parse(fields))
+                    .map(page -> ResponseEntity.ok(ApiResponse.success(page, page.items().size() + " cartes de " + name)))
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                            .body(ApiResponse.error("Artiste inconnu : " + name)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Export de toutes les cartes en NDJSON, diffusé au fil de l'eau ; {@code gzip=true} pour un fichier compressé
+     */
+    @GetMapping("/export.ndjson")
+    public void exportCatalogue(@RequestParam(defaultValue = "false") boolean gzip,
+                                HttpServletResponse response) throws IOException {
+        OutputStream out = response.getOutputStream();
+        if (gzip) {
+            response.setContentType("application/gzip");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"cards.ndjson.gz\"");
+            out = new GZIPOutputStream(out, 64 * 1024);
+        } else {
+            response.setContentType("application/x-ndjson");
+        }
+
+        try {
+            catalogueExportService.exportNdjson(out);
+            if (out instanceof GZIPOutputStream gzipOut) {
+                gzipOut.finish();
             }
+            out.flush();
+        } catch (IOException e) {
+            // Le plus souvent un client qui a coupé le téléchargement
+            logger.warn("⚠️ Export NDJSON interrompu : {}", e.getMessage());
+            throw e;
+        }
+    }
+
+    @GetMapping("/sets/{setCode}/with-cards")
+    @Transactional(readOnly = true)
+    public ResponseEntity<ApiResponse<Object>> getSetWithCards(@PathVariable String setCode) {
+        try {
+            logger.info("🔍 Récupération de l'extension {} avec cartes (adaptée)", setCode);
 
-            MagicSet set = setEntity.get();
+            // Extension inconnue : décrite sans être enregistrée, une lecture n'écrit jamais
+            // (création par POST /api/mtg/admin/create-extension)
+            MagicSet set = setRepository.findByCode(setCode).orElseGet(() -> {
+                logger.info("🔍 Extension {} non trouvée en base, réponse sans enregistrement", setCode);
+                MagicSet unknown = new MagicSet();
+                unknown.setCode(setCode);
+                unknown.setName(getSetNameFromCode(setCode));
+                setKnownReleaseDate(unknown, setCode);
+                return unknown;
+            });
             List<MagicCard> cards = cardRepository.findBySetCodeOrderByNameAsc(setCode);
 
             Map<String, Object> response = new HashMap<>();
@@ -172,6 +435,7 @@ public class MtgController {
     // ========== ENDPOINTS D'ADMINISTRATION ADAPTÉS ==========
 
     @PostMapping("/admin/initialize-with-fin")
+    @Transactional
     public ResponseEntity<ApiResponse<Map<String, Object>>> initializeWithFin() {
         try {
             logger.info("🚀 Initialisation de l'application avec Final Fantasy (adaptée)");
@@ -229,60 +493,41 @@ public class MtgController {
     }
 
     @PostMapping("/admin/sync-final-fantasy")
-    public ResponseEntity<ApiResponse<String>> syncFinalFantasy() {
-        try {
-            logger.info("🎮 Synchronisation spéciale Final Fantasy depuis Scryfall (adaptée)");
-
-            mtgService.ensureFinalFantasyExists();
-
-            CompletableFuture.runAsync(() -> {
-                try {
-                    // Supprimer les anciennes cartes
-                    List<MagicCard> existingCards = cardRepository.findBySetCodeOrderByNameAsc("FIN");
-                    if (!existingCards.isEmpty()) {
-                        cardRepository.deleteAll(existingCards);
-                        logger.info("🗑️ {} anciennes cartes Final Fantasy supprimées", existingCards.size());
-                    }
-
-                    // Récupérer depuis Scryfall
-                    List<MtgCard> finCards = scryfallService.fetchAllCardsFromSet("FIN");
-
-                    if (!finCards.isEmpty()) {
-                        int savedCount = persistenceService.saveCards(finCards, "FIN");
-
-                        // Mettre à jour l'extension avec adaptation
-                        Optional<MagicSet> finSet = setRepository.findByCode("FIN");
-                        if (finSet.isPresent()) {
-                            MagicSet set = finSet.get();
-                            set.setCardsCount(savedCount);
-                            setRepository.save(set);
-                        }
+    public ResponseEntity<ApiResponse<SyncJobService.JobStatus>> syncFinalFantasy() {
+        logger.info("🎮 Synchronisation spéciale Final Fantasy depuis Scryfall (adaptée)");
+        return accepted(syncJobService.submitEndpoint("sync-final-fantasy", "FIN",
+                () -> scryfallService.fetchAllCardsFromSet("FIN"), this::runSyncFinalFantasy));
+    }
 
-                        logger.info("🎮 ✅ Final Fantasy synchronisé avec adaptation : {} cartes", savedCount);
+    private ResponseEntity<ApiResponse<Map<String, Object>>> runSyncFinalFantasy(List<MtgCard> finCards) {
+        // Réponse vide (Scryfall indisponible) : les cartes publiées restent en place
+        if (finCards.isEmpty()) {
+            logger.error("❌ Aucune carte Final Fantasy trouvée sur Scryfall");
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Aucune carte Final Fantasy trouvée sur Scryfall"));
+        }
 
-                        try {
-                            imageDownloadService.downloadImagesForSet("FIN");
-                        } catch (Exception e) {
-                            logger.error("❌ Erreur téléchargement images FIN : {}", e.getMessage());
-                        }
+        mtgService.ensureFinalFantasyExists();
 
-                    } else {
-                        logger.error("❌ Aucune carte Final Fantasy trouvée sur Scryfall");
-                    }
+        // Nouvelle génération préparée puis basculée : l'extension n'est jamais vide entre-temps,
+        // les images sont téléchargées après validation
+        SetGenerationService.GenerationSwap swap = setGenerationService.replaceSet("FIN", finCards);
 
-                } catch (Exception e) {
-                    logger.error("❌ Erreur synchronisation Final Fantasy : {}", e.getMessage());
-                }
-            });
+        Optional<MagicSet> finSet = setRepository.findByCode("FIN");
+        if (finSet.isPresent()) {
+            MagicSet set = finSet.get();
+            set.setCardsCount(swap.published());
+            setRepository.save(set);
+        }
 
-            return ResponseEntity.accepted()
-                    .body(ApiResponse.success("Synchronisation Final Fantasy démarrée (adaptée)"));
+        logger.info("🎮 ✅ Final Fantasy synchronisé avec adaptation : {} cartes ({} retirées)",
+                swap.published(), swap.retired());
 
-        } catch (Exception e) {
-            logger.error("❌ Erreur déclenchement sync FIN : {}", e.getMessage());
-            return ResponseEntity.badRequest()
-                    .body(ApiResponse.error("Erreur : " + e.getMessage()));
-        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("cartesRecuperees", finCards.size());
+        result.put("cartesSauvegardees", swap.published());
+        result.put("cartesRetirees", swap.retired());
+        return ResponseEntity.ok(ApiResponse.success(result, "Synchronisation Final Fantasy terminée (adaptée)"));
     }
 
     @PostMapping("/admin/save-set-manually/{setCode}")
@@ -342,16 +587,20 @@ public class MtgController {
     public ResponseEntity<ApiResponse<Map<String, Object>>> getAdminStats() {
         try {
             Map<String, Object> stats = new HashMap<>();
+            Optional<CatalogueStatsService.StatsView> global = catalogueStatsService.getGlobalStats();
 
-            // Stats de base adaptées
-            stats.put("totalCards", cardRepository.count());
+            // Stats de base adaptées (compteurs maintenus à l'écriture, comptage tant qu'ils sont en construction)
+            long totalCards = global.map(CatalogueStatsService.StatsView::cards).orElseGet(cardRepository::count);
+            stats.put("totalCards", totalCards);
             stats.put("totalSets", setRepository.count());
             stats.put("syncedSets", setRepository.countSyncedSets());
-            stats.put("distinctArtists", cardRepository.countDistinctArtists());
+            stats.put("distinctArtists", global.map(CatalogueStatsService.StatsView::artists)
+                    .orElseGet(cardRepository::countDistinctArtists));
 
             // Stats images adaptées
-            long totalImages = cardRepository.count();
-            long downloadedImages = cardRepository.findByImageDownloadedTrueAndLocalImagePathIsNotNull().size();
+            long totalImages = totalCards;
+            long downloadedImages = global.map(CatalogueStatsService.StatsView::images)
+                    .orElseGet(() -> (long) cardRepository.findByImageDownloadedTrueAndLocalImagePathIsNotNull().size());
 
             Map<String, Object> imageStats = new HashMap<>();
             imageStats.put("total", totalImages);
@@ -492,7 +741,85 @@ public class MtgController {
         }
     }
 
+    /**
+     * Requêtes SQL par endpoint, requêtes HTTP au-dessus du seuil et JPQL les plus lentes
+     */
+    @GetMapping("/admin/query-stats")
+    public ResponseEntity<ApiResponse<QueryStatsService.QueryStatsReport>> getQueryStats() {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(queryStatsService.getReport(), "Statistiques des requêtes SQL"));
+        } catch (Exception e) {
+            logger.error("❌ Erreur statistiques requêtes : {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Erreur : " + e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/admin/query-stats")
+    public ResponseEntity<ApiResponse<String>> resetQueryStats() {
+        queryStatsService.reset();
+        return ResponseEntity.ok(ApiResponse.success("Statistiques des requêtes réinitialisées"));
+    }
+
+    /**
+     * État du cache disque des réponses Scryfall / MTG API
+     */
+    @GetMapping("/admin/http-cache")
+    public ResponseEntity<ApiResponse<UpstreamHttpCache.CacheStats>> getHttpCacheStats() {
+        return ResponseEntity.ok(ApiResponse.success(upstreamHttpCache.getStats(), "Cache HTTP amont"));
+    }
+
+    @DeleteMapping("/admin/http-cache")
+    public ResponseEntity<ApiResponse<String>> clearHttpCache() {
+        int removed = upstreamHttpCache.clear();
+        return ResponseEntity.ok(ApiResponse.success("Cache HTTP amont vidé : " + removed + " entrées supprimées"));
+    }
+
+    @GetMapping("/admin/snapshot")
+    public ResponseEntity<ApiResponse<CatalogueSnapshotService.SnapshotStatus>> getSnapshotStatus() {
+        return ResponseEntity.ok(ApiResponse.success(catalogueSnapshotService.getStatus(), "Instantané du catalogue"));
+    }
+
+    @PostMapping("/admin/snapshot/rebuild")
+    public ResponseEntity<ApiResponse<String>> rebuildSnapshot() {
+        // Un seul parcours reconstruit l'instantané et le catalogue en mémoire
+        catalogueRebuildService.requestRebuild();
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success("Reconstruction de l'instantané du catalogue lancée"));
+    }
+
+    @GetMapping("/admin/catalogue/memory")
+    public ResponseEntity<ApiResponse<CardCatalogue.MemoryReport>> getCatalogueMemory() {
+        return cardCatalogueService.current()
+                .map(catalogue -> ResponseEntity.ok(ApiResponse.success(catalogue.memoryReport(),
+                        "Empreinte mémoire estimée du catalogue")))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .body(ApiResponse.error("Catalogue en mémoire pas encore construit")));
+    }
+
+    @PostMapping("/admin/catalogue/rebuild")
+    public ResponseEntity<ApiResponse<String>> rebuildCatalogue() {
+        catalogueRebuildService.requestRebuild();
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success("Reconstruction du catalogue en mémoire lancée"));
+    }
+
+    @PostMapping("/admin/stats/rebuild")
+    public ResponseEntity<ApiResponse<String>> rebuildStats() {
+        catalogueStatsService.requestRebuild();
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success("Recalcul des statistiques du catalogue lancé"));
+    }
+
+    @PostMapping("/admin/artists/reindex")
+    public ResponseEntity<ApiResponse<String>> reindexArtists() {
+        artistService.requestReindex();
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success("Indexation des artistes lancée"));
+    }
+
     @PostMapping("/admin/cleanup-adaptation")
+    @Transactional
     public ResponseEntity<ApiResponse<String>> cleanupAdaptation() {
         try {
             logger.info("🧹 Nettoyage post-adaptation");
@@ -746,26 +1073,32 @@ public class MtgController {
         return futureExtensions.get(setCode.toUpperCase());
     }
 
+    /**
+     * Réponse 202 d'une synchronisation déléguée à une tâche de fond
+     */
+    private ResponseEntity<ApiResponse<SyncJobService.JobStatus>> accepted(SyncJobService.JobStatus job) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success(job, "Tâche lancée, progression sur " + job.eventsUrl()));
+    }
+
     @PostMapping("/admin/save-cards-final-fantasy")
-    @Transactional
-    public ResponseEntity<ApiResponse<Map<String, Object>>> saveCardsFinalFantasy() {
+    public ResponseEntity<ApiResponse<SyncJobService.JobStatus>> saveCardsFinalFantasy() {
+        return accepted(syncJobService.submitEndpoint("save-cards-final-fantasy", "FIN",
+                () -> scryfallService.fetchAllCardsFromSet("FIN"), this::runSaveCardsFinalFantasy));
+    }
+
+    private ResponseEntity<ApiResponse<Map<String, Object>>> runSaveCardsFinalFantasy(List<MtgCard> finCards) {
         try {
             logger.info("💾 Sauvegarde directe des cartes Final Fantasy");
 
-            // Récupérer les cartes depuis Scryfall
-            List<MtgCard> finCards = scryfallService.fetchAllCardsFromSet("FIN");
 
             if (finCards.isEmpty()) {
                 return ResponseEntity.badRequest()
                         .body(ApiResponse.error("Aucune carte Final Fantasy trouvée sur Scryfall"));
             }
 
-            // Supprimer les anciennes cartes
-            cardRepository.deleteBySetCodeIgnoreCase("FIN");
-            cardRepository.flush();
-
-            // *** UTILISER VOTRE SERVICE EXISTANT ***
-            int savedCount = persistenceService.saveCards(finCards, "FIN");
+            // Nouvelle génération préparée puis basculée : l'ancienne reste visible jusque-là
+            int savedCount = setGenerationService.replaceSet("FIN", finCards).published();
 
             Map<String, Object> result = new HashMap<>();
             result.put("cartesRecuperees", finCards.size());
@@ -784,22 +1117,23 @@ public class MtgController {
     }
 
     @PostMapping("/admin/sync-fin-simple")
-    @Transactional
-    public ResponseEntity<ApiResponse<Map<String, Object>>> syncFinSimple() {
+    public ResponseEntity<ApiResponse<SyncJobService.JobStatus>> syncFinSimple() {
+        return accepted(syncJobService.submitEndpoint("sync-fin-simple", "FIN",
+                () -> scryfallService.fetchAllCardsFromSet("FIN"), this::runSyncFinSimple));
+    }
+
+    private ResponseEntity<ApiResponse<Map<String, Object>>> runSyncFinSimple(List<MtgCard> finCards) {
         try {
             logger.info("🎮 Synchronisation Final Fantasy SIMPLE");
 
-            // Récupérer les cartes depuis Scryfall
-            List<MtgCard> finCards = scryfallService.fetchAllCardsFromSet("FIN");
 
             if (finCards.isEmpty()) {
                 return ResponseEntity.badRequest()
                         .body(ApiResponse.error("Aucune carte trouvée"));
             }
 
-            // Supprimer TOUTES les cartes FIN existantes
-            cardRepository.deleteBySetCodeIgnoreCase("FIN");
-            cardRepository.flush();
+            // Nouvelle génération préparée : les cartes FIN actuelles restent visibles jusqu'à la bascule
+            String stagedCode = setGenerationService.beginStaging("FIN");
 
             // Sauvegarder une par une avec une logique simple
             int savedCount = 0;
@@ -808,7 +1142,7 @@ public class MtgController {
                     MagicCard entity = new MagicCard();
 
                     // *** Pas d'ID externe pour éviter les conflits ***
-                    entity.setZPostExtension("FIN");
+                    entity.setZPostExtension(stagedCode);
                     // Par celle-ci (gestion des numéros non numériques) :
                     try {
                         if (mtgCard.number() != null) {
@@ -849,7 +1183,7 @@ public class MtgController {
 
                     entity.setAllowedNotes(new ObjectMapper().writeValueAsString(collections));
 
-                    cardRepository.save(entity);
+                    persistenceService.saveNewCard(entity);
                     savedCount++;
 
                     if (savedCount % 50 == 0) {
@@ -861,6 +1195,10 @@ public class MtgController {
                 }
             }
 
+            // Bascule atomique vers la nouvelle génération ; l'ancienne est nettoyée en arrière-plan
+            SetGenerationService.GenerationSwap swap = setGenerationService.publish("FIN", stagedCode);
+            logger.info("🔀 {} cartes publiées, {} anciennes retirées", swap.published(), swap.retired());
+
             // Mettre à jour l'extension
             Optional<MagicSet> finSet = setRepository.findByCode("FIN");
             if (finSet.isPresent()) {
@@ -920,8 +1258,12 @@ public class MtgController {
      * ✅ ENDPOINT SPÉCIAL : Sauvegarde directe Final Fantasy avec logs détaillés
      */
     @PostMapping("/admin/save-final-fantasy-debug")
-    @Transactional
-    public ResponseEntity<ApiResponse<Map<String, Object>>> saveFinalFantasyDebug() {
+    public ResponseEntity<ApiResponse<SyncJobService.JobStatus>> saveFinalFantasyDebug() {
+        return accepted(syncJobService.submitEndpoint("save-final-fantasy-debug", "FIN",
+                () -> scryfallService.fetchAllCardsFromSet("FIN"), this::runSaveFinalFantasyDebug));
+    }
+
+    private ResponseEntity<ApiResponse<Map<String, Object>>> runSaveFinalFantasyDebug(List<MtgCard> finCards) {
         try {
             logger.info("🎮 === SAUVEGARDE DEBUG FINAL FANTASY ===");
 
@@ -948,9 +1290,7 @@ public class MtgController {
                 debugLogs.add("✅ Extension FIN trouvée");
             }
 
-            // 2. Récupérer les cartes depuis Scryfall
-            debugLogs.add("🔮 Récupération cartes depuis Scryfall...");
-            List<MtgCard> finCards = scryfallService.fetchAllCardsFromSet("FIN");
+            // 2. Cartes récupérées depuis Scryfall avant la transaction
             debugLogs.add(String.format("✅ %d cartes récupérées depuis Scryfall", finCards.size()));
 
             if (finCards.isEmpty()) {
@@ -961,11 +1301,9 @@ public class MtgController {
                         .body(ApiResponse.error("Aucune carte Final Fantasy trouvée"));
             }
 
-            // 3. Nettoyer les anciennes cartes
-            debugLogs.add("🗑️ Suppression anciennes cartes FIN...");
-            int deletedCount = cardRepository.deleteBySetCodeIgnoreCase("FIN");
-            cardRepository.flush();
-            debugLogs.add(String.format("✅ %d anciennes cartes supprimées", deletedCount));
+            // 3. Ouvrir une nouvelle génération (les anciennes cartes restent visibles jusqu'à la bascule)
+            debugLogs.add("📦 Préparation d'une nouvelle génération FIN...");
+            String stagedCode = setGenerationService.beginStaging("FIN");
 
             // 4. Sauvegarder les cartes une par une avec logs détaillés
             debugLogs.add("💾 Début sauvegarde des cartes...");
@@ -981,12 +1319,8 @@ public class MtgController {
                     cardEntity.setId(UUID.randomUUID());
 
                     // ID externe sécurisé
-                    String externalId = mtgCard.id();
-                    if (externalId != null && externalId.length() > 20) {
-                        externalId = Integer.toHexString(mtgCard.id().hashCode()).substring(0, 8);
-                    }
-                    cardEntity.setExternalId(externalId);
-                    cardEntity.setZPostExtension("FIN");
+                    cardEntity.setExternalId(persistenceService.normalizeExternalId(mtgCard.id()));
+                    cardEntity.setZPostExtension(stagedCode);
 
                     // Créer la traduction
                     cardEntity.ensureTranslationExists(Localization.USA);
@@ -1031,7 +1365,7 @@ public class MtgController {
                     cardEntity.setCertifiable(false);
 
                     // Sauvegarder
-                    cardRepository.save(cardEntity);
+                    persistenceService.saveNewCard(cardEntity);
                     savedCount++;
 
                     if (savedCount % 50 == 0) {
@@ -1050,6 +1384,10 @@ public class MtgController {
                 }
             }
 
+            // Bascule atomique vers la nouvelle génération ; l'ancienne est nettoyée en arrière-plan
+            SetGenerationService.GenerationSwap swap = setGenerationService.publish("FIN", stagedCode);
+            debugLogs.add(String.format("🔀 %d cartes publiées, %d anciennes retirées", swap.published(), swap.retired()));
+
             // 5. Mettre à jour les statistiques de l'extension
             debugLogs.add("📊 Mise à jour statistiques extension...");
             MagicSet setToUpdate = finSet.get();
@@ -1095,13 +1433,15 @@ public class MtgController {
      * ✅ ENDPOINT SIMPLE : Version simplifiée sans traductions pour tester
      */
     @PostMapping("/admin/save-final-fantasy-simple")
-    @Transactional
-    public ResponseEntity<ApiResponse<Map<String, Object>>> saveFinalFantasySimple() {
+    public ResponseEntity<ApiResponse<SyncJobService.JobStatus>> saveFinalFantasySimple() {
+        return accepted(syncJobService.submitEndpoint("save-final-fantasy-simple", "FIN",
+                () -> scryfallService.fetchAllCardsFromSet("FIN"), this::runSaveFinalFantasySimple));
+    }
+
+    private ResponseEntity<ApiResponse<Map<String, Object>>> runSaveFinalFantasySimple(List<MtgCard> finCards) {
         try {
             logger.info("🎮 === SAUVEGARDE SIMPLE FINAL FANTASY (SANS TRADUCTIONS) ===");
 
-            // Récupérer les cartes
-            List<MtgCard> finCards = scryfallService.fetchAllCardsFromSet("FIN");
             logger.info("📥 {} cartes récupérées depuis Scryfall", finCards.size());
 
             if (finCards.isEmpty()) {
@@ -1109,10 +1449,8 @@ public class MtgController {
                         .body(ApiResponse.error("Aucune carte récupérée"));
             }
 
-            // Supprimer anciennes cartes
-            int deletedCount = cardRepository.deleteBySetCodeIgnoreCase("FIN");
-            cardRepository.flush();
-            logger.info("🗑️ {} anciennes cartes supprimées", deletedCount);
+            // Nouvelle génération préparée : les anciennes cartes restent visibles jusqu'à la bascule
+            String stagedCode = setGenerationService.beginStaging("FIN");
 
             // Sauvegarder sans traductions (plus simple)
             int savedCount = 0;
@@ -1120,9 +1458,8 @@ public class MtgController {
                 try {
                     MagicCard entity = new MagicCard();
                     entity.setId(UUID.randomUUID());
-                    entity.setExternalId(mtgCard.id() != null && mtgCard.id().length() > 20 ?
-                            Integer.toHexString(mtgCard.id().hashCode()).substring(0, 8) : mtgCard.id());
-                    entity.setZPostExtension("FIN");
+                    entity.setExternalId(persistenceService.normalizeExternalId(mtgCard.id()));
+                    entity.setZPostExtension(stagedCode);
 
                     // Propriétés JSON
                     Map<String, Object> attributes = new HashMap<>();
@@ -1146,7 +1483,7 @@ public class MtgController {
 
                     entity.setAllowedNotes(new ObjectMapper().writeValueAsString(collections));
 
-                    cardRepository.save(entity);
+                    persistenceService.saveNewCard(entity);
                     savedCount++;
 
                     if (savedCount % 50 == 0) {
@@ -1158,6 +1495,10 @@ public class MtgController {
                 }
             }
 
+            // Bascule atomique vers la nouvelle génération ; l'ancienne est nettoyée en arrière-plan
+            SetGenerationService.GenerationSwap swap = setGenerationService.publish("FIN", stagedCode);
+            logger.info("🔀 {} cartes publiées, {} anciennes retirées", swap.published(), swap.retired());
+
             // Mettre à jour l'extension
             Optional<MagicSet> finSet = setRepository.findByCode("FIN");
             if (finSet.isPresent()) {
@@ -1186,13 +1527,15 @@ public class MtgController {
      * À ajouter dans MtgController.java
      */
     @PostMapping("/admin/save-final-fantasy-complete")
-    @Transactional
-    public ResponseEntity<ApiResponse<Map<String, Object>>> saveFinalFantasyComplete() {
+    public ResponseEntity<ApiResponse<SyncJobService.JobStatus>> saveFinalFantasyComplete() {
+        return accepted(syncJobService.submitEndpoint("save-final-fantasy-complete", "FIN",
+                () -> scryfallService.fetchAllCardsFromSet("FIN"), this::runSaveFinalFantasyComplete));
+    }
+
+    private ResponseEntity<ApiResponse<Map<String, Object>>> runSaveFinalFantasyComplete(List<MtgCard> finCards) {
         try {
             logger.info("🎮 === SAUVEGARDE FINAL FANTASY COMPLÈTE (tous champs) ===");
 
-            // 1. Récupérer les cartes
-            List<MtgCard> finCards = scryfallService.fetchAllCardsFromSet("FIN");
             logger.info("📥 {} cartes récupérées", finCards.size());
 
             if (finCards.isEmpty()) {
@@ -1200,12 +1543,7 @@ public class MtgController {
                         .body(ApiResponse.error("Aucune carte récupérée"));
             }
 
-            // 2. Supprimer anciennes cartes
-            int deleted = cardRepository.deleteBySetCodeIgnoreCase("FIN");
-            cardRepository.flush();
-            logger.info("🗑️ {} anciennes cartes supprimées", deleted);
-
-            // 3. S'assurer que l'extension existe
+            // 2. S'assurer que l'extension existe
             Optional<MagicSet> finSetOpt = setRepository.findByCode("FIN");
             if (finSetOpt.isEmpty()) {
                 MagicSet newSet = new MagicSet();
@@ -1220,120 +1558,27 @@ public class MtgController {
                 logger.info("✅ Extension FIN créée");
             }
 
-            // 4. Sauvegarder avec TOUS les champs renseignés
-            int savedCount = 0;
-            int errorCount = 0;
-            ObjectMapper mapper = new ObjectMapper();
-
-            for (MtgCard mtgCard : finCards) {
-                try {
-                    MagicCard entity = new MagicCard();
-                    entity.setId(UUID.randomUUID());
-
-                    // *** ID externe sécurisé ***
-                    String externalId = mtgCard.id() != null ?
-                            (mtgCard.id().length() > 20 ? mtgCard.id().substring(0, 20) : mtgCard.id())
-                            : "fin_" + savedCount;
-                    entity.setExternalId(externalId);
-                    entity.setZPostExtension("FIN");
-
-                    // *** TRADUCTION avec nom correct ***
-                    CardTranslation translation = new CardTranslation();
-                    translation.setId(UUID.randomUUID());
-                    translation.setLocalization(Localization.USA);
-                    translation.setAvailable(true);
-
-                    String cardName = mtgCard.name() != null ? mtgCard.name() : ("Carte " + savedCount);
-                    translation.setName(cardName);
-                    translation.setLabelName(cardName);
-
-                    entity.setTranslation(Localization.USA, translation);
-
-                    // *** CHAMPS DIRECTS DE LA BASE - TOUS RENSEIGNÉS ***
-
-                    // Number
-                    if (mtgCard.number() != null) {
-                        try {
-                            entity.setNumero(Integer.parseInt(mtgCard.number()));
-                            entity.setNumber(mtgCard.number()); // Aussi dans le champ string
-                        } catch (NumberFormatException e) {
-                            entity.setNumber(mtgCard.number()); // Au moins en string
-                        }
-                    }
-
-                    // Propriétés booléennes avec valeurs par défaut
-                    entity.setHasFoil(true);  // Par défaut true pour MTG
-                    entity.setHasNonFoil(true);
-                    entity.setIsFoilOnly(false);  // Par défaut false
-                    entity.setIsOnlineOnly(false); // Par défaut false
-                    entity.setIsOversized(false);
-                    entity.setIsTimeshifted(false);
-                    entity.setIsToken(false);
-                    entity.setIsReclassee(false);
-                    entity.setHasDateFr(false);
-                    entity.setIsAffichable(true);
-                    entity.setHasRecherche(true);
-                    entity.setCertifiable(false);
-                    entity.setHasImg(false);
-
-                    // *** JSON ATTRIBUTES avec toutes les propriétés ***
-                    Map<String, Object> attributes = new HashMap<>();
-                    attributes.put("name", cardName);
-                    attributes.put("manaCost", mtgCard.manaCost());
-                    attributes.put("cmc", mtgCard.cmc());
-                    attributes.put("type", mtgCard.type());
-                    attributes.put("rarity", mtgCard.rarity());
-                    attributes.put("text", mtgCard.text());
-                    attributes.put("artist", mtgCard.artist());
-                    attributes.put("power", mtgCard.power());
-                    attributes.put("toughness", mtgCard.toughness());
-                    attributes.put("layout", mtgCard.layout() != null ? mtgCard.layout() : "normal");
-                    attributes.put("multiverseid", mtgCard.multiverseid());
-                    attributes.put("setName", mtgCard.setName());
-
-                    // *** NOUVEAUX CHAMPS IMPORTANTS ***
-                    attributes.put("number", mtgCard.number());
-                    attributes.put("imageUrl", mtgCard.imageUrl());
-
-                    entity.setAttributes(mapper.writeValueAsString(attributes));
-
-                    // *** JSON COLLECTIONS avec colors, colorIdentity, types ***
-                    Map<String, Object> collections = new HashMap<>();
-                    collections.put("colors", mtgCard.colors() != null ? mtgCard.colors() : new ArrayList<>());
-                    collections.put("colorIdentity", mtgCard.colorIdentity() != null ? mtgCard.colorIdentity() : new ArrayList<>());
-                    collections.put("types", mtgCard.types() != null ? mtgCard.types() : new ArrayList<>());
-                    collections.put("subtypes", mtgCard.subtypes() != null ? mtgCard.subtypes() : new ArrayList<>());
-                    collections.put("supertypes", mtgCard.supertypes() != null ? mtgCard.supertypes() : new ArrayList<>());
-
-                    entity.setAllowedNotes(mapper.writeValueAsString(collections));
-
-                    // *** URL d'image ***
-                    if (mtgCard.imageUrl() != null && !mtgCard.imageUrl().isEmpty()) {
-                        entity.setOriginalImageUrl(mtgCard.imageUrl());
-                    }
-
-                    // *** MÉTHODES POUR ACCÉDER AUX DONNÉES JSON ***
-                    // Ces méthodes existent déjà dans MagicCard pour lire les JSON
-                    // entity.getRarity() lira attributes.rarity
-                    // entity.getColors() lira allowedNotes.colors
-                    // entity.getTypes() lira allowedNotes.types
-                    // etc.
-
-                    // Sauvegarder l'entité complète
-                    cardRepository.save(entity);
-                    savedCount++;
-
-                    if (savedCount % 50 == 0) {
-                        logger.info("📊 {} cartes complètes sauvegardées...", savedCount);
-                    }
-
-                } catch (Exception e) {
-                    errorCount++;
-                    logger.error("❌ Erreur carte {} : {}", mtgCard.name(), e.getMessage());
-                }
-            }
+            // 3. Synchronisation différentielle : seules les cartes nouvelles ou modifiées sont écrites
+            CardPersistenceService.SyncDelta delta = persistenceService.syncCardsDelta("FIN", finCards, entity -> {
+                // Propriétés booléennes avec valeurs par défaut (nouvelles cartes uniquement)
+                entity.setHasFoil(true);  // Par défaut true pour MTG
+                entity.setHasNonFoil(true);
+                entity.setIsFoilOnly(false);  // Par défaut false
+                entity.setIsOnlineOnly(false); // Par défaut false
+                entity.setIsOversized(false);
+                entity.setIsTimeshifted(false);
+                entity.setIsToken(false);
+                entity.setIsReclassee(false);
+                entity.setHasDateFr(false);
+                entity.setIsAffichable(true);
+                entity.setHasRecherche(true);
+                entity.setCertifiable(false);
+                entity.setHasImg(false);
+            });
+            int savedCount = delta.added() + delta.changed() + delta.unchanged();
+            int errorCount = delta.skipped();
 
-            // 5. Mettre à jour l'extension
+            // 4. Mettre à jour l'extension
             Optional<MagicSet> finSet = setRepository.findByCode("FIN");
             if (finSet.isPresent()) {
                 MagicSet set = finSet.get();
@@ -1341,7 +1586,7 @@ public class MtgController {
                 setRepository.save(set);
             }
 
-            // 6. Vérification des champs
+            // 5. Vérification des champs
             List<MagicCard> sampleCards = cardRepository.findBySetCode("FIN").stream().limit(3).toList();
             List<Map<String, Object>> verification = new ArrayList<>();
 
@@ -1363,6 +1608,10 @@ public class MtgController {
             Map<String, Object> result = new HashMap<>();
             result.put("cartesRecuperees", finCards.size());
             result.put("cartesSauvegardees", savedCount);
+            result.put("cartesAjoutees", delta.added());
+            result.put("cartesModifiees", delta.changed());
+            result.put("cartesInchangees", delta.unchanged());
+            result.put("cartesSupprimees", delta.removed());
             result.put("cartesEnErreur", errorCount);
             result.put("tauxSucces", finCards.size() > 0 ? (savedCount * 100.0) / finCards.size() : 0);
             result.put("succes", savedCount >= 300);
@@ -1412,13 +1661,15 @@ public class MtgController {
      * À ajouter dans MtgController.java
      */
     @PostMapping("/admin/save-final-fantasy-service")
-    @Transactional
-    public ResponseEntity<ApiResponse<Map<String, Object>>> saveFinalFantasyWithService() {
+    public ResponseEntity<ApiResponse<SyncJobService.JobStatus>> saveFinalFantasyWithService() {
+        return accepted(syncJobService.submitEndpoint("save-final-fantasy-service", "FIN",
+                () -> scryfallService.fetchAllCardsFromSet("FIN"), this::runSaveFinalFantasyWithService));
+    }
+
+    private ResponseEntity<ApiResponse<Map<String, Object>>> runSaveFinalFantasyWithService(List<MtgCard> finCards) {
         try {
             logger.info("🎮 === SAUVEGARDE FINAL FANTASY AVEC SERVICE EXISTANT ===");
 
-            // 1. Récupérer les cartes depuis Scryfall
-            List<MtgCard> finCards = scryfallService.fetchAllCardsFromSet("FIN");
             logger.info("📥 {} cartes récupérées depuis Scryfall", finCards.size());
 
             if (finCards.isEmpty()) {
@@ -1426,13 +1677,7 @@ public class MtgController {
                         .body(ApiResponse.error("Aucune carte récupérée depuis Scryfall"));
             }
 
-            // 2. Supprimer les anciennes cartes FIN
-            logger.info("🗑️ Suppression des anciennes cartes FIN...");
-            int deletedCount = cardRepository.deleteBySetCodeIgnoreCase("FIN");
-            cardRepository.flush();
-            logger.info("✅ {} anciennes cartes supprimées", deletedCount);
-
-            // 3. S'assurer que l'extension FIN existe
+            // 2. S'assurer que l'extension FIN existe
             Optional<MagicSet> finSetOpt = setRepository.findByCode("FIN");
             if (finSetOpt.isEmpty()) {
                 logger.info("🔧 Création de l'extension FIN...");
@@ -1449,11 +1694,13 @@ public class MtgController {
                 logger.info("✅ Extension FIN créée");
             }
 
-            // 4. *** UTILISER LE SERVICE EXISTANT QUI GÈRE TOUT ***
-            logger.info("💾 Sauvegarde avec le service CardPersistenceService...");
-            int savedCount = persistenceService.saveCards(finCards, "FIN");
+            // 3. Nouvelle génération préparée puis basculée ; l'ancienne est nettoyée en arrière-plan
+            logger.info("💾 Remplacement des cartes FIN par génération...");
+            SetGenerationService.GenerationSwap swap = setGenerationService.replaceSet("FIN", finCards);
+            int savedCount = swap.published();
+            logger.info("✅ {} anciennes cartes retirées", swap.retired());
 
-            // 5. Résultat
+            // 4. Résultat
             Map<String, Object> result = new HashMap<>();
             result.put("cartesRecuperees", finCards.size());
             result.put("cartesSauvegardees", savedCount);
@@ -1495,15 +1742,18 @@ public class MtgController {
      * À ajouter aussi dans MtgController.java
      */
     @PostMapping("/admin/test-final-fantasy")
-    @Transactional
-    public ResponseEntity<ApiResponse<Map<String, Object>>> testFinalFantasy() {
+    public ResponseEntity<ApiResponse<SyncJobService.JobStatus>> testFinalFantasy() {
+        return accepted(syncJobService.submitEndpoint("test-final-fantasy", "FIN",
+                () -> scryfallService.fetchAllCardsFromSet("FIN"), this::runTestFinalFantasy));
+    }
+
+    private ResponseEntity<ApiResponse<Map<String, Object>>> runTestFinalFantasy(List<MtgCard> finCards) {
         try {
             logger.info("🧪 === TEST SIMPLE FINAL FANTASY ===");
 
             Map<String, Object> result = new HashMap<>();
 
             // 1. Test récupération Scryfall
-            List<MtgCard> finCards = scryfallService.fetchAllCardsFromSet("FIN");
             result.put("scryfallCartes", finCards.size());
             logger.info("📥 {} cartes depuis Scryfall", finCards.size());
 
@@ -1518,20 +1768,13 @@ public class MtgController {
             long cartesEnBase = cardRepository.countBySetCode("FIN");
             result.put("cartesEnBase", cartesEnBase);
 
-            // 4. Test suppression (pour voir si ça marche)
-            if (cartesEnBase > 0) {
-                int deleted = cardRepository.deleteBySetCodeIgnoreCase("FIN");
-                cardRepository.flush();
-                result.put("cartesSupprimes", deleted);
-                logger.info("🗑️ {} cartes supprimées pour le test", deleted);
-            }
-
-            // 5. Sauvegarder juste 5 cartes pour tester
+            // 4. Remplacer l'extension par 5 cartes de test (génération préparée puis basculée)
             if (!finCards.isEmpty()) {
                 List<MtgCard> testCards = finCards.subList(0, Math.min(5, finCards.size()));
-                int saved = persistenceService.saveCards(testCards, "FIN");
-                result.put("cartesTestSauvees", saved);
-                logger.info("💾 {} cartes de test sauvegardées", saved);
+                SetGenerationService.GenerationSwap swap = setGenerationService.replaceSet("FIN", testCards);
+                result.put("cartesSupprimes", swap.retired());
+                result.put("cartesTestSauvees", swap.published());
+                logger.info("💾 {} cartes de test publiées, {} retirées", swap.published(), swap.retired());
             }
 
             result.put("success", true);
@@ -1556,13 +1799,15 @@ public class MtgController {
      * ✅ ENDPOINT ULTRA SIMPLE - JSON seulement, pas de traductions
      */
     @PostMapping("/admin/save-final-fantasy-json")
-    @Transactional
-    public ResponseEntity<ApiResponse<Map<String, Object>>> saveFinalFantasyJsonOnly() {
+    public ResponseEntity<ApiResponse<SyncJobService.JobStatus>> saveFinalFantasyJsonOnly() {
+        return accepted(syncJobService.submitEndpoint("save-final-fantasy-json", "FIN",
+                () -> scryfallService.fetchAllCardsFromSet("FIN"), this::runSaveFinalFantasyJsonOnly));
+    }
+
+    private ResponseEntity<ApiResponse<Map<String, Object>>> runSaveFinalFantasyJsonOnly(List<MtgCard> finCards) {
         try {
             logger.info("🎮 === SAUVEGARDE FINAL FANTASY JSON SEULEMENT ===");
 
-            // Récupérer les cartes
-            List<MtgCard> finCards = scryfallService.fetchAllCardsFromSet("FIN");
             logger.info("📥 {} cartes récupérées", finCards.size());
 
             if (finCards.isEmpty()) {
@@ -1570,10 +1815,8 @@ public class MtgController {
                         .body(ApiResponse.error("Aucune carte récupérée"));
             }
 
-            // Supprimer anciennes
-            int deleted = cardRepository.deleteBySetCodeIgnoreCase("FIN");
-            cardRepository.flush();
-            logger.info("🗑️ {} anciennes cartes supprimées", deleted);
+            // Nouvelle génération préparée : les anciennes cartes restent visibles jusqu'à la bascule
+            String stagedCode = setGenerationService.beginStaging("FIN");
 
             // Sauvegarder SANS traductions (uniquement JSON)
             int savedCount = 0;
@@ -1586,7 +1829,7 @@ public class MtgController {
                     entity.setExternalId(mtgCard.id() != null ?
                             (mtgCard.id().length() > 20 ? mtgCard.id().substring(0, 20) : mtgCard.id())
                             : "fin_" + savedCount);
-                    entity.setZPostExtension("FIN");
+                    entity.setZPostExtension(stagedCode);
 
                     // TOUT en JSON dans attributes
                     Map<String, Object> attributes = new HashMap<>();
@@ -1615,7 +1858,7 @@ public class MtgController {
                     entity.setCertifiable(false);
                     entity.setHasImg(false);
 
-                    cardRepository.save(entity);
+                    persistenceService.saveNewCard(entity);
                     savedCount++;
 
                     if (savedCount % 50 == 0) {
@@ -1627,6 +1870,10 @@ public class MtgController {
                 }
             }
 
+            // Bascule atomique vers la nouvelle génération ; l'ancienne est nettoyée en arrière-plan
+            SetGenerationService.GenerationSwap swap = setGenerationService.publish("FIN", stagedCode);
+            logger.info("🔀 {} cartes publiées, {} anciennes retirées", swap.published(), swap.retired());
+
             Map<String, Object> result = new HashMap<>();
             result.put("cartesRecuperees", finCards.size());
             result.put("cartesSauvegardees", savedCount);
@@ -1650,13 +1897,15 @@ public class MtgController {
      * À ajouter dans MtgController.java
      */
     @PostMapping("/admin/save-final-fantasy-names-fixed")
-    @Transactional
-    public ResponseEntity<ApiResponse<Map<String, Object>>> saveFinalFantasyNamesFixed() {
+    public ResponseEntity<ApiResponse<SyncJobService.JobStatus>> saveFinalFantasyNamesFixed() {
+        return accepted(syncJobService.submitEndpoint("save-final-fantasy-names-fixed", "FIN",
+                () -> scryfallService.fetchAllCardsFromSet("FIN"), this::runSaveFinalFantasyNamesFixed));
+    }
+
+    private ResponseEntity<ApiResponse<Map<String, Object>>> runSaveFinalFantasyNamesFixed(List<MtgCard> finCards) {
         try {
             logger.info("🎮 === SAUVEGARDE FINAL FANTASY AVEC NOMS CORRECTS ===");
 
-            // 1. Récupérer les cartes
-            List<MtgCard> finCards = scryfallService.fetchAllCardsFromSet("FIN");
             logger.info("📥 {} cartes récupérées", finCards.size());
 
             if (finCards.isEmpty()) {
@@ -1664,10 +1913,8 @@ public class MtgController {
                         .body(ApiResponse.error("Aucune carte récupérée"));
             }
 
-            // 2. Supprimer anciennes cartes
-            int deleted = cardRepository.deleteBySetCodeIgnoreCase("FIN");
-            cardRepository.flush();
-            logger.info("🗑️ {} anciennes cartes supprimées", deleted);
+            // 2. Nouvelle génération préparée : les anciennes cartes restent visibles jusqu'à la bascule
+            String stagedCode = setGenerationService.beginStaging("FIN");
 
             // 3. S'assurer que l'extension existe
             Optional<MagicSet> finSetOpt = setRepository.findByCode("FIN");
@@ -1699,7 +1946,7 @@ public class MtgController {
                             (mtgCard.id().length() > 20 ? mtgCard.id().substring(0, 20) : mtgCard.id())
                             : "fin_" + savedCount;
                     entity.setExternalId(externalId);
-                    entity.setZPostExtension("FIN");
+                    entity.setZPostExtension(stagedCode);
 
                     // *** CORRECTION 1: Utiliser setTranslation() au lieu de put() ***
                     CardTranslation translation = new CardTranslation();
@@ -1758,7 +2005,7 @@ public class MtgController {
                     }
 
                     // Sauvegarder l'entité avec sa traduction
-                    cardRepository.save(entity);
+                    persistenceService.saveNewCard(entity);
                     savedCount++;
 
                     if (savedCount % 50 == 0) {
@@ -1771,6 +2018,10 @@ public class MtgController {
                 }
             }
 
+            // Bascule atomique vers la nouvelle génération ; l'ancienne est nettoyée en arrière-plan
+            SetGenerationService.GenerationSwap swap = setGenerationService.publish("FIN", stagedCode);
+            logger.info("🔀 {} cartes publiées, {} anciennes retirées", swap.published(), swap.retired());
+
             // 5. Mettre à jour l'extension
             Optional<MagicSet> finSet = setRepository.findByCode("FIN");
             if (finSet.isPresent()) {
@@ -1813,12 +2064,15 @@ public class MtgController {
      * ✅ ALTERNATIVE: Sauvegarder carte et traduction séparément
      */
     @PostMapping("/admin/save-final-fantasy-separate")
-    @Transactional
-    public ResponseEntity<ApiResponse<Map<String, Object>>> saveFinalFantasySeparate() {
+    public ResponseEntity<ApiResponse<SyncJobService.JobStatus>> saveFinalFantasySeparate() {
+        return accepted(syncJobService.submitEndpoint("save-final-fantasy-separate", "FIN",
+                () -> scryfallService.fetchAllCardsFromSet("FIN"), this::runSaveFinalFantasySeparate));
+    }
+
+    private ResponseEntity<ApiResponse<Map<String, Object>>> runSaveFinalFantasySeparate(List<MtgCard> finCards) {
         try {
             logger.info("🎮 === SAUVEGARDE FINAL FANTASY SÉPARÉE ===");
 
-            List<MtgCard> finCards = scryfallService.fetchAllCardsFromSet("FIN");
             logger.info("📥 {} cartes récupérées", finCards.size());
 
             if (finCards.isEmpty()) {
@@ -1826,10 +2080,8 @@ public class MtgController {
                         .body(ApiResponse.error("Aucune carte récupérée"));
             }
 
-            // Supprimer anciennes cartes ET leurs traductions
-            int deleted = cardRepository.deleteBySetCodeIgnoreCase("FIN");
-            cardRepository.flush();
-            logger.info("🗑️ {} anciennes cartes supprimées", deleted);
+            // Nouvelle génération préparée : les anciennes cartes restent visibles jusqu'à la bascule
+            String stagedCode = setGenerationService.beginStaging("FIN");
 
             // S'assurer que l'extension existe
             Optional<MagicSet> finSetOpt = setRepository.findByCode("FIN");
@@ -1859,7 +2111,7 @@ public class MtgController {
                             (mtgCard.id().length() > 20 ? mtgCard.id().substring(0, 20) : mtgCard.id())
                             : "fin_" + savedCount;
                     entity.setExternalId(externalId);
-                    entity.setZPostExtension("FIN");
+                    entity.setZPostExtension(stagedCode);
 
                     // JSON attributes
                     Map<String, Object> attributes = new HashMap<>();
@@ -1889,7 +2141,7 @@ public class MtgController {
                     entity.setHasImg(false);
 
                     // SAUVEGARDER LA CARTE D'ABORD
-                    MagicCard savedEntity = cardRepository.save(entity);
+                    MagicCard savedEntity = persistenceService.saveNewCard(entity);
 
                     // 2. Créer et sauvegarder la TRADUCTION séparément
                     CardTranslation translation = new CardTranslation();
@@ -1924,6 +2176,10 @@ public class MtgController {
                 }
             }
 
+            // Bascule atomique vers la nouvelle génération ; l'ancienne est nettoyée en arrière-plan
+            SetGenerationService.GenerationSwap swap = setGenerationService.publish("FIN", stagedCode);
+            logger.info("🔀 {} cartes publiées, {} anciennes retirées", swap.published(), swap.retired());
+
             Map<String, Object> result = new HashMap<>();
             result.put("cartesRecuperees", finCards.size());
             result.put("cartesSauvegardees", savedCount);
@@ -2073,13 +2329,15 @@ public class MtgController {
      * À ajouter dans MtgController.java
      */
     @PostMapping("/admin/save-final-fantasy-fixed")
-    @Transactional
-    public ResponseEntity<ApiResponse<Map<String, Object>>> saveFinalFantasyFixed() {
+    public ResponseEntity<ApiResponse<SyncJobService.JobStatus>> saveFinalFantasyFixed() {
+        return accepted(syncJobService.submitEndpoint("save-final-fantasy-fixed", "FIN",
+                () -> scryfallService.fetchAllCardsFromSet("FIN"), this::runSaveFinalFantasyFixed));
+    }
+
+    private ResponseEntity<ApiResponse<Map<String, Object>>> runSaveFinalFantasyFixed(List<MtgCard> finCards) {
         try {
             logger.info("🔧 === SAUVEGARDE FINAL FANTASY CORRIGÉE ===");
 
-            // 1. Récupérer les cartes depuis Scryfall
-            List<MtgCard> finCards = scryfallService.fetchAllCardsFromSet("FIN");
             logger.info("📥 {} cartes récupérées depuis Scryfall", finCards.size());
 
             if (finCards.isEmpty()) {
@@ -2087,23 +2345,9 @@ public class MtgController {
                         .body(ApiResponse.error("Aucune carte récupérée depuis Scryfall"));
             }
 
-            // 2. SUPPRESSION COMPLÈTE des cartes existantes avec leurs traductions
-            logger.info("🗑️ Suppression complète des cartes FIN existantes...");
-
-            // Supprimer d'abord les traductions
-            List<MagicCard> existingCards = cardRepository.findBySetCode("FIN");
-            for (MagicCard card : existingCards) {
-                if (card.getTranslations() != null) {
-                    card.getTranslations().clear();
-                }
-            }
-            cardRepository.saveAll(existingCards);
-            cardRepository.flush();
-
-            // Puis supprimer les cartes
-            int deletedCount = cardRepository.deleteBySetCodeIgnoreCase("FIN");
-            cardRepository.flush();
-            logger.info("✅ {} cartes supprimées", deletedCount);
+            // 2. Nouvelle génération préparée : les cartes FIN actuelles (et leurs traductions)
+            // restent visibles jusqu'à la bascule, puis sont supprimées en arrière-plan
+            String stagedCode = setGenerationService.beginStaging("FIN");
 
             // 3. S'assurer que l'extension existe
             Optional<MagicSet> finSetOpt = setRepository.findByCode("FIN");
@@ -2134,7 +2378,7 @@ public class MtgController {
                             (mtgCard.id().length() > 20 ? mtgCard.id().substring(0, 20) : mtgCard.id())
                             : "fin_" + savedCount;
                     entity.setExternalId(externalId);
-                    entity.setSetCode("FIN"); // utilise zPostExtension
+                    entity.setSetCode(stagedCode); // utilise zPostExtension
 
                     // *** CHAMPS JSON ATTRIBUTES COMPLETS ***
                     Map<String, Object> attributes = new HashMap<>();
@@ -2197,10 +2441,10 @@ public class MtgController {
                     translation.setTranslatable(entity);
 
                     // Ajouter la traduction à l'entité
-                    entity.getTranslations().put(Localization.USA, translation);
+                    entity.setTranslation(Localization.USA, translation);
 
                     // Sauvegarder directement
-                    MagicCard savedCard = cardRepository.save(entity);
+                    MagicCard savedCard = persistenceService.saveNewCard(entity);
                     savedCount++;
 
                     if (savedCount % 50 == 0) {
@@ -2213,6 +2457,10 @@ public class MtgController {
                 }
             }
 
+            // Bascule atomique vers la nouvelle génération ; l'ancienne est nettoyée en arrière-plan
+            SetGenerationService.GenerationSwap swap = setGenerationService.publish("FIN", stagedCode);
+            logger.info("🔀 {} cartes publiées, {} anciennes retirées", swap.published(), swap.retired());
+
             // 5. Mettre à jour l'extension
             Optional<MagicSet> finSet = setRepository.findByCode("FIN");
             if (finSet.isPresent()) {
@@ -3,24 +3,30 @@ package com.pcagrad.magic.controller;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pcagrad.magic.dto.ApiResponse;
-import com.pcagrad.magic.entity.MagicSet;
 import com.pcagrad.magic.model.MtgCard;
+import com.pcagrad.magic.service.CatalogueRefreshService;
 import com.pcagrad.magic.service.ScryfallService;
+import com.pcagrad.magic.service.SetGenerationService;
 import com.pcagrad.magic.service.CardPersistenceService;
 import com.pcagrad.magic.service.ImageDownloadService;
+import com.pcagrad.magic.service.SyncJobService;
+import com.pcagrad.magic.service.SyncProgress;
+import com.pcagrad.magic.service.SyncOrchestratorService;
 import com.pcagrad.magic.repository.CardRepository;
 import com.pcagrad.magic.repository.SetRepository;
+import com.pcagrad.magic.util.AfterCommit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.client.RestTemplate;
-import reactor.core.publisher.Mono;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
-import java.time.LocalDateTime;
+import java.time.LocalDate;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
@@ -47,58 +53,86 @@ public class ScryfallController {
     @Autowired
     private SetRepository setRepository;
 
+    @Autowired
+    private SyncOrchestratorService syncOrchestratorService;
+
+    @Autowired
+    private SyncJobService syncJobService;
+
+    @Autowired
+    private SetGenerationService setGenerationService;
+
+    @Autowired
+    private CatalogueRefreshService catalogueRefreshService;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Autowired
+    private RestTemplate restTemplate;
+
+    // Configurable pour pointer vers un serveur de substitution (benchmarks hors ligne)
+    @Value("${mtg.scryfall.base-url:https://api.scryfall.com}")
+    private String scryfallBaseUrl;
 
     /**
      * Synchronisation standard d'une extension via Scryfall
      */
     @PostMapping("/sync/{setCode}")
-    public ResponseEntity<ApiResponse<Object>> syncSetFromScryfall(@PathVariable String setCode) {
-        try {
-            logger.info("🔮 Synchronisation Scryfall pour : {}", setCode);
+    public ResponseEntity<ApiResponse<SyncJobService.JobStatus>> syncSetFromScryfall(@PathVariable String setCode) {
+        return accepted(syncJobService.submitEndpoint("sync", setCode,
+                () -> fetchSetFromScryfall(setCode), fetched -> runSyncSetFromScryfall(setCode, fetched)));
+    }
+
+    // Appels Scryfall de la synchronisation, hors transaction
+    private ScryfallFetch fetchSetFromScryfall(String setCode) {
+        logger.info("🔮 Synchronisation Scryfall pour : {}", setCode);
+
+        // Vérifier si l'extension existe sur Scryfall
+        ScryfallService.SetInfo setInfo = scryfallService.getSetInfo(setCode).block();
+        if (setInfo == null || !setInfo.exists()) {
+            return new ScryfallFetch(setInfo, List.of());
+        }
 
-            // Vérifier si l'extension existe sur Scryfall
-            Mono<ScryfallService.SetInfo> setInfoMono = scryfallService.getSetInfo(setCode);
-            ScryfallService.SetInfo setInfo = setInfoMono.block();
+        logger.info("📊 Extension {} trouvée : {} - {} cartes attendues",
+                setCode, setInfo.name(), setInfo.expectedCardCount());
+        return new ScryfallFetch(setInfo, scryfallService.fetchAllCardsFromSet(setCode));
+    }
 
+    private ResponseEntity<ApiResponse<Object>> runSyncSetFromScryfall(String setCode, ScryfallFetch fetched) {
+        try {
+            ScryfallService.SetInfo setInfo = fetched.setInfo();
             if (setInfo == null || !setInfo.exists()) {
                 return ResponseEntity.badRequest()
                         .body(ApiResponse.error("Extension " + setCode + " non trouvée sur Scryfall"));
             }
 
-            logger.info("📊 Extension {} trouvée : {} - {} cartes attendues",
-                    setCode, setInfo.name(), setInfo.expectedCardCount());
-
-            // Supprimer les anciennes cartes si elles existent
-            int deletedCount = cardRepository.deleteBySetCodeIgnoreCase(setCode);
-            if (deletedCount > 0) {
-                logger.info("🗑️ {} anciennes cartes supprimées pour {}", deletedCount, setCode);
-            }
-
-            // Récupérer et sauvegarder les cartes
-            List<MtgCard> cards = scryfallService.fetchAllCardsFromSet(setCode);
+            // N'écrire que les différences avec la base
+            List<MtgCard> cards = fetched.cards();
 
             if (!cards.isEmpty()) {
-                int savedCount = cardPersistenceService.saveCards(cards, setCode);
+                CardPersistenceService.SyncDelta delta = cardPersistenceService.syncCardsDelta(setCode, cards);
 
                 // Mettre à jour l'extension
                 updateSetEntity(setCode, setInfo.name(), cards.size());
 
-                // Déclencher le téléchargement des images en arrière-plan
-                CompletableFuture.runAsync(() -> {
+                // Télécharger les images manquantes une fois les cartes validées en base
+                // (les cartes inchangées gardent la leur)
+                AfterCommit.run(() -> CompletableFuture.runAsync(SyncProgress.propagate(() -> {
                     try {
                         imageDownloadService.downloadImagesForSet(setCode);
                     } catch (Exception e) {
                         logger.error("❌ Erreur téléchargement images {} : {}", setCode, e.getMessage());
                     }
-                });
+                })));
 
                 Map<String, Object> result = new HashMap<>();
                 result.put("setCode", setCode);
                 result.put("setName", setInfo.name());
                 result.put("cardsFound", cards.size());
-                result.put("cardsSaved", savedCount);
+                result.put("cardsSaved", delta.added() + delta.changed());
+                result.put("cardsAdded", delta.added());
+                result.put("cardsChanged", delta.changed());
+                result.put("cardsUnchanged", delta.unchanged());
+                result.put("cardsRemoved", delta.removed());
                 result.put("expectedCards", setInfo.expectedCardCount());
 
                 String message = String.format("Extension %s synchronisée : %d cartes trouvées",
@@ -117,34 +151,92 @@ public class ScryfallController {
         }
     }
 
-    @PostMapping("/sync-final-fantasy-advanced")
-    public ResponseEntity<ApiResponse<Object>> syncFinalFantasyAdvanced() {
+    /**
+     * Synchronisation de plusieurs extensions en arrière-plan (liste explicite,
+     * extensions sorties depuis une date, ou tout le catalogue)
+     */
+    @PostMapping("/sync-batch")
+    public ResponseEntity<ApiResponse<SyncOrchestratorService.SyncRunStatus>> startBatchSync(
+            @RequestBody BatchSyncRequest request) {
         try {
-            logger.info("🎮 Synchronisation AVANCÉE Final Fantasy avec pagination forcée");
+            SyncOrchestratorService.SyncRunStatus status;
+            if (request.setCodes() != null && !request.setCodes().isEmpty()) {
+                status = syncOrchestratorService.startSync(request.setCodes());
+            } else if (request.releasedSince() != null || Boolean.TRUE.equals(request.all())) {
+                status = syncOrchestratorService.startSyncReleasedSince(request.releasedSince());
+            } else {
+                return ResponseEntity.badRequest()
+                        .body(ApiResponse.error("Préciser setCodes, releasedSince ou all=true"));
+            }
 
-            Map<String, Object> result = new HashMap<>();
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(ApiResponse.success(status, "Synchronisation lancée : " + status.totalSets() + " extensions"));
 
-            // CORRECTION: Supprimer COMPLÈTEMENT les anciennes cartes pour éviter les conflits UUID
-            try {
-                int deletedCount = cardRepository.deleteBySetCodeIgnoreCase("FIN");
-                logger.info("🗑️ {} anciennes cartes Final Fantasy SUPPRIMÉES", deletedCount);
-                result.put("deletedCards", deletedCount);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("❌ Erreur lancement synchronisation groupée : {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Erreur synchronisation : " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/sync-batch/{runId}")
+    public ResponseEntity<ApiResponse<SyncOrchestratorService.SyncRunStatus>> getBatchSync(@PathVariable String runId) {
+        return syncOrchestratorService.getRun(runId)
+                .map(status -> ResponseEntity.ok(ApiResponse.success(status)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.error("Synchronisation inconnue : " + runId)));
+    }
 
-                // Forcer le flush pour s'assurer que la suppression est effective
-                cardRepository.flush();
+    @GetMapping("/sync-batch")
+    public ResponseEntity<ApiResponse<List<SyncOrchestratorService.SyncRunStatus>>> listBatchSyncs() {
+        return ResponseEntity.ok(ApiResponse.success(syncOrchestratorService.getRuns()));
+    }
 
-            } catch (Exception e) {
-                logger.error("❌ Erreur suppression anciennes cartes : {}", e.getMessage());
-            }
+    /**
+     * Rafraîchissement planifié : dernière comparaison, extensions en attente de resynchronisation
+     */
+    @GetMapping("/refresh")
+    public ResponseEntity<ApiResponse<CatalogueRefreshService.RefreshStatus>> getRefreshStatus() {
+        return ResponseEntity.ok(ApiResponse.success(catalogueRefreshService.getStatus()));
+    }
+
+    /**
+     * Comparaison immédiate avec Scryfall, sans attendre le prochain passage planifié
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<ApiResponse<CatalogueRefreshService.RefreshReport>> refreshNow() {
+        try {
+            CatalogueRefreshService.RefreshReport report = catalogueRefreshService.refresh();
+            String message = report.message() != null ? report.message()
+                    : report.queued().size() + " extensions relancées, " + report.deferred() + " reportées";
+            return ResponseEntity.ok(ApiResponse.success(report, message));
+        } catch (Exception e) {
+            logger.error("❌ Erreur rafraîchissement du catalogue : {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Erreur rafraîchissement : " + e.getMessage()));
+        }
+    }
+
+    @PostMapping("/sync-final-fantasy-advanced")
+    public ResponseEntity<ApiResponse<SyncJobService.JobStatus>> syncFinalFantasyAdvanced() {
+        return accepted(syncJobService.submitEndpoint("sync-final-fantasy-advanced", "FIN",
+                () -> scryfallService.fetchAllCardsFromSet("FIN"), this::runSyncFinalFantasyAdvanced));
+    }
 
-            // Attendre un peu que la suppression soit effective
-            Thread.sleep(1000);
+    private ResponseEntity<ApiResponse<Object>> runSyncFinalFantasyAdvanced(List<MtgCard> allFinCards) {
+        try {
+            logger.info("🎮 Synchronisation AVANCÉE Final Fantasy avec pagination forcée");
 
-            // NOUVELLE APPROCHE : Utiliser directement la méthode corrigée du service
-            List<MtgCard> allFinCards = scryfallService.fetchAllCardsFromSet("FIN");
+            Map<String, Object> result = new HashMap<>();
 
             if (!allFinCards.isEmpty()) {
-                int savedCount = cardPersistenceService.saveCards(allFinCards, "FIN");
+                // Nouvelle génération préparée puis basculée : pas de fenêtre où l'extension est vide,
+                // les anciennes cartes sont supprimées en arrière-plan et les images suivent la bascule
+                SetGenerationService.GenerationSwap swap = setGenerationService.replaceSet("FIN", allFinCards);
+                int savedCount = swap.published();
+                result.put("deletedCards", swap.retired());
 
                 result.put("cartesSauvegardées", savedCount);
                 result.put("cartesTotales", allFinCards.size());
@@ -164,15 +256,6 @@ public class ScryfallController {
                 logger.info("💾 {} cartes Final Fantasy sauvegardées", savedCount);
                 logger.info("🎯 Répartition: {}", rarityStats);
 
-                // Démarrer téléchargement images en arrière-plan
-                CompletableFuture.runAsync(() -> {
-                    try {
-                        imageDownloadService.downloadImagesForSet("FIN");
-                    } catch (Exception e) {
-                        logger.error("❌ Erreur téléchargement images FIN: {}", e.getMessage());
-                    }
-                });
-
                 String message = String.format("Final Fantasy synchronisé: %d cartes récupérées avec pagination forcée",
                         savedCount);
                 return ResponseEntity.ok(ApiResponse.success(result, message));
@@ -276,7 +359,7 @@ public class ScryfallController {
 
             while (hasMore && page <= 5) { // Limité à 5 pages pour le debug
                 String url = String.format(
-                        "https://api.scryfall.com/cards/search?q=set:%s&format=json&order=name&page=%d",
+                        scryfallBaseUrl + "/cards/search?q=set:%s&format=json&order=name&page=%d",
                         setCode.toLowerCase(), page
                 );
 
@@ -381,7 +464,7 @@ public class ScryfallController {
 
         while (hasMore && page <= 15) {
             String url = String.format(
-                    "https://api.scryfall.com/cards/search?q=%s&format=json&order=name&page=%d",
+                    scryfallBaseUrl + "/cards/search?q=%s&format=json&order=name&page=%d",
                     URLEncoder.encode(query, StandardCharsets.UTF_8), page
             );
 
@@ -426,7 +509,7 @@ public class ScryfallController {
      */
     private int countCardsWithQuery(String query) throws Exception {
         String url = String.format(
-                "https://api.scryfall.com/cards/search?q=%s&format=json&page=1",
+                scryfallBaseUrl + "/cards/search?q=%s&format=json&page=1",
                 URLEncoder.encode(query, StandardCharsets.UTF_8)
         );
 
@@ -442,30 +525,20 @@ public class ScryfallController {
         return 0;
     }
 
+    /**
+     * Réponse 202 d'une synchronisation déléguée à une tâche de fond
+     */
+    private ResponseEntity<ApiResponse<SyncJobService.JobStatus>> accepted(SyncJobService.JobStatus job) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success(job, "Tâche lancée, progression sur " + job.eventsUrl()));
+    }
+
     /**
      * Met à jour ou crée l'entité extension
      */
     private void updateSetEntity(String setCode, String setName, int cardsCount) {
         try {
-            Optional<MagicSet> setOpt = setRepository.findByCode(setCode);
-            MagicSet setEntity;
-
-            if (setOpt.isPresent()) {
-                setEntity = setOpt.get();
-            } else {
-                setEntity = new MagicSet();
-                setEntity.setCode(setCode);
-                setEntity.setType("expansion");
-            }
-
-            setEntity.setName(setName);
-            setEntity.setCardsCount(cardsCount);
-            setEntity.setCardsSynced(true);
-            setEntity.setLastSyncAt(LocalDateTime.now());
-
-            setRepository.save(setEntity);
-            logger.info("✅ Extension {} mise à jour : {} cartes", setCode, cardsCount);
-
+            cardPersistenceService.markSetSynced(setCode, setName, cardsCount);
         } catch (Exception e) {
             logger.error("❌ Erreur mise à jour extension {} : {}", setCode, e.getMessage());
         }
@@ -500,25 +573,22 @@ public class ScryfallController {
      * ENDPOINT CORRIGÉ: Synchronisation Final Fantasy avec méthode fixée
      */
     @PostMapping("/sync-final-fantasy-fixed")
-    public ResponseEntity<ApiResponse<Object>> syncFinalFantasyFixed() {
+    public ResponseEntity<ApiResponse<SyncJobService.JobStatus>> syncFinalFantasyFixed() {
+        return accepted(syncJobService.submitEndpoint("sync-final-fantasy-fixed", "FIN",
+                () -> scryfallService.fetchAllCardsFromSetFixed("FIN"), this::runSyncFinalFantasyFixed));
+    }
+
+    private ResponseEntity<ApiResponse<Object>> runSyncFinalFantasyFixed(List<MtgCard> finCards) {
         try {
             logger.info("🎮 Synchronisation Final Fantasy CORRIGÉE - Objectif 312 cartes");
 
             Map<String, Object> result = new HashMap<>();
 
-            // Supprimer les anciennes cartes (les 6 incorrectes)
-            int deletedCount = cardRepository.deleteBySetCodeIgnoreCase("FIN");
-            logger.info("🗑️ {} anciennes cartes supprimées", deletedCount);
-            result.put("deletedCards", deletedCount);
-
-            cardRepository.flush();
-            Thread.sleep(1000);
-
-            // Utiliser la méthode corrigée
-            List<MtgCard> finCards = scryfallService.fetchAllCardsFromSetFixed("FIN");
-
             if (!finCards.isEmpty()) {
-                int savedCount = cardPersistenceService.saveCards(finCards, "FIN");
+                // Remplacement par génération (les anciennes cartes restent visibles jusqu'à la bascule)
+                SetGenerationService.GenerationSwap swap = setGenerationService.replaceSet("FIN", finCards);
+                int savedCount = swap.published();
+                result.put("deletedCards", swap.retired());
 
                 result.put("cartesTotales", finCards.size());
                 result.put("cartesSauvegardées", savedCount);
@@ -537,15 +607,6 @@ public class ScryfallController {
 
                 logger.info("🎉 SUCCESS: {} cartes Final Fantasy récupérées et sauvegardées", savedCount);
 
-                // Démarrer téléchargement images
-                CompletableFuture.runAsync(() -> {
-                    try {
-                        imageDownloadService.downloadImagesForSet("FIN");
-                    } catch (Exception e) {
-                        logger.error("❌ Erreur téléchargement images: {}", e.getMessage());
-                    }
-                });
-
                 String message = String.format("Final Fantasy synchronisé avec succès: %d cartes récupérées", savedCount);
                 return ResponseEntity.ok(ApiResponse.success(result, message));
 
@@ -589,7 +650,7 @@ public class ScryfallController {
                     if (count > 0) {
                         // Si on trouve des cartes, tester une page
                         String url = String.format(
-                                "https://api.scryfall.com/cards/search?q=%s&format=json&page=1",
+                                scryfallBaseUrl + "/cards/search?q=%s&format=json&page=1",
                                 URLEncoder.encode(query, StandardCharsets.UTF_8)
                         );
 
@@ -616,4 +677,8 @@ public class ScryfallController {
                     .body(ApiResponse.error("Erreur debug: " + e.getMessage()));
         }
     }
-}
\ No newline at end of file
+
+    public record BatchSyncRequest(List<String> setCodes, LocalDate releasedSince, Boolean all) {}
+
+    private record ScryfallFetch(ScryfallService.SetInfo setInfo, List<MtgCard> cards) {}
+}
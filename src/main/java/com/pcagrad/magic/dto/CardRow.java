@@ -0,0 +1,23 @@
+package com.pcagrad.magic.dto;
+
+import java.util.UUID;
+
+/**
+ * Projection de colonnes d'une carte : ni allowedNotes, ni traductions chargées, ni entité gérée.
+ * {@code attributes} reste null quand aucun champ demandé n'en a besoin.
+ */
+public record CardRow(
+        UUID id,
+        String externalId,
+        String name,
+        Integer numero,
+        String setCode,
+        Boolean hasImg,
+        String attributes
+) {
+
+    // Projection sans le LONGTEXT attributes
+    public CardRow(UUID id, String externalId, String name, Integer numero, String setCode, Boolean hasImg) {
+        this(id, externalId, name, numero, setCode, hasImg, null);
+    }
+}
@@ -0,0 +1,14 @@
+package com.pcagrad.magic.dto;
+
+import java.util.List;
+
+/**
+ * Page d'une pagination par curseur : {@code nextCursor} est à renvoyer tel quel pour la page suivante.
+ * {@code total} n'est calculé que sur demande (requête COUNT séparée).
+ */
+public record CursorPage<T>(
+        List<T> items,
+        String nextCursor,
+        boolean hasMore,
+        Long total
+) {}
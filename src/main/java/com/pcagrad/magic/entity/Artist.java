@@ -0,0 +1,32 @@
+package com.pcagrad.magic.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Artiste normalisé : le nom n'existe qu'une fois, les cartes y sont reliées par {@link CardArtist}
+ * au lieu d'être retrouvées dans le JSON attributes.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "artist")
+public class Artist {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false, updatable = false)
+    private Long id;
+
+    @Column(name = "name", nullable = false, unique = true, length = 255)
+    private String name;
+
+    public Artist() {
+    }
+}
@@ -0,0 +1,39 @@
+package com.pcagrad.magic.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.util.UUID;
+
+/**
+ * Lien carte -> artiste, tenu à jour à chaque écriture de carte. Une carte a au plus un artiste
+ * (celui de sa face principale, comme dans attributes).
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "card_artist")
+public class CardArtist {
+
+    @Id
+    @Column(name = "card_id", nullable = false, updatable = false, columnDefinition = "BINARY(16)")
+    @JdbcTypeCode(SqlTypes.BINARY)
+    private UUID cardId;
+
+    @Column(name = "artist_id", nullable = false)
+    private Long artistId;
+
+    public CardArtist() {
+    }
+
+    public CardArtist(UUID cardId, Long artistId) {
+        this.cardId = cardId;
+        this.artistId = artistId;
+    }
+}
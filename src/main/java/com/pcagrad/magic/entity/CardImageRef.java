@@ -0,0 +1,48 @@
+package com.pcagrad.magic.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Lien carte -> blob image. Une carte a au plus une image locale.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "card_image_ref")
+public class CardImageRef {
+
+    @Id
+    @Column(name = "card_id", nullable = false, updatable = false, columnDefinition = "BINARY(16)")
+    @JdbcTypeCode(SqlTypes.BINARY)
+    private UUID cardId;
+
+    @Column(name = "blob_hash", nullable = false, length = 64)
+    private String blobHash;
+
+    // URL d'origine : permet de sauter le téléchargement si elle est déjà connue
+    @Column(name = "source_url", length = 1000)
+    private String sourceUrl;
+
+    @Column(name = "linked_at", nullable = false)
+    private LocalDateTime linkedAt;
+
+    public CardImageRef() {
+    }
+
+    public CardImageRef(UUID cardId, String blobHash, String sourceUrl) {
+        this.cardId = cardId;
+        this.blobHash = blobHash;
+        this.sourceUrl = sourceUrl;
+        this.linkedAt = LocalDateTime.now();
+    }
+}
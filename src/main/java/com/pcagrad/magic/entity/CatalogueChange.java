@@ -0,0 +1,60 @@
+package com.pcagrad.magic.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entrée du journal des modifications du catalogue : la version ({@link CatalogueChangeSequence}) ne
+ * fait que croître dans l'ordre des commits, un client qui a vu la version N n'a besoin que des
+ * entrées suivantes.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "catalogue_change")
+public class CatalogueChange {
+
+    public enum Operation {
+        UPSERT,
+        DELETE,
+        // Extension remplacée d'un bloc (bascule de génération) : la recharger entièrement
+        SET_RELOAD
+    }
+
+    // Attribuée avant le commit, sous le verrou du compteur
+    @Id
+    @Column(name = "version", nullable = false, updatable = false)
+    private Long version;
+
+    @Column(name = "set_code", nullable = false, length = 50)
+    private String setCode;
+
+    // ID externe de la carte (celui exposé par l'API) ; null pour SET_RELOAD
+    @Column(name = "external_id")
+    private String externalId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "operation", nullable = false, length = 16)
+    private Operation operation;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+
+    public CatalogueChange() {
+    }
+
+    public CatalogueChange(String setCode, String externalId, Operation operation) {
+        this.setCode = setCode;
+        this.externalId = externalId;
+        this.operation = operation;
+        this.changedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,36 @@
+package com.pcagrad.magic.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Dernière version attribuée dans le journal {@link CatalogueChange} : une seule ligne, verrouillée
+ * par la transaction qui attribue ses versions jusqu'à son commit.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "catalogue_change_sequence")
+public class CatalogueChangeSequence {
+
+    public static final int ID = 1;
+
+    @Id
+    @Column(name = "id", nullable = false, updatable = false)
+    private Integer id;
+
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    public CatalogueChangeSequence() {
+    }
+
+    public CatalogueChangeSequence(long version) {
+        this.id = ID;
+        this.version = version;
+    }
+}
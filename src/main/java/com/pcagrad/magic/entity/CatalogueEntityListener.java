@@ -0,0 +1,33 @@
+package com.pcagrad.magic.entity;
+
+import com.pcagrad.magic.service.CatalogueEvents;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Écouteur JPA des cartes et extensions : chaque insertion ou suppression signale son extension
+ * à {@link CatalogueEvents}. Instancié par Hibernate via le conteneur Spring.
+ * Les mises à jour passent par {@link com.pcagrad.magic.config.CatalogueUpdateListener}, qui voit
+ * les colonnes modifiées ; les mises à jour en masse (JPQL / SQL natif) sont à signaler explicitement.
+ */
+public class CatalogueEntityListener {
+
+    @Autowired
+    private CatalogueEvents catalogueEvents;
+
+    @PostPersist
+    @PostRemove
+    public void onChange(Object entity) {
+        String setCode = null;
+        if (entity instanceof MagicCard card) {
+            setCode = card.getSetCode();
+        } else if (entity instanceof MagicSet set) {
+            setCode = set.getCode();
+        }
+
+        if (catalogueEvents != null) {
+            catalogueEvents.setChanged(setCode);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.pcagrad.magic.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Compteurs du catalogue, globaux ({@link #GLOBAL}) ou par extension, tenus à jour à chaque écriture
+ * de carte : les tableaux de bord les lisent sans parcourir magic_card.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "catalogue_stats")
+public class CatalogueStats {
+
+    public static final String GLOBAL = "*";
+
+    @Id
+    @Column(name = "scope", length = 50, nullable = false, updatable = false)
+    private String scope;
+
+    @Column(name = "cards", nullable = false)
+    private long cards;
+
+    @Column(name = "images", nullable = false)
+    private long images;
+
+    @Column(name = "translated_cards", nullable = false)
+    private long translatedCards;
+
+    @Column(name = "translations", nullable = false)
+    private long translations;
+
+    // Artistes distincts : ajusté quand le compteur d'un artiste passe de 0 à 1 ou de 1 à 0
+    @Column(name = "artists", nullable = false)
+    private long artists;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public CatalogueStats() {
+    }
+}
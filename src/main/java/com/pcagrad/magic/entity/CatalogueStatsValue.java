@@ -0,0 +1,77 @@
+package com.pcagrad.magic.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Nombre de cartes par valeur d'une dimension (rareté, artiste) dans un périmètre de {@link CatalogueStats}.
+ * Les lignes retombées à zéro sont supprimées.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "catalogue_stats_value")
+@IdClass(CatalogueStatsValue.Key.class)
+public class CatalogueStatsValue {
+
+    public enum Dimension {
+        RARITY,
+        ARTIST
+    }
+
+    @Id
+    @Column(name = "scope", length = 50, nullable = false, updatable = false)
+    private String scope;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "dimension", length = 16, nullable = false, updatable = false)
+    private Dimension dimension;
+
+    @Id
+    @Column(name = "stat_value", length = 255, nullable = false, updatable = false)
+    private String value;
+
+    @Column(name = "cards", nullable = false)
+    private long cards;
+
+    public CatalogueStatsValue() {
+    }
+
+    public static class Key implements Serializable {
+        private String scope;
+        private Dimension dimension;
+        private String value;
+
+        public Key() {
+        }
+
+        public Key(String scope, Dimension dimension, String value) {
+            this.scope = scope;
+            this.dimension = dimension;
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(scope, key.scope) && dimension == key.dimension && Objects.equals(value, key.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(scope, dimension, value);
+        }
+    }
+}
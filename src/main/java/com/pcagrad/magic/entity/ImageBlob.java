@@ -0,0 +1,48 @@
+package com.pcagrad.magic.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fichier image stocké une seule fois, adressé par son empreinte SHA-256.
+ * Plusieurs cartes (réimpressions, variantes) peuvent référencer le même blob.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "image_blob")
+public class ImageBlob {
+
+    @Id
+    @Column(name = "hash", length = 64, nullable = false, updatable = false)
+    private String hash;
+
+    @Column(name = "file_path", nullable = false, length = 500)
+    private String filePath;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public ImageBlob() {
+    }
+
+    public ImageBlob(String hash, String filePath, long sizeBytes) {
+        this.hash = hash;
+        this.filePath = filePath;
+        this.sizeBytes = sizeBytes;
+        this.refCount = 0;
+        this.createdAt = LocalDateTime.now();
+    }
+}
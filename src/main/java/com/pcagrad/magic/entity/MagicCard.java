@@ -19,6 +19,7 @@ import java.util.UUID;
 @Data
 @Entity
 @Table(name = "magic_card")
+@EntityListeners(CatalogueEntityListener.class)
 public class MagicCard extends Card {
 
     @Size(max = 20)
@@ -82,6 +83,11 @@ public class MagicCard extends Card {
     @Column(name = "z_post_extension", length = 50)
     private String zPostExtension;
 
+    // Empreinte du contenu normalisé reçu de l'API : une synchro ne réécrit que les cartes modifiées
+    @Size(max = 64)
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
     @NotNull
     @ColumnDefault("0")
     @Column(name = "has_date_fr", nullable = false)
@@ -361,10 +367,16 @@ public class MagicCard extends Card {
     }
 
     private String extractFromAttributes(String key) {
-        if (getAttributes() == null) return null;
+        return attributeValue(getAttributes(), key);
+    }
+
+    /**
+     * Lecture d'une valeur texte du JSON attributes sans entité chargée (projections de colonnes)
+     */
+    public static String attributeValue(String attrs, String key) {
+        if (attrs == null) return null;
         try {
             // Parse JSON simple pour extraire la valeur
-            String attrs = getAttributes();
             String searchKey = "\"" + key + "\":\"";
             int startIndex = attrs.indexOf(searchKey);
             if (startIndex == -1) return null;
@@ -10,6 +10,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "magic_set")
+@EntityListeners(CatalogueEntityListener.class)
 public class MagicSet extends CardSet {
 
     @Column(name = "id_pca")
@@ -85,6 +86,10 @@ public class MagicSet extends CardSet {
     @Column(name = "has_date_sortie_fr", nullable = false)
     private Boolean hasDateSortieFr = false;
 
+    // Empreinte de la fiche Scryfall (nombre de cartes, date de sortie, nom) à la dernière synchro
+    @Column(name = "upstream_fingerprint", length = 64)
+    private String upstreamFingerprint;
+
     // CONSTRUCTEURS
     public MagicSet() {
         super();
@@ -131,6 +136,9 @@ public class MagicSet extends CardSet {
     public Integer getNbImages() { return nbImages; }
     public void setNbImages(Integer nbImages) { this.nbImages = nbImages; }
 
+    public String getUpstreamFingerprint() { return upstreamFingerprint; }
+    public void setUpstreamFingerprint(String upstreamFingerprint) { this.upstreamFingerprint = upstreamFingerprint; }
+
     public String getNomDossier() { return nomDossier; }
     public void setNomDossier(String nomDossier) { this.nomDossier = nomDossier; }
 
@@ -0,0 +1,115 @@
+package com.pcagrad.magic.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Champs de {@link MtgCard} sélectionnables via le paramètre {@code fields=} (noms JSON).
+ * Les champs non demandés restent à null et disparaissent de la réponse (inclusion NON_NULL).
+ */
+public enum CardField {
+    ID("id"),
+    NAME("name"),
+    MANA_COST("manaCost"),
+    CMC("cmc"),
+    COLORS("colors"),
+    COLOR_IDENTITY("colorIdentity"),
+    TYPE("type"),
+    SUPERTYPES("supertypes"),
+    TYPES("types"),
+    SUBTYPES("subtypes"),
+    RARITY("rarity"),
+    SET("set"),
+    SET_NAME("setName"),
+    TEXT("text"),
+    ARTIST("artist"),
+    NUMBER("number"),
+    POWER("power"),
+    TOUGHNESS("toughness"),
+    LAYOUT("layout"),
+    MULTIVERSE_ID("multiverseid"),
+    IMAGE_URL("imageUrl");
+
+    // Champs lus dans le JSON allowedNotes : les seuls qui obligent à charger l'entité complète
+    public static final Set<CardField> LIST_FIELDS =
+            Collections.unmodifiableSet(EnumSet.of(COLORS, COLOR_IDENTITY, SUPERTYPES, TYPES, SUBTYPES));
+
+    // Champs lus dans des colonnes de magic_card : seuls, ils évitent de lire le JSON attributes
+    public static final Set<CardField> COLUMN_FIELDS =
+            Collections.unmodifiableSet(EnumSet.of(ID, NAME, SET, NUMBER));
+
+    private final String jsonName;
+
+    CardField(String jsonName) {
+        this.jsonName = jsonName;
+    }
+
+    public String jsonName() {
+        return jsonName;
+    }
+
+    /**
+     * Liste séparée par des virgules ; null ou vide = tous les champs
+     *
+     * @throws IllegalArgumentException si un nom de champ est inconnu
+     */
+    public static Set<CardField> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return EnumSet.allOf(CardField.class);
+        }
+        EnumSet<CardField> selected = EnumSet.noneOf(CardField.class);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) continue;
+            selected.add(Arrays.stream(values())
+                    .filter(field -> field.jsonName.equalsIgnoreCase(trimmed))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Champ inconnu : " + trimmed
+                            + " (disponibles : " + Arrays.stream(values()).map(CardField::jsonName)
+                            .collect(Collectors.joining(", ")) + ")")));
+        }
+        if (selected.isEmpty()) {
+            return EnumSet.allOf(CardField.class);
+        }
+        return selected;
+    }
+
+    public static boolean isAll(Set<CardField> fields) {
+        return fields.size() == values().length;
+    }
+
+    /**
+     * Copie d'une carte déjà construite réduite aux champs demandés (instantané mémoire, API externe)
+     */
+    public static MtgCard project(MtgCard card, Set<CardField> fields) {
+        if (isAll(fields)) {
+            return card;
+        }
+        return new MtgCard(
+                fields.contains(ID) ? card.id() : null,
+                fields.contains(NAME) ? card.name() : null,
+                fields.contains(MANA_COST) ? card.manaCost() : null,
+                fields.contains(CMC) ? card.cmc() : null,
+                fields.contains(COLORS) ? card.colors() : null,
+                fields.contains(COLOR_IDENTITY) ? card.colorIdentity() : null,
+                fields.contains(TYPE) ? card.type() : null,
+                fields.contains(SUPERTYPES) ? card.supertypes() : null,
+                fields.contains(TYPES) ? card.types() : null,
+                fields.contains(SUBTYPES) ? card.subtypes() : null,
+                fields.contains(RARITY) ? card.rarity() : null,
+                fields.contains(SET) ? card.set() : null,
+                fields.contains(SET_NAME) ? card.setName() : null,
+                fields.contains(TEXT) ? card.text() : null,
+                fields.contains(ARTIST) ? card.artist() : null,
+                fields.contains(NUMBER) ? card.number() : null,
+                fields.contains(POWER) ? card.power() : null,
+                fields.contains(TOUGHNESS) ? card.toughness() : null,
+                fields.contains(LAYOUT) ? card.layout() : null,
+                fields.contains(MULTIVERSE_ID) ? card.multiverseid() : null,
+                fields.contains(IMAGE_URL) ? card.imageUrl() : null
+        );
+    }
+}
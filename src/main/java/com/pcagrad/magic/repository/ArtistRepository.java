@@ -0,0 +1,24 @@
+package com.pcagrad.magic.repository;
+
+import com.pcagrad.magic.entity.Artist;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ArtistRepository extends JpaRepository<Artist, Long> {
+
+    Optional<Artist> findByName(String name);
+
+    /**
+     * Création sans conflit entre écritures concurrentes : le nom est unique, un doublon est ignoré
+     */
+    @Modifying
+    @Query(value = "INSERT INTO artist (name) VALUES (:name) ON DUPLICATE KEY UPDATE name = name",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("name") String name);
+}
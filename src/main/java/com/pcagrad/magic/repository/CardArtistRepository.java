@@ -0,0 +1,56 @@
+package com.pcagrad.magic.repository;
+
+import com.pcagrad.magic.entity.CardArtist;
+import com.pcagrad.magic.entity.MagicCard;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+@Repository
+public interface CardArtistRepository extends JpaRepository<CardArtist, UUID> {
+
+    // Cartes d'un artiste triées par id sur l'index idx_card_artist_artist (artist_id, card_id),
+    // générations en préparation ou retirées exclues
+
+    @Query("SELECT mc FROM CardArtist ca JOIN MagicCard mc ON mc.id = ca.cardId " +
+            "WHERE ca.artistId = :artistId AND (mc.zPostExtension IS NULL OR mc.zPostExtension NOT LIKE '%#%') " +
+            "ORDER BY ca.cardId ASC")
+    List<MagicCard> findCardsFirst(@Param("artistId") Long artistId, Pageable pageable);
+
+    @Query("SELECT mc FROM CardArtist ca JOIN MagicCard mc ON mc.id = ca.cardId " +
+            "WHERE ca.artistId = :artistId AND ca.cardId > :afterId " +
+            "AND (mc.zPostExtension IS NULL OR mc.zPostExtension NOT LIKE '%#%') " +
+            "ORDER BY ca.cardId ASC")
+    List<MagicCard> findCardsAfter(@Param("artistId") Long artistId,
+                                   @Param("afterId") UUID afterId,
+                                   Pageable pageable);
+
+    /**
+     * Cartes sans lien (créées avant l'index des artistes), pour le rattrapage
+     */
+    @Query("SELECT mc FROM MagicCard mc WHERE NOT EXISTS (SELECT ca FROM CardArtist ca WHERE ca.cardId = mc.id)")
+    Stream<MagicCard> streamUnlinkedCards();
+
+    // Au démarrage : une seule ligne suffit à savoir s'il reste des cartes à rattacher
+    @Query("SELECT mc.id FROM MagicCard mc WHERE NOT EXISTS (SELECT ca FROM CardArtist ca WHERE ca.cardId = mc.id)")
+    List<UUID> findUnlinkedCardIds(Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM CardArtist ca WHERE ca.cardId IN :cardIds")
+    int deleteByCardIds(@Param("cardIds") Collection<UUID> cardIds);
+
+    /**
+     * Liens dont la carte n'existe plus (suppressions en masse)
+     */
+    @Modifying
+    @Query("DELETE FROM CardArtist ca WHERE ca.cardId NOT IN (SELECT mc.id FROM MagicCard mc)")
+    int deleteOrphans();
+}
@@ -0,0 +1,33 @@
+package com.pcagrad.magic.repository;
+
+import com.pcagrad.magic.entity.CardImageRef;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface CardImageRefRepository extends JpaRepository<CardImageRef, UUID> {
+
+    /**
+     * Premier lien connu pour une URL source (une URL = un contenu)
+     */
+    Optional<CardImageRef> findFirstBySourceUrl(String sourceUrl);
+
+    /**
+     * Liens des cartes d'une extension
+     */
+    @Query("SELECT r FROM CardImageRef r WHERE r.cardId IN " +
+            "(SELECT mc.id FROM MagicCard mc WHERE UPPER(mc.zPostExtension) = UPPER(:setCode))")
+    List<CardImageRef> findBySetCode(@Param("setCode") String setCode);
+
+    /**
+     * Liens dont la carte n'existe plus (suppressions en masse)
+     */
+    @Query("SELECT r FROM CardImageRef r WHERE r.cardId NOT IN (SELECT mc.id FROM MagicCard mc)")
+    List<CardImageRef> findOrphans();
+}
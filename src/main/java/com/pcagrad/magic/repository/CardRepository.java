@@ -2,19 +2,25 @@
 
 package com.pcagrad.magic.repository;
 
+import com.pcagrad.magic.dto.CardRow;
 import com.pcagrad.magic.entity.MagicCard;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface CardRepository extends JpaRepository<MagicCard, UUID> {
@@ -61,20 +67,45 @@ public interface CardRepository extends JpaRepository<MagicCard, UUID> {
 //                                         Pageable pageable);
 
 
+    /**
+     * Recherche filtrée par pages de curseur sur (nom, id), comme searchCardsByNameAfter
+     */
     @Query("SELECT mc FROM MagicCard mc " +
             "JOIN mc.translations t " +
             "WHERE (:name IS NULL OR LOWER(t.name) LIKE LOWER(CONCAT('%', :name, '%'))) " +
-            "AND (:setCode IS NULL OR mc.zPostExtension = :setCode) " +
+            "AND ((:setCode IS NULL AND (mc.zPostExtension IS NULL OR mc.zPostExtension NOT LIKE '%#%')) " +
+            "OR mc.zPostExtension = :setCode) " +
             "AND (:rarity IS NULL OR mc.attributes LIKE CONCAT('%\"rarity\":\"', :rarity, '%')) " +
             "AND (:type IS NULL OR mc.attributes LIKE CONCAT('%\"type\":', '%', :type, '%')) " +
-            "AND (:artist IS NULL OR mc.attributes LIKE CONCAT('%\"artist\":\"', :artist, '%')) " +
+            "AND (:artist IS NULL OR EXISTS (SELECT ca FROM CardArtist ca, Artist a " +
+            "WHERE ca.cardId = mc.id AND a.id = ca.artistId AND a.name LIKE CONCAT(:artist, '%'))) " +
+            "AND t.localization = com.pcagrad.magic.util.Localization.USA " +
+            "AND (:afterName IS NULL OR (t.name >= :afterName AND (t.name > :afterName OR mc.id > :afterId))) " +
+            "ORDER BY t.name ASC, mc.id ASC")
+    List<MagicCard> findCardsWithFiltersAfter(@Param("name") String name,
+                                              @Param("setCode") String setCode,
+                                              @Param("rarity") String rarity,
+                                              @Param("type") String type,
+                                              @Param("artist") String artist,
+                                              @Param("afterName") String afterName,
+                                              @Param("afterId") UUID afterId,
+                                              Pageable pageable);
+
+    @Query("SELECT COUNT(mc) FROM MagicCard mc " +
+            "JOIN mc.translations t " +
+            "WHERE (:name IS NULL OR LOWER(t.name) LIKE LOWER(CONCAT('%', :name, '%'))) " +
+            "AND ((:setCode IS NULL AND (mc.zPostExtension IS NULL OR mc.zPostExtension NOT LIKE '%#%')) " +
+            "OR mc.zPostExtension = :setCode) " +
+            "AND (:rarity IS NULL OR mc.attributes LIKE CONCAT('%\"rarity\":\"', :rarity, '%')) " +
+            "AND (:type IS NULL OR mc.attributes LIKE CONCAT('%\"type\":', '%', :type, '%')) " +
+            "AND (:artist IS NULL OR EXISTS (SELECT ca FROM CardArtist ca, Artist a " +
+            "WHERE ca.cardId = mc.id AND a.id = ca.artistId AND a.name LIKE CONCAT(:artist, '%'))) " +
             "AND t.localization = com.pcagrad.magic.util.Localization.USA")
-    Page<MagicCard> findCardsWithFilters(@Param("name") String name,
-                                         @Param("setCode") String setCode,
-                                         @Param("rarity") String rarity,
-                                         @Param("type") String type,
-                                         @Param("artist") String artist,
-                                         Pageable pageable);
+    long countCardsWithFilters(@Param("name") String name,
+                               @Param("setCode") String setCode,
+                               @Param("rarity") String rarity,
+                               @Param("type") String type,
+                               @Param("artist") String artist);
 
     /**
      * Recherche simple par nom et setCode seulement
@@ -82,7 +113,8 @@ public interface CardRepository extends JpaRepository<MagicCard, UUID> {
     @Query("SELECT mc FROM MagicCard mc " +
             "JOIN mc.translations t " +
             "WHERE (:name IS NULL OR LOWER(t.name) LIKE LOWER(CONCAT('%', :name, '%'))) " +
-            "AND (:setCode IS NULL OR mc.zPostExtension = :setCode) " +
+            "AND ((:setCode IS NULL AND (mc.zPostExtension IS NULL OR mc.zPostExtension NOT LIKE '%#%')) " +
+            "OR mc.zPostExtension = :setCode) " +
             "AND t.localization = com.pcagrad.magic.util.Localization.USA")
     Page<MagicCard> searchCardsByNameAndSet(@Param("name") String name,
                                             @Param("setCode") String setCode,
@@ -114,6 +146,32 @@ public interface CardRepository extends JpaRepository<MagicCard, UUID> {
             "ORDER BY (SELECT t.name FROM mc.translations t WHERE t.localization = com.pcagrad.magic.util.Localization.USA) ASC")
     List<MagicCard> findBySetCodeOrderByNameAsc(@Param("setCode") String setCode);
 
+    // Même liste, projetée sur les seules colonnes utiles aux champs scalaires (paramètre fields=)
+    @Query("SELECT new com.pcagrad.magic.dto.CardRow(mc.id, mc.idPrim, t.name, mc.numero, " +
+            "mc.zPostExtension, mc.hasImg, mc.attributes) " +
+            "FROM MagicCard mc " +
+            "LEFT JOIN mc.translations t ON t.localization = com.pcagrad.magic.util.Localization.USA " +
+            "WHERE mc.zPostExtension = :setCode " +
+            "ORDER BY t.name ASC")
+    List<CardRow> findRowsBySetCodeOrderByNameAsc(@Param("setCode") String setCode);
+
+    // Même liste sans attributes, pour les champs lus dans des colonnes (CardField.COLUMN_FIELDS)
+    @Query("SELECT new com.pcagrad.magic.dto.CardRow(mc.id, mc.idPrim, t.name, mc.numero, " +
+            "mc.zPostExtension, mc.hasImg) " +
+            "FROM MagicCard mc " +
+            "LEFT JOIN mc.translations t ON t.localization = com.pcagrad.magic.util.Localization.USA " +
+            "WHERE mc.zPostExtension = :setCode " +
+            "ORDER BY t.name ASC")
+    List<CardRow> findColumnRowsBySetCodeOrderByNameAsc(@Param("setCode") String setCode);
+
+    // Lignes complètes des seules cartes dont une colonne manque (repli sur attributes)
+    @Query("SELECT new com.pcagrad.magic.dto.CardRow(mc.id, mc.idPrim, t.name, mc.numero, " +
+            "mc.zPostExtension, mc.hasImg, mc.attributes) " +
+            "FROM MagicCard mc " +
+            "LEFT JOIN mc.translations t ON t.localization = com.pcagrad.magic.util.Localization.USA " +
+            "WHERE mc.id IN :ids")
+    List<CardRow> findRowsByIdIn(@Param("ids") Collection<UUID> ids);
+
     @Query("SELECT COUNT(mc) FROM MagicCard mc WHERE mc.zPostExtension = :setCode")
     long countBySetCode(@Param("setCode") String setCode);
 
@@ -124,6 +182,72 @@ public interface CardRepository extends JpaRepository<MagicCard, UUID> {
     // Recherche par ID externe (stocké dans idPrim)
     Optional<MagicCard> findByIdPrim(String idPrim);
 
+    @Query("SELECT mc FROM MagicCard mc WHERE mc.idPrim IN :externalIds")
+    List<MagicCard> findByExternalIdIn(@Param("externalIds") Collection<String> externalIds);
+
+    /**
+     * Parcours complet pour l'export : résultat lu par lots de 500 lignes côté JDBC (pas de chargement
+     * intégral), traductions jointes et triées par id pour que les lignes d'une carte soient contiguës.
+     * Les générations en préparation ou retirées ({@code CODE#...}) sont exclues.
+     * À consommer dans une transaction, en détachant les cartes déjà écrites.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT mc FROM MagicCard mc LEFT JOIN FETCH mc.translations " +
+            "WHERE mc.zPostExtension IS NULL OR mc.zPostExtension NOT LIKE '%#%' " +
+            "ORDER BY mc.id")
+    Stream<MagicCard> streamAllForExport();
+
+    // ===============================
+    // PAGINATION PAR CLÉ (CURSEUR)
+    // ===============================
+    // Tri (numero, id) sur l'index idx_magic_card_set_keyset, (nom, id) sur idx_card_translation_name_keyset.
+    // Retour en List : aucune requête COUNT, chaque page coûte autant que la première.
+    // Les cartes sans numéro (NULL) sortent en premier, comme le tri ASC par défaut de MariaDB.
+
+    @Query("SELECT mc FROM MagicCard mc WHERE mc.zPostExtension = :setCode " +
+            "ORDER BY mc.numero ASC, mc.id ASC")
+    List<MagicCard> findSetPageFirst(@Param("setCode") String setCode, Pageable pageable);
+
+    @Query("SELECT mc FROM MagicCard mc WHERE mc.zPostExtension = :setCode " +
+            "AND mc.numero >= :numero AND (mc.numero > :numero OR mc.id > :afterId) " +
+            "ORDER BY mc.numero ASC, mc.id ASC")
+    List<MagicCard> findSetPageAfter(@Param("setCode") String setCode,
+                                     @Param("numero") Integer numero,
+                                     @Param("afterId") UUID afterId,
+                                     Pageable pageable);
+
+    @Query("SELECT mc FROM MagicCard mc WHERE mc.zPostExtension = :setCode " +
+            "AND (mc.numero IS NOT NULL OR mc.id > :afterId) " +
+            "ORDER BY mc.numero ASC, mc.id ASC")
+    List<MagicCard> findSetPageAfterUnnumbered(@Param("setCode") String setCode,
+                                               @Param("afterId") UUID afterId,
+                                               Pageable pageable);
+
+    @Query("SELECT mc FROM MagicCard mc " +
+            "JOIN mc.translations t " +
+            "WHERE t.localization = com.pcagrad.magic.util.Localization.USA " +
+            "AND (:name IS NULL OR LOWER(t.name) LIKE LOWER(CONCAT('%', :name, '%'))) " +
+            "AND ((:setCode IS NULL AND (mc.zPostExtension IS NULL OR mc.zPostExtension NOT LIKE '%#%')) " +
+            "OR mc.zPostExtension = :setCode) " +
+            "AND (:afterName IS NULL OR (t.name >= :afterName AND (t.name > :afterName OR mc.id > :afterId))) " +
+            "ORDER BY t.name ASC, mc.id ASC")
+    List<MagicCard> searchCardsByNameAfter(@Param("name") String name,
+                                           @Param("setCode") String setCode,
+                                           @Param("afterName") String afterName,
+                                           @Param("afterId") UUID afterId,
+                                           Pageable pageable);
+
+    @Query("SELECT COUNT(mc) FROM MagicCard mc " +
+            "JOIN mc.translations t " +
+            "WHERE t.localization = com.pcagrad.magic.util.Localization.USA " +
+            "AND (:name IS NULL OR LOWER(t.name) LIKE LOWER(CONCAT('%', :name, '%'))) " +
+            "AND ((:setCode IS NULL AND (mc.zPostExtension IS NULL OR mc.zPostExtension NOT LIKE '%#%')) " +
+            "OR mc.zPostExtension = :setCode)")
+    long countCardsByNameAndSet(@Param("name") String name, @Param("setCode") String setCode);
+
 
 
     @Query("SELECT COUNT(mc) > 0 FROM MagicCard mc WHERE mc.idPrim = :idPrim AND mc.zPostExtension = :zPostExtension")
@@ -159,8 +283,8 @@ public interface CardRepository extends JpaRepository<MagicCard, UUID> {
             "ORDER BY (SELECT t.name FROM mc.translations t WHERE t.localization = com.pcagrad.magic.util.Localization.USA) ASC")
     List<MagicCard> findBySetCodeIgnoreCaseOrderByNameAsc(@Param("setCode") String setCode);
 
-    @Query("SELECT COUNT(DISTINCT mc.attributes) FROM MagicCard mc " +
-            "WHERE mc.attributes LIKE '%\"artist\":%'")
+    @Query("SELECT COUNT(DISTINCT ca.artistId) FROM CardArtist ca JOIN MagicCard mc ON mc.id = ca.cardId " +
+            "WHERE (mc.zPostExtension IS NULL OR mc.zPostExtension NOT LIKE '%#%')")
     long countDistinctArtists();
 
     @Query(value = "SELECT " +
@@ -202,6 +326,30 @@ public interface CardRepository extends JpaRepository<MagicCard, UUID> {
 
 
 
+    // ========== GÉNÉRATIONS D'EXTENSION ==========
+
+    /**
+     * Réétiquette en une seule requête toutes les cartes d'un code d'extension
+     * (bascule entre génération publiée, en préparation et retirée).
+     * Comparaison sur la colonne brute : la collation utf8mb4_unicode_ci ignore déjà la casse
+     * et l'index sur z_post_extension reste utilisable.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query(value = "UPDATE magic_card SET z_post_extension = :target WHERE z_post_extension = :source",
+            nativeQuery = true)
+    int relabelSetCode(@Param("source") String source, @Param("target") String target);
+
+    @Query("SELECT mc.id FROM MagicCard mc WHERE mc.zPostExtension = :setCode")
+    List<UUID> findIdsBySetCode(@Param("setCode") String setCode, Pageable pageable);
+
+    /**
+     * Codes des générations en préparation ou retirées encore présentes en base
+     */
+    @Query(value = "SELECT DISTINCT z_post_extension FROM magic_card WHERE z_post_extension LIKE '%#%'",
+            nativeQuery = true)
+    List<String> findGenerationSetCodes();
+
     /**
      * Supprimer par setCode (ignore case)
      */
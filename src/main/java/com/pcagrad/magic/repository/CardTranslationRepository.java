@@ -44,6 +44,14 @@ public interface CardTranslationRepository extends JpaRepository<CardTranslation
     @Query("DELETE FROM CardTranslation ct WHERE ct.translatable.id = :cardId")
     void deleteByCardId(@Param("cardId") UUID cardId);
 
+    /**
+     * Supprimer en une requête les traductions d'un lot de cartes
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM CardTranslation ct WHERE ct.translatable.id IN :cardIds")
+    int deleteByCardIds(@Param("cardIds") List<UUID> cardIds);
+
     /**
      * Vérifier si une traduction existe pour une carte
      */
@@ -0,0 +1,33 @@
+package com.pcagrad.magic.repository;
+
+import com.pcagrad.magic.entity.CatalogueChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CatalogueChangeRepository extends JpaRepository<CatalogueChange, Long> {
+
+    // Versions attribuées dans l'ordre des commits : les entrées visibles forment toujours un préfixe
+    @Query("SELECT c FROM CatalogueChange c WHERE c.version > :since ORDER BY c.version ASC")
+    List<CatalogueChange> findAfter(@Param("since") long since, Pageable pageable);
+
+    @Query("SELECT MIN(c.version) FROM CatalogueChange c")
+    Long findMinVersion();
+
+    @Query("SELECT MAX(c.version) FROM CatalogueChange c")
+    Long findMaxVersion();
+
+    // Appelé avec la dernière version : elle est conservée comme repère de troncature du journal
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM CatalogueChange c WHERE c.changedAt < :cutoff AND c.version < :latest")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff, @Param("latest") long latest);
+}
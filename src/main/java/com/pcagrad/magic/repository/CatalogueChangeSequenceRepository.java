@@ -0,0 +1,20 @@
+package com.pcagrad.magic.repository;
+
+import com.pcagrad.magic.entity.CatalogueChangeSequence;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface CatalogueChangeSequenceRepository extends JpaRepository<CatalogueChangeSequence, Integer> {
+
+    // SELECT ... FOR UPDATE : les transactions qui écrivent au journal s'attendent jusqu'au commit
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM CatalogueChangeSequence s WHERE s.id = :id")
+    Optional<CatalogueChangeSequence> findForUpdate(@Param("id") int id);
+}
@@ -0,0 +1,31 @@
+package com.pcagrad.magic.repository;
+
+import com.pcagrad.magic.entity.CatalogueStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+// Écritures appelées dans la transaction de CatalogueStatsService
+@Repository
+public interface CatalogueStatsRepository extends JpaRepository<CatalogueStats, String> {
+
+    @Modifying
+    @Query(value = "INSERT INTO catalogue_stats (scope, cards, images, translated_cards, translations, artists, updated_at) " +
+            "VALUES (:scope, :cards, :images, :translatedCards, :translations, :artists, NOW()) " +
+            "ON DUPLICATE KEY UPDATE cards = cards + :cards, images = images + :images, " +
+            "translated_cards = translated_cards + :translatedCards, translations = translations + :translations, " +
+            "artists = artists + :artists, updated_at = NOW()",
+            nativeQuery = true)
+    int addCounts(@Param("scope") String scope,
+                  @Param("cards") long cards,
+                  @Param("images") long images,
+                  @Param("translatedCards") long translatedCards,
+                  @Param("translations") long translations,
+                  @Param("artists") long artists);
+
+    @Modifying
+    @Query("DELETE FROM CatalogueStats s WHERE s.scope <> :keep AND s.cards <= 0")
+    int deleteEmptyScopes(@Param("keep") String keep);
+}
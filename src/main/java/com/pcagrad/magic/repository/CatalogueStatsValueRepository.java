@@ -0,0 +1,77 @@
+package com.pcagrad.magic.repository;
+
+import com.pcagrad.magic.entity.CatalogueStatsValue;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+// Écritures appelées dans la transaction de CatalogueStatsService
+@Repository
+public interface CatalogueStatsValueRepository extends JpaRepository<CatalogueStatsValue, CatalogueStatsValue.Key> {
+
+    @Modifying
+    @Query(value = "INSERT INTO catalogue_stats_value (scope, dimension, stat_value, cards) " +
+            "VALUES (:scope, :dimension, :value, :cards) " +
+            "ON DUPLICATE KEY UPDATE cards = cards + :cards",
+            nativeQuery = true)
+    int addCards(@Param("scope") String scope,
+                 @Param("dimension") String dimension,
+                 @Param("value") String value,
+                 @Param("cards") long cards);
+
+    @Query("SELECT v.cards FROM CatalogueStatsValue v " +
+            "WHERE v.scope = :scope AND v.dimension = :dimension AND v.value = :value")
+    Long findCards(@Param("scope") String scope,
+                   @Param("dimension") CatalogueStatsValue.Dimension dimension,
+                   @Param("value") String value);
+
+    @Modifying
+    @Query("DELETE FROM CatalogueStatsValue v " +
+            "WHERE v.scope = :scope AND v.dimension = :dimension AND v.value = :value AND v.cards <= 0")
+    int deleteIfEmpty(@Param("scope") String scope,
+                      @Param("dimension") CatalogueStatsValue.Dimension dimension,
+                      @Param("value") String value);
+
+    List<CatalogueStatsValue> findByScope(String scope);
+
+    /**
+     * Valeurs d'une dimension par ordre alphabétique (clé primaire), à partir de {@code after} exclu
+     */
+    @Query("SELECT v FROM CatalogueStatsValue v " +
+            "WHERE v.scope = :scope AND v.dimension = :dimension " +
+            "AND (:prefix IS NULL OR v.value LIKE CONCAT(:prefix, '%')) " +
+            "AND (:after IS NULL OR v.value > :after) " +
+            "ORDER BY v.value ASC")
+    List<CatalogueStatsValue> findPageByValue(@Param("scope") String scope,
+                                              @Param("dimension") CatalogueStatsValue.Dimension dimension,
+                                              @Param("prefix") String prefix,
+                                              @Param("after") String after,
+                                              Pageable pageable);
+
+    /**
+     * Valeurs d'une dimension par nombre de cartes décroissant (index idx_stats_value_cards)
+     */
+    @Query("SELECT v FROM CatalogueStatsValue v " +
+            "WHERE v.scope = :scope AND v.dimension = :dimension " +
+            "AND (:prefix IS NULL OR v.value LIKE CONCAT(:prefix, '%')) " +
+            "AND (:afterCards IS NULL OR v.cards < :afterCards OR (v.cards = :afterCards AND v.value > :after)) " +
+            "ORDER BY v.cards DESC, v.value ASC")
+    List<CatalogueStatsValue> findPageByCards(@Param("scope") String scope,
+                                              @Param("dimension") CatalogueStatsValue.Dimension dimension,
+                                              @Param("prefix") String prefix,
+                                              @Param("afterCards") Long afterCards,
+                                              @Param("after") String after,
+                                              Pageable pageable);
+
+    /**
+     * Une valeur dans tous les périmètres (global et extensions), index idx_stats_value_lookup
+     */
+    List<CatalogueStatsValue> findByDimensionAndValueOrderByCardsDesc(CatalogueStatsValue.Dimension dimension, String value);
+
+    List<CatalogueStatsValue> findByScopeAndDimensionOrderByCardsDesc(String scope, CatalogueStatsValue.Dimension dimension);
+}
@@ -0,0 +1,47 @@
+package com.pcagrad.magic.repository;
+
+import com.pcagrad.magic.entity.ImageBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ImageBlobRepository extends JpaRepository<ImageBlob, String> {
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ImageBlob b SET b.refCount = b.refCount + 1 WHERE b.hash = :hash")
+    int incrementRefCount(@Param("hash") String hash);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ImageBlob b SET b.refCount = b.refCount - 1 WHERE b.hash = :hash AND b.refCount > 0")
+    int decrementRefCount(@Param("hash") String hash);
+
+    // Lecture en base : l'entité déjà chargée dans la transaction garde l'ancien compteur
+    @Query("SELECT b.refCount FROM ImageBlob b WHERE b.hash = :hash")
+    Optional<Integer> findRefCount(@Param("hash") String hash);
+
+    // Blobs qui ne sont plus référencés par aucune carte
+    @Query("SELECT b FROM ImageBlob b WHERE b.refCount <= 0")
+    List<ImageBlob> findUnreferenced();
+
+    @Query("SELECT COALESCE(SUM(b.sizeBytes), 0) FROM ImageBlob b")
+    long sumStoredBytes();
+
+    // Volume qu'occuperaient les images sans déduplication
+    @Query("SELECT COALESCE(SUM(b.sizeBytes * b.refCount), 0) FROM ImageBlob b")
+    long sumLogicalBytes();
+
+    @Query("SELECT COALESCE(SUM(b.refCount), 0) FROM ImageBlob b")
+    long sumRefCount();
+
+    @Query("SELECT COUNT(b) FROM ImageBlob b WHERE b.refCount > 1")
+    long countShared();
+}
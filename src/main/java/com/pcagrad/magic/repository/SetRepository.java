@@ -143,6 +143,12 @@ public interface SetRepository extends JpaRepository<MagicSet, UUID> {
     @Query("SELECT ms FROM MagicSet ms WHERE ms.nbImages > 0")
     List<MagicSet> findSetsWithImages();
 
+    // Mise à jour directe : ne déclenche pas l'écouteur du catalogue (rien de visible ne change)
+    @Modifying
+    @Transactional
+    @Query("UPDATE MagicSet ms SET ms.upstreamFingerprint = :fingerprint WHERE ms.code = :code")
+    int updateUpstreamFingerprint(@Param("code") String code, @Param("fingerprint") String fingerprint);
+
     /**
      * ✅ MÉTHODE MANQUANTE: Supprimer les extensions vides
      */
@@ -0,0 +1,312 @@
+package com.pcagrad.magic.service;
+
+import com.pcagrad.magic.dto.CursorPage;
+import com.pcagrad.magic.entity.Artist;
+import com.pcagrad.magic.entity.CardArtist;
+import com.pcagrad.magic.entity.CatalogueStats;
+import com.pcagrad.magic.entity.CatalogueStatsValue;
+import com.pcagrad.magic.entity.MagicCard;
+import com.pcagrad.magic.model.CardField;
+import com.pcagrad.magic.model.MtgCard;
+import com.pcagrad.magic.repository.ArtistRepository;
+import com.pcagrad.magic.repository.CardArtistRepository;
+import com.pcagrad.magic.repository.CatalogueStatsValueRepository;
+import com.pcagrad.magic.util.AfterCommit;
+import com.pcagrad.magic.util.KeysetCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Dimension artiste : table artist + lien card_artist écrit avec chaque carte, comptages par artiste
+ * (global et par extension) lus dans les statistiques pré-agrégées de {@link CatalogueStatsService}.
+ * Parcourir les artistes ne touche jamais magic_card ; lister les cartes d'un artiste suit l'index du lien.
+ */
+@Service
+public class ArtistService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArtistService.class);
+
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final String CURSOR_SEPARATOR = "\u001F";
+
+    @Autowired
+    private ArtistRepository artistRepository;
+
+    @Autowired
+    private CardArtistRepository cardArtistRepository;
+
+    @Autowired
+    private CatalogueStatsValueRepository statsValueRepository;
+
+    // MtgService -> CardPersistenceService -> ce service : résolu au premier appel
+    @Lazy
+    @Autowired
+    private MtgService mtgService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Nom -> id : les artistes ne sont jamais renommés ni supprimés
+    private final Map<String, Long> idsByName = new ConcurrentHashMap<>();
+    private final AtomicBoolean reindexQueued = new AtomicBoolean();
+
+    private ExecutorService indexer;
+    private TransactionTemplate transactionTemplate;
+
+    @jakarta.annotation.PostConstruct
+    public void init() {
+        indexer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "artist-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @jakarta.annotation.PreDestroy
+    public void shutdown() {
+        indexer.shutdownNow();
+    }
+
+    // Cartes sans lien (première mise en service, écritures hors de ce service) : rattachées en arrière-plan
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialiseIfMissing() {
+        if (!cardArtistRepository.findUnlinkedCardIds(PageRequest.ofSize(1)).isEmpty()) {
+            requestReindex();
+        }
+    }
+
+    // ========== ÉCRITURE ==========
+
+    /**
+     * Rattache une carte enregistrée à son artiste (ou retire le lien si elle n'en a plus)
+     */
+    public void link(MagicCard card) {
+        if (card.getId() == null) {
+            return;
+        }
+        Long artistId = resolve(card.getArtist());
+        if (artistId == null) {
+            cardArtistRepository.deleteById(card.getId());
+            return;
+        }
+        cardArtistRepository.save(new CardArtist(card.getId(), artistId));
+    }
+
+    public void unlink(Collection<UUID> cardIds) {
+        if (!cardIds.isEmpty()) {
+            cardArtistRepository.deleteByCardIds(cardIds);
+        }
+    }
+
+    private Long resolve(String artist) {
+        String name = normalize(artist);
+        if (name == null) {
+            return null;
+        }
+        Long cached = idsByName.get(name);
+        if (cached != null) {
+            return cached;
+        }
+        // Dans la transaction de la carte (une seule connexion) : l'id n'est mis en cache qu'après
+        // le commit, un artiste créé puis annulé n'y entre jamais
+        Long id = transactionTemplate.execute(status -> artistRepository.findByName(name)
+                .or(() -> {
+                    artistRepository.insertIfAbsent(name);
+                    return artistRepository.findByName(name);
+                })
+                .map(Artist::getId)
+                .orElse(null));
+        if (id != null) {
+            AfterCommit.run(() -> idsByName.put(name, id));
+        }
+        return id;
+    }
+
+    // Même forme que la valeur ARTIST des statistiques : les deux se retrouvent par le nom
+    private String normalize(String artist) {
+        if (artist == null || artist.isBlank()) {
+            return null;
+        }
+        return artist.length() > 255 ? artist.substring(0, 255) : artist;
+    }
+
+    // ========== RATTRAPAGE ==========
+
+    /**
+     * Rattache en arrière-plan les cartes sans lien et purge les liens de cartes supprimées en masse
+     */
+    public boolean requestReindex() {
+        if (!reindexQueued.compareAndSet(false, true)) {
+            return false;
+        }
+        indexer.submit(() -> {
+            reindexQueued.set(false);
+            try {
+                reindex();
+            } catch (Exception e) {
+                logger.error("❌ Indexation des artistes impossible : {}", e.getMessage());
+            }
+        });
+        return true;
+    }
+
+    private void reindex() {
+        long start = System.currentTimeMillis();
+        AtomicInteger linked = new AtomicInteger();
+
+        Integer orphans = transactionTemplate.execute(status -> cardArtistRepository.deleteOrphans());
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<MagicCard> cards = cardArtistRepository.streamUnlinkedCards()) {
+                cards.forEach(card -> {
+                    link(card);
+                    entityManager.detach(card);
+                    linked.incrementAndGet();
+                });
+            }
+        });
+
+        logger.info("🎨 Artistes indexés en {} ms : {} cartes rattachées, {} liens orphelins supprimés",
+                System.currentTimeMillis() - start, linked.get(), orphans);
+    }
+
+    // ========== LECTURE ==========
+
+    /**
+     * Artistes du catalogue par nom ({@code sort=name}) ou par nombre de cartes ({@code sort=cards}),
+     * filtrés par préfixe ; pagination par curseur sur les statistiques globales
+     */
+    public CursorPage<ArtistSummary> listArtists(String prefix, String sort, String cursor, int limit) {
+        boolean byCards = "cards".equalsIgnoreCase(sort);
+        if (!byCards && sort != null && !sort.isBlank() && !"name".equalsIgnoreCase(sort)) {
+            throw new IllegalArgumentException("Tri inconnu : " + sort + " (name ou cards)");
+        }
+        String prefixFilter = prefix == null || prefix.isBlank() ? null : prefix.trim();
+        String scope = "artists:" + (byCards ? "cards" : "name") + ":" + Objects.toString(prefixFilter, "");
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        PageRequest window = PageRequest.ofSize(size + 1);
+
+        String afterName = null;
+        Long afterCards = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decodeCursor(cursor, scope);
+            afterCards = position[0].isEmpty() ? null : Long.valueOf(position[0]);
+            afterName = position[1];
+        }
+
+        List<CatalogueStatsValue> rows = byCards
+                ? statsValueRepository.findPageByCards(CatalogueStats.GLOBAL, CatalogueStatsValue.Dimension.ARTIST,
+                        prefixFilter, afterCards, afterName, window)
+                : statsValueRepository.findPageByValue(CatalogueStats.GLOBAL, CatalogueStatsValue.Dimension.ARTIST,
+                        prefixFilter, afterName, window);
+
+        boolean hasMore = rows.size() > size;
+        List<CatalogueStatsValue> page = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            CatalogueStatsValue last = page.get(page.size() - 1);
+            nextCursor = encodeCursor(scope, byCards ? String.valueOf(last.getCards()) : "", last.getValue());
+        }
+        List<ArtistSummary> items = page.stream()
+                .map(value -> new ArtistSummary(value.getValue(), value.getCards()))
+                .collect(Collectors.toList());
+        return new CursorPage<>(items, nextCursor, hasMore, null);
+    }
+
+    /**
+     * Fiche d'un artiste : nombre de cartes au total et par extension
+     */
+    public Optional<ArtistDetail> getArtist(String name) {
+        String artist = normalize(name);
+        if (artist == null) {
+            return Optional.empty();
+        }
+        List<CatalogueStatsValue> rows = statsValueRepository
+                .findByDimensionAndValueOrderByCardsDesc(CatalogueStatsValue.Dimension.ARTIST, artist);
+        long cards = 0;
+        Map<String, Long> sets = new LinkedHashMap<>();
+        for (CatalogueStatsValue row : rows) {
+            if (CatalogueStats.GLOBAL.equals(row.getScope())) {
+                cards = row.getCards();
+            } else {
+                sets.put(row.getScope(), row.getCards());
+            }
+        }
+        return rows.isEmpty() ? Optional.empty() : Optional.of(new ArtistDetail(artist, cards, sets));
+    }
+
+    /**
+     * Cartes d'un artiste, curseur sur l'id de carte (index du lien)
+     */
+    public Optional<CursorPage<MtgCard>> getArtistCards(String name, String cursor, int limit, Set<CardField> fields) {
+        String artistName = normalize(name);
+        Optional<Artist> artist = artistName != null ? artistRepository.findByName(artistName) : Optional.empty();
+        if (artist.isEmpty()) {
+            return Optional.empty();
+        }
+        Long artistId = artist.get().getId();
+        String scope = "artist:" + artistId;
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        PageRequest window = PageRequest.ofSize(size + 1);
+
+        List<MagicCard> rows = cursor == null || cursor.isBlank()
+                ? cardArtistRepository.findCardsFirst(artistId, window)
+                : cardArtistRepository.findCardsAfter(artistId, KeysetCursor.decode(cursor, scope).id(), window);
+
+        boolean hasMore = rows.size() > size;
+        List<MagicCard> page = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = hasMore ? new KeysetCursor(scope, null, page.get(page.size() - 1).getId()).encode() : null;
+        List<MtgCard> items = page.stream()
+                .map(card -> mtgService.entityToModel(card, fields))
+                .collect(Collectors.toList());
+        return Optional.of(new CursorPage<>(items, nextCursor, hasMore, null));
+    }
+
+    // Curseur opaque : portée + dernière position (nombre de cartes, nom)
+    private String encodeCursor(String scope, String cards, String name) {
+        String raw = scope + CURSOR_SEPARATOR + cards + CURSOR_SEPARATOR + name;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor, String expectedScope) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(CURSOR_SEPARATOR, -1);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Curseur illisible", e);
+        }
+        if (parts.length != 3 || !parts[0].equals(expectedScope)) {
+            throw new IllegalArgumentException("Curseur invalide pour cette requête");
+        }
+        return new String[]{parts[1], parts[2]};
+    }
+
+    // ========== DTOs ==========
+
+    public record ArtistSummary(String name, long cards) {}
+
+    public record ArtistDetail(String name, long cards, Map<String, Long> sets) {}
+}
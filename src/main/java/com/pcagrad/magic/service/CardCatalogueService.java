@@ -0,0 +1,78 @@
+package com.pcagrad.magic.service;
+
+import com.pcagrad.magic.entity.MagicCard;
+import com.pcagrad.magic.util.CardCatalogue;
+import com.pcagrad.magic.util.CardFacetIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * Tient à jour le {@link CardCatalogue} en mémoire : construit au démarrage puis après les écritures
+ * par {@link CatalogueRebuildService}, dans le même parcours de la base que l'instantané. L'index de
+ * facettes ({@link CardFacetIndex}) est reconstruit avec lui.
+ */
+@Service
+public class CardCatalogueService implements CatalogueView {
+
+    private static final Logger logger = LoggerFactory.getLogger(CardCatalogueService.class);
+
+    @Value("${mtg.catalogue.enabled:true}")
+    private boolean enabled;
+
+    private volatile CardCatalogue catalogue;
+    private volatile CardFacetIndex facetIndex;
+    private volatile long builtAt;
+
+    /**
+     * Catalogue courant ; vide tant que la première construction n'est pas terminée
+     */
+    public Optional<CardCatalogue> current() {
+        return Optional.ofNullable(catalogue);
+    }
+
+    /**
+     * Index de facettes du catalogue courant ; vide tant que la première construction n'est pas terminée
+     */
+    public Optional<CardFacetIndex> facets() {
+        return Optional.ofNullable(facetIndex);
+    }
+
+    public long getBuiltAt() {
+        return builtAt;
+    }
+
+    // ========== CONSTRUCTION ==========
+
+    @Override
+    public Pass begin(boolean startup) {
+        if (!enabled) {
+            return null;
+        }
+        long start = System.currentTimeMillis();
+        CardCatalogue.Builder catalogueBuilder = new CardCatalogue.Builder();
+        return new Pass() {
+            @Override
+            public void accept(MagicCard card) {
+                catalogueBuilder.add(card);
+            }
+
+            @Override
+            public void publish() {
+                CardCatalogue built = catalogueBuilder.build();
+                CardFacetIndex builtFacets = CardFacetIndex.build(built);
+                catalogue = built;
+                facetIndex = builtFacets;
+                builtAt = System.currentTimeMillis();
+
+                CardCatalogue.MemoryReport report = built.memoryReport();
+                logger.info("🗂️ Catalogue en mémoire construit en {} ms : {} cartes, {} Ko ({} octets/carte), facettes {} Ko",
+                        builtAt - start, report.cards(), report.totalBytes() / 1024, Math.round(report.bytesPerCard()),
+                        builtFacets.estimatedBytes() / 1024);
+            }
+        };
+    }
+}
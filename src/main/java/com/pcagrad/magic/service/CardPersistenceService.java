@@ -9,10 +9,14 @@ import com.pcagrad.magic.model.MtgSet;
 import com.pcagrad.magic.repository.CardRepository;
 import com.pcagrad.magic.repository.SetRepository;
 import com.pcagrad.magic.repository.CardTranslationRepository; // ← AJOUTER
+import com.pcagrad.magic.util.ContentHash;
 import com.pcagrad.magic.util.Localization;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
@@ -26,6 +30,8 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -48,6 +54,24 @@ public class CardPersistenceService {
     @Autowired
     private EntityAdaptationService adaptationService;
 
+    @Autowired
+    private MetricsService metricsService;
+
+    @Autowired
+    private CatalogueChangeService catalogueChangeService;
+
+    @Autowired
+    private CatalogueStatsService catalogueStatsService;
+
+    @Autowired
+    private ArtistService artistService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${mtg.sync.staging-batch-size:100}")
+    private int stagingBatchSize;
+
     // ===============================
     // MÉTHODES MANQUANTES - CORRECTIONS
     // ===============================
@@ -59,7 +83,7 @@ public class CardPersistenceService {
     public CompletableFuture<Integer> saveCardsForSet(String setCode, List<MtgCard> cards) {
         logger.info("💾 Début de la sauvegarde adaptée de {} cartes pour l'extension {}", cards.size(), setCode);
 
-        return CompletableFuture.supplyAsync(() -> {
+        return CompletableFuture.supplyAsync(SyncProgress.propagate(() -> {
             // S'assurer que l'extension existe
             ensureSetExistsAdapted(setCode, cards);
 
@@ -67,6 +91,8 @@ public class CardPersistenceService {
             int skippedCount = 0;
 
             for (MtgCard mtgCard : cards) {
+                // Hors du try : une annulation interrompt la sauvegarde au lieu de compter une carte ignorée
+                SyncProgress.current().checkCancelled();
                 try {
                     MagicCard result = saveOrUpdateCardAdapted(mtgCard, setCode);
                     if (result != null) {
@@ -94,7 +120,7 @@ public class CardPersistenceService {
 
             logger.info("✅ Sauvegarde terminée pour {} : {} sauvées, {} ignorées", setCode, savedCount, skippedCount);
             return savedCount;
-        });
+        }));
     }
 
     /**
@@ -109,6 +135,7 @@ public class CardPersistenceService {
         int skippedCount = 0;
 
         for (MtgCard mtgCard : cards) {
+            SyncProgress.current().checkCancelled();
             try {
                 MagicCard result = saveOrUpdateCardAdapted(mtgCard, setCode);
                 if (result != null) {
@@ -188,6 +215,10 @@ public class CardPersistenceService {
                 logger.warn("⚠️ Impossible de supprimer les extensions vides : {}", e.getMessage());
             }
 
+            // Suppressions en masse : les statistiques sont recalculées plutôt que suivies carte à carte
+            catalogueStatsService.requestRebuild();
+            artistService.requestReindex();
+
             logger.info("✅ Nettoyage terminé");
 
         } catch (Exception e) {
@@ -209,6 +240,20 @@ public class CardPersistenceService {
             if (set.isPresent()) {
                 result.put("setName", set.get().getName());
 
+                // Compteurs maintenus à l'écriture ; comptage direct tant qu'ils ne sont pas construits
+                Optional<CatalogueStatsService.StatsView> stats = catalogueStatsService.getStats(setCode);
+                if (stats.isPresent()) {
+                    long cardCount = stats.get().cards();
+                    result.put("cardCount", cardCount);
+                    result.put("cardsWithTranslations", stats.get().translatedCards());
+                    result.put("cardsWithImages", stats.get().images());
+                    result.put("translationPercentage", stats.get().translationPercentage());
+                    result.put("imagePercentage", stats.get().imagePercentage());
+                    result.put("isConsistent", cardCount > 0);
+                    result.put("success", true);
+                    return result;
+                }
+
                 // Compter les cartes
                 long cardCount = cardRepository.countBySetCode(setCode);
                 result.put("cardCount", cardCount);
@@ -267,64 +312,102 @@ public class CardPersistenceService {
      * Sauvegarde ou met à jour une carte - VERSION CORRIGÉE
      */
     public MagicCard saveOrUpdateCardAdapted(MtgCard mtgCard, String setCode) {
+        SyncProgress.current().checkCancelled();
+
         if (mtgCard.id() == null || mtgCard.id().isEmpty()) {
             logger.warn("⚠️ Carte sans ID externe ignorée : {}", mtgCard.name());
+            metricsService.cardSkipped(setCode);
             return null;
         }
 
-        // Chercher par idPrim (externalId) ET setCode
-        Optional<MagicCard> existingCard = cardRepository.findByExternalIdAndSetCode(mtgCard.id(), setCode);
+        // Chercher par idPrim (externalId normalisé comme à la création) ET setCode
+        String externalId = normalizeExternalId(mtgCard.id());
+        Optional<MagicCard> existingCard = cardRepository.findByExternalIdAndSetCode(externalId, setCode);
+        String legacyId = legacyExternalId(mtgCard.id());
+        if (existingCard.isEmpty() && legacyId != null) {
+            existingCard = cardRepository.findByExternalIdAndSetCode(legacyId, setCode);
+        }
+        // Même empreinte que la synchro différentielle : la carte écrite ici n'y sera pas réécrite
+        String hash = computeContentHash(mtgCard);
         MagicCard cardEntity;
+        CatalogueStatsService.CardFacts before = null;
 
         if (existingCard.isPresent()) {
             cardEntity = existingCard.get();
-            updateCardEntityAdapted(cardEntity, mtgCard);
+            before = catalogueStatsService.facts(cardEntity);
+            // Migre une carte encore rangée sous l'ancienne clé
+            cardEntity.setExternalId(externalId);
+            applyCardContent(cardEntity, mtgCard, hash);
             logger.debug("🔄 Mise à jour carte existante adaptée : {}", mtgCard.name());
         } else {
             // Vérifier s'il y a une carte avec le même nom
             List<MagicCard> sameName = cardRepository.findByNameAndSetCode(mtgCard.name(), setCode);
             if (!sameName.isEmpty()) {
                 cardEntity = sameName.get(0);
-                cardEntity.setExternalId(mtgCard.id());
-                updateCardEntityAdapted(cardEntity, mtgCard);
+                before = catalogueStatsService.facts(cardEntity);
+                cardEntity.setExternalId(externalId);
+                applyCardContent(cardEntity, mtgCard, hash);
                 logger.debug("🔄 Carte existante trouvée par nom (adaptation) : {}", mtgCard.name());
             } else {
                 cardEntity = createCardEntityAdapted(mtgCard, setCode);
+                applyCardContent(cardEntity, mtgCard, hash);
                 logger.debug("✨ Nouvelle carte créée avec adaptation : {}", mtgCard.name());
             }
         }
 
         try {
             // *** CORRECTION: Utiliser la méthode de sauvegarde avec traductions ***
-            return saveCardWithTranslations(cardEntity);
+            MagicCard saved = saveCardWithTranslations(cardEntity);
+            catalogueChangeService.recordUpsert(saved);
+            catalogueStatsService.cardWritten(before, saved);
+            metricsService.cardSaved(setCode);
+            SyncProgress.current().cardSaved(setCode);
+            return saved;
         } catch (Exception e) {
             logger.error("❌ Erreur sauvegarde carte adaptée {} : {}", mtgCard.name(), e.getMessage());
+            metricsService.cardSkipped(setCode);
             return null;
         }
     }
 
     /**
-     * NOUVELLE MÉTHODE CORRIGÉE : Sauvegarde la carte avec ses traductions
+     * Sauvegarde la carte avec ses traductions. Les traductions suivent la carte en cascade :
+     * les enregistrer une seconde fois fusionnerait deux copies de la même traduction.
+     * Une nouvelle carte (UUID déjà attribué) est fusionnée : seule la copie renvoyée est suivie.
      */
     @Transactional
     protected MagicCard saveCardWithTranslations(MagicCard cardEntity) {
-        // 1. D'abord sauvegarder la carte pour obtenir un ID
         MagicCard savedCard = cardRepository.save(cardEntity);
+        artistService.link(savedCard);
+        return savedCard;
+    }
 
-        // 2. Puis sauvegarder chaque traduction individuellement
-        if (!cardEntity.getTranslations().isEmpty()) {
-            for (CardTranslation translation : cardEntity.getTranslations()) {
-                if (translation != null) {
-                    // S'assurer que la traduction référence la carte sauvegardée
-                    translation.setTranslatable(savedCard);
+    /**
+     * Enregistre une carte construite hors synchronisation (endpoints d'administration) avec les
+     * mêmes effets que la synchronisation : lien d'artiste, journal des modifications et statistiques
+     */
+    public MagicCard saveNewCard(MagicCard cardEntity) {
+        MagicCard saved = cardRepository.save(cardEntity);
+        artistService.link(saved);
+        catalogueChangeService.recordUpsert(saved);
+        catalogueStatsService.cardWritten(null, saved);
+        return saved;
+    }
 
-                    // Sauvegarder la traduction
-                    cardTranslationRepository.save(translation);
-                }
-            }
+    /**
+     * Supprime des cartes en libérant leurs images et liens d'artiste, journal et statistiques à jour
+     */
+    public void removeCards(Collection<MagicCard> cards) {
+        if (cards.isEmpty()) {
+            return;
         }
-
-        return savedCard;
+        for (MagicCard card : cards) {
+            imageDownloadService.releaseCardImage(card.getId());
+            catalogueChangeService.recordDelete(card);
+            catalogueStatsService.cardRemoved(card);
+        }
+        artistService.unlink(cards.stream().map(MagicCard::getId).toList());
+        cardRepository.deleteAll(cards);
     }
 
     /**
@@ -337,17 +420,299 @@ public class CardPersistenceService {
         cardEntity.setId(UUID.randomUUID());
 
         // Stocker l'ID Scryfall
-        String externalId = mtgCard.id();
-        if (externalId != null && externalId.length() > 20) {
-            externalId = Integer.toHexString(mtgCard.id().hashCode()).substring(0, Math.min(20, 8));
-        }
-        cardEntity.setExternalId(externalId);
+        cardEntity.setExternalId(normalizeExternalId(mtgCard.id()));
         cardEntity.setZPostExtension(setCode);
 
         updateCardEntityAdapted(cardEntity, mtgCard);
         return cardEntity;
     }
 
+    // ===============================
+    // SYNCHRONISATION DIFFÉRENTIELLE
+    // ===============================
+
+    /**
+     * Synchronise une extension en n'écrivant que les différences avec la base :
+     * cartes nouvelles, cartes dont l'empreinte a changé, cartes disparues de l'API.
+     */
+    public SyncDelta syncCardsDelta(String setCode, List<MtgCard> cards) {
+        return syncCardsDelta(setCode, cards, card -> { });
+    }
+
+    /**
+     * Variante avec initialisation spécifique des nouvelles cartes (valeurs par défaut d'un endpoint)
+     */
+    public SyncDelta syncCardsDelta(String setCode, List<MtgCard> cards, Consumer<MagicCard> onNewCard) {
+        logger.info("🔁 Synchronisation différentielle de {} cartes pour {}", cards.size(), setCode);
+        SyncProgress progress = SyncProgress.current();
+
+        ensureSetExistsAdapted(setCode, cards);
+
+        // Cartes en base indexées par ID externe ; les doublons éventuels seront supprimés
+        Map<String, MagicCard> existingById = new HashMap<>();
+        List<MagicCard> duplicates = new ArrayList<>();
+        for (MagicCard card : cardRepository.findBySetCodeIgnoreCaseOrderByNameAsc(setCode)) {
+            if (card.getExternalId() == null || existingById.putIfAbsent(card.getExternalId(), card) != null) {
+                duplicates.add(card);
+            }
+        }
+
+        int added = 0;
+        int changed = 0;
+        int unchanged = 0;
+        int skipped = 0;
+        Set<String> seen = new HashSet<>();
+
+        for (MtgCard mtgCard : cards) {
+            // Hors du try : une annulation interrompt la synchro au lieu de compter une erreur
+            progress.checkCancelled();
+
+            String externalId = normalizeExternalId(mtgCard.id());
+            if (externalId == null || !seen.add(externalId)) {
+                metricsService.cardSkipped(setCode);
+                skipped++;
+                continue;
+            }
+
+            String hash = computeContentHash(mtgCard);
+            MagicCard existing = existingById.remove(externalId);
+            boolean rekeyed = false;
+            if (existing == null && legacyExternalId(mtgCard.id()) != null) {
+                existing = existingById.remove(legacyExternalId(mtgCard.id()));
+                rekeyed = existing != null;
+            }
+
+            if (rekeyed) {
+                // Ancienne clé : réécrite même si le contenu n'a pas changé
+                existing.setExternalId(externalId);
+            } else if (existing != null && hash.equals(existing.getContentHash())) {
+                unchanged++;
+                metricsService.cardUnchanged(setCode);
+                continue;
+            }
+
+            // Pas de reprise carte par carte : une erreur d'écriture rend la transaction irrécupérable,
+            // la synchro entière est annulée et l'extension reste dans son état précédent
+            if (existing != null) {
+                CatalogueStatsService.CardFacts before = catalogueStatsService.facts(existing);
+                applyCardContent(existing, mtgCard, hash);
+                MagicCard saved = saveCardWithTranslations(existing);
+                catalogueChangeService.recordUpsert(saved);
+                catalogueStatsService.cardWritten(before, saved);
+                changed++;
+            } else {
+                MagicCard created = createCardEntityAdapted(mtgCard, setCode);
+                onNewCard.accept(created);
+                applyCardContent(created, mtgCard, hash);
+                MagicCard saved = saveCardWithTranslations(created);
+                catalogueChangeService.recordUpsert(saved);
+                catalogueStatsService.cardWritten(null, saved);
+                added++;
+            }
+            metricsService.cardSaved(setCode);
+            progress.cardSaved(setCode);
+        }
+
+        // Ne jamais vider une extension sur une réponse vide (API indisponible)
+        List<MagicCard> removed = new ArrayList<>(duplicates);
+        if (!cards.isEmpty()) {
+            removed.addAll(existingById.values());
+        }
+        removeCards(removed);
+
+        updateSetStatisticsAdapted(setCode);
+
+        SyncDelta delta = new SyncDelta(setCode, added, changed, unchanged, removed.size(), skipped);
+        logger.info("✅ Synchro différentielle {} : {} ajoutées, {} modifiées, {} inchangées, {} supprimées, {} ignorées",
+                setCode, added, changed, unchanged, removed.size(), skipped);
+        return delta;
+    }
+
+    /**
+     * Charge les cartes d'une extension sous un code de préparation (voir SetGenerationService) :
+     * invisibles des lectures par extension jusqu'à la bascule, écrites d'une traite et
+     * envoyées en base par lots.
+     * Une carte déjà publiée est reprise dans la préparation avec son identifiant, son image et
+     * son artiste ; seules les cartes nouvelles sont créées, seules les disparues restent à retirer.
+     */
+    public int stageCards(String setCode, String stagedCode, List<MtgCard> cards, Consumer<MagicCard> onNewCard) {
+        logger.info("📦 Chargement de {} cartes en préparation ({})", cards.size(), stagedCode);
+        SyncProgress progress = SyncProgress.current();
+
+        ensureSetExistsAdapted(setCode, cards);
+
+        // Cartes publiées indexées par ID externe (les doublons restent dans l'extension publiée)
+        Map<String, UUID> liveIds = new HashMap<>();
+        for (MagicCard card : cardRepository.findBySetCodeIgnoreCaseOrderByNameAsc(setCode)) {
+            if (card.getExternalId() != null) {
+                liveIds.putIfAbsent(card.getExternalId(), card.getId());
+            }
+        }
+        entityManager.clear();
+
+        int staged = 0;
+        int carried = 0;
+        Set<String> seen = new HashSet<>();
+
+        for (MtgCard mtgCard : cards) {
+            progress.checkCancelled();
+
+            String externalId = normalizeExternalId(mtgCard.id());
+            if (externalId == null || !seen.add(externalId)) {
+                metricsService.cardSkipped(setCode);
+                continue;
+            }
+
+            UUID liveId = liveIds.remove(externalId);
+            if (liveId == null && legacyExternalId(mtgCard.id()) != null) {
+                liveId = liveIds.remove(legacyExternalId(mtgCard.id()));
+            }
+            MagicCard live = liveId != null ? cardRepository.findById(liveId).orElse(null) : null;
+
+            if (live != null) {
+                live.setExternalId(externalId);
+                live.setZPostExtension(stagedCode);
+                applyCardContent(live, mtgCard, computeContentHash(mtgCard));
+                saveCardWithTranslations(live);
+                carried++;
+            } else {
+                MagicCard created = createCardEntityAdapted(mtgCard, stagedCode);
+                onNewCard.accept(created);
+                applyCardContent(created, mtgCard, computeContentHash(mtgCard));
+                saveCardWithTranslations(created);
+            }
+            staged++;
+            metricsService.cardSaved(setCode);
+            progress.cardSaved(setCode);
+
+            // Contexte de persistance borné : les insertions partent par lots
+            if (staged % stagingBatchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+
+        logger.info("✅ {} cartes chargées en préparation pour {} ({} reprises de l'extension publiée)",
+                staged, setCode, carried);
+        return staged;
+    }
+
+    /**
+     * Marque une extension comme synchronisée (nom, nombre de cartes, date de synchro)
+     */
+    public void markSetSynced(String setCode, String setName, int cardsCount) {
+        MagicSet setEntity = setRepository.findByCode(setCode).orElseGet(() -> {
+            MagicSet created = new MagicSet();
+            created.setCode(setCode);
+            created.setType("expansion");
+            return created;
+        });
+
+        if (setName != null) {
+            setEntity.setName(setName);
+        }
+        setEntity.setCardsCount(cardsCount);
+        setEntity.setCardsSynced(true);
+        setEntity.setLastSyncAt(LocalDateTime.now());
+
+        setRepository.save(setEntity);
+        logger.info("✅ Extension {} mise à jour : {} cartes", setCode, cardsCount);
+    }
+
+    /**
+     * Empreinte normalisée d'une carte : mêmes données = même empreinte, quel que soit
+     * l'ordre des listes (couleurs, types) ou les espaces superflus.
+     */
+    public String computeContentHash(MtgCard card) {
+        StringJoiner joiner = new StringJoiner("\u001F");
+        joiner.add(normalizeText(card.name()))
+                .add(normalizeText(card.manaCost()))
+                .add(card.cmc() != null ? card.cmc().toString() : "")
+                .add(normalizeList(card.colors()))
+                .add(normalizeList(card.colorIdentity()))
+                .add(normalizeText(card.type()))
+                .add(normalizeList(card.supertypes()))
+                .add(normalizeList(card.types()))
+                .add(normalizeList(card.subtypes()))
+                .add(normalizeText(card.rarity()))
+                .add(normalizeText(card.setName()))
+                .add(normalizeText(card.text()))
+                .add(normalizeText(card.artist()))
+                .add(normalizeText(card.number()))
+                .add(normalizeText(card.power()))
+                .add(normalizeText(card.toughness()))
+                .add(normalizeText(card.layout()))
+                .add(card.multiverseid() != null ? card.multiverseid().toString() : "")
+                .add(normalizeText(card.imageUrl()));
+        return ContentHash.sha256Hex(joiner.toString());
+    }
+
+    /**
+     * ID externe tel que stocké dans id_prim (20 caractères max) : les IDs plus longs (UUID Scryfall)
+     * sont remplacés par les 80 premiers bits de leur SHA-256, clé d'identité sans collision en pratique
+     */
+    public String normalizeExternalId(String externalId) {
+        if (externalId == null || externalId.isEmpty()) {
+            return null;
+        }
+        if (externalId.length() <= 20) {
+            return externalId;
+        }
+        return ContentHash.sha256Hex(externalId).substring(0, 20);
+    }
+
+    /**
+     * Ancienne forme des IDs longs (8 hexa de hashCode) encore présente sur les cartes enregistrées
+     * avant le passage au SHA-256 ; null si l'ID n'a jamais été raccourci
+     */
+    public String legacyExternalId(String externalId) {
+        if (externalId == null || externalId.length() <= 20) {
+            return null;
+        }
+        String hex = Integer.toHexString(externalId.hashCode());
+        return hex.substring(0, Math.min(hex.length(), 8));
+    }
+
+    private void applyCardContent(MagicCard cardEntity, MtgCard mtgCard, String hash) {
+        String previousImageUrl = cardEntity.getOriginalImageUrl();
+        updateCardEntityAdapted(cardEntity, mtgCard);
+
+        if (mtgCard.imageUrl() != null && !mtgCard.imageUrl().isEmpty()
+                && !mtgCard.imageUrl().equals(previousImageUrl)) {
+            cardEntity.setOriginalImageUrl(mtgCard.imageUrl());
+            // Nouvelle image en amont : l'ancienne est libérée, le téléchargement la reprendra
+            if (previousImageUrl != null && Boolean.TRUE.equals(cardEntity.getImageDownloaded())) {
+                imageDownloadService.releaseCardImage(cardEntity.getId());
+                cardEntity.setLocalImagePath(null);
+            }
+        }
+        cardEntity.setContentHash(hash);
+    }
+
+    private String normalizeText(String value) {
+        return value == null ? "" : value.trim().replaceAll("\\s+", " ");
+    }
+
+    private String normalizeList(List<String> values) {
+        if (values == null || values.isEmpty()) {
+            return "";
+        }
+        return values.stream()
+                .filter(Objects::nonNull)
+                .map(this::normalizeText)
+                .sorted()
+                .collect(Collectors.joining(","));
+    }
+
+    public record SyncDelta(String setCode, int added, int changed, int unchanged, int removed, int skipped) {
+        public int written() {
+            return added + changed + removed;
+        }
+    }
+
     // ================================================================
 // CORRECTION 2: Dans CardPersistenceService.java
 // ================================================================
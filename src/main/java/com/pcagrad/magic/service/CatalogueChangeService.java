@@ -0,0 +1,279 @@
+package com.pcagrad.magic.service;
+
+import com.pcagrad.magic.entity.CatalogueChange;
+import com.pcagrad.magic.entity.CatalogueChangeSequence;
+import com.pcagrad.magic.entity.MagicCard;
+import com.pcagrad.magic.model.CardField;
+import com.pcagrad.magic.model.MtgCard;
+import com.pcagrad.magic.repository.CardRepository;
+import com.pcagrad.magic.repository.CatalogueChangeRepository;
+import com.pcagrad.magic.repository.CatalogueChangeSequenceRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Journal versionné des modifications du catalogue (cartes écrites ou supprimées par extension) et
+ * lecture incrémentale : un client repart de la dernière version vue au lieu de tout recharger.
+ *
+ * Les entrées d'une transaction sont insérées juste avant sa validation, numérotées sous le verrou
+ * du compteur {@link CatalogueChangeSequence} gardé jusqu'au commit : une version n'est visible
+ * qu'une fois toutes les précédentes validées, un client ne saute donc jamais une transaction lente.
+ */
+@Service
+public class CatalogueChangeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogueChangeService.class);
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    @Autowired
+    private CatalogueChangeRepository changeRepository;
+
+    @Autowired
+    private CatalogueChangeSequenceRepository sequenceRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    // MtgService -> CardPersistenceService -> ce service : résolu au premier appel
+    @Lazy
+    @Autowired
+    private MtgService mtgService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${mtg.changes.retention-days:30}")
+    private int retentionDays;
+
+    private ScheduledExecutorService cleaner;
+    private TransactionTemplate transactionTemplate;
+
+    @jakarta.annotation.PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        cleaner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalogue-changes");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (retentionDays > 0) {
+            cleaner.scheduleWithFixedDelay(this::prune, 1, 6, TimeUnit.HOURS);
+        }
+    }
+
+    @jakarta.annotation.PreDestroy
+    public void shutdown() {
+        cleaner.shutdownNow();
+    }
+
+    // Compteur créé à la première mise en service, repris après la dernière version du journal
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialiseSequence() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!sequenceRepository.existsById(CatalogueChangeSequence.ID)) {
+                    Long latest = changeRepository.findMaxVersion();
+                    sequenceRepository.save(new CatalogueChangeSequence(latest != null ? latest : 0));
+                }
+            });
+        } catch (Exception e) {
+            logger.warn("⚠️ Initialisation du compteur du journal impossible : {}", e.getMessage());
+        }
+    }
+
+    // ========== ÉCRITURE ==========
+
+    public void recordUpsert(MagicCard card) {
+        record(card.getSetCode(), card.getExternalId(), CatalogueChange.Operation.UPSERT);
+    }
+
+    public void recordDelete(MagicCard card) {
+        record(card.getSetCode(), card.getExternalId(), CatalogueChange.Operation.DELETE);
+    }
+
+    public void recordSetReload(String setCode) {
+        record(setCode, null, CatalogueChange.Operation.SET_RELOAD);
+    }
+
+    private void record(String setCode, String externalId, CatalogueChange.Operation operation) {
+        // Générations en préparation ou retirées : invisibles des clients
+        if (setCode == null || setCode.contains("#")) {
+            return;
+        }
+        if (operation != CatalogueChange.Operation.SET_RELOAD && externalId == null) {
+            return;
+        }
+
+        CatalogueChange change = new CatalogueChange(setCode, externalId, operation);
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            transactionTemplate.executeWithoutResult(status -> append(List.of(change)));
+            return;
+        }
+        pendingChanges().merge(setCode + '\u001F' + externalId, change, (previous, latest) -> latest);
+    }
+
+    // Une entrée par carte et par transaction (la dernière opération l'emporte), écrites avant le commit
+    @SuppressWarnings("unchecked")
+    private Map<String, CatalogueChange> pendingChanges() {
+        Map<String, CatalogueChange> pending =
+                (Map<String, CatalogueChange>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            return pending;
+        }
+
+        Map<String, CatalogueChange> created = new LinkedHashMap<>();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                append(created.values());
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(CatalogueChangeService.this);
+            }
+        });
+        return created;
+    }
+
+    /**
+     * Numérote et insère les entrées, dans la transaction courante. Le verrou du compteur est pris
+     * en dernier (écritures en attente envoyées d'abord) pour être tenu le moins longtemps possible.
+     */
+    private void append(Collection<CatalogueChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        entityManager.flush();
+        CatalogueChangeSequence sequence = sequenceRepository.findForUpdate(CatalogueChangeSequence.ID)
+                .orElseGet(() -> {
+                    Long latest = changeRepository.findMaxVersion();
+                    CatalogueChangeSequence created = new CatalogueChangeSequence(latest != null ? latest : 0);
+                    entityManager.persist(created);
+                    return created;
+                });
+
+        long version = sequence.getVersion();
+        LocalDateTime now = LocalDateTime.now();
+        for (CatalogueChange change : changes) {
+            change.setVersion(++version);
+            change.setChangedAt(now);
+            // Identifiant attribué : persist évite la lecture préalable d'un save (merge)
+            entityManager.persist(change);
+        }
+        sequence.setVersion(version);
+    }
+
+    // ========== LECTURE ==========
+
+    /**
+     * Modifications postérieures à {@code since}, regroupées par carte. {@code version} est la valeur
+     * à renvoyer au prochain appel. Si le journal ne remonte plus jusqu'à {@code since}
+     * ({@code resyncRequired}), le client recharge tout puis repart de {@code version}.
+     */
+    public ChangeFeed getChanges(long since, int limit, Set<CardField> fields) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        Long oldest = changeRepository.findMinVersion();
+        if (oldest != null && since < oldest - 1) {
+            Long latest = changeRepository.findMaxVersion();
+            return new ChangeFeed(since, latest != null ? latest : since, false, true, List.of());
+        }
+
+        List<CatalogueChange> rows = changeRepository.findAfter(since, PageRequest.ofSize(size + 1));
+        boolean hasMore = rows.size() > size;
+        List<CatalogueChange> page = hasMore ? rows.subList(0, size) : rows;
+        if (page.isEmpty()) {
+            return new ChangeFeed(since, since, false, false, List.of());
+        }
+
+        // Dernier état par carte ; un rechargement d'extension rend caduques ses entrées précédentes
+        Map<String, CatalogueChange> latestByCard = new LinkedHashMap<>();
+        for (CatalogueChange change : page) {
+            if (change.getOperation() == CatalogueChange.Operation.SET_RELOAD) {
+                latestByCard.values().removeIf(previous -> previous.getSetCode().equals(change.getSetCode()));
+            }
+            String key = change.getSetCode() + '\u001F' + change.getExternalId();
+            latestByCard.remove(key);
+            latestByCard.put(key, change);
+        }
+
+        Set<String> upserted = latestByCard.values().stream()
+                .filter(change -> change.getOperation() == CatalogueChange.Operation.UPSERT)
+                .map(CatalogueChange::getExternalId)
+                .collect(Collectors.toSet());
+        Map<String, MagicCard> currentCards = upserted.isEmpty() ? Map.of()
+                : cardRepository.findByExternalIdIn(upserted).stream()
+                        .collect(Collectors.toMap(card -> card.getSetCode() + '\u001F' + card.getExternalId(),
+                                Function.identity(), (first, second) -> first));
+
+        List<Change> changes = new ArrayList<>(latestByCard.size());
+        latestByCard.forEach((key, change) -> {
+            if (change.getOperation() != CatalogueChange.Operation.UPSERT) {
+                changes.add(new Change(change.getVersion(), change.getOperation(), change.getSetCode(),
+                        change.getExternalId(), null));
+                return;
+            }
+            MagicCard card = currentCards.get(key);
+            // Carte supprimée (ou déplacée) depuis : la suppression suivra, autant l'annoncer déjà
+            changes.add(card == null
+                    ? new Change(change.getVersion(), CatalogueChange.Operation.DELETE, change.getSetCode(),
+                            change.getExternalId(), null)
+                    : new Change(change.getVersion(), change.getOperation(), change.getSetCode(),
+                            change.getExternalId(), mtgService.entityToModel(card, fields)));
+        });
+
+        long version = page.get(page.size() - 1).getVersion();
+        return new ChangeFeed(since, version, hasMore, false, changes);
+    }
+
+    // ========== RÉTENTION ==========
+
+    private void prune() {
+        try {
+            Long latest = changeRepository.findMaxVersion();
+            if (latest == null) {
+                return;
+            }
+            int deleted = changeRepository.deleteOlderThan(LocalDateTime.now().minusDays(retentionDays), latest);
+            if (deleted > 0) {
+                logger.info("🧹 Journal du catalogue : {} entrées de plus de {} jours supprimées", deleted, retentionDays);
+            }
+        } catch (Exception e) {
+            logger.warn("⚠️ Nettoyage du journal du catalogue impossible : {}", e.getMessage());
+        }
+    }
+
+    // ========== DTOs ==========
+
+    public record Change(long version, CatalogueChange.Operation op, String set, String id, MtgCard card) {}
+
+    public record ChangeFeed(long since, long version, boolean hasMore, boolean resyncRequired, List<Change> changes) {}
+}
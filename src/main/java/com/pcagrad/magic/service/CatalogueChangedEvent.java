@@ -0,0 +1,8 @@
+package com.pcagrad.magic.service;
+
+/**
+ * Publié après validation des écritures d'une extension (une fois par transaction, voir
+ * {@link CatalogueEvents}) : les vues dérivées du catalogue (instantané binaire...) savent
+ * quelle extension n'est plus à jour.
+ */
+public record CatalogueChangedEvent(String setCode) {}
@@ -0,0 +1,64 @@
+package com.pcagrad.magic.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Point unique de publication des {@link CatalogueChangedEvent} : les écritures d'une transaction
+ * sont regroupées par extension et publiées une seule fois, après validation. Une synchro de
+ * 300 cartes produit un événement, pas 300.
+ */
+@Service
+public class CatalogueEvents {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Signale qu'une extension a changé ; hors transaction, l'événement part tout de suite
+     */
+    public void setChanged(String setCode) {
+        // Générations en préparation / retirées (CODE#...) : invisibles des lectures
+        if (setCode == null || setCode.isBlank() || setCode.contains("#")) {
+            return;
+        }
+        String code = setCode.trim().toUpperCase(Locale.ROOT);
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            eventPublisher.publishEvent(new CatalogueChangedEvent(code));
+            return;
+        }
+        pendingSets().add(code);
+    }
+
+    // Une entrée par extension et par transaction, publiées après le commit (rien après un rollback)
+    @SuppressWarnings("unchecked")
+    private Set<String> pendingSets() {
+        Set<String> pending = (Set<String>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            return pending;
+        }
+
+        Set<String> created = new LinkedHashSet<>();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                created.forEach(code -> eventPublisher.publishEvent(new CatalogueChangedEvent(code)));
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(CatalogueEvents.this);
+            }
+        });
+        return created;
+    }
+}
@@ -0,0 +1,83 @@
+package com.pcagrad.magic.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.pcagrad.magic.entity.MagicCard;
+import com.pcagrad.magic.model.MtgCard;
+import com.pcagrad.magic.repository.CardRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Export du catalogue complet en NDJSON (une carte JSON par ligne), en mémoire constante :
+ * les cartes sont lues en flux JDBC, écrites une à une dans la réponse puis détachées.
+ */
+@Service
+public class CatalogueExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogueExportService.class);
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private MtgService mtgService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${mtg.export.flush-every:500}")
+    private int flushEvery;
+
+    /**
+     * Écrit toutes les cartes dans {@code out}, sans le fermer. Retourne le nombre de cartes écrites.
+     */
+    @Transactional(readOnly = true)
+    public long exportNdjson(OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        long count = 0;
+
+        // Pas de flush après chaque carte : on vide le tampon tous les flushEvery cartes
+        ObjectWriter writer = objectMapper.writerFor(MtgCard.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        try (Stream<MagicCard> cards = cardRepository.streamAllForExport();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            Iterator<MagicCard> iterator = cards.iterator();
+            while (iterator.hasNext()) {
+                MagicCard card = iterator.next();
+                writer.writeValue(generator, mtgService.entityToModelAdapted(card));
+                generator.writeRaw('\n');
+
+                // Carte écrite : plus rien ne la retient dans le contexte de persistance
+                entityManager.detach(card);
+
+                if (++count % flushEvery == 0) {
+                    generator.flush();
+                }
+            }
+            generator.flush();
+        }
+
+        logger.info("📤 Export NDJSON : {} cartes en {} ms", count, System.currentTimeMillis() - start);
+        return count;
+    }
+}
@@ -0,0 +1,142 @@
+package com.pcagrad.magic.service;
+
+import com.pcagrad.magic.entity.MagicCard;
+import com.pcagrad.magic.repository.CardRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Reconstruit les vues dérivées du catalogue ({@link CatalogueView} : instantané binaire, catalogue
+ * en mémoire) : un seul thread, un seul délai de regroupement après les écritures, et un seul
+ * parcours de la base qui les alimente toutes.
+ */
+@Service
+public class CatalogueRebuildService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogueRebuildService.class);
+
+    @Autowired
+    private List<CatalogueView> views;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${mtg.catalogue.rebuild-delay-ms:5000}")
+    private long rebuildDelayMs;
+
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+    private ScheduledExecutorService builder;
+    private TransactionTemplate transactionTemplate;
+
+    @jakarta.annotation.PostConstruct
+    public void init() {
+        // Un seul thread : les reconstructions ne se chevauchent jamais
+        builder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalogue-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Lecture sur le primaire (transaction non readOnly) : une réplique en retard figerait un état périmé
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @jakarta.annotation.PreDestroy
+    public void shutdown() {
+        builder.shutdownNow();
+    }
+
+    // Après le chargement de l'instantané existant : il décide lui-même s'il participe
+    @Order(10)
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        scheduleRebuild(0, true);
+    }
+
+    // Les changements rapprochés (synchro d'une extension, extensions enchaînées) ne déclenchent qu'une construction
+    @EventListener
+    public void onCatalogueChanged(CatalogueChangedEvent event) {
+        scheduleRebuild(rebuildDelayMs, false);
+    }
+
+    /**
+     * Reconstruction immédiate (hors délai de regroupement), par exemple après une mise à jour en masse
+     */
+    public void requestRebuild() {
+        scheduleRebuild(0, false);
+    }
+
+    public boolean isRebuildPending() {
+        return rebuildScheduled.get();
+    }
+
+    // ========== CONSTRUCTION ==========
+
+    private void scheduleRebuild(long delayMs, boolean startup) {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            builder.schedule(() -> rebuild(startup), delayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void rebuild(boolean startup) {
+        rebuildScheduled.set(false);
+        List<CatalogueView.Pass> passes = views.stream()
+                .map(view -> view.begin(startup))
+                .filter(Objects::nonNull)
+                .toList();
+        if (passes.isEmpty()) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                passes.forEach(CatalogueView.Pass::prepare);
+                entityManager.clear();
+
+                try (Stream<MagicCard> cards = cardRepository.streamAllForExport()) {
+                    cards.forEach(card -> {
+                        passes.forEach(pass -> pass.accept(card));
+                        entityManager.detach(card);
+                    });
+                }
+            });
+        } catch (Exception e) {
+            logger.error("❌ Parcours du catalogue impossible : {}", e.getMessage());
+            return;
+        }
+        logger.info("🔁 Catalogue parcouru en {} ms pour {} vues", System.currentTimeMillis() - start, passes.size());
+
+        for (CatalogueView.Pass pass : passes) {
+            try {
+                pass.publish();
+            } catch (Exception e) {
+                logger.error("❌ Publication d'une vue du catalogue impossible : {}", e.getMessage());
+            }
+        }
+    }
+}
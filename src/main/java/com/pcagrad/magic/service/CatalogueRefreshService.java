@@ -0,0 +1,271 @@
+package com.pcagrad.magic.service;
+
+import com.pcagrad.magic.entity.MagicSet;
+import com.pcagrad.magic.repository.SetRepository;
+import com.pcagrad.magic.util.ContentHash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rafraîchissement planifié du catalogue : un seul appel à la liste des extensions Scryfall,
+ * comparaison de l'empreinte de chaque fiche (nombre de cartes, date de sortie, nom) avec celle
+ * enregistrée à la dernière synchro, puis resynchronisation des seules extensions modifiées.
+ * Le nombre d'extensions relancées par passage est plafonné ; les autres attendent le suivant.
+ */
+@Service
+public class CatalogueRefreshService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogueRefreshService.class);
+
+    @Autowired
+    private ScryfallService scryfallService;
+
+    @Autowired
+    private SetRepository setRepository;
+
+    @Autowired
+    private SyncOrchestratorService syncOrchestratorService;
+
+    @Autowired
+    private MetricsService metricsService;
+
+    @Value("${mtg.refresh.enabled:false}")
+    private boolean enabled;
+
+    @Value("${mtg.refresh.interval-minutes:360}")
+    private long intervalMinutes;
+
+    @Value("${mtg.refresh.initial-delay-minutes:5}")
+    private long initialDelayMinutes;
+
+    @Value("${mtg.refresh.max-sets-per-run:10}")
+    private int maxSetsPerRun;
+
+    // Extensions absentes de la base mais sorties récemment : ajoutées au fil de l'eau
+    @Value("${mtg.refresh.new-sets-within-days:30}")
+    private int newSetsWithinDays;
+
+    // Extension modifiée en amont -> instant de la première détection, jusqu'à sa resynchronisation
+    private final Map<String, Instant> pendingSince = new ConcurrentHashMap<>();
+
+    private volatile Instant lastCheckAt;
+    private volatile RefreshReport lastReport;
+    private volatile String activeRunId;
+
+    private ScheduledExecutorService scheduler;
+
+    @jakarta.annotation.PostConstruct
+    public void init() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalogue-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        metricsService.registerRefreshLag(
+                () -> pendingSince.values().stream()
+                        .min(Comparator.naturalOrder())
+                        .map(detected -> Duration.between(detected, Instant.now()).toSeconds())
+                        .orElse(0L),
+                pendingSince::size,
+                () -> lastCheckAt != null ? Duration.between(lastCheckAt, Instant.now()).toSeconds() : -1);
+
+        if (enabled) {
+            scheduler.scheduleWithFixedDelay(this::scheduledRefresh, initialDelayMinutes, intervalMinutes, TimeUnit.MINUTES);
+            logger.info("⏰ Rafraîchissement planifié toutes les {} min (au plus {} extensions par passage)",
+                    intervalMinutes, maxSetsPerRun);
+        }
+    }
+
+    @jakarta.annotation.PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            logger.error("❌ Rafraîchissement planifié en échec : {}", e.getMessage());
+        }
+    }
+
+    // ========== COMPARAISON ==========
+
+    /**
+     * Compare le catalogue à Scryfall et lance la resynchronisation des extensions modifiées
+     */
+    public synchronized RefreshReport refresh() {
+        if (activeRunId != null && syncOrchestratorService.getRun(activeRunId)
+                .map(run -> "RUNNING".equals(run.state()))
+                .orElse(false)) {
+            return remember(RefreshReport.skipped("Synchronisation " + activeRunId + " encore en cours"));
+        }
+
+        List<ScryfallService.SetSummary> upstream = scryfallService.fetchSetList();
+        if (upstream.isEmpty()) {
+            return remember(RefreshReport.skipped("Liste des extensions Scryfall indisponible"));
+        }
+
+        Map<String, MagicSet> tracked = new HashMap<>();
+        for (MagicSet set : setRepository.findAll()) {
+            if (set.getCode() != null) {
+                tracked.putIfAbsent(set.getCode().toUpperCase(), set);
+            }
+        }
+
+        Instant now = Instant.now();
+        LocalDate today = LocalDate.now();
+        LocalDate newSetsCutoff = today.minusDays(newSetsWithinDays);
+        List<ScryfallService.SetSummary> changed = new ArrayList<>();
+        Map<String, String> fingerprints = new HashMap<>();
+        int unchanged = 0;
+        int baselined = 0;
+
+        for (ScryfallService.SetSummary summary : upstream) {
+            if (summary.digital() || summary.cardCount() == 0) {
+                continue;
+            }
+            String fingerprint = fingerprint(summary);
+            MagicSet set = tracked.get(summary.code());
+
+            if (set == null) {
+                boolean recent = summary.releasedAt() != null
+                        && !summary.releasedAt().isBefore(newSetsCutoff)
+                        && !summary.releasedAt().isAfter(today);
+                if (recent) {
+                    changed.add(summary);
+                    fingerprints.put(summary.code(), fingerprint);
+                }
+                continue;
+            }
+
+            if (fingerprint.equals(set.getUpstreamFingerprint())) {
+                unchanged++;
+                continue;
+            }
+
+            // Jamais comparée mais déjà complète : on enregistre l'empreinte sans resynchroniser
+            if (set.getUpstreamFingerprint() == null && Objects.equals(set.getNbCartes(), summary.cardCount())) {
+                setRepository.updateUpstreamFingerprint(set.getCode(), fingerprint);
+                baselined++;
+                continue;
+            }
+
+            changed.add(summary);
+            fingerprints.put(summary.code(), fingerprint);
+        }
+
+        // Les plus récentes d'abord : ce sont celles qui bougent et que l'on consulte
+        changed.sort(Comparator.comparing(ScryfallService.SetSummary::releasedAt,
+                Comparator.nullsLast(Comparator.reverseOrder())));
+        pendingSince.keySet().retainAll(fingerprints.keySet());
+        changed.forEach(summary -> pendingSince.putIfAbsent(summary.code(), now));
+
+        List<String> queued = changed.stream()
+                .limit(Math.max(0, maxSetsPerRun))
+                .map(ScryfallService.SetSummary::code)
+                .toList();
+        int deferred = changed.size() - queued.size();
+        lastCheckAt = now;
+
+        metricsService.refreshSets("unchanged", unchanged);
+        metricsService.refreshSets("baseline", baselined);
+        metricsService.refreshSets("queued", queued.size());
+        metricsService.refreshSets("deferred", deferred);
+
+        String runId = null;
+        if (!queued.isEmpty()) {
+            Map<String, String> queuedFingerprints = new HashMap<>();
+            queued.forEach(code -> queuedFingerprints.put(code, fingerprints.get(code)));
+            runId = syncOrchestratorService.startSync(queued,
+                    status -> onSyncFinished(status, queuedFingerprints)).runId();
+            activeRunId = runId;
+        }
+
+        logger.info("🔎 Rafraîchissement : {} extensions amont, {} inchangées, {} empreintes initialisées, " +
+                        "{} relancées {}, {} reportées", upstream.size(), unchanged, baselined,
+                queued.size(), queued, deferred);
+        return remember(new RefreshReport(LocalDateTime.now(), upstream.size(), unchanged, baselined,
+                queued, deferred, runId, null));
+    }
+
+    // L'empreinte n'est enregistrée qu'une fois l'extension resynchronisée : un échec sera retenté
+    private void onSyncFinished(SyncOrchestratorService.SyncRunStatus status, Map<String, String> fingerprints) {
+        Instant now = Instant.now();
+        for (SyncOrchestratorService.SetResult result : status.sets()) {
+            String fingerprint = fingerprints.get(result.setCode());
+            if (!result.success() || fingerprint == null) {
+                continue;
+            }
+            setRepository.updateUpstreamFingerprint(result.setCode(), fingerprint);
+            Instant detected = pendingSince.remove(result.setCode());
+            if (detected != null) {
+                metricsService.recordRefreshSyncLag(Duration.between(detected, now).toMillis());
+            }
+        }
+        logger.info("✅ Rafraîchissement {} terminé : {}/{} extensions à jour",
+                status.runId(), status.completedSets(), status.totalSets());
+    }
+
+    private String fingerprint(ScryfallService.SetSummary summary) {
+        return ContentHash.sha256Hex(summary.cardCount() + "|" + summary.releasedAt() + "|" + summary.name());
+    }
+
+    private RefreshReport remember(RefreshReport report) {
+        lastReport = report;
+        if (report.message() != null) {
+            logger.info("⏭️ Rafraîchissement ignoré : {}", report.message());
+        }
+        return report;
+    }
+
+    // ========== SUIVI ==========
+
+    public RefreshStatus getStatus() {
+        Map<String, LocalDateTime> pending = new TreeMap<>();
+        pendingSince.forEach((code, detected) ->
+                pending.put(code, LocalDateTime.ofInstant(detected, ZoneId.systemDefault())));
+        return new RefreshStatus(enabled, intervalMinutes, maxSetsPerRun,
+                lastCheckAt != null ? LocalDateTime.ofInstant(lastCheckAt, ZoneId.systemDefault()) : null,
+                pending, lastReport);
+    }
+
+    public record RefreshReport(
+            LocalDateTime checkedAt,
+            int upstreamSets,
+            int unchanged,
+            int baselined,
+            List<String> queued,
+            int deferred,
+            String runId,
+            String message
+    ) {
+        static RefreshReport skipped(String message) {
+            return new RefreshReport(LocalDateTime.now(), 0, 0, 0, List.of(), 0, null, message);
+        }
+    }
+
+    public record RefreshStatus(
+            boolean enabled,
+            long intervalMinutes,
+            int maxSetsPerRun,
+            LocalDateTime lastCheckAt,
+            Map<String, LocalDateTime> pendingSince,
+            RefreshReport lastReport
+    ) {}
+}
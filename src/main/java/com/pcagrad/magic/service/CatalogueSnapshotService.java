@@ -0,0 +1,278 @@
+package com.pcagrad.magic.service;
+
+import com.pcagrad.magic.entity.MagicCard;
+import com.pcagrad.magic.model.MtgCard;
+import com.pcagrad.magic.model.MtgSet;
+import com.pcagrad.magic.repository.SetRepository;
+import com.pcagrad.magic.util.CatalogueSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Sert les lectures du catalogue depuis un instantané binaire projeté en mémoire
+ * ({@link CatalogueSnapshot}) : rechargé au démarrage, reconstruit après les synchronisations
+ * par {@link CatalogueRebuildService}, dans le même parcours que le catalogue en mémoire.
+ * <p>
+ * Une extension modifiée depuis la dernière construction est « sale » : ses lectures repartent
+ * sur JPA jusqu'à la reconstruction suivante. Les appelants traitent un {@code Optional} vide
+ * comme un défaut de cache.
+ */
+@Service
+public class CatalogueSnapshotService implements CatalogueView {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogueSnapshotService.class);
+
+    private static final String FILE_PREFIX = "catalogue-";
+    private static final String FILE_SUFFIX = ".snap";
+
+    @Autowired
+    private SetRepository setRepository;
+
+    // Paresseux : MtgService lit l'instantané, l'instantané réutilise ses conversions
+    @Lazy
+    @Autowired
+    private MtgService mtgService;
+
+    @Autowired
+    private MetricsService metricsService;
+
+    // Le service de reconstruction collecte cette vue : résolu au premier appel
+    @Lazy
+    @Autowired
+    private CatalogueRebuildService rebuildService;
+
+    @Value("${mtg.snapshot.enabled:true}")
+    private boolean enabled;
+
+    @Value("${mtg.snapshot.path:./data/snapshot}")
+    private String snapshotPath;
+
+    // Base modifiée hors de cette instance (autre nœud, script SQL) : instantané servi puis reconstruit
+    @Value("${mtg.snapshot.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    private volatile CatalogueSnapshot snapshot;
+    private volatile Path snapshotFile;
+
+    // Extension -> numéro du dernier changement ; une reconstruction n'efface que ce qu'elle a couvert
+    private final Map<String, Long> dirtySets = new ConcurrentHashMap<>();
+    private final AtomicLong changeSequence = new AtomicLong();
+
+    /**
+     * Au démarrage : projection du dernier instantané ; sans fichier lisible, la première
+     * reconstruction de {@link CatalogueRebuildService} le construit
+     */
+    @Order(0)
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (!enabled) {
+            logger.info("⏭️ Instantané du catalogue désactivé");
+            return;
+        }
+        Optional<Path> latest = findSnapshotFiles().stream().findFirst();
+        if (latest.isPresent()) {
+            try {
+                swap(CatalogueSnapshot.open(latest.get()), latest.get());
+                logger.info("📦 Instantané du catalogue chargé : {} extensions, {} cartes ({} Ko)",
+                        snapshot.getSetCount(), snapshot.getCardCount(), snapshot.getSizeBytes() / 1024);
+            } catch (Exception e) {
+                logger.warn("⚠️ Instantané {} illisible, reconstruction : {}", latest.get(), e.getMessage());
+            }
+        }
+    }
+
+    @EventListener
+    public void onCatalogueChanged(CatalogueChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        // Événement publié après validation : lectures sur JPA jusqu'à la reconstruction, et nouveau
+        // numéro pour qu'une reconstruction déjà lancée ne considère pas ce changement comme couvert
+        dirtySets.put(normalize(event.setCode()), changeSequence.incrementAndGet());
+    }
+
+    // ========== LECTURES ==========
+
+    public Optional<List<MtgCard>> findCards(String setCode) {
+        CatalogueSnapshot current = snapshot;
+        if (current == null || dirtySets.containsKey(normalize(setCode))) {
+            metricsService.cacheMiss(MetricsService.CACHE_CATALOGUE_SNAPSHOT);
+            return Optional.empty();
+        }
+        List<MtgCard> cards = current.getCards(setCode);
+        if (cards.isEmpty()) {
+            metricsService.cacheMiss(MetricsService.CACHE_CATALOGUE_SNAPSHOT);
+            return Optional.empty();
+        }
+        metricsService.cacheHit(MetricsService.CACHE_CATALOGUE_SNAPSHOT);
+        return Optional.of(cards);
+    }
+
+    public Optional<MtgSet> findSet(String setCode) {
+        CatalogueSnapshot current = snapshot;
+        if (current == null || dirtySets.containsKey(normalize(setCode))) {
+            metricsService.cacheMiss(MetricsService.CACHE_CATALOGUE_SNAPSHOT);
+            return Optional.empty();
+        }
+        Optional<MtgSet> set = current.findSet(setCode);
+        if (set.isPresent()) {
+            metricsService.cacheHit(MetricsService.CACHE_CATALOGUE_SNAPSHOT);
+        } else {
+            metricsService.cacheMiss(MetricsService.CACHE_CATALOGUE_SNAPSHOT);
+        }
+        return set;
+    }
+
+    /**
+     * Toutes les extensions, seulement si aucune n'a changé depuis la construction
+     */
+    public Optional<List<MtgSet>> findAllSets() {
+        CatalogueSnapshot current = snapshot;
+        if (current == null || !dirtySets.isEmpty()) {
+            metricsService.cacheMiss(MetricsService.CACHE_CATALOGUE_SNAPSHOT);
+            return Optional.empty();
+        }
+        List<MtgSet> sets = current.getSets();
+        if (sets.isEmpty()) {
+            metricsService.cacheMiss(MetricsService.CACHE_CATALOGUE_SNAPSHOT);
+            return Optional.empty();
+        }
+        metricsService.cacheHit(MetricsService.CACHE_CATALOGUE_SNAPSHOT);
+        return Optional.of(sets);
+    }
+
+    // ========== ADMINISTRATION ==========
+
+    public SnapshotStatus getStatus() {
+        CatalogueSnapshot current = snapshot;
+        return new SnapshotStatus(
+                enabled,
+                current != null,
+                snapshotFile != null ? snapshotFile.toString() : null,
+                current != null ? Instant.ofEpochMilli(current.getBuiltAt()).toString() : null,
+                current != null ? current.getSetCount() : 0,
+                current != null ? current.getCardCount() : 0,
+                current != null ? current.getSizeBytes() : 0,
+                new TreeSet<>(dirtySets.keySet()),
+                enabled && rebuildService.isRebuildPending()
+        );
+    }
+
+    public record SnapshotStatus(
+            boolean enabled,
+            boolean loaded,
+            String file,
+            String builtAt,
+            int sets,
+            int cards,
+            long sizeBytes,
+            Set<String> dirtySets,
+            boolean rebuildPending
+    ) {}
+
+    // ========== CONSTRUCTION ==========
+
+    @Override
+    public Pass begin(boolean startup) {
+        // Au démarrage, un instantané chargé est servi tel quel sauf reconstruction demandée
+        if (!enabled || (startup && snapshot != null && !rebuildOnStartup)) {
+            return null;
+        }
+        return new SnapshotPass();
+    }
+
+    private final class SnapshotPass implements Pass {
+        // Les changements arrivés pendant le parcours restent sales jusqu'à la reconstruction suivante
+        private final long coveredSequence = changeSequence.get();
+        private final long start = System.currentTimeMillis();
+        private final CatalogueSnapshot.Writer writer = new CatalogueSnapshot.Writer();
+
+        @Override
+        public void prepare() {
+            setRepository.findAll().forEach(set -> writer.addSet(mtgService.entityToModelAdapted(set)));
+        }
+
+        @Override
+        public void accept(MagicCard card) {
+            writer.addCard(mtgService.entityToModelAdapted(card));
+        }
+
+        @Override
+        public void publish() throws IOException {
+            Path directory = Paths.get(snapshotPath);
+            Files.createDirectories(directory);
+            Path target = directory.resolve(FILE_PREFIX + System.currentTimeMillis() + FILE_SUFFIX);
+            Path temp = directory.resolve(target.getFileName() + ".tmp");
+
+            writer.writeTo(temp);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            swap(CatalogueSnapshot.open(target), target);
+            dirtySets.entrySet().removeIf(entry -> entry.getValue() <= coveredSequence);
+
+            logger.info("📦 Instantané du catalogue reconstruit en {} ms : {} extensions, {} cartes ({} Ko)",
+                    System.currentTimeMillis() - start, snapshot.getSetCount(), snapshot.getCardCount(),
+                    snapshot.getSizeBytes() / 1024);
+            deleteOlderSnapshots(target);
+        }
+    }
+
+    private void swap(CatalogueSnapshot next, Path file) {
+        // L'ancienne projection est libérée par le GC une fois les lectures en cours terminées
+        snapshot = next;
+        snapshotFile = file;
+    }
+
+    // Plus récent en premier (horodatage dans le nom)
+    private List<Path> findSnapshotFiles() {
+        Path directory = Paths.get(snapshotPath);
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX);
+                    })
+                    .sorted(Comparator.comparing((Path file) -> file.getFileName().toString()).reversed())
+                    .toList();
+        } catch (IOException e) {
+            logger.warn("⚠️ Lecture du répertoire d'instantanés impossible : {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    private void deleteOlderSnapshots(Path current) {
+        for (Path file : findSnapshotFiles()) {
+            if (!file.equals(current)) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    // Encore projeté (Windows) : supprimé à la prochaine construction
+                    logger.debug("Instantané {} non supprimé : {}", file, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static String normalize(String setCode) {
+        return setCode == null ? "" : setCode.trim().toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,377 @@
+package com.pcagrad.magic.service;
+
+import com.pcagrad.magic.entity.CatalogueStats;
+import com.pcagrad.magic.entity.CatalogueStatsValue;
+import com.pcagrad.magic.entity.MagicCard;
+import com.pcagrad.magic.repository.CardRepository;
+import com.pcagrad.magic.repository.CatalogueStatsRepository;
+import com.pcagrad.magic.repository.CatalogueStatsValueRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Statistiques du catalogue (global et par extension : cartes, images, traductions, raretés, artistes)
+ * maintenues par différences : chaque écriture de carte décrit son état avant/après, les écarts d'une
+ * transaction sont cumulés puis appliqués juste avant sa validation. Les tableaux de bord lisent une
+ * ligne par périmètre au lieu de compter magic_card.
+ */
+@Service
+public class CatalogueStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogueStatsService.class);
+
+    private static final int CARDS = 0;
+    private static final int IMAGES = 1;
+    private static final int TRANSLATED_CARDS = 2;
+    private static final int TRANSLATIONS = 3;
+
+    @Autowired
+    private CatalogueStatsRepository statsRepository;
+
+    @Autowired
+    private CatalogueStatsValueRepository valueRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    private ExecutorService rebuilder;
+    private TransactionTemplate transactionTemplate;
+
+    @jakarta.annotation.PostConstruct
+    public void init() {
+        rebuilder = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalogue-stats");
+            thread.setDaemon(true);
+            return thread;
+        });
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @jakarta.annotation.PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    // Première mise en service : la table est construite d'après les cartes existantes
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialiseIfMissing() {
+        if (!statsRepository.existsById(CatalogueStats.GLOBAL)) {
+            requestRebuild();
+        }
+    }
+
+    // ========== ÉCRITURE ==========
+
+    /**
+     * État d'une carte à relever avant de la modifier, pour {@link #cardWritten}
+     */
+    public CardFacts facts(MagicCard card) {
+        return CardFacts.of(card);
+    }
+
+    public void cardWritten(CardFacts before, MagicCard after) {
+        StatsDelta delta = new StatsDelta();
+        delta.add(before, -1);
+        delta.add(CardFacts.of(after), 1);
+        record(delta);
+    }
+
+    public void cardRemoved(MagicCard card) {
+        StatsDelta delta = new StatsDelta();
+        delta.add(CardFacts.of(card), -1);
+        record(delta);
+    }
+
+    /**
+     * Extension remplacée d'un bloc (bascule de génération) : ses compteurs sont recalculés
+     * d'après ses cartes actuelles, l'écart est reporté sur le global
+     */
+    public void setReplaced(String setCode) {
+        StatsDelta delta = new StatsDelta();
+        statsRepository.findById(setCode).ifPresent(previous -> {
+            for (String scope : List.of(setCode, CatalogueStats.GLOBAL)) {
+                long[] counter = delta.counter(scope);
+                counter[CARDS] -= previous.getCards();
+                counter[IMAGES] -= previous.getImages();
+                counter[TRANSLATED_CARDS] -= previous.getTranslatedCards();
+                counter[TRANSLATIONS] -= previous.getTranslations();
+            }
+        });
+        for (CatalogueStatsValue value : valueRepository.findByScope(setCode)) {
+            delta.value(setCode, value.getDimension(), value.getValue(), -value.getCards());
+            delta.value(CatalogueStats.GLOBAL, value.getDimension(), value.getValue(), -value.getCards());
+        }
+        for (MagicCard card : cardRepository.findBySetCode(setCode)) {
+            delta.add(CardFacts.of(card), 1);
+        }
+        record(delta);
+    }
+
+    private void record(StatsDelta delta) {
+        if (delta.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            transactionTemplate.executeWithoutResult(status -> apply(delta));
+            return;
+        }
+        pendingDelta().merge(delta);
+    }
+
+    // Un cumul par transaction, appliqué en quelques requêtes avant le commit
+    private StatsDelta pendingDelta() {
+        StatsDelta pending = (StatsDelta) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            return pending;
+        }
+
+        StatsDelta created = new StatsDelta();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                apply(created);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(CatalogueStatsService.this);
+            }
+        });
+        return created;
+    }
+
+    private void apply(StatsDelta delta) {
+        boolean shrinking = false;
+        for (Map.Entry<String, long[]> entry : delta.counters.entrySet()) {
+            long[] counter = entry.getValue();
+            if (Arrays.stream(counter).allMatch(value -> value == 0)) {
+                continue;
+            }
+            statsRepository.addCounts(entry.getKey(), counter[CARDS], counter[IMAGES],
+                    counter[TRANSLATED_CARDS], counter[TRANSLATIONS], 0);
+            shrinking |= counter[CARDS] < 0;
+        }
+
+        Map<String, Long> artistChanges = new HashMap<>();
+        for (Map.Entry<ValueKey, Long> entry : delta.values.entrySet()) {
+            long change = entry.getValue();
+            if (change == 0) {
+                continue;
+            }
+            ValueKey key = entry.getKey();
+            valueRepository.addCards(key.scope(), key.dimension().name(), key.value(), change);
+            long after = Objects.requireNonNullElse(valueRepository.findCards(key.scope(), key.dimension(), key.value()), 0L);
+            long before = after - change;
+
+            if (key.dimension() == CatalogueStatsValue.Dimension.ARTIST) {
+                if (before <= 0 && after > 0) {
+                    artistChanges.merge(key.scope(), 1L, Long::sum);
+                } else if (before > 0 && after <= 0) {
+                    artistChanges.merge(key.scope(), -1L, Long::sum);
+                }
+            }
+            if (after <= 0) {
+                valueRepository.deleteIfEmpty(key.scope(), key.dimension(), key.value());
+            }
+        }
+        artistChanges.forEach((scope, change) -> statsRepository.addCounts(scope, 0, 0, 0, 0, change));
+
+        if (shrinking) {
+            statsRepository.deleteEmptyScopes(CatalogueStats.GLOBAL);
+        }
+    }
+
+    // ========== RECONSTRUCTION ==========
+
+    /**
+     * Recalcul complet en arrière-plan (première mise en service, dérive après une suppression en masse)
+     */
+    public boolean requestRebuild() {
+        if (!rebuildQueued.compareAndSet(false, true)) {
+            return false;
+        }
+        rebuilder.submit(() -> {
+            rebuildQueued.set(false);
+            try {
+                rebuild();
+            } catch (Exception e) {
+                logger.error("❌ Reconstruction des statistiques impossible : {}", e.getMessage());
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Une seule transaction : les lignes sont supprimées d'abord, les écritures concurrentes attendent
+     * donc la fin du recalcul et s'ajoutent ensuite à des totaux qui ne les comptaient pas encore
+     */
+    private void rebuild() {
+        long start = System.currentTimeMillis();
+        StatsDelta totals = new StatsDelta();
+        totals.counter(CatalogueStats.GLOBAL);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            valueRepository.deleteAllInBatch();
+            statsRepository.deleteAllInBatch();
+
+            try (Stream<MagicCard> cards = cardRepository.streamAllForExport()) {
+                cards.forEach(card -> {
+                    totals.add(CardFacts.of(card), 1);
+                    entityManager.detach(card);
+                });
+            }
+
+            Map<String, Long> artists = new HashMap<>();
+            totals.values.forEach((key, cards) -> {
+                if (cards <= 0) {
+                    return;
+                }
+                valueRepository.addCards(key.scope(), key.dimension().name(), key.value(), cards);
+                if (key.dimension() == CatalogueStatsValue.Dimension.ARTIST) {
+                    artists.merge(key.scope(), 1L, Long::sum);
+                }
+            });
+            totals.counters.forEach((scope, counter) -> statsRepository.addCounts(scope, counter[CARDS],
+                    counter[IMAGES], counter[TRANSLATED_CARDS], counter[TRANSLATIONS], artists.getOrDefault(scope, 0L)));
+        });
+
+        logger.info("📊 Statistiques reconstruites en {} ms : {} périmètres",
+                System.currentTimeMillis() - start, totals.counters.size());
+    }
+
+    // ========== LECTURE ==========
+
+    public Optional<StatsView> getStats(String scope) {
+        return statsRepository.findById(scope).map(stats -> {
+            Map<String, Long> rarities = new LinkedHashMap<>();
+            valueRepository.findByScopeAndDimensionOrderByCardsDesc(scope, CatalogueStatsValue.Dimension.RARITY)
+                    .forEach(value -> rarities.put(value.getValue(), value.getCards()));
+            return new StatsView(scope, stats.getCards(), stats.getImages(), stats.getTranslatedCards(),
+                    stats.getTranslations(), stats.getArtists(),
+                    percentage(stats.getImages(), stats.getCards()),
+                    percentage(stats.getTranslatedCards(), stats.getCards()),
+                    rarities, stats.getUpdatedAt());
+        });
+    }
+
+    public Optional<StatsView> getGlobalStats() {
+        return getStats(CatalogueStats.GLOBAL);
+    }
+
+    private double percentage(long part, long total) {
+        return total > 0 ? part * 100.0 / total : 0;
+    }
+
+    // ========== CUMUL DES ÉCARTS ==========
+
+    private static final class StatsDelta {
+        private final Map<String, long[]> counters = new LinkedHashMap<>();
+        private final Map<ValueKey, Long> values = new LinkedHashMap<>();
+
+        long[] counter(String scope) {
+            return counters.computeIfAbsent(scope, s -> new long[4]);
+        }
+
+        void value(String scope, CatalogueStatsValue.Dimension dimension, String value, long cards) {
+            values.merge(new ValueKey(scope, dimension, value), cards, Long::sum);
+        }
+
+        // Une carte compte dans son extension et dans le global
+        void add(CardFacts facts, int sign) {
+            if (facts == null) {
+                return;
+            }
+            for (String scope : List.of(facts.setCode(), CatalogueStats.GLOBAL)) {
+                long[] counter = counter(scope);
+                counter[CARDS] += sign;
+                counter[IMAGES] += facts.hasImage() ? sign : 0;
+                counter[TRANSLATED_CARDS] += facts.translations() > 0 ? sign : 0;
+                counter[TRANSLATIONS] += (long) sign * facts.translations();
+                if (facts.rarity() != null) {
+                    value(scope, CatalogueStatsValue.Dimension.RARITY, facts.rarity(), sign);
+                }
+                if (facts.artist() != null) {
+                    value(scope, CatalogueStatsValue.Dimension.ARTIST, facts.artist(), sign);
+                }
+            }
+        }
+
+        void merge(StatsDelta other) {
+            other.counters.forEach((scope, counter) -> {
+                long[] target = counter(scope);
+                for (int i = 0; i < counter.length; i++) {
+                    target[i] += counter[i];
+                }
+            });
+            other.values.forEach((key, cards) -> values.merge(key, cards, Long::sum));
+        }
+
+        boolean isEmpty() {
+            return counters.values().stream().allMatch(counter -> Arrays.stream(counter).allMatch(v -> v == 0))
+                    && values.values().stream().allMatch(cards -> cards == 0);
+        }
+    }
+
+    private record ValueKey(String scope, CatalogueStatsValue.Dimension dimension, String value) {}
+
+    // ========== DTOs ==========
+
+    /**
+     * Ce qu'une carte apporte aux statistiques ; null pour les générations en préparation ou retirées
+     */
+    public record CardFacts(String setCode, boolean hasImage, int translations, String rarity, String artist) {
+        static CardFacts of(MagicCard card) {
+            if (card == null || card.getSetCode() == null || card.getSetCode().contains("#")) {
+                return null;
+            }
+            return new CardFacts(card.getSetCode(), Boolean.TRUE.equals(card.getImageDownloaded()),
+                    card.getTranslations().size(), truncate(card.getRarity()), truncate(card.getArtist()));
+        }
+
+        private static String truncate(String value) {
+            if (value == null || value.isBlank()) {
+                return null;
+            }
+            return value.length() > 255 ? value.substring(0, 255) : value;
+        }
+    }
+
+    public record StatsView(
+            String scope,
+            long cards,
+            long images,
+            long translatedCards,
+            long translations,
+            long artists,
+            double imagePercentage,
+            double translationPercentage,
+            Map<String, Long> rarities,
+            LocalDateTime updatedAt
+    ) {}
+}
@@ -0,0 +1,32 @@
+package com.pcagrad.magic.service;
+
+import com.pcagrad.magic.entity.MagicCard;
+
+/**
+ * Vue dérivée du catalogue reconstruite par {@link CatalogueRebuildService} : chaque reconstruction
+ * ouvre une passe par vue, et un seul parcours de la base alimente toutes les passes.
+ */
+public interface CatalogueView {
+
+    /**
+     * Ouvre une passe de reconstruction ; {@code null} si la vue n'y participe pas
+     * (désactivée, ou déjà chargée au démarrage)
+     */
+    Pass begin(boolean startup);
+
+    interface Pass {
+
+        /**
+         * Lectures propres à la vue, dans la transaction du parcours, avant la première carte
+         */
+        default void prepare() {
+        }
+
+        void accept(MagicCard card);
+
+        /**
+         * Parcours terminé, hors transaction : la vue construit et publie son résultat
+         */
+        void publish() throws Exception;
+    }
+}
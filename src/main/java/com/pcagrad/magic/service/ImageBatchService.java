@@ -0,0 +1,342 @@
+package com.pcagrad.magic.service;
+
+import com.pcagrad.magic.entity.CardImageRef;
+import com.pcagrad.magic.entity.MagicCard;
+import com.pcagrad.magic.repository.CardImageRefRepository;
+import com.pcagrad.magic.repository.CardRepository;
+import com.pcagrad.magic.util.ContentHash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Sert les images d'une grille de cartes en une seule requête :
+ * soit un lot d'images brutes (multipart), soit une planche (sprite) avec ses coordonnées.
+ * Les résultats sont mis en cache, clé = empreinte de la liste d'IDs et de l'image (blob) de chaque
+ * carte : une planche incomplète est cachée aussi, et l'arrivée d'une image change la clé.
+ */
+@Service
+public class ImageBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageBatchService.class);
+
+    // Ratio des images Scryfall "normal" (488 x 680)
+    private static final double CARD_RATIO = 680.0 / 488.0;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private CardImageRefRepository cardImageRefRepository;
+
+    @Autowired
+    private MetricsService metricsService;
+
+    @Value("${mtg.images.batch.max-cards:300}")
+    private int maxCards;
+
+    @Value("${mtg.images.batch.tile-width:244}")
+    private int tileWidth;
+
+    // Budget de chaque cache (planches, lots) en octets d'images retenues
+    @Value("${mtg.images.batch.cache-max-mb:64}")
+    private long cacheMaxMb;
+
+    private ByteBoundedCache<SpriteSheet> spriteCache;
+    private ByteBoundedCache<ImageBundle> bundleCache;
+
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+
+    @jakarta.annotation.PostConstruct
+    public void init() {
+        long maxBytes = cacheMaxMb * 1024 * 1024;
+        spriteCache = new ByteBoundedCache<>(maxBytes, sheet -> sheet.image().length);
+        bundleCache = new ByteBoundedCache<>(maxBytes,
+                bundle -> bundle.images().values().stream().mapToLong(bytes -> bytes.length).sum());
+    }
+
+    /**
+     * Images brutes des cartes demandées (une seule requête SQL, lecture des fichiers locaux)
+     */
+    public ImageBundle getImageBundle(List<UUID> cardIds) {
+        List<UUID> ids = normalizeIds(cardIds);
+        String key = cacheKey("bundle", ids, 0);
+
+        ImageBundle cached = bundleCache.get(key);
+        if (cached != null) {
+            cacheHits.incrementAndGet();
+            metricsService.cacheHit(MetricsService.CACHE_IMAGE_BATCH);
+            return cached;
+        }
+        cacheMisses.incrementAndGet();
+        metricsService.cacheMiss(MetricsService.CACHE_IMAGE_BATCH);
+
+        Map<UUID, byte[]> images = new LinkedHashMap<>();
+        Map<UUID, String> missing = new LinkedHashMap<>();
+
+        for (MagicCard card : loadCards(ids)) {
+            byte[] bytes = readLocalImage(card);
+            if (bytes != null) {
+                images.put(card.getId(), bytes);
+            } else {
+                missing.put(card.getId(), card.getOriginalImageUrl());
+            }
+        }
+
+        ImageBundle bundle = new ImageBundle(key, images, missing);
+        bundleCache.put(key, bundle);
+
+        logger.debug("📦 Lot d'images {} : {} servies, {} manquantes", key, images.size(), missing.size());
+        return bundle;
+    }
+
+    /**
+     * Planche unique regroupant les images demandées, avec la position de chaque carte
+     */
+    public SpriteSheet getSpriteSheet(List<UUID> cardIds, int columns) {
+        List<UUID> ids = normalizeIds(cardIds);
+        int cols = Math.max(1, Math.min(columns, ids.isEmpty() ? 1 : ids.size()));
+        String key = cacheKey("sprite", ids, cols);
+
+        SpriteSheet cached = spriteCache.get(key);
+        if (cached != null) {
+            cacheHits.incrementAndGet();
+            metricsService.cacheHit(MetricsService.CACHE_IMAGE_BATCH);
+            return cached;
+        }
+        cacheMisses.incrementAndGet();
+        metricsService.cacheMiss(MetricsService.CACHE_IMAGE_BATCH);
+
+        int tileHeight = (int) Math.round(tileWidth * CARD_RATIO);
+        Map<UUID, BufferedImage> tiles = new LinkedHashMap<>();
+        Map<UUID, String> missing = new LinkedHashMap<>();
+
+        for (MagicCard card : loadCards(ids)) {
+            BufferedImage image = decode(readLocalImage(card));
+            if (image != null) {
+                tiles.put(card.getId(), image);
+            } else {
+                missing.put(card.getId(), card.getOriginalImageUrl());
+            }
+        }
+
+        int rows = Math.max(1, (tiles.size() + cols - 1) / cols);
+        BufferedImage sheet = new BufferedImage(cols * tileWidth, rows * tileHeight, BufferedImage.TYPE_INT_RGB);
+        Map<UUID, SpriteTile> coordinates = new LinkedHashMap<>();
+
+        Graphics2D g = sheet.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setColor(Color.BLACK);
+            g.fillRect(0, 0, sheet.getWidth(), sheet.getHeight());
+
+            int index = 0;
+            for (Map.Entry<UUID, BufferedImage> entry : tiles.entrySet()) {
+                int x = (index % cols) * tileWidth;
+                int y = (index / cols) * tileHeight;
+                g.drawImage(entry.getValue(), x, y, tileWidth, tileHeight, null);
+                coordinates.put(entry.getKey(), new SpriteTile(x, y, tileWidth, tileHeight));
+                index++;
+            }
+        } finally {
+            g.dispose();
+        }
+
+        byte[] jpeg = encodeJpeg(sheet);
+        SpriteSheet result = new SpriteSheet(key, sheet.getWidth(), sheet.getHeight(), cols,
+                coordinates, missing, jpeg);
+        spriteCache.put(key, result);
+
+        logger.info("🧩 Planche {} générée : {} cartes, {} manquantes, {} octets",
+                key, coordinates.size(), missing.size(), jpeg.length);
+        return result;
+    }
+
+    /**
+     * Planche déjà générée (servie par URL stable pour profiter du cache navigateur)
+     */
+    public Optional<SpriteSheet> getCachedSpriteSheet(String key) {
+        return Optional.ofNullable(spriteCache.get(key));
+    }
+
+    public BatchCacheStats getCacheStats() {
+        return new BatchCacheStats(spriteCache.size(), bundleCache.size(),
+                spriteCache.bytes() + bundleCache.bytes(), cacheHits.get(), cacheMisses.get());
+    }
+
+    public void clearCache() {
+        spriteCache.clear();
+        bundleCache.clear();
+        logger.info("🧹 Cache des lots d'images vidé");
+    }
+
+    // ========== MÉTHODES PRIVÉES ==========
+
+    private List<UUID> normalizeIds(List<UUID> cardIds) {
+        if (cardIds == null || cardIds.isEmpty()) {
+            throw new IllegalArgumentException("Aucun ID de carte fourni");
+        }
+        // Tri + dédoublonnage : le même ensemble de cartes partage la même entrée de cache
+        List<UUID> ids = cardIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+        if (ids.size() > maxCards) {
+            throw new IllegalArgumentException("Trop de cartes demandées : " + ids.size() + " (max " + maxCards + ")");
+        }
+        return ids;
+    }
+
+    // Chaque carte entre dans la clé avec l'empreinte de son image (ou "-" si elle n'en a pas encore)
+    private String cacheKey(String mode, List<UUID> ids, int columns) {
+        Map<UUID, String> blobs = cardImageRefRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(CardImageRef::getCardId, CardImageRef::getBlobHash));
+        String joined = ids.stream()
+                .map(id -> id + "=" + blobs.getOrDefault(id, "-"))
+                .collect(Collectors.joining(","));
+        return ContentHash.sha256Hex(mode + ":" + columns + ":" + tileWidth + ":" + joined).substring(0, 32);
+    }
+
+    private List<MagicCard> loadCards(List<UUID> ids) {
+        Map<UUID, MagicCard> byId = cardRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(MagicCard::getId, c -> c));
+        // Conserver l'ordre des IDs pour des coordonnées stables
+        return ids.stream().map(byId::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    private byte[] readLocalImage(MagicCard card) {
+        if (!Boolean.TRUE.equals(card.getImageDownloaded()) || card.getLocalImagePath() == null) {
+            return null;
+        }
+        Path path = Paths.get(card.getLocalImagePath());
+        try {
+            return Files.isReadable(path) ? Files.readAllBytes(path) : null;
+        } catch (IOException e) {
+            logger.warn("⚠️ Lecture impossible de {} : {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    private BufferedImage decode(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        try {
+            return ImageIO.read(new ByteArrayInputStream(bytes));
+        } catch (IOException e) {
+            logger.warn("⚠️ Image illisible : {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) {
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            ImageIO.write(image, "jpg", out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Encodage JPEG de la planche impossible", e);
+        }
+    }
+
+    /**
+     * Cache LRU borné par le volume des images retenues plutôt que par le nombre d'entrées
+     */
+    private static final class ByteBoundedCache<T> {
+        private final long maxBytes;
+        private final ToLongFunction<T> weigher;
+        private final LinkedHashMap<String, T> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private long bytes;
+
+        ByteBoundedCache(long maxBytes, ToLongFunction<T> weigher) {
+            this.maxBytes = maxBytes;
+            this.weigher = weigher;
+        }
+
+        synchronized T get(String key) {
+            return entries.get(key);
+        }
+
+        synchronized void put(String key, T value) {
+            long weight = weigher.applyAsLong(value);
+            if (weight > maxBytes) {
+                return;
+            }
+            T previous = entries.put(key, value);
+            if (previous != null) {
+                bytes -= weigher.applyAsLong(previous);
+            }
+            bytes += weight;
+            Iterator<Map.Entry<String, T>> eldest = entries.entrySet().iterator();
+            while (bytes > maxBytes && eldest.hasNext()) {
+                bytes -= weigher.applyAsLong(eldest.next().getValue());
+                eldest.remove();
+            }
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        synchronized long bytes() {
+            return bytes;
+        }
+
+        synchronized void clear() {
+            entries.clear();
+            bytes = 0;
+        }
+    }
+
+    // ========== CLASSES DE DONNÉES ==========
+
+    public record SpriteTile(int x, int y, int width, int height) {}
+
+    public record SpriteSheet(
+            String key,
+            int width,
+            int height,
+            int columns,
+            Map<UUID, SpriteTile> tiles,
+            Map<UUID, String> missing,
+            byte[] image
+    ) {
+        public SpriteSheetDescriptor describe(String imageUrl) {
+            return new SpriteSheetDescriptor(key, imageUrl, width, height, columns, tiles, missing);
+        }
+    }
+
+    // Ce que reçoit le client : la planche elle-même est servie à part, par sa clé
+    public record SpriteSheetDescriptor(
+            String key,
+            String spriteUrl,
+            int width,
+            int height,
+            int columns,
+            Map<UUID, SpriteTile> tiles,
+            Map<UUID, String> missing
+    ) {}
+
+    public record ImageBundle(String key, Map<UUID, byte[]> images, Map<UUID, String> missing) {}
+
+    public record BatchCacheStats(int sprites, int bundles, long bytes, long hits, long misses) {}
+}
@@ -1,7 +1,14 @@
 package com.pcagrad.magic.service;
 
+import com.pcagrad.magic.entity.CardImageRef;
+import com.pcagrad.magic.entity.ImageBlob;
 import com.pcagrad.magic.entity.MagicCard;
+import com.pcagrad.magic.repository.CardImageRefRepository;
 import com.pcagrad.magic.repository.CardRepository;
+import com.pcagrad.magic.repository.ImageBlobRepository;
+import com.pcagrad.magic.util.AfterCommit;
+import com.pcagrad.magic.util.ContentHash;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,22 +26,48 @@ import java.net.MalformedURLException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class ImageDownloadService {
 
     private static final Logger logger = LoggerFactory.getLogger(ImageDownloadService.class);
 
+    // Sous-dossier des images adressées par contenu (SHA-256)
+    private static final String BLOB_DIRECTORY = "blobs";
+
     @Autowired
     private CardRepository cardRepository;
 
+    @Autowired
+    private ImageBlobRepository imageBlobRepository;
+
+    @Autowired
+    private CardImageRefRepository cardImageRefRepository;
+
+    @Autowired
+    private CatalogueEvents catalogueEvents;
+
+    @Autowired
+    private MetricsService metricsService;
+
+    @Autowired
+    private CatalogueStatsService catalogueStatsService;
+
     private final WebClient webClient;
     private final Semaphore downloadSemaphore;
 
+    // Téléchargements évités (URL déjà connue) et contenus reçus en double
+    private final AtomicLong skippedDownloads = new AtomicLong();
+    private final AtomicLong duplicateDownloads = new AtomicLong();
+
     @Value("${mtg.images.storage-path:./data/images}")
     private String storageBasePath;
 
@@ -65,6 +98,7 @@ public class ImageDownloadService {
         // Réinitialiser le semaphore avec la bonne limite
         downloadSemaphore.drainPermits();
         downloadSemaphore.release(maxDownloadThreads);
+        metricsService.registerDownloadSemaphore(downloadSemaphore, maxDownloadThreads);
     }
 
     /**
@@ -87,6 +121,14 @@ public class ImageDownloadService {
             return CompletableFuture.completedFuture(true);
         }
 
+        // Image absente avant l'écriture : les statistiques comptent la transition, pas l'appel
+        CatalogueStatsService.CardFacts before = catalogueStatsService.facts(card);
+
+        // Même URL déjà téléchargée pour une autre carte : lier le blob existant
+        if (linkFromKnownSource(card, before)) {
+            return CompletableFuture.completedFuture(true);
+        }
+
         try {
             downloadSemaphore.acquire();
             logger.info("⬇️ Téléchargement de l'image pour : {} ({})", card.getName(), card.getSetCode());
@@ -98,7 +140,7 @@ public class ImageDownloadService {
                         if (success != null && success) {
                             card.setImageDownloaded(true);
                             try {
-                                cardRepository.save(card);
+                                catalogueStatsService.cardWritten(before, cardRepository.save(card));
                                 logger.info("✅ Image téléchargée avec succès : {}", card.getName());
                                 return true;
                             } catch (Exception e) {
@@ -141,6 +183,7 @@ public class ImageDownloadService {
 
         logger.info("📊 {} cartes à télécharger sur {} total pour {}",
                 cardsToDownload.size(), cards.size(), setCode);
+        SyncProgress.current().imagesQueued(setCode, cardsToDownload.size());
 
         if (cardsToDownload.isEmpty()) {
             return CompletableFuture.completedFuture(0);
@@ -159,6 +202,10 @@ public class ImageDownloadService {
 
                     logger.info("🎉 Téléchargement terminé pour {} : {}/{} images téléchargées",
                             setCode, successCount, cardsToDownload.size());
+                    // Les mises à jour d'image seules ne périment pas l'extension : un signal pour tout le lot
+                    if (successCount > 0) {
+                        catalogueEvents.setChanged(setCode);
+                    }
 
                     return successCount;
                 });
@@ -168,6 +215,7 @@ public class ImageDownloadService {
      * Télécharge une image depuis une URL - VERSION CORRIGÉE
      */
     private Mono<Boolean> downloadImageFromUrl(String imageUrl, MagicCard card) {
+        Timer.Sample sample = metricsService.startTimer();
         return webClient.get()
                 .uri(imageUrl)
                 .retrieve()
@@ -177,13 +225,16 @@ public class ImageDownloadService {
                     try {
                         if (imageBytes == null || imageBytes.length == 0) {
                             logger.warn("⚠️ Image vide reçue pour {}", card.getName());
+                            metricsService.recordImageFailure(sample, "empty");
                             return false;
                         }
+                        metricsService.recordImageDownload(sample, imageBytes.length);
 
-                        String fileName = generateFileName(card);
-                        Path filePath = saveImageToFile(imageBytes, fileName);
+                        String hash = ContentHash.sha256Hex(imageBytes);
+                        ImageBlob blob = storeBlob(hash, imageBytes);
+                        linkCardToBlob(card, blob, imageUrl);
 
-                        card.setLocalImagePath(filePath.toString());
+                        card.setLocalImagePath(blob.getFilePath());
                         return true;
 
                     } catch (IOException e) {
@@ -196,42 +247,219 @@ public class ImageDownloadService {
                         return false;
                     }
                 })
-                .onErrorReturn(false) // Syntaxe correcte pour Reactor
+                // doOnError avant onErrorReturn, sinon l'erreur est avalée avant d'être journalisée
                 .doOnError(throwable -> {
                     logger.error("❌ Erreur HTTP téléchargement image pour {} : {}",
                             card.getName(), throwable.getMessage());
-                });
+                    metricsService.recordImageFailure(sample, "http");
+                })
+                .onErrorReturn(false);
+    }
+
+    /**
+     * Chemin relatif d'un blob : blobs/ab/abcdef....jpg (2 caractères de préfixe
+     * pour éviter des dossiers de plusieurs dizaines de milliers de fichiers)
+     */
+    private String blobFileName(String hash) {
+        return BLOB_DIRECTORY + "/" + hash.substring(0, 2) + "/" + hash + ".jpg";
     }
 
     /**
-     * Génère un nom de fichier unique pour une carte - VERSION SÉCURISÉE
+     * Enregistre un contenu une seule fois. Si l'empreinte existe déjà, aucun fichier n'est écrit.
      */
-    private String generateFileName(MagicCard card) {
-        String safeName = card.getName()
-                .replaceAll("[^a-zA-Z0-9\\s]", "") // Supprimer caractères spéciaux
-                .replaceAll("\\s+", "_") // Remplacer espaces par underscores
-                .toLowerCase();
-
-        // Limiter la longueur du nom
-        if (safeName.length() > 50) {
-            safeName = safeName.substring(0, 50);
+    private synchronized ImageBlob storeBlob(String hash, byte[] imageBytes) throws IOException {
+        Optional<ImageBlob> existing = imageBlobRepository.findById(hash);
+        if (existing.isPresent() && imageExists(existing.get().getFilePath())) {
+            duplicateDownloads.incrementAndGet();
+            logger.debug("♻️ Contenu déjà stocké : {}", hash);
+            return existing.get();
         }
 
-        String extension = ".jpg";
+        Path filePath = saveImageToFile(imageBytes, blobFileName(hash));
+        ImageBlob blob = existing.orElseGet(() -> new ImageBlob(hash, filePath.toString(), imageBytes.length));
+        blob.setFilePath(filePath.toString());
+        blob.setSizeBytes(imageBytes.length);
+        return imageBlobRepository.save(blob);
+    }
 
-        // Format: SETCODE_CARDNUMBER_SAFENAME.jpg ou SETCODE_UUID_SAFENAME.jpg
-        if (card.getNumber() != null && !card.getNumber().isEmpty()) {
-            String safeNumber = card.getNumber().replaceAll("[^a-zA-Z0-9]", "");
-            return String.format("%s_%s_%s%s",
-                    card.getSetCode(), safeNumber, safeName, extension);
-        } else {
-            // Utiliser les 8 premiers caractères de l'UUID si pas de numéro
-            String shortId = card.getId().toString().substring(0, 8);
-            return String.format("%s_%s_%s%s",
-                    card.getSetCode(), shortId, safeName, extension);
+    /**
+     * Associe une carte à un blob en maintenant le compteur de références
+     */
+    private synchronized void linkCardToBlob(MagicCard card, ImageBlob blob, String sourceUrl) {
+        Optional<CardImageRef> current = cardImageRefRepository.findById(card.getId());
+        if (current.isPresent()) {
+            if (current.get().getBlobHash().equals(blob.getHash())) {
+                return;
+            }
+            cardImageRefRepository.delete(current.get());
+            releaseBlob(current.get().getBlobHash());
+        }
+
+        cardImageRefRepository.save(new CardImageRef(card.getId(), blob.getHash(), sourceUrl));
+        imageBlobRepository.incrementRefCount(blob.getHash());
+    }
+
+    /**
+     * Lie la carte au blob d'une URL déjà téléchargée, sans nouvel appel réseau
+     */
+    private boolean linkFromKnownSource(MagicCard card, CatalogueStatsService.CardFacts before) {
+        try {
+            Optional<CardImageRef> known = cardImageRefRepository.findFirstBySourceUrl(card.getOriginalImageUrl());
+            if (known.isEmpty()) {
+                metricsService.cacheMiss(MetricsService.CACHE_IMAGE_SOURCE);
+                return false;
+            }
+
+            Optional<ImageBlob> blob = imageBlobRepository.findById(known.get().getBlobHash());
+            if (blob.isEmpty() || !imageExists(blob.get().getFilePath())) {
+                metricsService.cacheMiss(MetricsService.CACHE_IMAGE_SOURCE);
+                return false;
+            }
+
+            linkCardToBlob(card, blob.get(), card.getOriginalImageUrl());
+            card.setLocalImagePath(blob.get().getFilePath());
+            catalogueStatsService.cardWritten(before, cardRepository.save(card));
+            skippedDownloads.incrementAndGet();
+            metricsService.cacheHit(MetricsService.CACHE_IMAGE_SOURCE);
+            logger.debug("♻️ Image réutilisée pour {} (blob {})", card.getName(), blob.get().getHash());
+            return true;
+        } catch (Exception e) {
+            logger.warn("⚠️ Impossible de réutiliser l'image connue pour {} : {}", card.getName(), e.getMessage());
+            return false;
         }
     }
 
+    /**
+     * Décrémente un blob et supprime le fichier quand plus aucune carte ne le référence
+     */
+    private synchronized long releaseBlob(String hash) {
+        imageBlobRepository.decrementRefCount(hash);
+        if (imageBlobRepository.findRefCount(hash).orElse(1) > 0) {
+            return 0;
+        }
+        Optional<ImageBlob> blob = imageBlobRepository.findById(hash);
+        if (blob.isPresent()) {
+            imageBlobRepository.delete(blob.get());
+            deleteBlobFileAfterCommit(hash, blob.get().getFilePath());
+            logger.debug("🗑️ Blob {} supprimé (plus aucune référence)", hash);
+            return blob.get().getSizeBytes();
+        }
+        return 0;
+    }
+
+    /**
+     * Le fichier ne disparaît qu'une fois la suppression du blob validée : après un rollback, les
+     * références restaurées pointent toujours vers un fichier présent. Un blob recréé entre-temps
+     * (même contenu retéléchargé) garde son fichier.
+     */
+    private void deleteBlobFileAfterCommit(String hash, String filePath) {
+        Runnable delete = () -> {
+            synchronized (this) {
+                if (!imageBlobRepository.existsById(hash)) {
+                    deleteImage(filePath);
+                }
+            }
+        };
+        AfterCommit.run(delete);
+    }
+
+    /**
+     * Libère l'image d'une carte avant sa suppression
+     */
+    public synchronized void releaseCardImage(UUID cardId) {
+        cardImageRefRepository.findById(cardId).ifPresent(ref -> {
+            cardImageRefRepository.delete(ref);
+            releaseBlob(ref.getBlobHash());
+        });
+    }
+
+    /**
+     * Libère les images de toutes les cartes d'une extension (à appeler avant une suppression en masse)
+     */
+    public synchronized int releaseImagesForSet(String setCode) {
+        List<CardImageRef> refs = cardImageRefRepository.findBySetCode(setCode);
+        for (CardImageRef ref : refs) {
+            cardImageRefRepository.delete(ref);
+            releaseBlob(ref.getBlobHash());
+        }
+        if (!refs.isEmpty()) {
+            logger.info("🔗 {} références d'images libérées pour {}", refs.size(), setCode);
+        }
+        return refs.size();
+    }
+
+    /**
+     * Supprime les références dont la carte n'existe plus et les blobs devenus inutiles
+     */
+    public synchronized CleanupResult cleanupOrphanedImages() {
+        List<CardImageRef> orphans = cardImageRefRepository.findOrphans();
+        long bytesFreed = 0;
+        int blobsDeleted = 0;
+
+        for (CardImageRef ref : orphans) {
+            cardImageRefRepository.delete(ref);
+            long freed = releaseBlob(ref.getBlobHash());
+            if (freed > 0) {
+                bytesFreed += freed;
+                blobsDeleted++;
+            }
+        }
+
+        // Blobs à zéro référence (interruption pendant une libération)
+        for (ImageBlob blob : imageBlobRepository.findUnreferenced()) {
+            imageBlobRepository.delete(blob);
+            deleteBlobFileAfterCommit(blob.getHash(), blob.getFilePath());
+            bytesFreed += blob.getSizeBytes();
+            blobsDeleted++;
+        }
+
+        logger.info("🧹 Nettoyage images : {} références orphelines, {} blobs supprimés, {} octets libérés",
+                orphans.size(), blobsDeleted, bytesFreed);
+        return new CleanupResult(orphans.size(), blobsDeleted, bytesFreed);
+    }
+
+    /**
+     * Convertit les images nommées SET_NUMERO_NOM.jpg en blobs adressés par contenu
+     */
+    public synchronized MigrationResult migrateLegacyImages() {
+        Path blobRoot = Paths.get(storageBasePath, BLOB_DIRECTORY).toAbsolutePath().normalize();
+        int migrated = 0;
+        int failed = 0;
+        long bytesFreed = 0;
+
+        for (MagicCard card : cardRepository.findByImageDownloadedTrueAndLocalImagePathIsNotNull()) {
+            String path = card.getLocalImagePath();
+            if (!imageExists(path)) {
+                continue;
+            }
+
+            Path file = Paths.get(path).toAbsolutePath().normalize();
+            if (file.startsWith(blobRoot)) {
+                continue;
+            }
+
+            try {
+                byte[] imageBytes = Files.readAllBytes(file);
+                ImageBlob blob = storeBlob(ContentHash.sha256Hex(imageBytes), imageBytes);
+                linkCardToBlob(card, blob, card.getOriginalImageUrl());
+
+                card.setLocalImagePath(blob.getFilePath());
+                cardRepository.save(card);
+
+                Files.deleteIfExists(file);
+                bytesFreed += imageBytes.length;
+                migrated++;
+            } catch (Exception e) {
+                failed++;
+                logger.warn("⚠️ Migration image impossible pour {} : {}", card.getName(), e.getMessage());
+            }
+        }
+
+        long storedBytes = imageBlobRepository.sumStoredBytes();
+        logger.info("♻️ Migration des images : {} migrées, {} en erreur", migrated, failed);
+        return new MigrationResult(migrated, failed, bytesFreed, storedBytes);
+    }
+
     /**
      * Sauvegarde les bytes d'image dans un fichier - VERSION SÉCURISÉE
      */
@@ -240,15 +468,16 @@ public class ImageDownloadService {
             throw new IOException("Données d'image vides");
         }
 
-        Path setDirectory = Paths.get(storageBasePath);
-        Files.createDirectories(setDirectory);
-
-        Path filePath = setDirectory.resolve(fileName);
+        Path filePath = Paths.get(storageBasePath).resolve(fileName);
+        Files.createDirectories(filePath.getParent());
 
-        try (FileOutputStream fos = new FileOutputStream(filePath.toFile())) {
+        // Écriture dans un fichier temporaire puis renommage : jamais de blob partiel visible
+        Path tempFile = Files.createTempFile(filePath.getParent(), "download-", ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tempFile.toFile())) {
             fos.write(imageBytes);
             fos.flush();
         }
+        Files.move(tempFile, filePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
 
         // Vérifier que le fichier a été créé
         if (!Files.exists(filePath) || Files.size(filePath) == 0) {
@@ -311,6 +540,44 @@ public class ImageDownloadService {
         return new ImageDownloadStats(totalCards, downloadedCards, pendingCards);
     }
 
+    /**
+     * Rapport de déduplication des images
+     */
+    public DedupReport getDedupReport() {
+        long blobs = imageBlobRepository.count();
+        long references = imageBlobRepository.sumRefCount();
+        long storedBytes = imageBlobRepository.sumStoredBytes();
+        long logicalBytes = imageBlobRepository.sumLogicalBytes();
+
+        return new DedupReport(
+                blobs,
+                references,
+                imageBlobRepository.countShared(),
+                storedBytes,
+                logicalBytes,
+                Math.max(0, logicalBytes - storedBytes),
+                storedBytes > 0 ? (double) logicalBytes / storedBytes : 1.0,
+                skippedDownloads.get(),
+                duplicateDownloads.get()
+        );
+    }
+
+    public record DedupReport(
+            long blobs,
+            long references,
+            long sharedBlobs,
+            long storedBytes,
+            long logicalBytes,
+            long savedBytes,
+            double dedupRatio,
+            long downloadsSkipped,
+            long duplicateDownloads
+    ) {}
+
+    public record CleanupResult(int orphanReferences, int blobsDeleted, long bytesFreed) {}
+
+    public record MigrationResult(int migrated, int failed, long bytesFreed, long storedBytes) {}
+
     /**
      * Classe pour les statistiques
      */
@@ -0,0 +1,219 @@
+package com.pcagrad.magic.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Point unique de déclaration des métriques métier (exposées sur /actuator/prometheus).
+ * Les noms sont centralisés ici pour que les services n'aient qu'un appel à faire.
+ */
+@Service
+public class MetricsService {
+
+    public static final String CACHE_CARDS_DB = "cards-db";
+    public static final String CACHE_IMAGE_BATCH = "image-batch";
+    public static final String CACHE_IMAGE_SOURCE = "image-source";
+    public static final String CACHE_UPSTREAM_HTTP = "upstream-http";
+    public static final String CACHE_CATALOGUE_SNAPSHOT = "catalogue-snapshot";
+
+    @Autowired
+    private MeterRegistry registry;
+
+    public Timer.Sample startTimer() {
+        return Timer.start(registry);
+    }
+
+    // ========== SCRYFALL ==========
+
+    /**
+     * Durée d'un appel HTTP paginé vers Scryfall
+     */
+    public void recordScryfallPage(Timer.Sample sample, String outcome) {
+        sample.stop(Timer.builder("mtg.scryfall.page")
+                .description("Latence d'une page de l'API Scryfall")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    /**
+     * Temps passé à attendre entre deux appels pour respecter les limites de l'API
+     */
+    public void recordRateLimitWait(long nanos) {
+        Timer.builder("mtg.scryfall.ratelimit.wait")
+                .description("Attente volontaire entre deux appels Scryfall")
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    // ========== SYNCHRONISATION ==========
+
+    public void cardsParsed(String setCode, int count) {
+        syncCounter("mtg.sync.cards.parsed", setCode).increment(count);
+    }
+
+    public void cardParseFailed(String setCode) {
+        syncCounter("mtg.sync.cards.parse.errors", setCode).increment();
+    }
+
+    public void cardSaved(String setCode) {
+        syncCounter("mtg.sync.cards.saved", setCode).increment();
+    }
+
+    public void cardSkipped(String setCode) {
+        syncCounter("mtg.sync.cards.skipped", setCode).increment();
+    }
+
+    public void cardUnchanged(String setCode) {
+        syncCounter("mtg.sync.cards.unchanged", setCode).increment();
+    }
+
+    private Counter syncCounter(String name, String setCode) {
+        return Counter.builder(name)
+                .tag("set", setCode != null ? setCode.toUpperCase(Locale.ROOT) : "unknown")
+                .register(registry);
+    }
+
+    // ========== IMAGES ==========
+
+    public void recordImageDownload(Timer.Sample sample, long bytes) {
+        sample.stop(imageTimer("success"));
+        DistributionSummary.builder("mtg.images.download.bytes")
+                .description("Taille des images téléchargées")
+                .baseUnit("bytes")
+                .register(registry)
+                .record(bytes);
+    }
+
+    public void recordImageFailure(Timer.Sample sample, String reason) {
+        sample.stop(imageTimer("failure"));
+        Counter.builder("mtg.images.download.failures")
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+    }
+
+    private Timer imageTimer(String outcome) {
+        return Timer.builder("mtg.images.download")
+                .description("Latence de téléchargement d'une image")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Jauges de la file d'attente des téléchargements (threads bloqués sur le sémaphore)
+     */
+    public void registerDownloadSemaphore(Semaphore semaphore, int maxPermits) {
+        Gauge.builder("mtg.images.download.queue", semaphore, Semaphore::getQueueLength)
+                .description("Téléchargements en attente d'un créneau")
+                .register(registry);
+        Gauge.builder("mtg.images.download.active", semaphore, s -> maxPermits - s.availablePermits())
+                .description("Téléchargements en cours")
+                .register(registry);
+    }
+
+    // ========== REQUÊTES SQL ==========
+
+    /**
+     * Nombre de requêtes SQL émises par une requête HTTP, par endpoint
+     */
+    public void recordRequestStatements(String endpoint, int statements) {
+        DistributionSummary.builder("mtg.http.sql.statements")
+                .description("Requêtes SQL par requête HTTP")
+                .tag("endpoint", endpoint)
+                .register(registry)
+                .record(statements);
+    }
+
+    // ========== SOURCES DE DONNÉES ==========
+
+    /**
+     * Aiguillage d'une connexion vers le primaire ou la réplique, avec la raison du choix
+     */
+    public void dataSourceRouted(String pool, String reason) {
+        Counter.builder("mtg.datasource.routing")
+                .description("Connexions aiguillées par pool")
+                .tag("pool", pool)
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+    }
+
+    public void registerReplicaLag(Supplier<Number> lagSeconds, Supplier<Number> usable) {
+        Gauge.builder("mtg.datasource.replica.lag", lagSeconds)
+                .description("Retard de réplication mesuré (-1 : inconnu)")
+                .baseUnit("seconds")
+                .register(registry);
+        Gauge.builder("mtg.datasource.replica.usable", usable)
+                .description("1 si les lectures readOnly partent sur la réplique")
+                .register(registry);
+    }
+
+    // ========== RAFRAÎCHISSEMENT PLANIFIÉ ==========
+
+    /**
+     * Extensions examinées par le rafraîchissement, par issue (queued, unchanged, baseline, deferred)
+     */
+    public void refreshSets(String outcome, int count) {
+        Counter.builder("mtg.refresh.sets")
+                .description("Extensions examinées par le rafraîchissement planifié")
+                .tag("outcome", outcome)
+                .register(registry)
+                .increment(count);
+    }
+
+    /**
+     * Délai entre la détection d'un changement amont et la fin de la resynchronisation de l'extension
+     */
+    public void recordRefreshSyncLag(long millis) {
+        Timer.builder("mtg.refresh.sync.lag")
+                .description("Détection d'un changement amont -> extension resynchronisée")
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(millis, TimeUnit.MILLISECONDS);
+    }
+
+    public void registerRefreshLag(Supplier<Number> oldestPendingSeconds, Supplier<Number> pendingSets,
+                                   Supplier<Number> sinceLastCheckSeconds) {
+        Gauge.builder("mtg.refresh.lag", oldestPendingSeconds)
+                .description("Âge du plus ancien changement amont pas encore resynchronisé (0 : à jour)")
+                .baseUnit("seconds")
+                .register(registry);
+        Gauge.builder("mtg.refresh.pending", pendingSets)
+                .description("Extensions modifiées en amont en attente de resynchronisation")
+                .register(registry);
+        Gauge.builder("mtg.refresh.last.check.age", sinceLastCheckSeconds)
+                .description("Temps écoulé depuis la dernière comparaison réussie avec Scryfall (-1 : jamais)")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    // ========== CACHES ==========
+
+    public void cacheHit(String cache) {
+        cacheCounter(cache, "hit").increment();
+    }
+
+    public void cacheMiss(String cache) {
+        cacheCounter(cache, "miss").increment();
+    }
+
+    private Counter cacheCounter(String cache, String result) {
+        return Counter.builder("mtg.cache.requests")
+                .description("Accès aux caches applicatifs (ratio = hit / total)")
+                .tag("cache", cache)
+                .tag("result", result)
+                .register(registry);
+    }
+}
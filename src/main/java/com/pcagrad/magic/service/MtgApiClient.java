@@ -0,0 +1,225 @@
+package com.pcagrad.magic.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.pcagrad.magic.model.MtgCard;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Client de l'API magicthegathering.io : la première page donne le nombre total de cartes
+ * (en-têtes {@code Total-Count} / {@code Link}), les pages suivantes partent en parallèle
+ * avec un plafond de concurrence et sont réassemblées dans l'ordre.
+ */
+@Service
+public class MtgApiClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(MtgApiClient.class);
+
+    private static final String TOTAL_COUNT_HEADER = "Total-Count";
+    private static final Pattern LAST_PAGE_LINK = Pattern.compile("<[^>]*[?&]page=(\\d+)[^>]*>\\s*;\\s*rel=\"last\"");
+
+    // Lecteur partagé : le JSON de chaque page est décodé directement en MtgCard, sans arbre intermédiaire
+    private static final ObjectReader PAGE_READER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .readerFor(CardsPage.class);
+
+    // WebClient partagé (cache HTTP amont), voir HttpClientConfig
+    @Autowired
+    private WebClient webClient;
+
+    @Autowired
+    private MetricsService metricsService;
+
+    @Value("${mtg.api.base-url:https://api.magicthegathering.io/v1}")
+    private String baseUrl;
+
+    // L'API plafonne la taille de page à 100
+    @Value("${mtg.api.page-size:100}")
+    private int pageSize;
+
+    @Value("${mtg.api.page-concurrency:4}")
+    private int pageConcurrency;
+
+    @Value("${mtg.api.max-pages:100}")
+    private int maxPages;
+
+    /**
+     * Récupère toutes les cartes d'une extension, dans l'ordre des pages de l'API.
+     * Une page en échec (après nouvelles tentatives) fait échouer l'ensemble : une extension
+     * incomplète serait prise pour une extension dont des cartes ont disparu.
+     */
+    public Mono<List<MtgCard>> fetchCardsForSet(String setCode) {
+        SyncProgress progress = SyncProgress.current();
+
+        return fetchPage(setCode, 1, progress)
+                .flatMap(first -> {
+                    int totalPages = Math.min(first.totalPages(pageSize), maxPages);
+                    logger.info("📚 MTG API {} : {} cartes annoncées, {} pages ({} en parallèle)",
+                            setCode, first.totalCount(), totalPages, pageConcurrency);
+
+                    Flux<List<MtgCard>> remaining = totalPages <= 1
+                            ? Flux.empty()
+                            : Flux.range(2, totalPages - 1)
+                                .flatMapSequential(page -> fetchPage(setCode, page, progress).map(PageResult::cards),
+                                        pageConcurrency);
+
+                    return Flux.concat(Flux.just(first.cards()), remaining)
+                            .flatMapIterable(cards -> cards)
+                            .collectList();
+                })
+                .doOnNext(cards -> {
+                    metricsService.cardsParsed(setCode, cards.size());
+                    logger.info("✅ MTG API {} : {} cartes récupérées", setCode, cards.size());
+                });
+    }
+
+    // ========== MÉTHODES PRIVÉES ==========
+
+    private Mono<PageResult> fetchPage(String setCode, int page, SyncProgress progress) {
+        String url = baseUrl + "/cards?set=" + setCode + "&pageSize=" + pageSize + "&page=" + page;
+
+        return webClient.get()
+                .uri(url)
+                .exchangeToMono(response -> {
+                    if (response.statusCode().isError()) {
+                        return response.createException().flatMap(Mono::error);
+                    }
+                    HttpHeaders headers = response.headers().asHttpHeaders();
+                    return response.bodyToMono(DataBuffer.class)
+                            .map(buffer -> new PageResult(decode(buffer), totalCount(headers), lastPage(headers)))
+                            .defaultIfEmpty(new PageResult(List.of(), totalCount(headers), lastPage(headers)));
+                })
+                .timeout(Duration.ofSeconds(30))
+                .retryWhen(Retry.backoff(2, Duration.ofMillis(500)).filter(this::isTransient))
+                .doOnNext(result -> {
+                    progress.pageFetched(url);
+                    logger.debug("📄 MTG API {} page {} : {} cartes", setCode, page, result.cards().size());
+                })
+                .doOnError(error -> logger.error("❌ MTG API {} page {} : {}", setCode, page, error.getMessage()));
+    }
+
+    private List<MtgCard> decode(DataBuffer buffer) {
+        // asInputStream(true) libère le tampon à la fermeture du flux
+        try (InputStream input = buffer.asInputStream(true)) {
+            CardsPage page = PAGE_READER.readValue(input);
+            if (page.cards() == null) {
+                return List.of();
+            }
+            List<MtgCard> cards = new ArrayList<>(page.cards().size());
+            for (MtgCard card : page.cards()) {
+                cards.add(normalize(card));
+            }
+            return cards;
+        } catch (IOException e) {
+            throw new IllegalStateException("Réponse MTG API illisible : " + e.getMessage(), e);
+        }
+    }
+
+    // Mêmes valeurs par défaut que l'ancien parsing champ par champ
+    private MtgCard normalize(MtgCard card) {
+        String imageUrl = card.imageUrl();
+        if (imageUrl == null || imageUrl.isEmpty()) {
+            imageUrl = generateImageUrl(card.multiverseid(), card.set(), card.number());
+        }
+
+        return new MtgCard(
+                card.id() != null ? card.id() : "",
+                card.name() != null ? card.name() : "Carte inconnue",
+                card.manaCost(),
+                card.cmc(),
+                emptyToNull(card.colors()),
+                emptyToNull(card.colorIdentity()),
+                card.type() != null ? card.type() : "Unknown",
+                emptyToNull(card.supertypes()),
+                emptyToNull(card.types()),
+                emptyToNull(card.subtypes()),
+                card.rarity() != null ? card.rarity() : "Unknown",
+                card.set(),
+                card.setName(),
+                card.text(),
+                card.artist(),
+                card.number(),
+                card.power(),
+                card.toughness(),
+                card.layout(),
+                card.multiverseid(),
+                imageUrl
+        );
+    }
+
+    private List<String> emptyToNull(List<String> values) {
+        return values == null || values.isEmpty() ? null : values;
+    }
+
+    private String generateImageUrl(Integer multiverseId, String setCode, String cardNumber) {
+        if (multiverseId != null) {
+            return "https://gatherer.wizards.com/Handlers/Image.ashx?multiverseid=" + multiverseId + "&type=card";
+        }
+        if (setCode != null && cardNumber != null) {
+            return "https://api.scryfall.com/cards/" + setCode.toLowerCase() + "/" + cardNumber + "?format=image";
+        }
+        return "https://via.placeholder.com/223x311/0066cc/ffffff?text=" + setCode;
+    }
+
+    private int totalCount(HttpHeaders headers) {
+        String value = headers.getFirst(TOTAL_COUNT_HEADER);
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private int lastPage(HttpHeaders headers) {
+        String link = headers.getFirst(HttpHeaders.LINK);
+        if (link == null) {
+            return -1;
+        }
+        Matcher matcher = LAST_PAGE_LINK.matcher(link);
+        return matcher.find() ? Integer.parseInt(matcher.group(1)) : -1;
+    }
+
+    // Erreurs réseau, délais et 429/5xx : une nouvelle tentative a des chances d'aboutir
+    private boolean isTransient(Throwable error) {
+        if (error instanceof WebClientResponseException response) {
+            return response.getStatusCode().is5xxServerError() || response.getStatusCode().value() == 429;
+        }
+        return !(error instanceof IllegalStateException);
+    }
+
+    private record CardsPage(List<MtgCard> cards) {}
+
+    private record PageResult(List<MtgCard> cards, int totalCount, int lastPage) {
+
+        // Total-Count fait foi ; à défaut le lien rel="last", sinon une seule page
+        int totalPages(int pageSize) {
+            if (totalCount >= 0) {
+                return Math.max(1, (totalCount + pageSize - 1) / pageSize);
+            }
+            return Math.max(1, lastPage);
+        }
+    }
+}
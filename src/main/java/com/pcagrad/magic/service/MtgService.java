@@ -1,26 +1,35 @@
 package com.pcagrad.magic.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pcagrad.magic.dto.CardRow;
+import com.pcagrad.magic.dto.CursorPage;
+import com.pcagrad.magic.entity.CardTranslation;
 import com.pcagrad.magic.entity.MagicCard;
 import com.pcagrad.magic.entity.MagicSet;
+import com.pcagrad.magic.model.CardField;
 import com.pcagrad.magic.model.MtgCard;
 import com.pcagrad.magic.model.MtgSet;
 import com.pcagrad.magic.repository.CardRepository;
 import com.pcagrad.magic.repository.SetRepository;
+import com.pcagrad.magic.util.KeysetCursor;
 import com.pcagrad.magic.util.Localization;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-import java.time.Duration;
 import java.time.LocalDate;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,8 +37,6 @@ public class MtgService {
 
     private static final Logger logger = LoggerFactory.getLogger(MtgService.class);
 
-    private final WebClient webClient;
-
     @Autowired
     private CardRepository cardRepository;
 
@@ -45,14 +52,29 @@ public class MtgService {
     @Autowired
     private EntityAdaptationService adaptationService;
 
+    @Autowired
+    private MetricsService metricsService;
+
+    @Autowired
+    private MtgApiClient mtgApiClient;
+
+    @Autowired
+    private CatalogueSnapshotService catalogueSnapshotService;
+
+    // WebClient partagé (cache HTTP amont), voir HttpClientConfig
+    @Autowired
+    private WebClient webClient;
+
     @Value("${mtg.api.base-url:https://api.magicthegathering.io/v1}")
     private String baseUrl;
 
-    public MtgService() {
-        this.webClient = WebClient.builder()
-                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(10 * 1024 * 1024))
-                .build();
-    }
+    @Value("${mtg.stream.page-size:100}")
+    private int streamPageSize;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate readOnlyTransaction;
 
     // Extensions qui n'existent que sur Scryfall
     private static final Set<String> SCRYFALL_ONLY_SETS = Set.of(
@@ -70,12 +92,24 @@ public class MtgService {
             "MKM", 75
     );
 
+    @jakarta.annotation.PostConstruct
+    public void init() {
+        // Lecture seule : routée vers le réplica comme les lectures des contrôleurs
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
     /**
      * Récupère toutes les extensions - VERSION ADAPTÉE
      */
     public Mono<List<MtgSet>> getAllSets() {
         logger.debug("🔍 Récupération de toutes les extensions (adaptée)");
 
+        Optional<List<MtgSet>> snapshotSets = catalogueSnapshotService.findAllSets();
+        if (snapshotSets.isPresent()) {
+            return Mono.just(snapshotSets.get());
+        }
+
         List<MagicSet> dbSets = setRepository.findAll();
 
         if (!dbSets.isEmpty()) {
@@ -171,10 +205,10 @@ public class MtgService {
                         logger.info("✅ {} cartes trouvées en base pour {}", cardCount, setCode);
 
                         return Mono.fromCallable(() -> {
-                            List<MagicCard> cardEntities = cardRepository.findBySetCodeOrderByNameAsc(setCode);
-                            List<MtgCard> cards = cardEntities.stream()
-                                    .map(this::entityToModelAdapted)
-                                    .collect(Collectors.toList());
+                            List<MtgCard> cards = catalogueSnapshotService.findCards(setCode)
+                                    .orElseGet(() -> cardRepository.findBySetCodeOrderByNameAsc(setCode).stream()
+                                            .map(this::entityToModelAdapted)
+                                            .collect(Collectors.toList()));
 
                             return new MtgSet(
                                     latestSet.code(), latestSet.name(), latestSet.type(), latestSet.block(),
@@ -200,9 +234,15 @@ public class MtgService {
     public Mono<List<MtgCard>> getCardsFromSet(String setCode) {
         logger.info("🔍 Récupération des cartes pour l'extension: {} (adaptée)", setCode);
 
-        // Vérifier d'abord en base
+        // Instantané mémoire, puis base
+        Optional<List<MtgCard>> snapshotCards = catalogueSnapshotService.findCards(setCode);
+        if (snapshotCards.isPresent()) {
+            return Mono.just(snapshotCards.get());
+        }
+
         List<MagicCard> cardsInDb = cardRepository.findBySetCodeOrderByNameAsc(setCode);
         if (!cardsInDb.isEmpty()) {
+            metricsService.cacheHit(MetricsService.CACHE_CARDS_DB);
             logger.info("✅ {} cartes trouvées en base pour {}", cardsInDb.size(), setCode);
             List<MtgCard> cards = cardsInDb.stream()
                     .map(this::entityToModelAdapted)
@@ -210,6 +250,8 @@ public class MtgService {
             return Mono.just(cards);
         }
 
+        metricsService.cacheMiss(MetricsService.CACHE_CARDS_DB);
+
         // Si le set n'existe que sur Scryfall
         if (SCRYFALL_ONLY_SETS.contains(setCode.toUpperCase())) {
             logger.info("🔮 Extension {} détectée comme Universes Beyond - Scryfall", setCode);
@@ -221,6 +263,182 @@ public class MtgService {
         return fetchCardsFromMtgApi(setCode);
     }
 
+    // ========== PAGINATION PAR CURSEUR ==========
+
+    private static final int MAX_PAGE_SIZE = 200;
+
+    /**
+     * Cartes d'une extension réduites aux champs demandés : sans champ de liste, la base ne renvoie
+     * que les colonnes nécessaires (ni allowedNotes, ni entités ni traductions chargées)
+     */
+    public Mono<List<MtgCard>> getCardsFromSet(String setCode, Set<CardField> fields) {
+        if (CardField.isAll(fields)) {
+            return getCardsFromSet(setCode);
+        }
+
+        Optional<List<MtgCard>> snapshotCards = catalogueSnapshotService.findCards(setCode);
+        if (snapshotCards.isPresent()) {
+            return Mono.just(snapshotCards.get().stream()
+                    .map(card -> CardField.project(card, fields))
+                    .collect(Collectors.toList()));
+        }
+
+        if (Collections.disjoint(fields, CardField.LIST_FIELDS)) {
+            // attributes (LONGTEXT) n'est lu que si un champ demandé en dépend
+            boolean columnsOnly = CardField.COLUMN_FIELDS.containsAll(fields);
+            List<CardRow> rows = columnsOnly
+                    ? withFallbackAttributes(cardRepository.findColumnRowsBySetCodeOrderByNameAsc(setCode), fields)
+                    : cardRepository.findRowsBySetCodeOrderByNameAsc(setCode);
+            if (!rows.isEmpty()) {
+                metricsService.cacheHit(MetricsService.CACHE_CARDS_DB);
+                logger.info("✅ {} cartes trouvées en base pour {} ({} champs)", rows.size(), setCode, fields.size());
+                return Mono.just(rows.stream()
+                        .map(row -> rowToModel(row, fields))
+                        .collect(Collectors.toList()));
+            }
+        } else {
+            List<MagicCard> cardsInDb = cardRepository.findBySetCodeOrderByNameAsc(setCode);
+            if (!cardsInDb.isEmpty()) {
+                metricsService.cacheHit(MetricsService.CACHE_CARDS_DB);
+                return Mono.just(cardsInDb.stream()
+                        .map(card -> entityToModel(card, fields))
+                        .collect(Collectors.toList()));
+            }
+        }
+
+        // Absente de la base : chemin complet (API externe), réduit ensuite
+        return getCardsFromSet(setCode)
+                .map(cards -> cards.stream()
+                        .map(card -> CardField.project(card, fields))
+                        .collect(Collectors.toList()));
+    }
+
+    /**
+     * Page de cartes d'une extension triée par (numéro, id) : le curseur reprend après la dernière
+     * carte lue, sans OFFSET. Le total n'est compté que si {@code withCount}.
+     */
+    public CursorPage<MtgCard> getSetCardsPage(String setCode, String cursor, int limit, boolean withCount,
+                                               Set<CardField> fields) {
+        // Un seul code pour la portée du curseur et les requêtes : "fin" et "FIN" partagent leurs curseurs
+        String code = normalizeSetCode(setCode);
+        String scope = "set:" + code;
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        Pageable window = PageRequest.ofSize(size + 1);
+
+        List<MagicCard> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = cardRepository.findSetPageFirst(code, window);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor, scope);
+            rows = after.sortKey() == null
+                    ? cardRepository.findSetPageAfterUnnumbered(code, after.id(), window)
+                    : cardRepository.findSetPageAfter(code, Integer.valueOf(after.sortKey()), after.id(), window);
+        }
+
+        Long total = withCount ? cardRepository.countBySetCode(code) : null;
+        return toCursorPage(rows, size, total, fields, last -> new KeysetCursor(scope,
+                last.getNumero() != null ? last.getNumero().toString() : null, last.getId()));
+    }
+
+    /**
+     * Recherche par nom, extension, rareté, type et préfixe d'artiste (tous optionnels) triée par (nom, id),
+     * même principe de curseur
+     */
+    public CursorPage<MtgCard> searchCardsPage(String name, String setCode, String rarity, String type, String artist,
+                                               String cursor, int limit, boolean withCount, Set<CardField> fields) {
+        String nameFilter = blankToNull(name);
+        String setFilter = setCode == null || setCode.isBlank() ? null : normalizeSetCode(setCode);
+        String rarityFilter = blankToNull(rarity);
+        String typeFilter = blankToNull(type);
+        String artistFilter = blankToNull(artist);
+        boolean filtered = rarityFilter != null || typeFilter != null || artistFilter != null;
+        String scope = "search:" + Objects.toString(nameFilter, "") + ":" + Objects.toString(setFilter, "")
+                + (filtered ? ":" + Objects.toString(rarityFilter, "") + ":" + Objects.toString(typeFilter, "")
+                + ":" + Objects.toString(artistFilter, "") : "");
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        String afterName = null;
+        UUID afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            KeysetCursor after = KeysetCursor.decode(cursor, scope);
+            afterName = Objects.toString(after.sortKey(), "");
+            afterId = after.id();
+        }
+
+        List<MagicCard> rows;
+        Long total = null;
+        if (filtered) {
+            rows = cardRepository.findCardsWithFiltersAfter(nameFilter, setFilter, rarityFilter, typeFilter,
+                    artistFilter, afterName, afterId, PageRequest.ofSize(size + 1));
+            if (withCount) {
+                total = cardRepository.countCardsWithFilters(nameFilter, setFilter, rarityFilter, typeFilter, artistFilter);
+            }
+        } else {
+            rows = cardRepository.searchCardsByNameAfter(
+                    nameFilter, setFilter, afterName, afterId, PageRequest.ofSize(size + 1));
+            if (withCount) {
+                total = cardRepository.countCardsByNameAndSet(nameFilter, setFilter);
+            }
+        }
+        return toCursorPage(rows, size, total, fields, last -> {
+            CardTranslation translation = last.getTranslation(Localization.USA);
+            return new KeysetCursor(scope, translation != null ? translation.getName() : null, last.getId());
+        });
+    }
+
+    /**
+     * Cartes d'une extension émises au fil des pages : la première page part dès qu'elle est lue,
+     * quel que soit le nombre de cartes de l'extension. Chaque page est lue dans sa propre
+     * transaction en lecture seule, hors du thread de la requête. Triées par nom comme l'instantané
+     * et la liste complète : l'ordre ne dépend pas du chemin servi.
+     */
+    public Flux<MtgCard> streamCardsFromSet(String setCode, Set<CardField> fields) {
+        Optional<List<MtgCard>> snapshotCards = catalogueSnapshotService.findCards(setCode);
+        if (snapshotCards.isPresent()) {
+            return Flux.fromIterable(snapshotCards.get())
+                    .map(card -> CardField.project(card, fields));
+        }
+
+        return Mono.fromCallable(() -> readStreamPage(setCode, null, fields))
+                .expand(page -> page.hasMore()
+                        ? Mono.fromCallable(() -> readStreamPage(setCode, page.nextCursor(), fields))
+                        : Mono.empty())
+                .subscribeOn(Schedulers.boundedElastic())
+                .switchOnFirst((first, pages) -> {
+                    // Extension absente de la base : même repli que la liste complète (API externe)
+                    if (first.hasValue() && first.get().items().isEmpty()) {
+                        metricsService.cacheMiss(MetricsService.CACHE_CARDS_DB);
+                        return getCardsFromSet(setCode, fields).flatMapMany(Flux::fromIterable);
+                    }
+                    return pages.concatMapIterable(CursorPage::items);
+                });
+    }
+
+    private CursorPage<MtgCard> readStreamPage(String setCode, String cursor, Set<CardField> fields) {
+        return readOnlyTransaction.execute(status ->
+                searchCardsPage(null, setCode, null, null, null, cursor, streamPageSize, false, fields));
+    }
+
+    private String normalizeSetCode(String setCode) {
+        return setCode.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    // Une ligne de plus que demandé : sa présence indique qu'une page suivante existe
+    private CursorPage<MtgCard> toCursorPage(List<MagicCard> rows, int size, Long total, Set<CardField> fields,
+                                             Function<MagicCard, KeysetCursor> cursorOf) {
+        boolean hasMore = rows.size() > size;
+        List<MagicCard> page = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = hasMore ? cursorOf.apply(page.get(page.size() - 1)).encode() : null;
+        List<MtgCard> items = page.stream()
+                .map(card -> entityToModel(card, fields))
+                .collect(Collectors.toList());
+        return new CursorPage<>(items, nextCursor, hasMore, total);
+    }
+
     /**
      * Force la synchronisation d'une extension - VERSION ADAPTÉE
      */
@@ -293,7 +511,7 @@ public class MtgService {
     /**
      * Convertit une entité MagicSet vers le modèle MtgSet - VERSION ADAPTÉE
      */
-    private MtgSet entityToModelAdapted(MagicSet entity) {
+    public MtgSet entityToModelAdapted(MagicSet entity) {
         return new MtgSet(
                 entity.getCode(),
                 entity.getName(), // Utilise la méthode adaptée qui lit les translations
@@ -311,7 +529,7 @@ public class MtgService {
     /**
      * Convertit une entité MagicCard vers le modèle MtgCard - VERSION ADAPTÉE
      */
-    private MtgCard entityToModelAdapted(MagicCard entity) {
+    public MtgCard entityToModelAdapted(MagicCard entity) {
         return new MtgCard(
                 entity.getExternalId(), // Utilise idPrim
                 entity.getName(), // Utilise la méthode adaptée qui lit les translations
@@ -338,6 +556,74 @@ public class MtgService {
         );
     }
 
+    /**
+     * Conversion limitée aux champs demandés : les getters non appelés ne parcourent ni attributes
+     * ni allowedNotes
+     */
+    public MtgCard entityToModel(MagicCard entity, Set<CardField> fields) {
+        if (CardField.isAll(fields)) {
+            return entityToModelAdapted(entity);
+        }
+        return new MtgCard(
+                fields.contains(CardField.ID) ? entity.getExternalId() : null,
+                fields.contains(CardField.NAME) ? entity.getName() : null,
+                fields.contains(CardField.MANA_COST) ? entity.getManaCost() : null,
+                fields.contains(CardField.CMC) ? entity.getCmc() : null,
+                fields.contains(CardField.COLORS) ? entity.getColors() : null,
+                fields.contains(CardField.COLOR_IDENTITY) ? entity.getColorIdentity() : null,
+                fields.contains(CardField.TYPE) ? entity.getType() : null,
+                fields.contains(CardField.SUPERTYPES) ? entity.getSupertypes() : null,
+                fields.contains(CardField.TYPES) ? entity.getTypes() : null,
+                fields.contains(CardField.SUBTYPES) ? entity.getSubtypes() : null,
+                fields.contains(CardField.RARITY) ? entity.getRarity() : null,
+                fields.contains(CardField.SET) ? entity.getSetCode() : null,
+                fields.contains(CardField.SET_NAME) ? entity.getSetName() : null,
+                fields.contains(CardField.TEXT) ? entity.getText() : null,
+                fields.contains(CardField.ARTIST) ? entity.getArtist() : null,
+                fields.contains(CardField.NUMBER) ? entity.getNumber() : null,
+                fields.contains(CardField.POWER) ? entity.getPower() : null,
+                fields.contains(CardField.TOUGHNESS) ? entity.getToughness() : null,
+                fields.contains(CardField.LAYOUT) ? entity.getLayout() : null,
+                fields.contains(CardField.MULTIVERSE_ID) ? entity.getMultiverseid() : null,
+                fields.contains(CardField.IMAGE_URL)
+                        ? (entity.getLocalImagePath() != null ? "/api/images/" + entity.getId() : entity.getOriginalImageUrl())
+                        : null
+        );
+    }
+
+    /**
+     * Même conversion depuis une projection de colonnes, par les getters de MagicCard (mêmes règles
+     * de repli) sur une entité détachée ; les champs de liste n'y figurent pas
+     */
+    private MtgCard rowToModel(CardRow row, Set<CardField> fields) {
+        MagicCard card = new MagicCard();
+        card.setId(row.id());
+        card.setExternalId(row.externalId());
+        card.setName(row.name());
+        card.setNumero(row.numero());
+        card.setZPostExtension(row.setCode());
+        card.setImageDownloaded(row.hasImg());
+        card.setAttributes(row.attributes());
+        return entityToModel(card, fields);
+    }
+
+    // Nom sans traduction ou numéro absent : le getter se replie sur attributes, relu pour ces seules lignes
+    private List<CardRow> withFallbackAttributes(List<CardRow> rows, Set<CardField> fields) {
+        Set<UUID> incomplete = rows.stream()
+                .filter(row -> (fields.contains(CardField.NAME) && (row.name() == null || row.name().equals("Carte inconnue")))
+                        || (fields.contains(CardField.NUMBER) && row.numero() == null))
+                .map(CardRow::id)
+                .collect(Collectors.toSet());
+        if (incomplete.isEmpty()) {
+            return rows;
+        }
+        Map<UUID, CardRow> complete = cardRepository.findRowsByIdIn(incomplete).stream()
+                .collect(Collectors.toMap(CardRow::id, row -> row, (first, second) -> first));
+        return rows.stream()
+                .map(row -> complete.getOrDefault(row.id(), row))
+                .collect(Collectors.toList());
+    }
+
     // ========== MÉTHODES UTILITAIRES ADAPTÉES ==========
 
     private boolean hasValidReleaseDate(MagicSet set) {
@@ -377,93 +663,11 @@ public class MtgService {
     }
 
     private Mono<List<MtgCard>> fetchCardsFromMtgApi(String setCode) {
-        String url = baseUrl + "/cards?set=" + setCode + "&pageSize=500";
-
-        return webClient.get()
-                .uri(url)
-                .retrieve()
-                .bodyToMono(String.class)
-                .timeout(Duration.ofSeconds(30))
-                .map(response -> {
-                    try {
-                        JsonNode root = new ObjectMapper().readTree(response);
-                        JsonNode cardsArray = root.get("cards");
-
-                        if (cardsArray != null && cardsArray.isArray()) {
-                            List<MtgCard> cards = new ArrayList<>();
-                            for (JsonNode cardNode : cardsArray) {
-                                try {
-                                    MtgCard card = parseCardFromMtgApi(cardNode);
-                                    if (card != null) {
-                                        cards.add(card);
-                                    }
-                                } catch (Exception e) {
-                                    logger.warn("⚠️ Erreur parsing carte MTG API: {}", e.getMessage());
-                                }
-                            }
-                            return cards;
-                        }
-                        return Collections.<MtgCard>emptyList();
-                    } catch (Exception e) {
-                        logger.error("❌ Erreur parsing réponse MTG API pour {} : {}", setCode, e.getMessage());
-                        return Collections.<MtgCard>emptyList();
-                    }
-                })
-                .onErrorReturn(Collections.emptyList());
-    }
-
-    private MtgCard parseCardFromMtgApi(JsonNode cardNode) {
-        String imageUrl = cardNode.get("imageUrl") != null ? cardNode.get("imageUrl").asText() : null;
-        if (imageUrl == null || imageUrl.isEmpty()) {
-            String multiverseId = cardNode.get("multiverseid") != null ? cardNode.get("multiverseid").asText() : null;
-            String cardNumber = cardNode.get("number") != null ? cardNode.get("number").asText() : null;
-            String setCode = cardNode.get("set") != null ? cardNode.get("set").asText() : null;
-            imageUrl = generateImageUrl(multiverseId, setCode, cardNumber);
-        }
-
-        return new MtgCard(
-                cardNode.get("id") != null ? cardNode.get("id").asText() : "",
-                cardNode.get("name") != null ? cardNode.get("name").asText() : "Carte inconnue",
-                cardNode.get("manaCost") != null ? cardNode.get("manaCost").asText() : null,
-                cardNode.get("cmc") != null ? cardNode.get("cmc").asInt() : null,
-                parseStringArray(cardNode.get("colors")),
-                parseStringArray(cardNode.get("colorIdentity")),
-                cardNode.get("type") != null ? cardNode.get("type").asText() : "Unknown",
-                parseStringArray(cardNode.get("supertypes")),
-                parseStringArray(cardNode.get("types")),
-                parseStringArray(cardNode.get("subtypes")),
-                cardNode.get("rarity") != null ? cardNode.get("rarity").asText() : "Unknown",
-                cardNode.get("set") != null ? cardNode.get("set").asText() : null,
-                cardNode.get("setName") != null ? cardNode.get("setName").asText() : null,
-                cardNode.get("text") != null ? cardNode.get("text").asText() : null,
-                cardNode.get("artist") != null ? cardNode.get("artist").asText() : null,
-                cardNode.get("number") != null ? cardNode.get("number").asText() : null,
-                cardNode.get("power") != null ? cardNode.get("power").asText() : null,
-                cardNode.get("toughness") != null ? cardNode.get("toughness").asText() : null,
-                cardNode.get("layout") != null ? cardNode.get("layout").asText() : null,
-                cardNode.get("multiverseid") != null ? cardNode.get("multiverseid").asInt() : null,
-                imageUrl
-        );
-    }
-
-    // Méthodes utilitaires inchangées
-    private List<String> parseStringArray(JsonNode node) {
-        if (node == null || !node.isArray()) return null;
-        List<String> result = new ArrayList<>();
-        for (JsonNode item : node) {
-            result.add(item.asText());
-        }
-        return result.isEmpty() ? null : result;
-    }
-
-    private String generateImageUrl(String multiverseId, String setCode, String cardNumber) {
-        if (multiverseId != null && !multiverseId.equals("null")) {
-            return "https://gatherer.wizards.com/Handlers/Image.ashx?multiverseid=" + multiverseId + "&type=card";
-        }
-        if (setCode != null && cardNumber != null) {
-            return "https://api.scryfall.com/cards/" + setCode.toLowerCase() + "/" + cardNumber + "?format=image";
-        }
-        return "https://via.placeholder.com/223x311/0066cc/ffffff?text=" + setCode;
+        return mtgApiClient.fetchCardsForSet(setCode)
+                .onErrorResume(error -> {
+                    logger.error("❌ Erreur MTG API pour {} : {}", setCode, error.getMessage());
+                    return Mono.just(Collections.emptyList());
+                });
     }
 
     private MtgSet mapToMtgSet(Map<String, Object> setMap) {
@@ -482,6 +686,11 @@ public class MtgService {
     }
 
     public Mono<MtgSet> getSetByCode(String setCode) {
+        Optional<MtgSet> snapshotSet = catalogueSnapshotService.findSet(setCode);
+        if (snapshotSet.isPresent()) {
+            return Mono.just(snapshotSet.get());
+        }
+
         Optional<MagicSet> dbSet = setRepository.findByCode(setCode);
         if (dbSet.isPresent()) {
             return Mono.just(entityToModelAdapted(dbSet.get()));
@@ -0,0 +1,178 @@
+package com.pcagrad.magic.service;
+
+import com.pcagrad.magic.config.QueryInspector;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Agrège le nombre de requêtes SQL par endpoint et repère les requêtes HTTP
+ * qui en émettent trop (EAGER, N+1, comptages en boucle).
+ */
+@Service
+public class QueryStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryStatsService.class);
+
+    private static final int RECENT_FLAGGED_LIMIT = 50;
+    private static final int STATEMENT_PREVIEW_LENGTH = 300;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MetricsService metricsService;
+
+    @Value("${mtg.query-inspector.threshold:50}")
+    private int threshold;
+
+    @Value("${mtg.query-inspector.slow-query-limit:20}")
+    private int slowQueryLimit;
+
+    private final Map<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+    private final Deque<FlaggedRequest> recentFlagged = new ArrayDeque<>();
+
+    /**
+     * Appelé par le filtre à la fin de chaque requête /api/**
+     */
+    public void recordRequest(String endpoint, String uri, QueryInspector.RequestQueries queries, long durationMs) {
+        int total = queries.getTotal();
+        endpoints.computeIfAbsent(endpoint, e -> new EndpointStats()).record(total, total > threshold);
+        metricsService.recordRequestStatements(endpoint, total);
+
+        if (total > threshold) {
+            List<RepeatedStatement> repeated = queries.topRepeated(5).stream()
+                    .map(e -> new RepeatedStatement(preview(e.getKey()), e.getValue()))
+                    .toList();
+
+            logger.warn("🐢 {} requêtes SQL pour {} ({} ms, seuil {}) - plus répétée : {}",
+                    total, uri, durationMs, threshold,
+                    repeated.isEmpty() ? "aucune" : repeated.get(0).count() + "x " + repeated.get(0).sql());
+
+            synchronized (recentFlagged) {
+                recentFlagged.addFirst(new FlaggedRequest(endpoint, uri, total, durationMs, repeated, LocalDateTime.now()));
+                while (recentFlagged.size() > RECENT_FLAGGED_LIMIT) {
+                    recentFlagged.removeLast();
+                }
+            }
+        }
+    }
+
+    /**
+     * Rapport complet : endpoints les plus bavards, requêtes signalées, JPQL les plus lentes
+     */
+    public QueryStatsReport getReport() {
+        List<EndpointReport> endpointReports = endpoints.entrySet().stream()
+                .map(e -> e.getValue().toReport(e.getKey()))
+                .sorted(Comparator.comparingDouble(EndpointReport::avgStatements).reversed())
+                .toList();
+
+        List<FlaggedRequest> flagged;
+        synchronized (recentFlagged) {
+            flagged = new ArrayList<>(recentFlagged);
+        }
+
+        Statistics statistics = hibernateStatistics();
+        List<SlowQuery> slowQueries = new ArrayList<>();
+        Map<String, Long> hibernate = new LinkedHashMap<>();
+
+        if (statistics.isStatisticsEnabled()) {
+            for (String query : statistics.getQueries()) {
+                QueryStatistics qs = statistics.getQueryStatistics(query);
+                slowQueries.add(new SlowQuery(preview(query), qs.getExecutionCount(),
+                        qs.getExecutionAvgTime(), qs.getExecutionMaxTime(),
+                        qs.getExecutionAvgTime() * qs.getExecutionCount(), qs.getExecutionRowCount()));
+            }
+            slowQueries.sort(Comparator.comparingLong(SlowQuery::maxTimeMs).reversed());
+
+            hibernate.put("queryExecutions", statistics.getQueryExecutionCount());
+            hibernate.put("preparedStatements", statistics.getPrepareStatementCount());
+            hibernate.put("entityLoads", statistics.getEntityLoadCount());
+            hibernate.put("collectionFetches", statistics.getCollectionFetchCount());
+            hibernate.put("slowestQueryMs", statistics.getQueryExecutionMaxTime());
+        }
+
+        return new QueryStatsReport(threshold, statistics.isStatisticsEnabled(), endpointReports, flagged,
+                slowQueries.stream().limit(slowQueryLimit).toList(), hibernate);
+    }
+
+    public void reset() {
+        endpoints.clear();
+        synchronized (recentFlagged) {
+            recentFlagged.clear();
+        }
+        hibernateStatistics().clear();
+        logger.info("🧹 Statistiques de requêtes réinitialisées");
+    }
+
+    private Statistics hibernateStatistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private String preview(String sql) {
+        String compact = sql.replaceAll("\\s+", " ").trim();
+        return compact.length() > STATEMENT_PREVIEW_LENGTH
+                ? compact.substring(0, STATEMENT_PREVIEW_LENGTH) + "..."
+                : compact;
+    }
+
+    // ========== CLASSES DE DONNÉES ==========
+
+    private static class EndpointStats {
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong statements = new AtomicLong();
+        private final AtomicLong flagged = new AtomicLong();
+        private volatile int max;
+
+        void record(int count, boolean overThreshold) {
+            requests.incrementAndGet();
+            statements.addAndGet(count);
+            if (overThreshold) {
+                flagged.incrementAndGet();
+            }
+            if (count > max) {
+                max = count;
+            }
+        }
+
+        EndpointReport toReport(String endpoint) {
+            long r = requests.get();
+            return new EndpointReport(endpoint, r, r > 0 ? (double) statements.get() / r : 0, max, flagged.get());
+        }
+    }
+
+    public record EndpointReport(String endpoint, long requests, double avgStatements, int maxStatements, long flagged) {}
+
+    public record RepeatedStatement(String sql, int count) {}
+
+    public record FlaggedRequest(
+            String endpoint,
+            String uri,
+            int statements,
+            long durationMs,
+            List<RepeatedStatement> repeated,
+            LocalDateTime at
+    ) {}
+
+    public record SlowQuery(String query, long executions, long avgTimeMs, long maxTimeMs, long totalTimeMs, long rows) {}
+
+    public record QueryStatsReport(
+            int threshold,
+            boolean hibernateStatisticsEnabled,
+            List<EndpointReport> endpoints,
+            List<FlaggedRequest> recentFlagged,
+            List<SlowQuery> slowestQueries,
+            Map<String, Long> hibernate
+    ) {}
+}
@@ -0,0 +1,61 @@
+package com.pcagrad.magic.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Budget d'appels partagé vers Scryfall : un créneau tous les N ms, quel que soit
+ * le nombre de threads qui synchronisent en parallèle.
+ */
+@Service
+public class ScryfallRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScryfallRateLimiter.class);
+
+    @Autowired
+    private MetricsService metricsService;
+
+    // Scryfall demande 50 à 100 ms entre deux requêtes
+    @Value("${mtg.scryfall.min-interval-ms:100}")
+    private long minIntervalMs;
+
+    private long nextSlotNanos = System.nanoTime();
+
+    /**
+     * Réserve le prochain créneau et attend qu'il arrive
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long slot = Math.max(now, nextSlotNanos);
+            nextSlotNanos = slot + TimeUnit.MILLISECONDS.toNanos(minIntervalMs);
+            waitNanos = slot - now;
+        }
+
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+        metricsService.recordRateLimitWait(Math.max(0, waitNanos));
+    }
+
+    /**
+     * Repousse tous les appels après un 429 (Retry-After)
+     */
+    public synchronized void backOff(long millis) {
+        long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        if (until > nextSlotNanos) {
+            nextSlotNanos = until;
+        }
+        logger.warn("⏳ Scryfall : limite atteinte, pause de {} ms pour tous les appels", millis);
+    }
+
+    public long getMinIntervalMs() {
+        return minIntervalMs;
+    }
+}
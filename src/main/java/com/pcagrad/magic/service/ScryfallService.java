@@ -4,13 +4,21 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pcagrad.magic.model.MtgCard;
 import org.slf4j.Logger;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import reactor.core.publisher.Mono;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -20,11 +28,20 @@ import java.util.concurrent.CompletableFuture;
 public class ScryfallService {
 
     private static final Logger logger = LoggerFactory.getLogger(ScryfallService.class);
-    private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
 
+    // RestTemplate partagé : toutes les requêtes passent par le même budget d'appels
+    @Autowired
+    private RestTemplate restTemplate;
+
+    @Autowired
+    private MetricsService metricsService;
+
+    // Configurable pour pointer vers un serveur de substitution (benchmarks hors ligne)
+    @Value("${mtg.scryfall.base-url:https://api.scryfall.com}")
+    private String scryfallBaseUrl;
+
     public ScryfallService() {
-        this.restTemplate = new RestTemplate();
         this.objectMapper = new ObjectMapper();
     }
 
@@ -58,14 +75,14 @@ public class ScryfallService {
 
         while (page <= maxPages) {
             String currentUrl = String.format(
-                    "https://api.scryfall.com/cards/search?q=set:%s&format=json&order=set&page=%d",
+                    scryfallBaseUrl + "/cards/search?q=set:%s&format=json&order=set&page=%d",
                     setCode, page
             );
 
             logger.info("📄 Page {}/{} pour {} - URL: {}", page, maxPages, setCode, currentUrl);
 
             try {
-                String response = restTemplate.getForObject(currentUrl, String.class);
+                String response = fetchPage(currentUrl);
 
                 if (response == null) {
                     logger.warn("⚠️ Réponse nulle pour page {} de {}", page, setCode);
@@ -92,6 +109,7 @@ public class ScryfallService {
                 JsonNode dataNode = root.get("data");
                 if (dataNode != null && dataNode.isArray()) {
                     int cardsInThisPage = dataNode.size();
+                    int cardsBefore = allCards.size();
 
                     for (JsonNode cardNode : dataNode) {
                         try {
@@ -100,8 +118,10 @@ public class ScryfallService {
                         } catch (Exception e) {
                             String cardName = cardNode.has("name") ? cardNode.get("name").asText() : "Carte inconnue";
                             logger.warn("⚠️ Erreur parsing carte '{}' page {} : {}", cardName, page, e.getMessage());
+                            metricsService.cardParseFailed(setCode);
                         }
                     }
+                    metricsService.cardsParsed(setCode, allCards.size() - cardsBefore);
 
                     logger.info("✅ Page {} : {} cartes ajoutées (Total: {})",
                             page, cardsInThisPage, allCards.size());
@@ -144,11 +164,7 @@ public class ScryfallService {
                 }
 
                 page++;
-
-                // Délai respectueux pour l'API Scryfall
-                if (page <= maxPages) {
-                    Thread.sleep(150);
-                }
+                // Le délai entre deux appels est imposé par ScryfallRateLimiter
 
             } catch (Exception e) {
                 if (e.getMessage().contains("404") && !allCards.isEmpty()) {
@@ -225,8 +241,6 @@ public class ScryfallService {
                     break;
                 }
 
-                Thread.sleep(500); // Délai entre stratégies
-
             } catch (Exception e) {
                 logger.error("❌ Erreur stratégie '{}' : {}", strategy, e.getMessage());
             }
@@ -246,11 +260,11 @@ public class ScryfallService {
 
         while (page <= maxPages) {
             String url = String.format(
-                    "https://api.scryfall.com/cards/search?q=%s&format=json&order=set&page=%d",
+                    scryfallBaseUrl + "/cards/search?q=%s&format=json&order=set&page=%d",
                     query.replace(" ", "%20"), page
             );
 
-            String response = restTemplate.getForObject(url, String.class);
+            String response = fetchPage(url);
             if (response == null) break;
 
             JsonNode root = objectMapper.readTree(response);
@@ -269,8 +283,10 @@ public class ScryfallService {
                     try {
                         MtgCard card = parseScryfallCard(cardNode);
                         cards.add(card);
+                        metricsService.cardsParsed(card.set(), 1);
                     } catch (Exception e) {
                         logger.warn("⚠️ Erreur parsing carte custom query: {}", e.getMessage());
+                        metricsService.cardParseFailed(cardNode.path("set").asText("unknown"));
                     }
                 }
 
@@ -281,7 +297,6 @@ public class ScryfallService {
             }
 
             page++;
-            Thread.sleep(150);
         }
 
         return cards;
@@ -314,9 +329,11 @@ public class ScryfallService {
                 String cardName = cardNode.has("name") ? cardNode.get("name").asText() : "Carte inconnue";
                 logger.warn("⚠️ Erreur parsing carte '{}' dans extension {}: {}",
                         cardName, setCode, e.getMessage());
+                metricsService.cardParseFailed(setCode);
             }
         }
 
+        metricsService.cardsParsed(setCode, cards.size());
         return cards;
     }
 
@@ -326,7 +343,7 @@ public class ScryfallService {
     public Mono<SetInfo> getSetInfo(String setCode) {
         return Mono.fromFuture(CompletableFuture.supplyAsync(() -> {
             try {
-                String url = "https://api.scryfall.com/sets/" + setCode.toLowerCase();
+                String url = scryfallBaseUrl + "/sets/" + setCode.toLowerCase();
                 String response = restTemplate.getForObject(url, String.class);
 
                 if (response == null) {
@@ -357,6 +374,66 @@ public class ScryfallService {
         return getSetInfo(setCode).map(SetInfo::exists);
     }
 
+    /**
+     * Liste complète des extensions Scryfall (un seul appel, pas de pagination)
+     */
+    public List<SetSummary> fetchSetList() {
+        try {
+            // Liste toujours revalidée : un rafraîchissement ne doit pas lire une copie de plusieurs heures
+            JsonNode root = objectMapper.readTree(fetchPage(scryfallBaseUrl + "/sets", true));
+            List<SetSummary> sets = new ArrayList<>();
+            for (JsonNode node : root.path("data")) {
+                sets.add(new SetSummary(
+                        node.path("code").asText().toUpperCase(),
+                        node.path("name").asText(),
+                        node.path("set_type").asText(null),
+                        node.hasNonNull("released_at") ? LocalDate.parse(node.get("released_at").asText()) : null,
+                        node.path("card_count").asInt(0),
+                        node.path("digital").asBoolean(false)
+                ));
+            }
+            logger.info("📚 {} extensions listées sur Scryfall", sets.size());
+            return sets;
+        } catch (Exception e) {
+            logger.error("❌ Erreur récupération de la liste des extensions Scryfall : {}", e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Appel d'une page de résultats, chronométré
+     */
+    private String fetchPage(String url) {
+        return fetchPage(url, false);
+    }
+
+    /**
+     * Avec {@code revalidate}, le cache HTTP amont redemande la page sous condition au lieu de
+     * servir sa copie fraîche
+     */
+    private String fetchPage(String url, boolean revalidate) {
+        SyncProgress progress = SyncProgress.current();
+        progress.checkCancelled();
+
+        Timer.Sample sample = metricsService.startTimer();
+        String outcome = "error";
+        try {
+            String response;
+            if (revalidate) {
+                HttpHeaders headers = new HttpHeaders();
+                headers.setCacheControl(CacheControl.noCache());
+                response = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), String.class).getBody();
+            } else {
+                response = restTemplate.getForObject(url, String.class);
+            }
+            outcome = "success";
+            progress.pageFetched(url);
+            return response;
+        } finally {
+            metricsService.recordScryfallPage(sample, outcome);
+        }
+    }
+
     /**
      * Parse une carte depuis un JsonNode Scryfall - VERSION COMPLÈTE
      */
@@ -546,6 +623,8 @@ public class ScryfallService {
      */
     public record SetInfo(boolean exists, String name, int expectedCardCount, String releaseDate) {}
 
+    public record SetSummary(String code, String name, String setType, LocalDate releasedAt, int cardCount, boolean digital) {}
+
     /**
      * VERSION CORRIGÉE pour Final Fantasy - Les vraies requêtes qui fonctionnent
      */
@@ -591,8 +670,6 @@ public class ScryfallService {
                     break;
                 }
 
-                Thread.sleep(300); // Respecter les limites de l'API
-
             } catch (Exception e) {
                 logger.error("❌ Erreur requête '{}' : {}", query, e.getMessage());
             }
@@ -617,13 +694,13 @@ public class ScryfallService {
 
         while (page <= maxPages) {
             String url = String.format(
-                    "https://api.scryfall.com/cards/search?q=%s&format=json&order=set&page=%d",
+                    scryfallBaseUrl + "/cards/search?q=%s&format=json&order=set&page=%d",
                     URLEncoder.encode(query, StandardCharsets.UTF_8), page
             );
 
             logger.debug("📄 Page {}/{} - URL: {}", page, maxPages, url);
 
-            String response = restTemplate.getForObject(url, String.class);
+            String response = fetchPage(url);
             if (response == null) {
                 logger.warn("⚠️ Réponse nulle page {} pour query '{}'", page, query);
                 break;
@@ -656,11 +733,13 @@ public class ScryfallService {
                         // FILTRAGE IMPORTANT: S'assurer que c'est bien FIN
                         if (isValidFinCard(card)) {
                             allCards.add(card);
+                            metricsService.cardsParsed(card.set(), 1);
                         } else {
                             logger.debug("⚠️ Carte '{}' filtrée (pas FIN)", card.name());
                         }
                     } catch (Exception e) {
                         logger.warn("⚠️ Erreur parsing carte page {} : {}", page, e.getMessage());
+                        metricsService.cardParseFailed(cardNode.path("set").asText("unknown"));
                     }
                 }
 
@@ -678,7 +757,6 @@ public class ScryfallService {
             }
 
             page++;
-            Thread.sleep(150); // Respecter les limites
         }
 
         logger.info("📋 Pagination terminée pour '{}': {} cartes sur {} pages", query, allCards.size(), page - 1);
@@ -0,0 +1,231 @@
+package com.pcagrad.magic.service;
+
+import com.pcagrad.magic.entity.MagicCard;
+import com.pcagrad.magic.model.MtgCard;
+import com.pcagrad.magic.repository.CardRepository;
+import com.pcagrad.magic.repository.CardTranslationRepository;
+import com.pcagrad.magic.util.AfterCommit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Remplacement d'une extension par générations, au lieu de supprimer puis réinsérer :
+ * <ol>
+ *   <li>les cartes sont écrites sous un code de préparation ({@code FIN#S...}), invisible des
+ *       lectures par extension ; une carte déjà publiée y est reprise avec son identifiant,
+ *       son image et son artiste ;</li>
+ *   <li>la bascule réétiquette en deux UPDATE la génération publiée ({@code FIN#R...})
+ *       puis la génération préparée ({@code FIN}) : les lecteurs voient l'ancienne ou la
+ *       nouvelle extension complète, jamais un état intermédiaire ;</li>
+ *   <li>l'ancienne génération, qui ne contient plus que les cartes disparues, est supprimée
+ *       en arrière-plan, par lots, avec leurs images.</li>
+ * </ol>
+ */
+@Service
+public class SetGenerationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SetGenerationService.class);
+
+    private static final String GENERATION_SEPARATOR = "#";
+    private static final String STAGED_MARKER = GENERATION_SEPARATOR + "S";
+    private static final String RETIRED_MARKER = GENERATION_SEPARATOR + "R";
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private CardTranslationRepository cardTranslationRepository;
+
+    @Autowired
+    private CardPersistenceService persistenceService;
+
+    @Autowired
+    private ImageDownloadService imageDownloadService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CatalogueEvents catalogueEvents;
+
+    @Autowired
+    private CatalogueChangeService catalogueChangeService;
+
+    @Autowired
+    private CatalogueStatsService catalogueStatsService;
+
+    @Autowired
+    private ArtistService artistService;
+
+    @Value("${mtg.generations.gc-batch-size:500}")
+    private int gcBatchSize;
+
+    private ExecutorService collector;
+    private TransactionTemplate transactionTemplate;
+
+    @jakarta.annotation.PostConstruct
+    public void init() {
+        // Un seul thread : les suppressions de masse passent l'une après l'autre
+        collector = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "set-generation-gc");
+            thread.setDaemon(true);
+            return thread;
+        });
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @jakarta.annotation.PreDestroy
+    public void shutdown() {
+        collector.shutdownNow();
+    }
+
+    /**
+     * Remplace toutes les cartes d'une extension : préparation, bascule, puis nettoyage
+     * et téléchargement des images une fois la transaction validée
+     */
+    @Transactional
+    public GenerationSwap replaceSet(String setCode, List<MtgCard> cards) {
+        return replaceSet(setCode, cards, card -> { });
+    }
+
+    @Transactional
+    public GenerationSwap replaceSet(String setCode, List<MtgCard> cards, Consumer<MagicCard> onNewCard) {
+        String stagedCode = beginStaging(setCode);
+        persistenceService.stageCards(setCode, stagedCode, cards, onNewCard);
+        GenerationSwap swap = publish(setCode, stagedCode);
+
+        String liveCode = swap.setCode();
+        AfterCommit.run(() -> CompletableFuture.runAsync(SyncProgress.propagate(() -> {
+            try {
+                imageDownloadService.downloadImagesForSet(liveCode);
+            } catch (Exception e) {
+                logger.error("❌ Erreur téléchargement images {} : {}", liveCode, e.getMessage());
+            }
+        })));
+        return swap;
+    }
+
+    /**
+     * Ouvre une génération de préparation : les cartes écrites sous ce code restent
+     * invisibles jusqu'à {@link #publish(String, String)}
+     */
+    public String beginStaging(String setCode) {
+        String stagedCode = normalize(setCode) + STAGED_MARKER + newGenerationId();
+        logger.info("📦 Génération {} ouverte pour {}", stagedCode, setCode);
+        return stagedCode;
+    }
+
+    /**
+     * Bascule atomique : l'ancienne génération est retirée et la génération préparée publiée
+     * dans la même transaction. Le nettoyage de l'ancienne part après validation.
+     */
+    @Transactional
+    public GenerationSwap publish(String setCode, String stagedCode) {
+        String liveCode = normalize(setCode);
+        if (stagedCode == null || !stagedCode.startsWith(liveCode + STAGED_MARKER)) {
+            throw new IllegalArgumentException("Génération " + stagedCode + " étrangère à l'extension " + liveCode);
+        }
+
+        String retiredCode = liveCode + RETIRED_MARKER + stagedCode.substring((liveCode + STAGED_MARKER).length());
+        int retired = cardRepository.relabelSetCode(liveCode, retiredCode);
+        int published = cardRepository.relabelSetCode(stagedCode, liveCode);
+
+        logger.info("🔀 Extension {} basculée : {} cartes publiées, {} retirées ({})",
+                liveCode, published, retired, retiredCode);
+
+        // Réétiquetage en masse : aucun écouteur JPA ne le voit passer
+        catalogueEvents.setChanged(liveCode);
+        // Extension réécrite d'un bloc (cartes reprises, ajoutées, retirées) : les clients la rechargent
+        catalogueChangeService.recordSetReload(liveCode);
+        catalogueStatsService.setReplaced(liveCode);
+
+        if (retired > 0) {
+            AfterCommit.run(() -> scheduleCollect(retiredCode));
+        }
+        return new GenerationSwap(liveCode, stagedCode, retiredCode, published, retired);
+    }
+
+    /**
+     * Supprime une génération par lots : traductions puis cartes, chaque lot dans sa transaction
+     */
+    public int collect(String generationCode) {
+        if (generationCode == null || !generationCode.contains(GENERATION_SEPARATOR)) {
+            throw new IllegalArgumentException("Seules les générations retirées ou abandonnées sont supprimables : " + generationCode);
+        }
+
+        imageDownloadService.releaseImagesForSet(generationCode);
+
+        int deleted = 0;
+        while (true) {
+            Integer batch = transactionTemplate.execute(status -> {
+                List<UUID> ids = cardRepository.findIdsBySetCode(generationCode, PageRequest.of(0, gcBatchSize));
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                cardTranslationRepository.deleteByCardIds(ids);
+                artistService.unlink(ids);
+                cardRepository.deleteAllByIdInBatch(ids);
+                return ids.size();
+            });
+            if (batch == null || batch == 0) {
+                break;
+            }
+            deleted += batch;
+        }
+
+        logger.info("🧹 Génération {} supprimée : {} cartes", generationCode, deleted);
+        return deleted;
+    }
+
+    /**
+     * Au démarrage : les générations retirées non nettoyées et les préparations
+     * interrompues (arrêt en cours de synchro) sont supprimées
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void sweepLeftoverGenerations() {
+        List<String> leftovers = cardRepository.findGenerationSetCodes();
+        if (!leftovers.isEmpty()) {
+            logger.info("🧹 {} générations résiduelles à supprimer : {}", leftovers.size(), leftovers);
+            leftovers.forEach(this::scheduleCollect);
+        }
+    }
+
+    // ========== MÉTHODES PRIVÉES ==========
+
+    private void scheduleCollect(String generationCode) {
+        collector.submit(() -> {
+            try {
+                collect(generationCode);
+            } catch (Exception e) {
+                logger.error("❌ Suppression de la génération {} impossible : {}", generationCode, e.getMessage());
+            }
+        });
+    }
+
+    private String normalize(String setCode) {
+        return setCode.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private String newGenerationId() {
+        return Long.toString(System.currentTimeMillis(), 36).toUpperCase(Locale.ROOT);
+    }
+
+    public record GenerationSwap(String setCode, String stagedCode, String retiredCode, int published, int retired) {}
+}
@@ -0,0 +1,308 @@
+package com.pcagrad.magic.service;
+
+import com.pcagrad.magic.dto.ApiResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Exécute les synchronisations longues hors de la requête HTTP : l'appelant reçoit un ID
+ * de tâche immédiatement, suit la progression en SSE et peut annuler.
+ */
+@Service
+public class SyncJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyncJobService.class);
+
+    private static final int MAX_KEPT_JOBS = 50;
+    private static final int REPLAYED_EVENTS = 200;
+    // Une notification de carte toutes les N cartes : assez pour une barre de progression
+    private static final int CARD_EVENT_STEP = 25;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${mtg.jobs.workers:2}")
+    private int workers;
+
+    private ExecutorService executor;
+    private TransactionTemplate transactionTemplate;
+
+    private final Map<String, SyncJob> jobs = new ConcurrentHashMap<>();
+
+    @FunctionalInterface
+    public interface JobTask {
+        Object run() throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface JobFetch<T> {
+        T fetch() throws Exception;
+    }
+
+    @jakarta.annotation.PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "sync-job-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @jakarta.annotation.PreDestroy
+    public void shutdown() {
+        jobs.values().forEach(job -> job.cancelled = true);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Soumet une tâche ; elle ouvre elle-même ses transactions
+     */
+    public JobStatus submit(String type, String setCode, JobTask task) {
+        SyncJob job = new SyncJob(UUID.randomUUID().toString(), type, setCode);
+        jobs.put(job.id, job);
+        pruneJobs();
+
+        job.emit("QUEUED", "Tâche en attente", null);
+        job.future = executor.submit(() -> execute(job, task));
+
+        logger.info("📋 Tâche {} ({}) soumise pour {}", job.id, type, setCode);
+        return job.toStatus();
+    }
+
+    /**
+     * Soumet le corps d'un endpoint existant en deux temps : la récupération amont (HTTP, pagination)
+     * s'exécute hors transaction, seule l'écriture de ce qu'elle a rapporté est transactionnelle.
+     * La réponse de l'endpoint devient le résultat de la tâche.
+     */
+    public <T> JobStatus submitEndpoint(String type, String setCode, JobFetch<T> fetch,
+                                        Function<T, ? extends ResponseEntity<? extends ApiResponse<?>>> persist) {
+        return submit(type, setCode, () -> {
+            T fetched = fetch.fetch();
+            SyncProgress.current().checkCancelled();
+            ResponseEntity<? extends ApiResponse<?>> response = transactionTemplate.execute(status -> persist.apply(fetched));
+            ApiResponse<?> body = response != null ? response.getBody() : null;
+            if (body == null || !body.success()) {
+                throw new IllegalStateException(body != null ? body.message() : "Réponse vide");
+            }
+            return body.data();
+        });
+    }
+
+    public Optional<JobStatus> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(SyncJob::toStatus);
+    }
+
+    public List<JobStatus> getJobs() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing((SyncJob j) -> j.submittedAt).reversed())
+                .map(SyncJob::toStatus)
+                .toList();
+    }
+
+    /**
+     * Flux d'événements d'une tâche : les derniers événements sont rejoués à l'abonnement,
+     * le flux se termine avec la tâche
+     */
+    public Optional<Flux<JobEvent>> getEvents(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(job -> job.sink.asFlux());
+    }
+
+    /**
+     * Annulation coopérative : la tâche s'arrête à la prochaine page ou carte
+     */
+    public Optional<JobStatus> cancel(String jobId) {
+        SyncJob job = jobs.get(jobId);
+        if (job == null) {
+            return Optional.empty();
+        }
+        if (!job.state.isTerminal()) {
+            job.cancelled = true;
+            if (job.state == JobState.QUEUED && job.future != null && job.future.cancel(false)) {
+                job.finish(JobState.CANCELLED, "Tâche annulée avant son démarrage", null);
+            } else {
+                job.emit("CANCELLING", "Annulation demandée", null);
+            }
+            logger.info("🛑 Annulation demandée pour la tâche {}", jobId);
+        }
+        return Optional.of(job.toStatus());
+    }
+
+    // ========== EXÉCUTION ==========
+
+    private void execute(SyncJob job, JobTask task) {
+        if (job.cancelled) {
+            job.finish(JobState.CANCELLED, "Tâche annulée avant son démarrage", null);
+            return;
+        }
+
+        job.startedAt = LocalDateTime.now();
+        job.state = JobState.RUNNING;
+        job.emit("STARTED", "Tâche démarrée", null);
+
+        SyncProgress.bind(job);
+        try {
+            Object result = task.run();
+            job.finish(JobState.COMPLETED, "Tâche terminée", result);
+            logger.info("✅ Tâche {} ({}) terminée : {} pages, {} cartes", job.id, job.type, job.pages.get(), job.cards.get());
+
+        } catch (CancellationException e) {
+            job.finish(JobState.CANCELLED, "Tâche annulée, modifications annulées", null);
+            logger.info("🛑 Tâche {} annulée après {} pages", job.id, job.pages.get());
+
+        } catch (Exception e) {
+            if (job.cancelled) {
+                // Annulation absorbée par le code appelé puis remontée comme une erreur
+                job.finish(JobState.CANCELLED, "Tâche annulée, modifications annulées", null);
+                return;
+            }
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            job.finish(JobState.FAILED, cause.getMessage(), null);
+            logger.error("❌ Tâche {} ({}) en échec : {}", job.id, job.type, cause.getMessage());
+
+        } finally {
+            SyncProgress.unbind();
+        }
+    }
+
+    private void pruneJobs() {
+        if (jobs.size() <= MAX_KEPT_JOBS) {
+            return;
+        }
+        jobs.values().stream()
+                .filter(j -> j.state.isTerminal())
+                .sorted(Comparator.comparing((SyncJob j) -> j.submittedAt))
+                .limit(jobs.size() - MAX_KEPT_JOBS)
+                .forEach(j -> jobs.remove(j.id));
+    }
+
+    // ========== SUIVI ==========
+
+    private static class SyncJob implements SyncProgress {
+        private final String id;
+        private final String type;
+        private final String setCode;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile JobState state = JobState.QUEUED;
+        private volatile boolean cancelled;
+        private volatile String message;
+        private volatile Object result;
+        private volatile Future<?> future;
+
+        private final AtomicInteger pages = new AtomicInteger();
+        private final AtomicInteger cards = new AtomicInteger();
+        private final AtomicInteger images = new AtomicInteger();
+        private final AtomicInteger sequence = new AtomicInteger();
+        private final Sinks.Many<JobEvent> sink = Sinks.many().replay().limit(REPLAYED_EVENTS);
+
+        SyncJob(String id, String type, String setCode) {
+            this.id = id;
+            this.type = type;
+            this.setCode = setCode;
+        }
+
+        @Override
+        public void pageFetched(String url) {
+            int count = pages.incrementAndGet();
+            emit("PAGE_FETCHED", "Page " + count + " récupérée", null);
+        }
+
+        @Override
+        public void cardSaved(String setCode) {
+            int count = cards.incrementAndGet();
+            if (count % CARD_EVENT_STEP == 0) {
+                emit("CARDS_SAVED", count + " cartes sauvegardées", null);
+            }
+        }
+
+        @Override
+        public void imagesQueued(String setCode, int count) {
+            images.addAndGet(count);
+            emit("IMAGES_QUEUED", count + " images en file pour " + setCode, null);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled || Thread.currentThread().isInterrupted();
+        }
+
+        void finish(JobState finalState, String finalMessage, Object finalResult) {
+            synchronized (this) {
+                if (state.isTerminal()) {
+                    return;
+                }
+                state = finalState;
+            }
+            finishedAt = LocalDateTime.now();
+            message = finalMessage;
+            result = finalResult;
+            emit(finalState.name(), finalMessage, finalResult);
+            sink.tryEmitComplete();
+        }
+
+        // Les émissions peuvent venir de plusieurs threads : le sink exige un accès sérialisé
+        synchronized void emit(String type, String text, Object data) {
+            sink.tryEmitNext(new JobEvent(sequence.incrementAndGet(), type, text,
+                    pages.get(), cards.get(), images.get(), data, LocalDateTime.now()));
+        }
+
+        JobStatus toStatus() {
+            return new JobStatus(id, type, setCode, state, message, pages.get(), cards.get(), images.get(),
+                    result, submittedAt, startedAt, finishedAt,
+                    "/api/jobs/" + id, "/api/jobs/" + id + "/events");
+        }
+    }
+
+    public enum JobState {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED;
+
+        public boolean isTerminal() {
+            return this == COMPLETED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    public record JobEvent(
+            int sequence,
+            String type,
+            String message,
+            int pagesFetched,
+            int cardsSaved,
+            int imagesQueued,
+            Object data,
+            LocalDateTime at
+    ) {}
+
+    public record JobStatus(
+            String jobId,
+            String type,
+            String setCode,
+            JobState state,
+            String message,
+            int pagesFetched,
+            int cardsSaved,
+            int imagesQueued,
+            Object result,
+            LocalDateTime submittedAt,
+            LocalDateTime startedAt,
+            LocalDateTime finishedAt,
+            String statusUrl,
+            String eventsUrl
+    ) {}
+}
@@ -0,0 +1,297 @@
+package com.pcagrad.magic.service;
+
+import com.pcagrad.magic.model.MtgCard;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Synchronise plusieurs extensions en pipeline : récupération (bornée par le budget Scryfall)
+ * → persistance différentielle → mise en file des images. Pendant qu'une extension est écrite
+ * en base, la suivante est déjà en cours de téléchargement.
+ */
+@Service
+public class SyncOrchestratorService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyncOrchestratorService.class);
+
+    private static final int MAX_KEPT_RUNS = 20;
+
+    @Autowired
+    private ScryfallService scryfallService;
+
+    @Autowired
+    private CardPersistenceService persistenceService;
+
+    @Autowired
+    private ImageDownloadService imageDownloadService;
+
+    @Value("${mtg.sync.fetch-workers:3}")
+    private int fetchWorkers;
+
+    private ExecutorService fetchPool;
+    private ExecutorService persistPool;
+    private ExecutorService imagePool;
+
+    private final Map<String, SyncRun> runs = new ConcurrentHashMap<>();
+
+    @jakarta.annotation.PostConstruct
+    public void init() {
+        // Les workers de récupération passent tous par le même limiteur : en ajouter
+        // ne dépasse jamais le débit autorisé, cela masque seulement la latence réseau
+        fetchPool = Executors.newFixedThreadPool(fetchWorkers, namedThreads("sync-fetch"));
+        // Écritures en base sérialisées : pas de contention entre extensions
+        persistPool = Executors.newSingleThreadExecutor(namedThreads("sync-persist"));
+        // La mise en file des images bloque sur le sémaphore de téléchargement : thread à part
+        imagePool = Executors.newSingleThreadExecutor(namedThreads("sync-images"));
+    }
+
+    @jakarta.annotation.PreDestroy
+    public void shutdown() {
+        fetchPool.shutdownNow();
+        persistPool.shutdownNow();
+        imagePool.shutdownNow();
+    }
+
+    /**
+     * Lance la synchronisation d'une liste d'extensions
+     */
+    public SyncRunStatus startSync(List<String> setCodes) {
+        return startSync(setCodes, status -> { });
+    }
+
+    /**
+     * Variante notifiée à la fin de la synchronisation (toutes extensions traitées)
+     */
+    public SyncRunStatus startSync(List<String> setCodes, Consumer<SyncRunStatus> onFinished) {
+        List<String> codes = setCodes.stream()
+                .filter(Objects::nonNull)
+                .map(code -> code.trim().toUpperCase())
+                .filter(code -> !code.isEmpty())
+                .distinct()
+                .toList();
+        if (codes.isEmpty()) {
+            throw new IllegalArgumentException("Aucune extension à synchroniser");
+        }
+
+        Map<String, String> names = new HashMap<>();
+        codes.forEach(code -> names.put(code, null));
+        return launch(names, onFinished);
+    }
+
+    /**
+     * Lance la synchronisation des extensions sorties depuis une date (toutes si null)
+     */
+    public SyncRunStatus startSyncReleasedSince(LocalDate since) {
+        Map<String, String> names = new LinkedHashMap<>();
+        for (ScryfallService.SetSummary set : scryfallService.fetchSetList()) {
+            if (set.digital() || set.cardCount() == 0) {
+                continue;
+            }
+            if (since == null || (set.releasedAt() != null && !set.releasedAt().isBefore(since))) {
+                names.put(set.code(), set.name());
+            }
+        }
+        if (names.isEmpty()) {
+            throw new IllegalArgumentException("Aucune extension trouvée depuis " + since);
+        }
+        return launch(names, status -> { });
+    }
+
+    public Optional<SyncRunStatus> getRun(String runId) {
+        return Optional.ofNullable(runs.get(runId)).map(SyncRun::toStatus);
+    }
+
+    public List<SyncRunStatus> getRuns() {
+        return runs.values().stream()
+                .sorted(Comparator.comparing((SyncRun r) -> r.startedAt).reversed())
+                .map(SyncRun::toStatus)
+                .toList();
+    }
+
+    // ========== PIPELINE ==========
+
+    private SyncRunStatus launch(Map<String, String> setNames, Consumer<SyncRunStatus> onFinished) {
+        SyncRun run = new SyncRun(UUID.randomUUID().toString(), setNames.size());
+        runs.put(run.id, run);
+        pruneRuns();
+
+        logger.info("🚀 Synchronisation {} lancée : {} extensions, {} workers de récupération",
+                run.id, setNames.size(), fetchWorkers);
+
+        List<CompletableFuture<Void>> pipelines = new ArrayList<>();
+        setNames.forEach((setCode, setName) -> pipelines.add(
+                CompletableFuture.supplyAsync(() -> fetch(run, setCode), fetchPool)
+                        .thenApplyAsync(cards -> persist(run, setCode, setName, cards), persistPool)
+                        .thenAcceptAsync(persisted -> {
+                            if (persisted) {
+                                enqueueImages(setCode);
+                            }
+                        }, imagePool)
+                        .exceptionally(throwable -> {
+                            run.failed(setCode, rootMessage(throwable));
+                            return null;
+                        })));
+
+        CompletableFuture.allOf(pipelines.toArray(new CompletableFuture[0]))
+                .whenComplete((v, t) -> {
+                    run.finishedAt = LocalDateTime.now();
+                    SyncRunStatus status = run.toStatus();
+                    logger.info("🏁 Synchronisation {} terminée : {}/{} extensions, {} cartes, {} cartes/s",
+                            run.id, status.completedSets(), status.totalSets(), status.cardsFetched(),
+                            String.format("%.1f", status.cardsPerSecond()));
+                    try {
+                        onFinished.accept(status);
+                    } catch (Exception e) {
+                        logger.warn("⚠️ Suite de la synchronisation {} en échec : {}", run.id, e.getMessage());
+                    }
+                });
+
+        return run.toStatus();
+    }
+
+    private List<MtgCard> fetch(SyncRun run, String setCode) {
+        long start = System.currentTimeMillis();
+        List<MtgCard> cards = scryfallService.fetchAllCardsFromSet(setCode);
+        run.fetchMillis.addAndGet(System.currentTimeMillis() - start);
+        run.cardsFetched.addAndGet(cards.size());
+        logger.info("📥 [{}] {} : {} cartes récupérées", run.id, setCode, cards.size());
+        return cards;
+    }
+
+    private boolean persist(SyncRun run, String setCode, String setName, List<MtgCard> cards) {
+        if (cards.isEmpty()) {
+            run.failed(setCode, "Aucune carte récupérée");
+            return false;
+        }
+
+        long start = System.currentTimeMillis();
+        CardPersistenceService.SyncDelta delta = persistenceService.syncCardsDelta(setCode, cards);
+        String name = setName != null ? setName : cards.get(0).setName();
+        persistenceService.markSetSynced(setCode, name, cards.size());
+        run.persistMillis.addAndGet(System.currentTimeMillis() - start);
+
+        run.completed(setCode, cards.size(), delta);
+        return true;
+    }
+
+    private void enqueueImages(String setCode) {
+        // Un échec côté images ne remet pas en cause la synchronisation des cartes
+        try {
+            imageDownloadService.downloadImagesForSet(setCode);
+        } catch (Exception e) {
+            logger.warn("⚠️ Mise en file des images impossible pour {} : {}", setCode, e.getMessage());
+        }
+    }
+
+    private void pruneRuns() {
+        if (runs.size() <= MAX_KEPT_RUNS) {
+            return;
+        }
+        runs.values().stream()
+                .filter(r -> r.finishedAt != null)
+                .sorted(Comparator.comparing((SyncRun r) -> r.startedAt))
+                .limit(runs.size() - MAX_KEPT_RUNS)
+                .forEach(r -> runs.remove(r.id));
+    }
+
+    private String rootMessage(Throwable throwable) {
+        Throwable cause = throwable;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage();
+    }
+
+    private ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // ========== SUIVI ==========
+
+    private static class SyncRun {
+        private final String id;
+        private final int totalSets;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private volatile LocalDateTime finishedAt;
+
+        private final AtomicLong cardsFetched = new AtomicLong();
+        private final AtomicLong cardsWritten = new AtomicLong();
+        private final AtomicLong fetchMillis = new AtomicLong();
+        private final AtomicLong persistMillis = new AtomicLong();
+        private final Map<String, SetResult> results = new ConcurrentHashMap<>();
+
+        SyncRun(String id, int totalSets) {
+            this.id = id;
+            this.totalSets = totalSets;
+        }
+
+        void completed(String setCode, int cards, CardPersistenceService.SyncDelta delta) {
+            cardsWritten.addAndGet(delta.written());
+            results.put(setCode, new SetResult(setCode, true, cards, delta.added(), delta.changed(),
+                    delta.unchanged(), delta.removed(), null));
+        }
+
+        void failed(String setCode, String error) {
+            results.put(setCode, new SetResult(setCode, false, 0, 0, 0, 0, 0, error));
+        }
+
+        SyncRunStatus toStatus() {
+            LocalDateTime end = finishedAt != null ? finishedAt : LocalDateTime.now();
+            double seconds = Math.max(0.001, Duration.between(startedAt, end).toMillis() / 1000.0);
+            long completed = results.values().stream().filter(SetResult::success).count();
+            long failed = results.size() - completed;
+
+            return new SyncRunStatus(id, finishedAt == null ? "RUNNING" : "FINISHED",
+                    totalSets, (int) completed, (int) failed,
+                    cardsFetched.get(), cardsWritten.get(),
+                    cardsFetched.get() / seconds, completed * 60.0 / seconds,
+                    fetchMillis.get(), persistMillis.get(),
+                    startedAt, finishedAt, new ArrayList<>(results.values()));
+        }
+    }
+
+    public record SetResult(
+            String setCode,
+            boolean success,
+            int cards,
+            int added,
+            int changed,
+            int unchanged,
+            int removed,
+            String error
+    ) {}
+
+    public record SyncRunStatus(
+            String runId,
+            String state,
+            int totalSets,
+            int completedSets,
+            int failedSets,
+            long cardsFetched,
+            long cardsWritten,
+            double cardsPerSecond,
+            double setsPerMinute,
+            long fetchMillis,
+            long persistMillis,
+            LocalDateTime startedAt,
+            LocalDateTime finishedAt,
+            List<SetResult> sets
+    ) {}
+}
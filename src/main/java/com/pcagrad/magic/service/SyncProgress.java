@@ -0,0 +1,84 @@
+package com.pcagrad.magic.service;
+
+import java.util.concurrent.CancellationException;
+import java.util.function.Supplier;
+
+/**
+ * Suivi d'une synchronisation en cours. Une tâche de fond attache son suivi au thread
+ * d'exécution ; les services (pagination Scryfall, persistance, images) le notifient
+ * sans qu'il faille le passer de méthode en méthode.
+ */
+public interface SyncProgress {
+
+    SyncProgress NONE = new SyncProgress() {
+    };
+
+    default void pageFetched(String url) {
+    }
+
+    default void cardSaved(String setCode) {
+    }
+
+    default void imagesQueued(String setCode, int count) {
+    }
+
+    default boolean isCancelled() {
+        return false;
+    }
+
+    /**
+     * Point d'arrêt coopératif : interrompt le traitement si la tâche a été annulée
+     */
+    default void checkCancelled() {
+        if (isCancelled()) {
+            throw new CancellationException("Tâche annulée");
+        }
+    }
+
+    static SyncProgress current() {
+        SyncProgress progress = Holder.CURRENT.get();
+        return progress != null ? progress : NONE;
+    }
+
+    static void bind(SyncProgress progress) {
+        Holder.CURRENT.set(progress);
+    }
+
+    static void unbind() {
+        Holder.CURRENT.remove();
+    }
+
+    /**
+     * Transmet le suivi courant à un traitement lancé sur un autre thread
+     */
+    static Runnable propagate(Runnable task) {
+        SyncProgress progress = current();
+        return () -> {
+            bind(progress);
+            try {
+                task.run();
+            } finally {
+                unbind();
+            }
+        };
+    }
+
+    static <T> Supplier<T> propagate(Supplier<T> task) {
+        SyncProgress progress = current();
+        return () -> {
+            bind(progress);
+            try {
+                return task.get();
+            } finally {
+                unbind();
+            }
+        };
+    }
+
+    final class Holder {
+        private static final ThreadLocal<SyncProgress> CURRENT = new ThreadLocal<>();
+
+        private Holder() {
+        }
+    }
+}
@@ -0,0 +1,479 @@
+package com.pcagrad.magic.service;
+
+import com.pcagrad.magic.util.ContentHash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.BodyExtractors;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache disque des réponses GET des API amont (Scryfall, magicthegathering.io), indexé par URL.
+ * <ul>
+ *   <li>dans sa durée de fraîcheur (selon la classe d'endpoint), une entrée est servie sans appel réseau ;</li>
+ *   <li>au-delà, elle est revalidée avec {@code If-None-Match} / {@code If-Modified-Since} :
+ *       un 304 resservira le corps stocké ;</li>
+ *   <li>la taille totale est bornée, les entrées les moins récemment lues partent en premier.</li>
+ * </ul>
+ * Partagé par le RestTemplate Scryfall (intercepteur) et le WebClient MTG API (filtre).
+ */
+@Service
+public class UpstreamHttpCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(UpstreamHttpCache.class);
+
+    private static final String BODY_SUFFIX = ".body";
+    private static final String META_SUFFIX = ".meta";
+
+    @Autowired
+    private MetricsService metricsService;
+
+    @Value("${mtg.http-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${mtg.http-cache.path:./data/http-cache}")
+    private String cachePath;
+
+    @Value("${mtg.http-cache.max-size-mb:200}")
+    private long maxSizeMb;
+
+    // Durées de fraîcheur par classe d'endpoint ; au-delà, revalidation conditionnelle
+    @Value("${mtg.http-cache.ttl.sets:PT6H}")
+    private Duration setsTtl;
+
+    @Value("${mtg.http-cache.ttl.cards:PT1H}")
+    private Duration cardsTtl;
+
+    @Value("${mtg.http-cache.ttl.default:PT0S}")
+    private Duration defaultTtl;
+
+    private Path directory;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    @jakarta.annotation.PostConstruct
+    public void init() {
+        if (!enabled) {
+            logger.info("🗄️ Cache HTTP amont désactivé");
+            return;
+        }
+        try {
+            directory = Paths.get(cachePath);
+            Files.createDirectories(directory);
+            loadIndex();
+            logger.info("🗄️ Cache HTTP amont : {} entrées, {} Ko dans {}",
+                    entries.size(), totalBytes.get() / 1024, directory.toAbsolutePath());
+        } catch (IOException e) {
+            logger.error("❌ Cache HTTP amont indisponible ({}) : {}", cachePath, e.getMessage());
+            enabled = false;
+        }
+    }
+
+    // ========== RESTTEMPLATE ==========
+
+    /**
+     * Intercepteur à placer avant le limiteur Scryfall : une entrée fraîche ne consomme pas de créneau
+     */
+    public ClientHttpRequestInterceptor interceptor() {
+        return (request, body, execution) -> {
+            if (!enabled || request.getMethod() != HttpMethod.GET) {
+                return execution.execute(request, body);
+            }
+
+            String url = request.getURI().toString();
+            Entry entry = entries.get(key(url));
+            if (entry != null && entry.isFresh() && !mustRevalidate(request.getHeaders())) {
+                byte[] cached = readCached(entry);
+                if (cached != null) {
+                    metricsService.cacheHit(MetricsService.CACHE_UPSTREAM_HTTP);
+                    return new BufferedResponse(HttpStatus.OK, entry.headers(), cached);
+                }
+                entry = null;
+            }
+            if (entry != null) {
+                addConditionalHeaders(request.getHeaders(), entry);
+            }
+
+            ClientHttpResponse response = execution.execute(request, body);
+            if (entry != null && response.getStatusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+                response.close();
+                byte[] cached = readCached(entry);
+                if (cached == null) {
+                    throw new IOException("Entrée de cache HTTP disparue pour " + url);
+                }
+                entry.revalidated();
+                metricsService.cacheHit(MetricsService.CACHE_UPSTREAM_HTTP);
+                return new BufferedResponse(HttpStatus.OK, entry.headers(), cached);
+            }
+
+            metricsService.cacheMiss(MetricsService.CACHE_UPSTREAM_HTTP);
+            if (response.getStatusCode().value() != HttpStatus.OK.value()) {
+                return response;
+            }
+
+            byte[] bytes;
+            try (response) {
+                bytes = response.getBody().readAllBytes();
+            }
+            HttpHeaders headers = new HttpHeaders();
+            headers.putAll(response.getHeaders());
+            store(url, headers, bytes);
+            return new BufferedResponse(HttpStatus.OK, headers, bytes);
+        };
+    }
+
+    // ========== WEBCLIENT ==========
+
+    /**
+     * Filtre WebClient ; les réponses servies depuis le disque sont décodées avec les mêmes stratégies
+     * (taille mémoire maximale) que celles du client
+     */
+    public ExchangeFilterFunction exchangeFilter(ExchangeStrategies strategies) {
+        return (request, next) -> {
+            if (!enabled || request.method() != HttpMethod.GET) {
+                return next.exchange(request);
+            }
+
+            String url = request.url().toString();
+            Entry entry = entries.get(key(url));
+            if (entry != null && entry.isFresh() && !mustRevalidate(request.headers())) {
+                return Mono.fromCallable(() -> readCached(entry))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .map(bytes -> {
+                            metricsService.cacheHit(MetricsService.CACHE_UPSTREAM_HTTP);
+                            return cachedClientResponse(entry, bytes, strategies);
+                        })
+                        .switchIfEmpty(Mono.defer(() -> exchangeAndStore(request, next, url, null, strategies)));
+            }
+            return exchangeAndStore(request, next, url, entry, strategies);
+        };
+    }
+
+    private Mono<ClientResponse> exchangeAndStore(ClientRequest request, ExchangeFunction next, String url,
+                                                  Entry entry, ExchangeStrategies strategies) {
+        ClientRequest conditional = entry == null ? request : ClientRequest.from(request)
+                .headers(headers -> addConditionalHeaders(headers, entry))
+                .build();
+
+        return next.exchange(conditional).flatMap(response -> {
+            if (entry != null && response.statusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+                return response.releaseBody()
+                        .then(Mono.fromCallable(() -> readCached(entry)).subscribeOn(Schedulers.boundedElastic()))
+                        .switchIfEmpty(Mono.error(() -> new IOException("Entrée de cache HTTP disparue pour " + url)))
+                        .map(bytes -> {
+                            entry.revalidated();
+                            metricsService.cacheHit(MetricsService.CACHE_UPSTREAM_HTTP);
+                            return cachedClientResponse(entry, bytes, strategies);
+                        });
+            }
+
+            metricsService.cacheMiss(MetricsService.CACHE_UPSTREAM_HTTP);
+            if (response.statusCode().value() != HttpStatus.OK.value()) {
+                return Mono.just(response);
+            }
+
+            HttpHeaders headers = response.headers().asHttpHeaders();
+            return DataBufferUtils.join(response.body(BodyExtractors.toDataBuffers()))
+                    .map(buffer -> {
+                        byte[] bytes = new byte[buffer.readableByteCount()];
+                        buffer.read(bytes);
+                        DataBufferUtils.release(buffer);
+                        return bytes;
+                    })
+                    .defaultIfEmpty(new byte[0])
+                    .publishOn(Schedulers.boundedElastic())
+                    .map(bytes -> {
+                        store(url, headers, bytes);
+                        return response.mutate()
+                                .body(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(bytes)))
+                                .build();
+                    });
+        });
+    }
+
+    // ========== ADMINISTRATION ==========
+
+    public CacheStats getStats() {
+        long fresh = entries.values().stream().filter(Entry::isFresh).count();
+        return new CacheStats(enabled, entries.size(), (int) fresh, totalBytes.get(), maxSizeMb * 1024 * 1024,
+                directory != null ? directory.toAbsolutePath().toString() : cachePath);
+    }
+
+    public int clear() {
+        int removed = 0;
+        for (Entry entry : new ArrayList<>(entries.values())) {
+            remove(entry);
+            removed++;
+        }
+        logger.info("🧹 Cache HTTP amont vidé : {} entrées", removed);
+        return removed;
+    }
+
+    // ========== STOCKAGE ==========
+
+    private void store(String url, HttpHeaders headers, byte[] bytes) {
+        String etag = headers.getETag();
+        String lastModified = headers.getFirst(HttpHeaders.LAST_MODIFIED);
+        Duration ttl = ttlFor(url);
+        // Sans validateur ni durée de fraîcheur, l'entrée ne pourrait jamais resservir
+        if (etag == null && lastModified == null && ttl.isZero()) {
+            return;
+        }
+
+        String key = key(url);
+        Entry entry = new Entry(key, url, etag, lastModified,
+                headers.getContentType() != null ? headers.getContentType().toString() : null,
+                bytes.length, ttl);
+        try {
+            writeAtomically(directory.resolve(key + BODY_SUFFIX), bytes);
+            writeAtomically(directory.resolve(key + META_SUFFIX), entry.toMeta());
+        } catch (IOException e) {
+            logger.warn("⚠️ Écriture cache HTTP impossible pour {} : {}", url, e.getMessage());
+            return;
+        }
+
+        Entry previous = entries.put(key, entry);
+        totalBytes.addAndGet(bytes.length - (previous != null ? previous.size : 0));
+        evictIfNeeded();
+    }
+
+    // null si le fichier a disparu (suppression manuelle) : l'entrée est oubliée
+    private byte[] readCached(Entry entry) throws IOException {
+        try {
+            byte[] bytes = Files.readAllBytes(directory.resolve(entry.key + BODY_SUFFIX));
+            entry.lastAccess = System.currentTimeMillis();
+            return bytes;
+        } catch (NoSuchFileException e) {
+            remove(entry);
+            return null;
+        }
+    }
+
+    private ClientResponse cachedClientResponse(Entry entry, byte[] bytes, ExchangeStrategies strategies) {
+        return ClientResponse.create(HttpStatus.OK, strategies)
+                .headers(headers -> headers.putAll(entry.headers()))
+                .body(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(bytes)))
+                .build();
+    }
+
+    private synchronized void evictIfNeeded() {
+        long maxBytes = maxSizeMb * 1024 * 1024;
+        if (totalBytes.get() <= maxBytes) {
+            return;
+        }
+        List<Entry> byAge = new ArrayList<>(entries.values());
+        byAge.sort(Comparator.comparingLong(e -> e.lastAccess));
+        int evicted = 0;
+        for (Entry entry : byAge) {
+            if (totalBytes.get() <= maxBytes) {
+                break;
+            }
+            remove(entry);
+            evicted++;
+        }
+        logger.debug("🧹 Cache HTTP amont : {} entrées évincées", evicted);
+    }
+
+    private void remove(Entry entry) {
+        if (entries.remove(entry.key, entry)) {
+            totalBytes.addAndGet(-entry.size);
+        }
+        try {
+            Files.deleteIfExists(directory.resolve(entry.key + BODY_SUFFIX));
+            Files.deleteIfExists(directory.resolve(entry.key + META_SUFFIX));
+        } catch (IOException e) {
+            logger.warn("⚠️ Suppression cache HTTP impossible pour {} : {}", entry.url, e.getMessage());
+        }
+    }
+
+    private void loadIndex() throws IOException {
+        try (DirectoryStream<Path> metas = Files.newDirectoryStream(directory, "*" + META_SUFFIX)) {
+            for (Path meta : metas) {
+                String key = meta.getFileName().toString().replace(META_SUFFIX, "");
+                Path body = directory.resolve(key + BODY_SUFFIX);
+                if (!Files.exists(body)) {
+                    Files.deleteIfExists(meta);
+                    continue;
+                }
+                Properties properties = new Properties();
+                try (Reader reader = Files.newBufferedReader(meta, StandardCharsets.UTF_8)) {
+                    properties.load(reader);
+                }
+                Entry entry = Entry.fromMeta(key, properties, Files.size(body), ttlFor(properties.getProperty("url", "")));
+                entries.put(key, entry);
+                totalBytes.addAndGet(entry.size);
+            }
+        }
+    }
+
+    private void writeAtomically(Path target, byte[] bytes) throws IOException {
+        Path temp = Files.createTempFile(directory, "tmp-", ".part");
+        try {
+            Files.write(temp, bytes);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void addConditionalHeaders(HttpHeaders headers, Entry entry) {
+        if (entry.etag != null) {
+            headers.set(HttpHeaders.IF_NONE_MATCH, entry.etag);
+        }
+        if (entry.lastModified != null) {
+            headers.set(HttpHeaders.IF_MODIFIED_SINCE, entry.lastModified);
+        }
+    }
+
+    // Classe d'endpoint : listes d'extensions (rarement modifiées) / cartes / le reste
+    // Cache-Control: no-cache côté appelant : l'entrée fraîche est revalidée (304 si inchangée)
+    private boolean mustRevalidate(HttpHeaders headers) {
+        String cacheControl = headers.getCacheControl();
+        return cacheControl != null && cacheControl.contains("no-cache");
+    }
+
+    private Duration ttlFor(String url) {
+        if (url.contains("/sets")) {
+            return setsTtl;
+        }
+        if (url.contains("/cards")) {
+            return cardsTtl;
+        }
+        return defaultTtl;
+    }
+
+    private String key(String url) {
+        return ContentHash.sha256Hex(url);
+    }
+
+    // ========== ENTRÉES ==========
+
+    private static class Entry {
+        private final String key;
+        private final String url;
+        private final String etag;
+        private final String lastModified;
+        private final String contentType;
+        private final long size;
+        private final Duration ttl;
+        private volatile long storedAt = System.currentTimeMillis();
+        private volatile long lastAccess = storedAt;
+
+        Entry(String key, String url, String etag, String lastModified, String contentType, long size, Duration ttl) {
+            this.key = key;
+            this.url = url;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.contentType = contentType;
+            this.size = size;
+            this.ttl = ttl;
+        }
+
+        boolean isFresh() {
+            return System.currentTimeMillis() - storedAt < ttl.toMillis();
+        }
+
+        // 304 : le contenu stocké est confirmé, sa fraîcheur repart de zéro
+        void revalidated() {
+            storedAt = System.currentTimeMillis();
+        }
+
+        HttpHeaders headers() {
+            HttpHeaders headers = new HttpHeaders();
+            if (contentType != null) {
+                headers.set(HttpHeaders.CONTENT_TYPE, contentType);
+            }
+            if (etag != null) {
+                headers.setETag(etag);
+            }
+            if (lastModified != null) {
+                headers.set(HttpHeaders.LAST_MODIFIED, lastModified);
+            }
+            headers.setContentLength(size);
+            return headers;
+        }
+
+        byte[] toMeta() throws IOException {
+            Properties properties = new Properties();
+            properties.setProperty("url", url);
+            properties.setProperty("storedAt", String.valueOf(storedAt));
+            if (etag != null) properties.setProperty("etag", etag);
+            if (lastModified != null) properties.setProperty("lastModified", lastModified);
+            if (contentType != null) properties.setProperty("contentType", contentType);
+
+            StringWriter writer = new StringWriter();
+            properties.store(writer, null);
+            return writer.toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+        static Entry fromMeta(String key, Properties properties, long size, Duration ttl) {
+            Entry entry = new Entry(key, properties.getProperty("url"), properties.getProperty("etag"),
+                    properties.getProperty("lastModified"), properties.getProperty("contentType"), size, ttl);
+            entry.storedAt = Long.parseLong(properties.getProperty("storedAt", "0"));
+            entry.lastAccess = entry.storedAt;
+            return entry;
+        }
+    }
+
+    // Réponse RestTemplate dont le corps est déjà en mémoire
+    private record BufferedResponse(HttpStatus status, HttpHeaders headers, byte[] body) implements ClientHttpResponse {
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return status;
+        }
+
+        @Override
+        public String getStatusText() {
+            return status.getReasonPhrase();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    public record CacheStats(
+            boolean enabled,
+            int entries,
+            int freshEntries,
+            long sizeBytes,
+            long maxSizeBytes,
+            String path
+    ) {}
+}
@@ -0,0 +1,469 @@
+package com.pcagrad.magic.util;
+
+import com.pcagrad.magic.entity.MagicCard;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Catalogue de cartes compact, en mémoire, figé une fois construit.
+ * <ul>
+ *   <li>identifiant dense {@code 0..size-1} à la place de l'UUID (UUID triés en deux {@code long[]},
+ *       recherche dichotomique) ;</li>
+ *   <li>champs à faible cardinalité (extension, rareté, artiste, type...) : dictionnaire de chaînes
+ *       uniques + un {@code int[]} de codes ;</li>
+ *   <li>textes longs (nom, texte de règles, ID externe) : UTF-8 concaténé, dédoublonné ;</li>
+ *   <li>drapeaux booléens en {@link BitSet}, couleurs en masque WUBRG sur un octet, nombres en {@code int[]}.</li>
+ * </ul>
+ * Lecture concurrente sans verrou : aucune structure n'est modifiée après {@link Builder#build()}.
+ */
+public final class CardCatalogue {
+
+    public static final int NO_VALUE = Integer.MIN_VALUE;
+    private static final String COLOR_ORDER = "WUBRG";
+
+    public enum Flag {
+        HAS_IMG, LOCAL_IMAGE, HAS_FOIL, HAS_NON_FOIL, FOIL_ONLY, ONLINE_ONLY, OVERSIZED, TIMESHIFTED,
+        CERTIFIABLE, TOKEN, RECLASSEE, HAS_RECHERCHE, AFFICHABLE
+    }
+
+    /**
+     * Champs à faible cardinalité, chacun avec son dictionnaire
+     */
+    public enum Field {
+        SET_CODE, SET_NAME, RARITY, TYPE_LINE, SUPERTYPES, TYPES, ARTIST, LAYOUT, MANA_COST, POWER, TOUGHNESS
+    }
+
+    private final int size;
+    private final long[] idMostBits;
+    private final long[] idLeastBits;
+    private final Dictionary[] dictionaries;
+    private final int[][] codes;
+    private final PackedStrings texts;
+    private final int[] nameRefs;
+    private final int[] textRefs;
+    private final int[] externalIdRefs;
+    private final int[] numero;
+    private final int[] cmc;
+    private final int[] multiverseId;
+    private final byte[] colors;
+    private final byte[] colorIdentity;
+    private final BitSet[] flags;
+
+    private CardCatalogue(Builder builder, List<Builder.Row> rows) {
+        this.size = rows.size();
+        this.idMostBits = new long[size];
+        this.idLeastBits = new long[size];
+        this.codes = new int[Field.values().length][size];
+        this.nameRefs = new int[size];
+        this.textRefs = new int[size];
+        this.externalIdRefs = new int[size];
+        this.numero = new int[size];
+        this.cmc = new int[size];
+        this.multiverseId = new int[size];
+        this.colors = new byte[size];
+        this.colorIdentity = new byte[size];
+        this.flags = new BitSet[Flag.values().length];
+        for (int i = 0; i < flags.length; i++) {
+            flags[i] = new BitSet(size);
+        }
+
+        for (int card = 0; card < size; card++) {
+            Builder.Row row = rows.get(card);
+            idMostBits[card] = row.id.getMostSignificantBits();
+            idLeastBits[card] = row.id.getLeastSignificantBits();
+            for (int field = 0; field < codes.length; field++) {
+                codes[field][card] = row.codes[field];
+            }
+            nameRefs[card] = row.name;
+            textRefs[card] = row.text;
+            externalIdRefs[card] = row.externalId;
+            numero[card] = row.numero;
+            cmc[card] = row.cmc;
+            multiverseId[card] = row.multiverseId;
+            colors[card] = row.colors;
+            colorIdentity[card] = row.colorIdentity;
+            for (int flag = 0; flag < flags.length; flag++) {
+                if ((row.flags & (1 << flag)) != 0) {
+                    flags[flag].set(card);
+                }
+            }
+        }
+
+        this.dictionaries = new Dictionary[builder.dictionaries.length];
+        for (int i = 0; i < dictionaries.length; i++) {
+            dictionaries[i] = new Dictionary(builder.dictionaries[i]);
+        }
+        this.texts = new PackedStrings(builder.texts);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // ========== IDENTIFIANTS ==========
+
+    /**
+     * Identifiant dense d'une carte, ou -1 si elle n'est pas au catalogue
+     */
+    public int indexOf(UUID id) {
+        long most = id.getMostSignificantBits();
+        long least = id.getLeastSignificantBits();
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(idMostBits[mid], idLeastBits[mid], most, least);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    public UUID uuid(int card) {
+        return new UUID(idMostBits[card], idLeastBits[card]);
+    }
+
+    // ========== CHAMPS ==========
+
+    public String get(Field field, int card) {
+        return dictionaries[field.ordinal()].value(codes[field.ordinal()][card]);
+    }
+
+    /**
+     * Code du champ pour une carte (indice dans le dictionnaire, -1 = null) : comparaisons sans chaîne
+     */
+    public int code(Field field, int card) {
+        return codes[field.ordinal()][card];
+    }
+
+    public Dictionary dictionary(Field field) {
+        return dictionaries[field.ordinal()];
+    }
+
+    public String name(int card) {
+        return texts.get(nameRefs[card]);
+    }
+
+    public String text(int card) {
+        return texts.get(textRefs[card]);
+    }
+
+    public String externalId(int card) {
+        return texts.get(externalIdRefs[card]);
+    }
+
+    public int numero(int card) {
+        return numero[card];
+    }
+
+    public int cmc(int card) {
+        return cmc[card];
+    }
+
+    public int multiverseId(int card) {
+        return multiverseId[card];
+    }
+
+    /**
+     * Masque des couleurs : bit 0 = W, 1 = U, 2 = B, 3 = R, 4 = G
+     */
+    public int colors(int card) {
+        return colors[card];
+    }
+
+    public int colorIdentity(int card) {
+        return colorIdentity[card];
+    }
+
+    public boolean has(Flag flag, int card) {
+        return flags[flag.ordinal()].get(card);
+    }
+
+    /**
+     * Cartes portant le drapeau (copie : l'appelant peut la combiner librement)
+     */
+    public BitSet cardsWith(Flag flag) {
+        return (BitSet) flags[flag.ordinal()].clone();
+    }
+
+    public static int colorMask(List<String> symbols) {
+        int mask = 0;
+        if (symbols != null) {
+            for (String symbol : symbols) {
+                int bit = symbol == null || symbol.isEmpty() ? -1 : COLOR_ORDER.indexOf(Character.toUpperCase(symbol.charAt(0)));
+                if (bit >= 0) {
+                    mask |= 1 << bit;
+                }
+            }
+        }
+        return mask;
+    }
+
+    // ========== EMPREINTE MÉMOIRE ==========
+
+    /**
+     * Estimation de la place occupée sur le tas (en-têtes d'objets JVM 64 bits, pointeurs compressés)
+     */
+    public MemoryReport memoryReport() {
+        Map<String, Long> components = new LinkedHashMap<>();
+        components.put("ids", 2 * longArrayBytes(size));
+        components.put("fieldCodes", (long) codes.length * intArrayBytes(size));
+        components.put("textRefs", 3 * intArrayBytes(size));
+        components.put("numbers", 3 * intArrayBytes(size));
+        components.put("colors", 2 * byteArrayBytes(size));
+        long flagBytes = 0;
+        for (BitSet bits : flags) {
+            flagBytes += 40 + longArrayBytes(bits.size() / 64);
+        }
+        components.put("flags", flagBytes);
+
+        Map<String, Integer> cardinalities = new LinkedHashMap<>();
+        long dictionaryBytes = 0;
+        for (Field field : Field.values()) {
+            Dictionary dictionary = dictionaries[field.ordinal()];
+            cardinalities.put(field.name(), dictionary.size());
+            dictionaryBytes += dictionary.estimatedBytes();
+        }
+        components.put("dictionaries", dictionaryBytes);
+        components.put("texts", texts.estimatedBytes());
+        cardinalities.put("TEXTS", texts.size());
+
+        long total = components.values().stream().mapToLong(Long::longValue).sum();
+        return new MemoryReport(size, total, size == 0 ? 0 : total / (double) size, components, cardinalities);
+    }
+
+    public record MemoryReport(
+            int cards,
+            long totalBytes,
+            double bytesPerCard,
+            Map<String, Long> componentBytes,
+            Map<String, Integer> distinctValues
+    ) {}
+
+    private static long intArrayBytes(int length) {
+        return align(16 + 4L * length);
+    }
+
+    private static long longArrayBytes(int length) {
+        return align(16 + 8L * length);
+    }
+
+    private static long byteArrayBytes(int length) {
+        return align(16 + (long) length);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    private static int compare(long mostA, long leastA, long mostB, long leastB) {
+        int cmp = Long.compare(mostA, mostB);
+        return cmp != 0 ? cmp : Long.compare(leastA, leastB);
+    }
+
+    // ========== STRUCTURES ==========
+
+    /**
+     * Dictionnaire de chaînes uniques d'un champ : code -> valeur et valeur -> code
+     */
+    public static final class Dictionary {
+        private final String[] values;
+        private final Map<String, Integer> codes;
+
+        private Dictionary(List<String> values) {
+            this.values = values.toArray(new String[0]);
+            this.codes = new HashMap<>(values.size() * 2);
+            for (int i = 0; i < this.values.length; i++) {
+                codes.put(this.values[i], i);
+            }
+        }
+
+        public int size() {
+            return values.length;
+        }
+
+        public String value(int code) {
+            return code < 0 ? null : values[code];
+        }
+
+        /**
+         * Code d'une valeur, ou -1 si aucune carte ne la porte
+         */
+        public int codeOf(String value) {
+            Integer code = value == null ? null : codes.get(value);
+            return code != null ? code : -1;
+        }
+
+        public List<String> values() {
+            return List.of(values);
+        }
+
+        // Chaîne compacte (Latin-1) ~ 40 octets + contenu ; entrée de HashMap ~ 48 octets
+        private long estimatedBytes() {
+            long bytes = align(16 + 4L * values.length) + align(48 + 4L * values.length * 2);
+            for (String value : values) {
+                bytes += align(40 + value.length()) + 48;
+            }
+            return bytes;
+        }
+    }
+
+    /**
+     * Chaînes longues en UTF-8 concaténé : pas d'en-tête d'objet par chaîne, décodage à la lecture
+     */
+    private static final class PackedStrings {
+        private final byte[] bytes;
+        private final int[] offsets;
+
+        private PackedStrings(List<String> values) {
+            offsets = new int[values.size() + 1];
+            byte[][] encoded = new byte[values.size()][];
+            int length = 0;
+            for (int i = 0; i < encoded.length; i++) {
+                encoded[i] = values.get(i).getBytes(StandardCharsets.UTF_8);
+                offsets[i] = length;
+                length += encoded[i].length;
+            }
+            offsets[encoded.length] = length;
+            bytes = new byte[length];
+            for (int i = 0; i < encoded.length; i++) {
+                System.arraycopy(encoded[i], 0, bytes, offsets[i], encoded[i].length);
+            }
+        }
+
+        private int size() {
+            return offsets.length - 1;
+        }
+
+        private String get(int ref) {
+            return ref < 0 ? null : new String(bytes, offsets[ref], offsets[ref + 1] - offsets[ref], StandardCharsets.UTF_8);
+        }
+
+        private long estimatedBytes() {
+            return byteArrayBytes(bytes.length) + intArrayBytes(offsets.length);
+        }
+    }
+
+    // ========== CONSTRUCTION ==========
+
+    /**
+     * Accumule les cartes (entités lues en flux, détachables aussitôt) puis fige le catalogue
+     */
+    public static final class Builder {
+
+        private final Map<String, Integer>[] dictionaryCodes;
+        private final List<String>[] dictionaries;
+        private final Map<String, Integer> textCodes = new HashMap<>();
+        private final List<String> texts = new ArrayList<>();
+        private final List<Row> rows = new ArrayList<>();
+
+        @SuppressWarnings("unchecked")
+        public Builder() {
+            int fields = Field.values().length;
+            dictionaryCodes = new Map[fields];
+            dictionaries = new List[fields];
+            for (int i = 0; i < fields; i++) {
+                dictionaryCodes[i] = new HashMap<>();
+                dictionaries[i] = new ArrayList<>();
+            }
+        }
+
+        public void add(MagicCard card) {
+            Row row = new Row();
+            row.id = card.getId();
+            row.codes[Field.SET_CODE.ordinal()] = code(Field.SET_CODE, card.getSetCode());
+            row.codes[Field.SET_NAME.ordinal()] = code(Field.SET_NAME, card.getSetName());
+            row.codes[Field.RARITY.ordinal()] = code(Field.RARITY, card.getRarity());
+            row.codes[Field.TYPE_LINE.ordinal()] = code(Field.TYPE_LINE, card.getType());
+            row.codes[Field.SUPERTYPES.ordinal()] = code(Field.SUPERTYPES,
+                    card.getSupertypes() != null ? String.join(" ", card.getSupertypes()) : null);
+            row.codes[Field.TYPES.ordinal()] = code(Field.TYPES,
+                    card.getTypes() != null ? String.join(" ", card.getTypes()) : null);
+            row.codes[Field.ARTIST.ordinal()] = code(Field.ARTIST, card.getArtist());
+            row.codes[Field.LAYOUT.ordinal()] = code(Field.LAYOUT, card.getLayout());
+            row.codes[Field.MANA_COST.ordinal()] = code(Field.MANA_COST, card.getManaCost());
+            row.codes[Field.POWER.ordinal()] = code(Field.POWER, card.getPower());
+            row.codes[Field.TOUGHNESS.ordinal()] = code(Field.TOUGHNESS, card.getToughness());
+            row.name = text(card.getName());
+            row.text = text(card.getText());
+            row.externalId = text(card.getExternalId());
+            row.numero = orNoValue(card.getNumero());
+            row.cmc = orNoValue(card.getCmc());
+            row.multiverseId = orNoValue(card.getMultiverseid());
+            row.colors = (byte) colorMask(card.getColors());
+            row.colorIdentity = (byte) colorMask(card.getColorIdentity());
+
+            flag(row, Flag.HAS_IMG, card.getHasImg());
+            flag(row, Flag.LOCAL_IMAGE, card.getLocalImagePath() != null);
+            flag(row, Flag.HAS_FOIL, card.getHasFoil());
+            flag(row, Flag.HAS_NON_FOIL, card.getHasNonFoil());
+            flag(row, Flag.FOIL_ONLY, card.getIsFoilOnly());
+            flag(row, Flag.ONLINE_ONLY, card.getIsOnlineOnly());
+            flag(row, Flag.OVERSIZED, card.getIsOversized());
+            flag(row, Flag.TIMESHIFTED, card.getIsTimeshifted());
+            flag(row, Flag.CERTIFIABLE, card.getCertifiable());
+            flag(row, Flag.TOKEN, card.getIsToken());
+            flag(row, Flag.RECLASSEE, card.getIsReclassee());
+            flag(row, Flag.HAS_RECHERCHE, card.getHasRecherche());
+            flag(row, Flag.AFFICHABLE, card.getIsAffichable());
+            rows.add(row);
+        }
+
+        public CardCatalogue build() {
+            rows.sort((a, b) -> compare(a.id.getMostSignificantBits(), a.id.getLeastSignificantBits(),
+                    b.id.getMostSignificantBits(), b.id.getLeastSignificantBits()));
+            return new CardCatalogue(this, rows);
+        }
+
+        private int code(Field field, String value) {
+            if (value == null) {
+                return -1;
+            }
+            List<String> values = dictionaries[field.ordinal()];
+            return dictionaryCodes[field.ordinal()].computeIfAbsent(value, key -> {
+                values.add(key);
+                return values.size() - 1;
+            });
+        }
+
+        private int text(String value) {
+            if (value == null) {
+                return -1;
+            }
+            return textCodes.computeIfAbsent(value, key -> {
+                texts.add(key);
+                return texts.size() - 1;
+            });
+        }
+
+        private static void flag(Row row, Flag flag, Boolean value) {
+            if (Boolean.TRUE.equals(value)) {
+                row.flags |= 1 << flag.ordinal();
+            }
+        }
+
+        private static int orNoValue(Integer value) {
+            return value != null ? value : NO_VALUE;
+        }
+
+        private static final class Row {
+            UUID id;
+            final int[] codes = new int[Field.values().length];
+            int name;
+            int text;
+            int externalId;
+            int numero;
+            int cmc;
+            int multiverseId;
+            byte colors;
+            byte colorIdentity;
+            int flags;
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package com.pcagrad.magic.util;
+
+import java.util.*;
+
+/**
+ * Index de facettes sur un {@link CardCatalogue} : un bitmap par valeur de facette (rareté, couleur,
+ * type...), indexé par l'identifiant dense des cartes. Compter les valeurs d'une facette dans un
+ * résultat filtré = ET binaire + comptage de bits, sans requête SQL.
+ *
+ * Bitmaps compressés à deux représentations : liste triée d'identifiants pour les valeurs rares
+ * (extensions, mises en page), mots de 64 bits pour les valeurs fréquentes.
+ * Figé une fois construit, lecture concurrente sans verrou comme le catalogue.
+ */
+public final class CardFacetIndex {
+
+    private static final String COLOR_ORDER = "WUBRG";
+    private static final String COLORLESS = "C";
+    private static final int MAX_CMC_BUCKET = 7;
+
+    public enum Facet {
+        RARITY("rarity"),
+        COLOR("color"),
+        COLOR_IDENTITY("colorIdentity"),
+        SUPERTYPE("supertype"),
+        TYPE("type"),
+        CMC("cmc"),
+        LAYOUT("layout"),
+        SET("set"),
+        FLAG("flag");
+
+        private final String param;
+
+        Facet(String param) {
+            this.param = param;
+        }
+
+        /**
+         * Nom du paramètre de requête portant la sélection de cette facette
+         */
+        public String param() {
+            return param;
+        }
+    }
+
+    private final CardCatalogue catalogue;
+    private final int words;
+    private final Map<Facet, Map<String, Bitmap>> bitmaps;
+
+    private CardFacetIndex(CardCatalogue catalogue, Map<Facet, Map<String, Bitmap>> bitmaps) {
+        this.catalogue = catalogue;
+        this.words = wordCount(catalogue.size());
+        this.bitmaps = bitmaps;
+    }
+
+    public CardCatalogue catalogue() {
+        return catalogue;
+    }
+
+    /**
+     * Un passage sur le catalogue : chaque carte est ajoutée aux bitmaps de ses valeurs
+     */
+    public static CardFacetIndex build(CardCatalogue catalogue) {
+        int size = catalogue.size();
+        Map<Facet, Map<String, BitSet>> building = new EnumMap<>(Facet.class);
+        for (Facet facet : Facet.values()) {
+            building.put(facet, new HashMap<>());
+        }
+
+        // Types et supertypes : valeurs multiples, découpées une fois par entrée de dictionnaire
+        String[][] supertypes = split(catalogue.dictionary(CardCatalogue.Field.SUPERTYPES));
+        String[][] types = split(catalogue.dictionary(CardCatalogue.Field.TYPES));
+
+        for (int card = 0; card < size; card++) {
+            add(building, Facet.RARITY, catalogue.get(CardCatalogue.Field.RARITY, card), card, size);
+            add(building, Facet.LAYOUT, catalogue.get(CardCatalogue.Field.LAYOUT, card), card, size);
+            add(building, Facet.SET, catalogue.get(CardCatalogue.Field.SET_CODE, card), card, size);
+
+            addColors(building, Facet.COLOR, catalogue.colors(card), card, size);
+            addColors(building, Facet.COLOR_IDENTITY, catalogue.colorIdentity(card), card, size);
+
+            int supertypeCode = catalogue.code(CardCatalogue.Field.SUPERTYPES, card);
+            if (supertypeCode >= 0) {
+                for (String value : supertypes[supertypeCode]) {
+                    add(building, Facet.SUPERTYPE, value, card, size);
+                }
+            }
+            int typeCode = catalogue.code(CardCatalogue.Field.TYPES, card);
+            if (typeCode >= 0) {
+                for (String value : types[typeCode]) {
+                    add(building, Facet.TYPE, value, card, size);
+                }
+            }
+
+            int cmc = catalogue.cmc(card);
+            if (cmc != CardCatalogue.NO_VALUE && cmc >= 0) {
+                add(building, Facet.CMC, cmc >= MAX_CMC_BUCKET ? MAX_CMC_BUCKET + "+" : String.valueOf(cmc), card, size);
+            }
+        }
+
+        Map<Facet, Map<String, Bitmap>> bitmaps = new EnumMap<>(Facet.class);
+        building.forEach((facet, values) -> {
+            Map<String, Bitmap> compressed = new TreeMap<>();
+            values.forEach((value, bits) -> compressed.put(value, Bitmap.of(bits, size)));
+            bitmaps.put(facet, compressed);
+        });
+        Map<String, Bitmap> flags = new TreeMap<>();
+        for (CardCatalogue.Flag flag : CardCatalogue.Flag.values()) {
+            BitSet bits = catalogue.cardsWith(flag);
+            if (!bits.isEmpty()) {
+                flags.put(flag.name(), Bitmap.of(bits, size));
+            }
+        }
+        bitmaps.put(Facet.FLAG, flags);
+
+        return new CardFacetIndex(catalogue, bitmaps);
+    }
+
+    private static void add(Map<Facet, Map<String, BitSet>> building, Facet facet, String value, int card, int size) {
+        if (value != null && !value.isBlank()) {
+            building.get(facet).computeIfAbsent(value, key -> new BitSet(size)).set(card);
+        }
+    }
+
+    private static void addColors(Map<Facet, Map<String, BitSet>> building, Facet facet, int mask, int card, int size) {
+        if (mask == 0) {
+            add(building, facet, COLORLESS, card, size);
+            return;
+        }
+        for (int bit = 0; bit < COLOR_ORDER.length(); bit++) {
+            if ((mask & (1 << bit)) != 0) {
+                add(building, facet, String.valueOf(COLOR_ORDER.charAt(bit)), card, size);
+            }
+        }
+    }
+
+    private static String[][] split(CardCatalogue.Dictionary dictionary) {
+        String[][] values = new String[dictionary.size()][];
+        for (int code = 0; code < values.length; code++) {
+            values[code] = Arrays.stream(dictionary.value(code).split(" "))
+                    .filter(value -> !value.isBlank())
+                    .toArray(String[]::new);
+        }
+        return values;
+    }
+
+    // ========== COMPTAGE ==========
+
+    /**
+     * Comptages de toutes les facettes pour le résultat filtré par {@code setCode}, {@code name}
+     * (sous-chaîne du nom, insensible à la casse) et les valeurs sélectionnées.
+     * Plusieurs valeurs d'une facette s'additionnent (OU), les facettes se combinent (ET). Les
+     * comptages d'une facette ignorent sa propre sélection : les autres valeurs restent proposées.
+     */
+    public FacetCounts count(String setCode, String name, Map<Facet, Set<String>> selected) {
+        long start = System.nanoTime();
+
+        long[] scope = new long[words];
+        if (setCode != null) {
+            Bitmap set = bitmaps.get(Facet.SET).get(setCode.toUpperCase());
+            if (set != null) {
+                set.orInto(scope);
+            }
+        } else {
+            fill(scope, catalogue.size());
+        }
+        if (name != null) {
+            retainNameMatches(scope, name.toLowerCase(Locale.ROOT));
+        }
+
+        Map<Facet, long[]> selections = new EnumMap<>(Facet.class);
+        selected.forEach((facet, values) -> {
+            if (values == null || values.isEmpty()) {
+                return;
+            }
+            long[] union = new long[words];
+            for (String value : values) {
+                Bitmap bitmap = bitmaps.get(facet).get(value);
+                if (bitmap != null) {
+                    bitmap.orInto(union);
+                }
+            }
+            selections.put(facet, union);
+        });
+
+        long[] result = scope.clone();
+        selections.values().forEach(union -> and(result, union));
+        long total = cardinality(result);
+
+        Map<Facet, Map<String, Long>> counts = new EnumMap<>(Facet.class);
+        for (Facet facet : Facet.values()) {
+            long[] base = result;
+            if (selections.containsKey(facet)) {
+                base = scope.clone();
+                for (Map.Entry<Facet, long[]> selection : selections.entrySet()) {
+                    if (selection.getKey() != facet) {
+                        and(base, selection.getValue());
+                    }
+                }
+            }
+
+            List<Map.Entry<String, Long>> values = new ArrayList<>();
+            for (Map.Entry<String, Bitmap> entry : bitmaps.get(facet).entrySet()) {
+                long count = entry.getValue().countIn(base);
+                if (count > 0) {
+                    values.add(Map.entry(entry.getKey(), count));
+                }
+            }
+            values.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+            Map<String, Long> ordered = new LinkedHashMap<>();
+            values.forEach(entry -> ordered.put(entry.getKey(), entry.getValue()));
+            counts.put(facet, ordered);
+        }
+
+        return new FacetCounts(total, counts, (System.nanoTime() - start) / 1000);
+    }
+
+    // Filtre par nom : seul passage qui lit les cartes une à une (noms décodés à la demande)
+    private void retainNameMatches(long[] scope, String needle) {
+        for (int word = 0; word < scope.length; word++) {
+            long bits = scope[word];
+            while (bits != 0) {
+                int card = (word << 6) + Long.numberOfTrailingZeros(bits);
+                String cardName = catalogue.name(card);
+                if (cardName == null || !cardName.toLowerCase(Locale.ROOT).contains(needle)) {
+                    scope[word] &= ~(1L << card);
+                }
+                bits &= bits - 1;
+            }
+        }
+    }
+
+    public long estimatedBytes() {
+        long bytes = 0;
+        for (Map<String, Bitmap> values : bitmaps.values()) {
+            for (Bitmap bitmap : values.values()) {
+                bytes += bitmap.estimatedBytes();
+            }
+        }
+        return bytes;
+    }
+
+    public record FacetCounts(long total, Map<Facet, Map<String, Long>> facets, long tookMicros) {}
+
+    // ========== BITMAPS ==========
+
+    private static int wordCount(int size) {
+        return (size + 63) >>> 6;
+    }
+
+    private static void fill(long[] target, int size) {
+        Arrays.fill(target, -1L);
+        int tail = size & 63;
+        if (tail != 0) {
+            target[target.length - 1] = (1L << tail) - 1;
+        }
+    }
+
+    private static void and(long[] target, long[] other) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] &= other[i];
+        }
+    }
+
+    private static long cardinality(long[] bits) {
+        long count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Ensemble de cartes : identifiants triés si la valeur est rare (moins d'une carte sur 32,
+     * seuil où la liste devient plus petite que les mots), mots de 64 bits sinon
+     */
+    private static final class Bitmap {
+        private final int[] cards;
+        private final long[] words;
+
+        private Bitmap(int[] cards, long[] words) {
+            this.cards = cards;
+            this.words = words;
+        }
+
+        static Bitmap of(BitSet bits, int size) {
+            int cardinality = bits.cardinality();
+            if ((long) cardinality * 32 < size) {
+                return new Bitmap(bits.stream().toArray(), null);
+            }
+            return new Bitmap(null, Arrays.copyOf(bits.toLongArray(), wordCount(size)));
+        }
+
+        long countIn(long[] filter) {
+            long count = 0;
+            if (words != null) {
+                for (int i = 0; i < words.length; i++) {
+                    count += Long.bitCount(words[i] & filter[i]);
+                }
+            } else {
+                for (int card : cards) {
+                    count += (filter[card >>> 6] >>> card) & 1L;
+                }
+            }
+            return count;
+        }
+
+        void orInto(long[] target) {
+            if (words != null) {
+                for (int i = 0; i < words.length; i++) {
+                    target[i] |= words[i];
+                }
+            } else {
+                for (int card : cards) {
+                    target[card >>> 6] |= 1L << card;
+                }
+            }
+        }
+
+        long estimatedBytes() {
+            return words != null ? 16 + 8L * words.length : 16 + 4L * cards.length;
+        }
+    }
+}
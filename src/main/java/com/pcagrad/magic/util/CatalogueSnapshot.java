@@ -0,0 +1,362 @@
+package com.pcagrad.magic.util;
+
+import com.pcagrad.magic.model.MtgCard;
+import com.pcagrad.magic.model.MtgSet;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Instantané binaire du catalogue (extensions + cartes), relu par projection mémoire.
+ * <p>
+ * Format (big-endian) :
+ * <ul>
+ *   <li>en-tête : magic, version, nombres d'extensions / cartes / chaînes, date de construction,
+ *       positions des sections ;</li>
+ *   <li>dictionnaire : toutes les chaînes distinctes en UTF-8, puis leurs offsets ({@code n + 1} entiers) ;</li>
+ *   <li>extensions puis cartes en colonnes : un entier par ligne et par champ, indice dans le
+ *       dictionnaire ({@code -1} = null) ou valeur numérique.</li>
+ * </ul>
+ * Les cartes sont groupées par extension et triées par nom : une extension = une plage de lignes.
+ */
+public final class CatalogueSnapshot {
+
+    private static final int MAGIC = 0x4D544753; // "MTGS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 5 * Integer.BYTES + 5 * Long.BYTES;
+    private static final int NULL = -1;
+    private static final int NULL_NUMBER = Integer.MIN_VALUE;
+    private static final String LIST_SEPARATOR = "\u001F";
+
+    // Colonnes des extensions
+    private static final int SET_CODE = 0;
+    private static final int SET_NAME = 1;
+    private static final int SET_TYPE = 2;
+    private static final int SET_BLOCK = 3;
+    private static final int SET_RELEASE_DATE = 4;
+    private static final int SET_GATHERER_CODE = 5;
+    private static final int SET_MCI_CODE = 6;
+    private static final int SET_BORDER = 7;
+    private static final int SET_ONLINE_ONLY = 8;
+    private static final int SET_KNOWN = 9;
+    private static final int SET_CARD_START = 10;
+    private static final int SET_CARD_COUNT = 11;
+    private static final int SET_COLUMNS = 12;
+
+    // Colonnes des cartes, dans l'ordre des champs de MtgCard
+    private static final int CARD_COLUMNS = 21;
+    private static final int CARD_NAME = 1;
+    private static final int CARD_CMC = 3;
+    private static final int CARD_MULTIVERSE_ID = 19;
+
+    private final ByteBuffer buffer;
+    private final int setCount;
+    private final int cardCount;
+    private final long builtAt;
+    private final int dictBytesPos;
+    private final int dictOffsetsPos;
+    private final int setColumnsPos;
+    private final int cardColumnsPos;
+    private final Map<String, Integer> setRows;
+
+    private CatalogueSnapshot(ByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Instantané de catalogue invalide ou d'une autre version");
+        }
+        this.setCount = buffer.getInt(8);
+        this.cardCount = buffer.getInt(12);
+        this.builtAt = buffer.getLong(20);
+        this.dictBytesPos = (int) buffer.getLong(28);
+        this.dictOffsetsPos = (int) buffer.getLong(36);
+        this.setColumnsPos = (int) buffer.getLong(44);
+        this.cardColumnsPos = (int) buffer.getLong(52);
+
+        // Seul index gardé sur le tas : code d'extension -> ligne
+        Map<String, Integer> rows = new HashMap<>(setCount * 2);
+        for (int row = 0; row < setCount; row++) {
+            rows.put(string(setColumn(SET_CODE, row)), row);
+        }
+        this.setRows = rows;
+    }
+
+    /**
+     * Projette un instantané en mémoire (lecture seule) ; le fichier peut être fermé ensuite
+     */
+    public static CatalogueSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new CatalogueSnapshot(mapped);
+        }
+    }
+
+    public int getSetCount() {
+        return setCount;
+    }
+
+    public int getCardCount() {
+        return cardCount;
+    }
+
+    public long getBuiltAt() {
+        return builtAt;
+    }
+
+    public long getSizeBytes() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Extension connue en base (hors groupes de cartes sans entité extension), sans ses cartes
+     */
+    public Optional<MtgSet> findSet(String code) {
+        Integer row = setRows.get(normalize(code));
+        if (row == null || setColumn(SET_KNOWN, row) == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(readSet(row));
+    }
+
+    public List<MtgSet> getSets() {
+        List<MtgSet> sets = new ArrayList<>(setCount);
+        for (int row = 0; row < setCount; row++) {
+            if (setColumn(SET_KNOWN, row) != 0) {
+                sets.add(readSet(row));
+            }
+        }
+        return sets;
+    }
+
+    /**
+     * Cartes d'une extension triées par nom ; liste vide si l'extension n'a aucune carte
+     */
+    public List<MtgCard> getCards(String setCode) {
+        Integer row = setRows.get(normalize(setCode));
+        if (row == null) {
+            return List.of();
+        }
+        int start = setColumn(SET_CARD_START, row);
+        int count = setColumn(SET_CARD_COUNT, row);
+        List<MtgCard> cards = new ArrayList<>(count);
+        for (int card = start; card < start + count; card++) {
+            cards.add(readCard(card));
+        }
+        return cards;
+    }
+
+    // ========== LECTURE ==========
+
+    private MtgSet readSet(int row) {
+        return new MtgSet(
+                string(setColumn(SET_CODE, row)),
+                string(setColumn(SET_NAME, row)),
+                string(setColumn(SET_TYPE, row)),
+                string(setColumn(SET_BLOCK, row)),
+                string(setColumn(SET_RELEASE_DATE, row)),
+                string(setColumn(SET_GATHERER_CODE, row)),
+                string(setColumn(SET_MCI_CODE, row)),
+                string(setColumn(SET_BORDER, row)),
+                setColumn(SET_ONLINE_ONLY, row) != 0,
+                null
+        );
+    }
+
+    private MtgCard readCard(int row) {
+        return new MtgCard(
+                cardString(0, row), cardString(CARD_NAME, row), cardString(2, row), cardNumber(CARD_CMC, row),
+                cardList(4, row), cardList(5, row), cardString(6, row), cardList(7, row), cardList(8, row),
+                cardList(9, row), cardString(10, row), cardString(11, row), cardString(12, row),
+                cardString(13, row), cardString(14, row), cardString(15, row), cardString(16, row),
+                cardString(17, row), cardString(18, row), cardNumber(CARD_MULTIVERSE_ID, row), cardString(20, row)
+        );
+    }
+
+    private int setColumn(int column, int row) {
+        return buffer.getInt(setColumnsPos + (column * setCount + row) * Integer.BYTES);
+    }
+
+    private int cardColumn(int column, int row) {
+        return buffer.getInt(cardColumnsPos + (column * cardCount + row) * Integer.BYTES);
+    }
+
+    private String cardString(int column, int row) {
+        return string(cardColumn(column, row));
+    }
+
+    private Integer cardNumber(int column, int row) {
+        int value = cardColumn(column, row);
+        return value == NULL_NUMBER ? null : value;
+    }
+
+    private List<String> cardList(int column, int row) {
+        String joined = cardString(column, row);
+        if (joined == null) {
+            return null;
+        }
+        return joined.isEmpty() ? List.of() : List.of(joined.split(LIST_SEPARATOR, -1));
+    }
+
+    private String string(int id) {
+        if (id == NULL) {
+            return null;
+        }
+        int start = buffer.getInt(dictOffsetsPos + id * Integer.BYTES);
+        int end = buffer.getInt(dictOffsetsPos + (id + 1) * Integer.BYTES);
+        byte[] bytes = new byte[end - start];
+        buffer.get(dictBytesPos + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String normalize(String code) {
+        return code == null ? "" : code.trim().toUpperCase(Locale.ROOT);
+    }
+
+    // ========== ÉCRITURE ==========
+
+    /**
+     * Accumule extensions et cartes déjà encodées (une ligne = quelques entiers), puis écrit le fichier.
+     * Les chaînes identiques (raretés, types, artistes...) ne sont stockées qu'une fois.
+     */
+    public static final class Writer {
+
+        private final Map<String, Integer> dictionary = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+        private final Map<String, MtgSet> sets = new LinkedHashMap<>();
+        private final Map<String, List<int[]>> cardsBySet = new HashMap<>();
+
+        public void addSet(MtgSet set) {
+            sets.put(normalize(set.code()), set);
+        }
+
+        public void addCard(MtgCard card) {
+            int[] row = new int[CARD_COLUMNS];
+            row[0] = intern(card.id());
+            row[CARD_NAME] = intern(card.name());
+            row[2] = intern(card.manaCost());
+            row[CARD_CMC] = card.cmc() != null ? card.cmc() : NULL_NUMBER;
+            row[4] = internList(card.colors());
+            row[5] = internList(card.colorIdentity());
+            row[6] = intern(card.type());
+            row[7] = internList(card.supertypes());
+            row[8] = internList(card.types());
+            row[9] = internList(card.subtypes());
+            row[10] = intern(card.rarity());
+            row[11] = intern(card.set());
+            row[12] = intern(card.setName());
+            row[13] = intern(card.text());
+            row[14] = intern(card.artist());
+            row[15] = intern(card.number());
+            row[16] = intern(card.power());
+            row[17] = intern(card.toughness());
+            row[18] = intern(card.layout());
+            row[CARD_MULTIVERSE_ID] = card.multiverseid() != null ? card.multiverseid() : NULL_NUMBER;
+            row[20] = intern(card.imageUrl());
+            cardsBySet.computeIfAbsent(normalize(card.set()), code -> new ArrayList<>()).add(row);
+        }
+
+        public void writeTo(Path file) throws IOException {
+            // Extensions en base, puis groupes de cartes sans entité extension
+            List<String> codes = new ArrayList<>(sets.keySet());
+            cardsBySet.keySet().stream().filter(code -> !sets.containsKey(code)).sorted().forEach(codes::add);
+
+            Comparator<int[]> byName = Comparator.comparing(
+                    row -> row[CARD_NAME] == NULL ? "" : strings.get(row[CARD_NAME]), String.CASE_INSENSITIVE_ORDER);
+            int cardCount = cardsBySet.values().stream().mapToInt(List::size).sum();
+            int setCount = codes.size();
+
+            // Lignes de cartes dans l'ordre final : extension par extension, triées par nom.
+            // Colonnes des extensions calculées avant l'écriture : leurs chaînes doivent être au dictionnaire
+            List<int[]> orderedCards = new ArrayList<>(cardCount);
+            int[][] setColumns = new int[SET_COLUMNS][setCount];
+            for (int row = 0; row < setCount; row++) {
+                String code = codes.get(row);
+                MtgSet set = sets.get(code);
+                List<int[]> cards = cardsBySet.getOrDefault(code, new ArrayList<>());
+                cards.sort(byName);
+
+                setColumns[SET_CODE][row] = intern(code);
+                setColumns[SET_NAME][row] = set != null ? intern(set.name()) : NULL;
+                setColumns[SET_TYPE][row] = set != null ? intern(set.type()) : NULL;
+                setColumns[SET_BLOCK][row] = set != null ? intern(set.block()) : NULL;
+                setColumns[SET_RELEASE_DATE][row] = set != null ? intern(set.releaseDate()) : NULL;
+                setColumns[SET_GATHERER_CODE][row] = set != null ? intern(set.gathererCode()) : NULL;
+                setColumns[SET_MCI_CODE][row] = set != null ? intern(set.magicCardsInfoCode()) : NULL;
+                setColumns[SET_BORDER][row] = set != null ? intern(set.border()) : NULL;
+                setColumns[SET_ONLINE_ONLY][row] = set != null && set.onlineOnly() ? 1 : 0;
+                setColumns[SET_KNOWN][row] = set != null ? 1 : 0;
+                setColumns[SET_CARD_START][row] = orderedCards.size();
+                setColumns[SET_CARD_COUNT][row] = cards.size();
+                orderedCards.addAll(cards);
+            }
+
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(Channels.newOutputStream(channel), 256 * 1024));
+                out.write(new byte[HEADER_SIZE]);
+
+                long dictBytesPos = out.size();
+                int[] offsets = new int[strings.size() + 1];
+                int length = 0;
+                for (int i = 0; i < strings.size(); i++) {
+                    byte[] bytes = strings.get(i).getBytes(StandardCharsets.UTF_8);
+                    offsets[i] = length;
+                    out.write(bytes);
+                    length += bytes.length;
+                }
+                offsets[strings.size()] = length;
+
+                long dictOffsetsPos = out.size();
+                for (int offset : offsets) {
+                    out.writeInt(offset);
+                }
+
+                long setColumnsPos = out.size();
+                for (int[] column : setColumns) {
+                    for (int value : column) {
+                        out.writeInt(value);
+                    }
+                }
+
+                long cardColumnsPos = out.size();
+                for (int column = 0; column < CARD_COLUMNS; column++) {
+                    for (int[] card : orderedCards) {
+                        out.writeInt(card[column]);
+                    }
+                }
+                out.flush();
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(VERSION).putInt(setCount).putInt(cardCount).putInt(strings.size())
+                        .putLong(System.currentTimeMillis())
+                        .putLong(dictBytesPos).putLong(dictOffsetsPos).putLong(setColumnsPos).putLong(cardColumnsPos)
+                        .flip();
+                channel.write(header, 0);
+                channel.force(true);
+            }
+        }
+
+        private int intern(String value) {
+            if (value == null) {
+                return NULL;
+            }
+            return dictionary.computeIfAbsent(value, key -> {
+                strings.add(key);
+                return strings.size() - 1;
+            });
+        }
+
+        private int internList(List<String> values) {
+            return values == null ? NULL : intern(String.join(LIST_SEPARATOR, values));
+        }
+    }
+}
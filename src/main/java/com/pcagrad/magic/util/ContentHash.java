@@ -0,0 +1,32 @@
+package com.pcagrad.magic.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Empreintes SHA-256 utilisées pour adresser les contenus (images, cartes)
+ */
+public final class ContentHash {
+
+    private ContentHash() {
+    }
+
+    public static String sha256Hex(byte[] data) {
+        return HexFormat.of().formatHex(newDigest().digest(data));
+    }
+
+    public static String sha256Hex(String value) {
+        return sha256Hex(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 est garanti par toutes les JVM
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.pcagrad.magic.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position opaque dans une pagination par clé : dernière clé de tri lue + portée de la requête.
+ * La portée (extension, filtres) empêche de rejouer un curseur sur une autre recherche.
+ */
+public record KeysetCursor(String scope, String sortKey, UUID id) {
+
+    private static final String SEPARATOR = "\u001F";
+
+    public String encode() {
+        String raw = scope + SEPARATOR + (sortKey != null ? sortKey : "") + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Décode un curseur et vérifie qu'il appartient bien à la requête en cours
+     */
+    public static KeysetCursor decode(String cursor, String expectedScope) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR, -1);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Curseur illisible", e);
+        }
+        if (parts.length != 3 || !parts[0].equals(expectedScope)) {
+            throw new IllegalArgumentException("Curseur invalide pour cette requête");
+        }
+        return new KeysetCursor(parts[0], parts[1].isEmpty() ? null : parts[1], UUID.fromString(parts[2]));
+    }
+}
@@ -0,0 +1,157 @@
+package com.pcagrad.magic.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Générateur de charge en modèle ouvert : les arrivées suivent un processus de Poisson au débit
+ * demandé, qu'il y ait des réponses en attente ou non. La latence part de l'instant d'arrivée
+ * prévu, pas de l'envoi effectif : un serveur saturé ne ralentit pas la mesure (pas d'omission
+ * coordonnée).
+ */
+class OpenModelLoadDriver {
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .executor(Executors.newFixedThreadPool(16, runnable -> {
+                Thread thread = new Thread(runnable, "loadtest-http");
+                thread.setDaemon(true);
+                return thread;
+            }))
+            .build();
+
+    private final String baseUrl;
+    private final Duration requestTimeout;
+
+    OpenModelLoadDriver(String baseUrl, Duration requestTimeout) {
+        this.baseUrl = baseUrl;
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * Un endpoint du mélange : nom stable (clé du rapport), poids relatif, chemin tiré à chaque arrivée
+     */
+    record Target(String name, int weight, Supplier<String> path) {}
+
+    record EndpointStats(
+            String endpoint,
+            long requests,
+            long errors,
+            double throughputPerSecond,
+            double meanMillis,
+            double p50Millis,
+            double p90Millis,
+            double p99Millis,
+            double p999Millis,
+            double maxMillis
+    ) {}
+
+    record RunResult(double offeredRate, double achievedRate, long dropped, List<EndpointStats> endpoints) {}
+
+    RunResult run(List<Target> mix, double ratePerSecond, Duration warmup, Duration duration) throws InterruptedException {
+        int totalWeight = mix.stream().mapToInt(Target::weight).sum();
+        Map<String, Recorder> recorders = new LinkedHashMap<>();
+        mix.forEach(target -> recorders.put(target.name(), new Recorder()));
+
+        Random random = new Random(42);
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        double meanGapNanos = 1_000_000_000.0 / ratePerSecond;
+
+        List<CompletableFuture<?>> inFlight = new ArrayList<>();
+        long intended = start;
+        long measured = 0;
+        while (intended < end) {
+            LockSupport.parkNanos(intended - System.nanoTime());
+
+            Target target = pick(mix, totalWeight, random);
+            boolean record = intended >= measureFrom;
+            long arrival = intended;
+            if (record) {
+                measured++;
+            }
+
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + target.path().get()))
+                    .timeout(requestTimeout)
+                    .GET()
+                    .build();
+            inFlight.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        if (record) {
+                            boolean failed = error != null || response.statusCode() >= 400;
+                            recorders.get(target.name()).add(System.nanoTime() - arrival, failed);
+                        }
+                    }));
+
+            // Écart exponentiel : arrivées de Poisson au débit moyen demandé
+            intended += (long) (-Math.log(1 - random.nextDouble()) * meanGapNanos);
+        }
+
+        long dropped = 0;
+        for (CompletableFuture<?> future : inFlight) {
+            try {
+                future.get(requestTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (ExecutionException | TimeoutException e) {
+                dropped++;
+            }
+        }
+
+        double seconds = duration.toNanos() / 1e9;
+        List<EndpointStats> stats = new ArrayList<>();
+        recorders.forEach((name, recorder) -> stats.add(recorder.summarize(name, seconds)));
+        return new RunResult(ratePerSecond, measured / seconds, dropped, stats);
+    }
+
+    private Target pick(List<Target> mix, int totalWeight, Random random) {
+        int roll = random.nextInt(totalWeight);
+        for (Target target : mix) {
+            roll -= target.weight();
+            if (roll < 0) {
+                return target;
+            }
+        }
+        return mix.get(mix.size() - 1);
+    }
+
+    private static class Recorder {
+        private final Queue<Long> latencies = new ConcurrentLinkedQueue<>();
+        private final AtomicLong errors = new AtomicLong();
+
+        void add(long nanos, boolean failed) {
+            latencies.add(nanos);
+            if (failed) {
+                errors.incrementAndGet();
+            }
+        }
+
+        EndpointStats summarize(String name, double seconds) {
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            double mean = Arrays.stream(sorted).average().orElse(0) / 1e6;
+            return new EndpointStats(name, sorted.length, errors.get(), sorted.length / seconds, round(mean),
+                    percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                    percentile(sorted, 0.999), sorted.length == 0 ? 0 : round(sorted[sorted.length - 1] / 1e6));
+        }
+
+        private double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return round(sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6);
+        }
+
+        private double round(double millis) {
+            return Math.round(millis * 1000) / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.pcagrad.magic.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.pcagrad.magic.entity.MagicCard;
+import com.pcagrad.magic.model.MtgCard;
+import com.pcagrad.magic.repository.CardRepository;
+import com.pcagrad.magic.repository.SetRepository;
+import com.pcagrad.magic.service.CardPersistenceService;
+import com.pcagrad.magic.stub.UpstreamStubServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test de charge des endpoints de lecture publics, exclu du build normal : {@code mvn -Ploadtest test}.
+ * <p>
+ * L'application démarre sur une base H2 alimentée par le chemin de synchronisation habituel ; les API
+ * amont pointent vers le serveur de substitution, au cas où un endpoint y retomberait. Réglages par
+ * propriétés système : {@code loadtest.rate} (req/s), {@code loadtest.warmup-s}, {@code loadtest.duration-s},
+ * {@code loadtest.mix} ({@code sets=1,latest-cards=1,set-cards=4,image=4}), {@code loadtest.sets},
+ * {@code loadtest.cards-per-set}, {@code loadtest.build}, {@code loadtest.max-error-rate} (0.01 : au-delà
+ * de 1 % de réponses en erreur sur un endpoint, le test échoue). Exemple :
+ * <pre>
+ * mvn -Ploadtest test -Dloadtest.rate=100 -Dloadtest.build=$(git rev-parse --short HEAD)
+ * </pre>
+ * <p>
+ * Le rapport JSON (p50/p99/p999 et débit par endpoint) est écrit dans {@code target/loadtest/},
+ * une copie sous {@code latest.json} : deux builds se comparent fichier contre fichier.
+ */
+@Tag("loadtest")
+@ActiveProfiles("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ReadEndpointLoadTest {
+
+    private static final Path REPORT_DIR = Paths.get("target", "loadtest");
+    // En-tête JPEG minimal : le contenu n'est pas décodé, seul le service du fichier est mesuré
+    private static final byte[] FAKE_JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0, 0x10, 'J', 'F', 'I', 'F', 0, (byte) 0xFF, (byte) 0xD9};
+
+    private static UpstreamStubServer stub;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CardPersistenceService persistenceService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private SetRepository setRepository;
+
+    @Value("${mtg.images.storage-path}")
+    private String imagesPath;
+
+    @DynamicPropertySource
+    static void upstream(DynamicPropertyRegistry registry) throws IOException {
+        stub = UpstreamStubServer.start(UpstreamStubServer.Options.defaults()
+                .withLatency(Duration.ZERO, Duration.ZERO));
+        registry.add("mtg.scryfall.base-url", stub::scryfallBaseUrl);
+        registry.add("mtg.api.base-url", stub::mtgApiBaseUrl);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        if (stub != null) {
+            stub.close();
+        }
+    }
+
+    @Test
+    void readEndpointsUnderLoad() throws Exception {
+        List<String> setCodes = Arrays.asList(System.getProperty("loadtest.sets", "LT1,LT2,LT3").split(","));
+        int cardsPerSet = Integer.getInteger("loadtest.cards-per-set", 300);
+        List<UUID> imageIds = seed(setCodes, cardsPerSet);
+
+        Map<String, Integer> weights = parseMix(System.getProperty("loadtest.mix", "sets=1,latest-cards=1,set-cards=4,image=4"));
+        List<OpenModelLoadDriver.Target> mix = new ArrayList<>();
+        addTarget(mix, weights, "sets", () -> "/api/mtg/sets");
+        addTarget(mix, weights, "latest-cards", () -> "/api/mtg/sets/latest/cards");
+        addTarget(mix, weights, "set-cards", () -> "/api/mtg/sets/" + randomOf(setCodes) + "/cards");
+        addTarget(mix, weights, "image", () -> "/api/images/" + randomOf(imageIds));
+
+        double rate = Double.parseDouble(System.getProperty("loadtest.rate", "50"));
+        Duration warmup = Duration.ofSeconds(Long.getLong("loadtest.warmup-s", 10));
+        Duration duration = Duration.ofSeconds(Long.getLong("loadtest.duration-s", 60));
+
+        OpenModelLoadDriver driver = new OpenModelLoadDriver("http://localhost:" + port, Duration.ofSeconds(30));
+        OpenModelLoadDriver.RunResult result = driver.run(mix, rate, warmup, duration);
+
+        LoadReport report = new LoadReport(
+                System.getProperty("loadtest.build", "local"),
+                LocalDateTime.now().toString(),
+                new LoadConfig(rate, warmup.toSeconds(), duration.toSeconds(), weights, setCodes.size(), cardsPerSet,
+                        System.getProperty("loadtest.datasource.url", "h2")),
+                result);
+        Path written = writeReport(report);
+        System.out.println("📊 Rapport de charge : " + written.toAbsolutePath());
+
+        // Un endpoint non mesuré ou en erreur fausserait la comparaison entre builds
+        double maxErrorRate = Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.01"));
+        for (OpenModelLoadDriver.EndpointStats stats : result.endpoints()) {
+            assertTrue(stats.requests() > 0, "Aucune requête mesurée sur " + stats.endpoint());
+            double errorRate = (double) stats.errors() / stats.requests();
+            assertTrue(errorRate <= maxErrorRate, String.format("Taux d'erreur %.2f%% sur %s (max %.2f%%)",
+                    errorRate * 100, stats.endpoint(), maxErrorRate * 100));
+        }
+    }
+
+    // ========== JEU DE DONNÉES ==========
+
+    /**
+     * Extensions et cartes écrites par la synchronisation différentielle, images locales sur un quart des cartes
+     */
+    private List<UUID> seed(List<String> setCodes, int cardsPerSet) throws IOException {
+        // Le chemin local est stocké dans fusion_pca (50 caractères) : noms de fichiers courts
+        Path imagesDir = Paths.get(imagesPath, "lt");
+        Files.createDirectories(imagesDir);
+
+        List<UUID> imageIds = new ArrayList<>();
+        for (int s = 0; s < setCodes.size(); s++) {
+            String code = setCodes.get(s);
+            List<MtgCard> cards = new ArrayList<>();
+            for (int i = 1; i <= cardsPerSet; i++) {
+                cards.add(new MtgCard(code + "-" + i, code + " Carte " + i, "{" + (i % 7) + "}", i % 7,
+                        List.of("R"), List.of("R"), "Creature — Goblin", null, List.of("Creature"), List.of("Goblin"),
+                        i % 10 == 0 ? "Rare" : "Common", code, "Extension " + code, "Texte " + i, "Artiste " + (i % 25),
+                        String.valueOf(i), "2", "2", "normal", null, null));
+            }
+            persistenceService.syncCardsDelta(code, cards);
+            persistenceService.markSetSynced(code, "Extension " + code, cardsPerSet);
+
+            LocalDate releaseDate = LocalDate.of(2025, 1, 1).plusMonths(s);
+            setRepository.findByCode(code).ifPresent(set -> {
+                set.setReleaseDate(releaseDate);
+                setRepository.save(set);
+            });
+
+            List<MagicCard> entities = cardRepository.findBySetCodeOrderByNameAsc(code);
+            for (int i = 0; i < entities.size(); i += 4) {
+                MagicCard card = entities.get(i);
+                Path file = imagesDir.resolve(code + "-" + i + ".jpg");
+                Files.write(file, FAKE_JPEG);
+                card.setImageDownloaded(true);
+                card.setLocalImagePath(file.toString());
+                cardRepository.save(card);
+                imageIds.add(card.getId());
+            }
+        }
+        return imageIds;
+    }
+
+    // ========== RAPPORT ==========
+
+    record LoadConfig(
+            double ratePerSecond,
+            long warmupSeconds,
+            long durationSeconds,
+            Map<String, Integer> mix,
+            int sets,
+            int cardsPerSet,
+            String datasource
+    ) {}
+
+    record LoadReport(String build, String finishedAt, LoadConfig config, OpenModelLoadDriver.RunResult result) {}
+
+    private Path writeReport(LoadReport report) throws IOException {
+        Files.createDirectories(REPORT_DIR);
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path file = REPORT_DIR.resolve(report.build() + "-" + stamp + ".json");
+        mapper.writeValue(file.toFile(), report);
+        Files.copy(file, REPORT_DIR.resolve("latest.json"), StandardCopyOption.REPLACE_EXISTING);
+        return file;
+    }
+
+    private Map<String, Integer> parseMix(String spec) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] pair = part.split("=");
+            weights.put(pair[0].trim(), Integer.parseInt(pair[1].trim()));
+        }
+        return weights;
+    }
+
+    private void addTarget(List<OpenModelLoadDriver.Target> mix, Map<String, Integer> weights,
+                           String name, Supplier<String> path) {
+        int weight = weights.getOrDefault(name, 0);
+        if (weight > 0) {
+            mix.add(new OpenModelLoadDriver.Target(name, weight, path));
+        }
+    }
+
+    private static <T> T randomOf(List<T> values) {
+        return values.get(ThreadLocalRandom.current().nextInt(values.size()));
+    }
+}
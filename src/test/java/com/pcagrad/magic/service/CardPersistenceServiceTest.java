@@ -0,0 +1,80 @@
+package com.pcagrad.magic.service;
+
+import com.pcagrad.magic.entity.MagicCard;
+import com.pcagrad.magic.model.MtgCard;
+import com.pcagrad.magic.repository.CardRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Écritures de synchronisation sur la base H2 du profil loadtest : chaque appel au service
+ * tourne dans sa propre transaction, comme depuis les jobs de synchronisation
+ */
+@ActiveProfiles("loadtest")
+@SpringBootTest
+class CardPersistenceServiceTest {
+
+    @Autowired
+    private CardPersistenceService persistenceService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Test
+    void deltaSyncAddsNewCards() {
+        List<MtgCard> cards = cards("DS1", 3);
+
+        CardPersistenceService.SyncDelta first = persistenceService.syncCardsDelta("DS1", cards);
+
+        assertThat(first.added()).isEqualTo(3);
+        assertThat(cardRepository.findBySetCode("DS1"))
+                .extracting(MagicCard::getName)
+                .containsExactlyInAnyOrder("DS1 Carte 1", "DS1 Carte 2", "DS1 Carte 3");
+
+        // Une carte modifiée, une carte nouvelle, les autres inchangées
+        List<MtgCard> next = new ArrayList<>(cards);
+        next.set(0, card("DS1", 1, "Texte révisé"));
+        next.add(card("DS1", 4, "Texte 4"));
+        CardPersistenceService.SyncDelta second = persistenceService.syncCardsDelta("DS1", next);
+
+        assertThat(second.added()).isEqualTo(1);
+        assertThat(second.changed()).isEqualTo(1);
+        assertThat(second.unchanged()).isEqualTo(2);
+        assertThat(cardRepository.findBySetCode("DS1")).hasSize(4);
+    }
+
+    @Test
+    void legacySaveLeavesCardsUnchangedForDeltaSync() {
+        List<MtgCard> cards = cards("DS2", 3);
+
+        assertThat(persistenceService.saveCards(cards, "DS2")).isEqualTo(3);
+        CardPersistenceService.SyncDelta delta = persistenceService.syncCardsDelta("DS2", cards);
+
+        assertThat(delta.unchanged()).isEqualTo(3);
+        assertThat(delta.written()).isZero();
+    }
+
+    private static List<MtgCard> cards(String setCode, int count) {
+        List<MtgCard> cards = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            cards.add(card(setCode, i, "Texte " + i));
+        }
+        return cards;
+    }
+
+    // ID au format Scryfall : plus long que id_prim, donc raccourci à l'enregistrement
+    private static MtgCard card(String setCode, int number, String text) {
+        String id = String.format("%08d-0000-4000-8000-%012d", setCode.hashCode() & 0x7fffffff, number);
+        return new MtgCard(id, setCode + " Carte " + number, "{2}{R}", 3, List.of("R"), List.of("R"),
+                "Creature — Goblin", null, List.of("Creature"), List.of("Goblin"), "Common", setCode,
+                "Extension " + setCode, text, "Artiste " + number, String.valueOf(number), "2", "2", "normal",
+                null, null);
+    }
+}
@@ -0,0 +1,215 @@
+package com.pcagrad.magic.service;
+
+import com.pcagrad.magic.entity.CatalogueChange;
+import com.pcagrad.magic.entity.CatalogueChangeSequence;
+import com.pcagrad.magic.entity.MagicCard;
+import com.pcagrad.magic.model.CardField;
+import com.pcagrad.magic.model.MtgCard;
+import com.pcagrad.magic.repository.CardRepository;
+import com.pcagrad.magic.repository.CatalogueChangeRepository;
+import com.pcagrad.magic.repository.CatalogueChangeSequenceRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogueChangeServiceTest {
+
+    private static final Set<CardField> FIELDS = Set.of(CardField.ID, CardField.NAME);
+
+    @Mock
+    private CatalogueChangeRepository changeRepository;
+
+    @Mock
+    private CatalogueChangeSequenceRepository sequenceRepository;
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private MtgService mtgService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @InjectMocks
+    private CatalogueChangeService service;
+
+    @BeforeEach
+    void setUp() {
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    // ========== ÉCRITURE ==========
+
+    @Test
+    void numbersEntriesFromLockedCounter() {
+        CatalogueChangeSequence sequence = new CatalogueChangeSequence(41);
+        when(sequenceRepository.findForUpdate(CatalogueChangeSequence.ID)).thenReturn(Optional.of(sequence));
+
+        service.recordUpsert(card("FIN", "abc"));
+
+        ArgumentCaptor<CatalogueChange> persisted = ArgumentCaptor.forClass(CatalogueChange.class);
+        // Écritures en attente envoyées avant de prendre le verrou du compteur
+        InOrder order = inOrder(entityManager, sequenceRepository);
+        order.verify(entityManager).flush();
+        order.verify(sequenceRepository).findForUpdate(CatalogueChangeSequence.ID);
+        verify(entityManager).persist(persisted.capture());
+        assertThat(persisted.getValue().getVersion()).isEqualTo(42L);
+        assertThat(persisted.getValue().getChangedAt()).isNotNull();
+        assertThat(sequence.getVersion()).isEqualTo(42L);
+    }
+
+    @Test
+    void ignoresStagedGenerations() {
+        service.recordUpsert(card("FIN#2", "abc"));
+        service.recordSetReload("FIN#2");
+
+        verify(sequenceRepository, times(0)).findForUpdate(CatalogueChangeSequence.ID);
+    }
+
+    // ========== LECTURE ==========
+
+    @Test
+    void foldsEntriesToLatestStatePerCard() {
+        when(changeRepository.findMinVersion()).thenReturn(1L);
+        when(changeRepository.findAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(
+                change(1, "FIN", "a", CatalogueChange.Operation.UPSERT),
+                change(2, "FIN", "b", CatalogueChange.Operation.UPSERT),
+                change(3, "FIN", "a", CatalogueChange.Operation.DELETE),
+                change(4, "NEO", "c", CatalogueChange.Operation.UPSERT)));
+        MagicCard b = card("FIN", "b");
+        MagicCard c = card("NEO", "c");
+        when(cardRepository.findByExternalIdIn(anyCollection())).thenReturn(List.of(b, c));
+        when(mtgService.entityToModel(any(MagicCard.class), eq(FIELDS)))
+                .thenAnswer(call -> model(call.getArgument(0, MagicCard.class)));
+
+        CatalogueChangeService.ChangeFeed feed = service.getChanges(0, 10, FIELDS);
+
+        assertThat(feed.version()).isEqualTo(4);
+        assertThat(feed.hasMore()).isFalse();
+        assertThat(feed.resyncRequired()).isFalse();
+        assertThat(feed.changes()).extracting(CatalogueChangeService.Change::id, CatalogueChangeService.Change::op)
+                .containsExactly(
+                        tuple("b", CatalogueChange.Operation.UPSERT),
+                        tuple("a", CatalogueChange.Operation.DELETE),
+                        tuple("c", CatalogueChange.Operation.UPSERT));
+        assertThat(feed.changes().get(0).card()).isNotNull();
+    }
+
+    @Test
+    void setReloadSupersedesEarlierEntriesOfItsSet() {
+        when(changeRepository.findMinVersion()).thenReturn(1L);
+        when(changeRepository.findAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(
+                change(1, "FIN", "a", CatalogueChange.Operation.UPSERT),
+                change(2, "NEO", "c", CatalogueChange.Operation.DELETE),
+                change(3, "FIN", null, CatalogueChange.Operation.SET_RELOAD)));
+
+        CatalogueChangeService.ChangeFeed feed = service.getChanges(0, 10, FIELDS);
+
+        assertThat(feed.changes()).extracting(CatalogueChangeService.Change::set, CatalogueChangeService.Change::op)
+                .containsExactly(
+                        tuple("NEO", CatalogueChange.Operation.DELETE),
+                        tuple("FIN", CatalogueChange.Operation.SET_RELOAD));
+    }
+
+    @Test
+    void upsertOfVanishedCardIsServedAsDelete() {
+        when(changeRepository.findMinVersion()).thenReturn(1L);
+        when(changeRepository.findAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(
+                change(1, "FIN", "gone", CatalogueChange.Operation.UPSERT)));
+        when(cardRepository.findByExternalIdIn(anyCollection())).thenReturn(List.of());
+
+        CatalogueChangeService.ChangeFeed feed = service.getChanges(0, 10, FIELDS);
+
+        assertThat(feed.changes()).singleElement()
+                .satisfies(change -> assertThat(change.op()).isEqualTo(CatalogueChange.Operation.DELETE));
+    }
+
+    @Test
+    void pagesWithOneExtraRow() {
+        when(changeRepository.findMinVersion()).thenReturn(1L);
+        when(changeRepository.findAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(
+                change(1, "NEO", "a", CatalogueChange.Operation.DELETE),
+                change(2, "NEO", "b", CatalogueChange.Operation.DELETE),
+                change(3, "NEO", "c", CatalogueChange.Operation.DELETE)));
+
+        CatalogueChangeService.ChangeFeed feed = service.getChanges(0, 2, FIELDS);
+
+        assertThat(feed.hasMore()).isTrue();
+        assertThat(feed.version()).isEqualTo(2);
+        assertThat(feed.changes()).hasSize(2);
+    }
+
+    @Test
+    void requiresResyncWhenLogWasTruncated() {
+        when(changeRepository.findMinVersion()).thenReturn(100L);
+        when(changeRepository.findMaxVersion()).thenReturn(250L);
+
+        CatalogueChangeService.ChangeFeed feed = service.getChanges(10, 10, FIELDS);
+
+        assertThat(feed.resyncRequired()).isTrue();
+        assertThat(feed.version()).isEqualTo(250);
+        assertThat(feed.changes()).isEmpty();
+        verify(changeRepository, times(0)).findAfter(anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    void emptyPageKeepsClientVersion() {
+        when(changeRepository.findMinVersion()).thenReturn(1L);
+        when(changeRepository.findAfter(eq(7L), any(Pageable.class))).thenReturn(List.of());
+
+        CatalogueChangeService.ChangeFeed feed = service.getChanges(7, 10, FIELDS);
+
+        assertThat(feed.version()).isEqualTo(7);
+        assertThat(feed.changes()).isEmpty();
+    }
+
+    private static CatalogueChange change(long version, String setCode, String externalId,
+                                          CatalogueChange.Operation operation) {
+        CatalogueChange change = new CatalogueChange(setCode, externalId, operation);
+        change.setVersion(version);
+        return change;
+    }
+
+    private static MagicCard card(String setCode, String externalId) {
+        return new MagicCard(externalId, "Carte " + externalId, setCode);
+    }
+
+    private static MtgCard model(MagicCard card) {
+        return new MtgCard(card.getExternalId(), card.getName(), null, null, null, null, null, null, null, null,
+                null, card.getSetCode(), null, null, null, null, null, null, null, null, null);
+    }
+}
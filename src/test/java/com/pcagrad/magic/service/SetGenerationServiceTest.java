@@ -0,0 +1,64 @@
+package com.pcagrad.magic.service;
+
+import com.pcagrad.magic.entity.MagicCard;
+import com.pcagrad.magic.model.MtgCard;
+import com.pcagrad.magic.repository.CardRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bascule de génération sur la base H2 du profil loadtest
+ */
+@ActiveProfiles("loadtest")
+@SpringBootTest
+class SetGenerationServiceTest {
+
+    @Autowired
+    private SetGenerationService setGenerationService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Test
+    void swapAddsNewCardsAndCarriesPublishedOnes() {
+        SetGenerationService.GenerationSwap first = setGenerationService.replaceSet("GS1", cards("GS1", 2));
+
+        assertThat(first.published()).isEqualTo(2);
+        Map<String, UUID> firstIds = idsByName("GS1");
+
+        SetGenerationService.GenerationSwap second = setGenerationService.replaceSet("GS1", cards("GS1", 4));
+
+        assertThat(second.published()).isEqualTo(4);
+        Map<String, UUID> secondIds = idsByName("GS1");
+        assertThat(secondIds).containsOnlyKeys("GS1 Carte 1", "GS1 Carte 2", "GS1 Carte 3", "GS1 Carte 4");
+        // Les cartes déjà publiées gardent leur identifiant
+        assertThat(secondIds).containsAllEntriesOf(firstIds);
+    }
+
+    private Map<String, UUID> idsByName(String setCode) {
+        return cardRepository.findBySetCode(setCode).stream()
+                .collect(Collectors.toMap(MagicCard::getName, MagicCard::getId));
+    }
+
+    private static List<MtgCard> cards(String setCode, int count) {
+        List<MtgCard> cards = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            String id = String.format("%08d-0000-4000-8000-%012d", setCode.hashCode() & 0x7fffffff, i);
+            cards.add(new MtgCard(id, setCode + " Carte " + i, "{1}{U}", 2, List.of("U"), List.of("U"),
+                    "Creature — Moogle", null, List.of("Creature"), List.of("Moogle"), "Common", setCode,
+                    "Extension " + setCode, "Texte " + i, "Artiste " + i, String.valueOf(i), "1", "1", "normal",
+                    null, null));
+        }
+        return cards;
+    }
+}
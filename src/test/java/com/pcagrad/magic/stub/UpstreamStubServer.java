@@ -0,0 +1,505 @@
+package com.pcagrad.magic.stub;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Serveur de substitution pour Scryfall et magicthegathering.io : rejoue des cartes enregistrées
+ * (ou générées) avec une latence, des tailles de page, des 429 et une taille de réponse réglables.
+ * <p>
+ * Routes servies :
+ * <ul>
+ *   <li>{@code /scryfall/sets}, {@code /scryfall/sets/{code}}, {@code /scryfall/cards/search?q=set:xxx&page=N},
+ *       {@code /scryfall/bulk-data}, {@code /scryfall/bulk/default-cards.json}</li>
+ *   <li>{@code /mtg/v1/sets}, {@code /mtg/v1/cards?set=XXX&pageSize=N&page=P}
+ *       (en-têtes {@code Total-Count} et {@code Link})</li>
+ * </ul>
+ * Fixtures : {@code <fixtures>/scryfall/<code>.json}, tableau d'objets carte Scryfall (les tableaux
+ * {@code data} des pages de recherche mis bout à bout, ou un extrait du bulk {@code default_cards}).
+ * Sans fixture, {@code cardsPerSet} cartes synthétiques sont générées.
+ * <p>
+ * Lancement autonome pour un benchmark de synchronisation ({@link #main(String[])}), puis
+ * l'application avec {@code --mtg.scryfall.base-url=http://localhost:8099/scryfall
+ * --mtg.api.base-url=http://localhost:8099/mtg/v1 --mtg.http-cache.enabled=false} : le débit
+ * ({@code cardsPerSecond}) se lit sur {@code GET /api/scryfall/sync-batch/{runId}}.
+ */
+public class UpstreamStubServer implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(UpstreamStubServer.class);
+
+    private static final String JSON = "application/json";
+    private static final Pattern SET_QUERY = Pattern.compile("(?:^|[\\s+(])(?:e|set):\"?([A-Za-z0-9]+)");
+    private static final String[] RARITIES = {"common", "common", "common", "uncommon", "uncommon", "rare", "mythic"};
+    private static final String[] COLORS = {"W", "U", "B", "R", "G"};
+    // Le port n'est pas connu à la génération des cartes : images sur un hôte fictif, jamais téléchargées
+    private static final String IMAGE_HOST = "http://stub.invalid";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Options options;
+    private final Map<String, List<ObjectNode>> cardsBySet = new LinkedHashMap<>();
+    private final DisposableServer server;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicLong bytesServed = new AtomicLong();
+
+    private UpstreamStubServer(Options options) throws IOException {
+        this.options = options;
+        for (String setCode : options.sets()) {
+            cardsBySet.put(setCode.toUpperCase(Locale.ROOT), loadOrGenerate(setCode));
+        }
+
+        this.server = HttpServer.create()
+                .host("localhost")
+                .port(options.port())
+                .route(routes -> routes
+                        .get("/scryfall/sets", (req, res) -> respond(res, () -> scryfallSets()))
+                        .get("/scryfall/sets/{code}", (req, res) -> respond(res, () -> scryfallSet(req.param("code"))))
+                        .get("/scryfall/cards/search", (req, res) -> respond(res, () -> scryfallSearch(req)))
+                        .get("/scryfall/bulk-data", (req, res) -> respond(res, () -> scryfallBulkIndex()))
+                        .get("/scryfall/bulk/default-cards.json", (req, res) -> respond(res, () -> scryfallBulkCards()))
+                        .get("/mtg/v1/sets", (req, res) -> respond(res, () -> mtgApiSets()))
+                        .get("/mtg/v1/cards", (req, res) -> respond(res, () -> mtgApiCards(req))))
+                .bindNow();
+
+        logger.info("🧪 Serveur de substitution sur {} : {} extensions, {} cartes",
+                baseUrl(), cardsBySet.size(), cardsBySet.values().stream().mapToInt(List::size).sum());
+    }
+
+    public static UpstreamStubServer start(Options options) throws IOException {
+        return new UpstreamStubServer(options);
+    }
+
+    public String baseUrl() {
+        return "http://localhost:" + server.port();
+    }
+
+    public String scryfallBaseUrl() {
+        return baseUrl() + "/scryfall";
+    }
+
+    public String mtgApiBaseUrl() {
+        return baseUrl() + "/mtg/v1";
+    }
+
+    public int cardCount(String setCode) {
+        return cardsBySet.getOrDefault(setCode.toUpperCase(Locale.ROOT), List.of()).size();
+    }
+
+    public Stats stats() {
+        return new Stats(requests.get(), rateLimited.get(), bytesServed.get());
+    }
+
+    @Override
+    public void close() {
+        server.disposeNow();
+    }
+
+    // ========== RÉPONSES ==========
+
+    private interface Handler {
+        Reply handle() throws IOException;
+    }
+
+    private record Reply(int status, Map<String, String> headers, Object body) {
+        static Reply ok(Object body) {
+            return new Reply(200, Map.of(), body);
+        }
+    }
+
+    private Mono<Void> respond(HttpServerResponse res, Handler handler) {
+        long count = requests.incrementAndGet();
+        return Mono.delay(latency()).then(Mono.defer(() -> {
+            if (options.rateLimitEvery() > 0 && count % options.rateLimitEvery() == 0) {
+                rateLimited.incrementAndGet();
+                return send(res, new Reply(429, Map.of("Retry-After", "1"),
+                        error(429, "rate_limited", "Trop de requêtes (injecté)")));
+            }
+            try {
+                return send(res, handler.handle());
+            } catch (Exception e) {
+                return send(res, new Reply(500, Map.of(), error(500, "internal", e.getMessage())));
+            }
+        }));
+    }
+
+    private Mono<Void> send(HttpServerResponse res, Reply reply) {
+        byte[] bytes;
+        try {
+            bytes = objectMapper.writeValueAsBytes(reply.body());
+        } catch (IOException e) {
+            return Mono.error(e);
+        }
+        bytesServed.addAndGet(bytes.length);
+
+        res.status(HttpResponseStatus.valueOf(reply.status())).header("Content-Type", JSON);
+        reply.headers().forEach(res::header);
+        return res.sendByteArray(Mono.just(bytes)).then();
+    }
+
+    private Duration latency() {
+        long base = options.latency().toMillis();
+        long jitter = options.jitter().toMillis();
+        return Duration.ofMillis(base + (jitter > 0 ? ThreadLocalRandom.current().nextLong(jitter + 1) : 0));
+    }
+
+    // ========== SCRYFALL ==========
+
+    private Reply scryfallSets() {
+        ArrayNode data = objectMapper.createArrayNode();
+        cardsBySet.keySet().forEach(code -> data.add(setObject(code)));
+        return Reply.ok(list(data, false, null));
+    }
+
+    private Reply scryfallSet(String code) {
+        String setCode = code.toUpperCase(Locale.ROOT);
+        if (!cardsBySet.containsKey(setCode)) {
+            return new Reply(404, Map.of(), error(404, "not_found", "Extension inconnue : " + code));
+        }
+        return Reply.ok(setObject(setCode));
+    }
+
+    private Reply scryfallSearch(HttpServerRequest req) {
+        Map<String, List<String>> params = new QueryStringDecoder(req.uri()).parameters();
+        String query = first(params, "q", "");
+        int page = Integer.parseInt(first(params, "page", "1"));
+
+        Matcher matcher = SET_QUERY.matcher(query);
+        List<ObjectNode> cards = matcher.find()
+                ? cardsBySet.getOrDefault(matcher.group(1).toUpperCase(Locale.ROOT), List.of())
+                : List.of();
+
+        int pageSize = options.scryfallPageSize();
+        int from = (page - 1) * pageSize;
+        if (from >= cards.size()) {
+            // Même comportement que Scryfall : une page au-delà de la fin répond 404
+            return new Reply(404, Map.of(), error(404, "not_found", "Aucune carte pour " + query));
+        }
+
+        int to = Math.min(cards.size(), from + pageSize);
+        ArrayNode data = objectMapper.createArrayNode();
+        cards.subList(from, to).forEach(data::add);
+
+        String nextPage = to < cards.size()
+                ? scryfallBaseUrl() + "/cards/search?q=" + query.replace(" ", "%20") + "&page=" + (page + 1)
+                : null;
+        ObjectNode body = list(data, nextPage != null, nextPage);
+        body.put("total_cards", cards.size());
+        return Reply.ok(body);
+    }
+
+    private Reply scryfallBulkIndex() {
+        ObjectNode entry = objectMapper.createObjectNode();
+        entry.put("object", "bulk_data");
+        entry.put("type", "default_cards");
+        entry.put("download_uri", scryfallBaseUrl() + "/bulk/default-cards.json");
+        entry.put("content_type", JSON);
+
+        ArrayNode data = objectMapper.createArrayNode().add(entry);
+        return Reply.ok(list(data, false, null));
+    }
+
+    private Reply scryfallBulkCards() {
+        ArrayNode all = objectMapper.createArrayNode();
+        cardsBySet.values().forEach(cards -> cards.forEach(all::add));
+        return Reply.ok(all);
+    }
+
+    // ========== MAGICTHEGATHERING.IO ==========
+
+    private Reply mtgApiSets() {
+        ArrayNode sets = objectMapper.createArrayNode();
+        cardsBySet.forEach((code, cards) -> {
+            ObjectNode set = objectMapper.createObjectNode();
+            set.put("code", code);
+            set.put("name", setName(code));
+            set.put("type", "expansion");
+            set.put("releaseDate", "2025-06-13");
+            set.put("onlineOnly", false);
+            sets.add(set);
+        });
+        ObjectNode body = objectMapper.createObjectNode();
+        body.set("sets", sets);
+        return Reply.ok(body);
+    }
+
+    private Reply mtgApiCards(HttpServerRequest req) {
+        Map<String, List<String>> params = new QueryStringDecoder(req.uri()).parameters();
+        String setCode = first(params, "set", "").toUpperCase(Locale.ROOT);
+        int pageSize = Math.min(options.mtgApiMaxPageSize(), Integer.parseInt(first(params, "pageSize", "100")));
+        int page = Math.max(1, Integer.parseInt(first(params, "page", "1")));
+
+        List<ObjectNode> cards = cardsBySet.getOrDefault(setCode, List.of());
+        int from = Math.min(cards.size(), (page - 1) * pageSize);
+        int to = Math.min(cards.size(), from + pageSize);
+
+        ArrayNode data = objectMapper.createArrayNode();
+        cards.subList(from, to).forEach(card -> data.add(toMtgApiCard(card)));
+        ObjectNode body = objectMapper.createObjectNode();
+        body.set("cards", data);
+
+        int lastPage = Math.max(1, (cards.size() + pageSize - 1) / pageSize);
+        String pageUrl = mtgApiBaseUrl() + "/cards?set=" + setCode + "&pageSize=" + pageSize + "&page=";
+        StringBuilder link = new StringBuilder();
+        if (page < lastPage) {
+            link.append('<').append(pageUrl).append(page + 1).append(">; rel=\"next\", ");
+        }
+        link.append('<').append(pageUrl).append(lastPage).append(">; rel=\"last\"");
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("Total-Count", String.valueOf(cards.size()));
+        headers.put("Page-Size", String.valueOf(pageSize));
+        headers.put("Count", String.valueOf(to - from));
+        headers.put("Link", link.toString());
+        return new Reply(200, headers, body);
+    }
+
+    private ObjectNode toMtgApiCard(ObjectNode card) {
+        ObjectNode mtg = objectMapper.createObjectNode();
+        mtg.put("id", card.path("id").asText());
+        mtg.put("name", card.path("name").asText());
+        mtg.put("manaCost", card.path("mana_cost").asText(null));
+        mtg.put("cmc", card.path("cmc").asDouble());
+        mtg.set("colors", card.get("colors"));
+        mtg.set("colorIdentity", card.get("color_identity"));
+        mtg.put("type", card.path("type_line").asText(null));
+        mtg.put("rarity", capitalize(card.path("rarity").asText("common")));
+        mtg.put("set", card.path("set").asText().toUpperCase(Locale.ROOT));
+        mtg.put("setName", card.path("set_name").asText(null));
+        mtg.put("text", card.path("oracle_text").asText(null));
+        mtg.put("artist", card.path("artist").asText(null));
+        mtg.put("number", card.path("collector_number").asText(null));
+        mtg.put("power", card.path("power").asText(null));
+        mtg.put("toughness", card.path("toughness").asText(null));
+        mtg.put("layout", card.path("layout").asText("normal"));
+        JsonNode multiverse = card.path("multiverse_ids");
+        if (multiverse.isArray() && !multiverse.isEmpty()) {
+            mtg.put("multiverseid", multiverse.get(0).asText());
+        }
+        mtg.put("imageUrl", card.path("image_uris").path("normal").asText(null));
+        return mtg;
+    }
+
+    // ========== DONNÉES ==========
+
+    private List<ObjectNode> loadOrGenerate(String setCode) throws IOException {
+        if (options.fixtureDir() != null) {
+            Path fixture = options.fixtureDir().resolve("scryfall").resolve(setCode.toLowerCase(Locale.ROOT) + ".json");
+            if (Files.exists(fixture)) {
+                List<ObjectNode> cards = new ArrayList<>();
+                for (JsonNode node : objectMapper.readTree(fixture.toFile())) {
+                    cards.add((ObjectNode) node);
+                }
+                logger.info("📂 Fixture {} : {} cartes", fixture, cards.size());
+                return cards;
+            }
+        }
+        return generate(setCode);
+    }
+
+    // Cartes déterministes (graine = code d'extension) : deux exécutions servent les mêmes données
+    private List<ObjectNode> generate(String setCode) {
+        String code = setCode.toLowerCase(Locale.ROOT);
+        Random random = new Random(code.hashCode());
+        String padding = "x".repeat(Math.max(0, options.textPaddingBytes()));
+
+        List<ObjectNode> cards = new ArrayList<>(options.cardsPerSet());
+        for (int i = 1; i <= options.cardsPerSet(); i++) {
+            ObjectNode card = objectMapper.createObjectNode();
+            card.put("object", "card");
+            card.put("id", new UUID(code.hashCode(), i).toString());
+            card.put("name", setCode.toUpperCase(Locale.ROOT) + " Carte " + i);
+            card.put("lang", "en");
+            card.put("layout", "normal");
+            int cmc = random.nextInt(8);
+            card.put("mana_cost", "{" + cmc + "}");
+            card.put("cmc", (double) cmc);
+            String color = COLORS[random.nextInt(COLORS.length)];
+            card.set("colors", objectMapper.createArrayNode().add(color));
+            card.set("color_identity", objectMapper.createArrayNode().add(color));
+            boolean creature = random.nextBoolean();
+            card.put("type_line", creature ? "Creature — Human Soldier" : "Instant");
+            card.put("oracle_text", "Texte de règles " + i + ". " + padding);
+            if (creature) {
+                card.put("power", String.valueOf(random.nextInt(7)));
+                card.put("toughness", String.valueOf(1 + random.nextInt(7)));
+            }
+            card.put("rarity", RARITIES[random.nextInt(RARITIES.length)]);
+            card.put("set", code);
+            card.put("set_name", setName(setCode));
+            card.put("collector_number", String.valueOf(i));
+            card.put("artist", "Artiste " + (1 + random.nextInt(40)));
+            card.set("multiverse_ids", objectMapper.createArrayNode().add(700000 + i));
+            ObjectNode images = objectMapper.createObjectNode();
+            images.put("normal", IMAGE_HOST + "/images/" + code + "/" + i + ".jpg");
+            card.set("image_uris", images);
+            cards.add(card);
+        }
+        return cards;
+    }
+
+    private ObjectNode setObject(String code) {
+        ObjectNode set = objectMapper.createObjectNode();
+        set.put("object", "set");
+        set.put("code", code.toLowerCase(Locale.ROOT));
+        set.put("name", setName(code));
+        set.put("set_type", "expansion");
+        set.put("released_at", "2025-06-13");
+        set.put("card_count", cardCount(code));
+        set.put("digital", false);
+        return set;
+    }
+
+    private String setName(String code) {
+        List<ObjectNode> cards = cardsBySet.get(code.toUpperCase(Locale.ROOT));
+        if (cards != null && !cards.isEmpty() && cards.get(0).hasNonNull("set_name")) {
+            return cards.get(0).get("set_name").asText();
+        }
+        return "Extension " + code.toUpperCase(Locale.ROOT);
+    }
+
+    private ObjectNode list(ArrayNode data, boolean hasMore, String nextPage) {
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("object", "list");
+        body.put("has_more", hasMore);
+        if (nextPage != null) {
+            body.put("next_page", nextPage);
+        }
+        body.set("data", data);
+        return body;
+    }
+
+    private ObjectNode error(int status, String code, String details) {
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("object", "error");
+        body.put("status", status);
+        body.put("code", code);
+        body.put("details", details);
+        return body;
+    }
+
+    private static String first(Map<String, List<String>> params, String name, String defaultValue) {
+        List<String> values = params.get(name);
+        return values == null || values.isEmpty() ? defaultValue : values.get(0);
+    }
+
+    private static String capitalize(String value) {
+        return value.isEmpty() ? value : Character.toUpperCase(value.charAt(0)) + value.substring(1);
+    }
+
+    // ========== CONFIGURATION ==========
+
+    public record Options(
+            int port,
+            List<String> sets,
+            int cardsPerSet,
+            int scryfallPageSize,
+            int mtgApiMaxPageSize,
+            Duration latency,
+            Duration jitter,
+            int rateLimitEvery,
+            int textPaddingBytes,
+            Path fixtureDir
+    ) {
+        public static Options defaults() {
+            return new Options(0, List.of("FIN", "BLB"), 300, 175, 100,
+                    Duration.ofMillis(50), Duration.ofMillis(20), 0, 0, null);
+        }
+
+        public Options withPort(int value) {
+            return new Options(value, sets, cardsPerSet, scryfallPageSize, mtgApiMaxPageSize, latency, jitter, rateLimitEvery, textPaddingBytes, fixtureDir);
+        }
+
+        public Options withSets(List<String> value) {
+            return new Options(port, value, cardsPerSet, scryfallPageSize, mtgApiMaxPageSize, latency, jitter, rateLimitEvery, textPaddingBytes, fixtureDir);
+        }
+
+        public Options withCardsPerSet(int value) {
+            return new Options(port, sets, value, scryfallPageSize, mtgApiMaxPageSize, latency, jitter, rateLimitEvery, textPaddingBytes, fixtureDir);
+        }
+
+        public Options withPageSizes(int scryfall, int mtgApi) {
+            return new Options(port, sets, cardsPerSet, scryfall, mtgApi, latency, jitter, rateLimitEvery, textPaddingBytes, fixtureDir);
+        }
+
+        public Options withLatency(Duration value, Duration jitterValue) {
+            return new Options(port, sets, cardsPerSet, scryfallPageSize, mtgApiMaxPageSize, value, jitterValue, rateLimitEvery, textPaddingBytes, fixtureDir);
+        }
+
+        /**
+         * Une requête sur N reçoit un 429 avec Retry-After (0 : jamais)
+         */
+        public Options withRateLimitEvery(int value) {
+            return new Options(port, sets, cardsPerSet, scryfallPageSize, mtgApiMaxPageSize, latency, jitter, value, textPaddingBytes, fixtureDir);
+        }
+
+        /**
+         * Octets ajoutés au texte de chaque carte générée, pour grossir les réponses
+         */
+        public Options withTextPadding(int value) {
+            return new Options(port, sets, cardsPerSet, scryfallPageSize, mtgApiMaxPageSize, latency, jitter, rateLimitEvery, value, fixtureDir);
+        }
+
+        public Options withFixtures(Path value) {
+            return new Options(port, sets, cardsPerSet, scryfallPageSize, mtgApiMaxPageSize, latency, jitter, rateLimitEvery, textPaddingBytes, value);
+        }
+    }
+
+    public record Stats(long requests, long rateLimited, long bytesServed) {}
+
+    // ========== LANCEMENT AUTONOME ==========
+
+    /**
+     * Démarre le serveur jusqu'à l'arrêt du processus. Réglages par propriétés système :
+     * {@code stub.port} (8099), {@code stub.sets} (FIN,BLB), {@code stub.cards-per-set},
+     * {@code stub.latency-ms}, {@code stub.jitter-ms}, {@code stub.rate-limit-every},
+     * {@code stub.padding}, {@code stub.fixtures}
+     */
+    public static void main(String[] args) throws IOException {
+        Options defaults = Options.defaults();
+        Options options = defaults
+                .withPort(Integer.getInteger("stub.port", 8099))
+                .withSets(Arrays.asList(System.getProperty("stub.sets", String.join(",", defaults.sets())).split(",")))
+                .withCardsPerSet(Integer.getInteger("stub.cards-per-set", defaults.cardsPerSet()))
+                .withLatency(Duration.ofMillis(Long.getLong("stub.latency-ms", defaults.latency().toMillis())),
+                        Duration.ofMillis(Long.getLong("stub.jitter-ms", defaults.jitter().toMillis())))
+                .withRateLimitEvery(Integer.getInteger("stub.rate-limit-every", 0))
+                .withTextPadding(Integer.getInteger("stub.padding", 0));
+        String fixtures = System.getProperty("stub.fixtures");
+        if (fixtures != null) {
+            options = options.withFixtures(Paths.get(fixtures));
+        }
+
+        UpstreamStubServer stub = start(options);
+        System.out.println("--mtg.scryfall.base-url=" + stub.scryfallBaseUrl()
+                + " --mtg.api.base-url=" + stub.mtgApiBaseUrl()
+                + " --mtg.http-cache.enabled=false");
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            System.out.println("Requêtes servies : " + stub.stats());
+            stub.close();
+        }));
+        stub.server.onDispose().block();
+    }
+}
@@ -0,0 +1,120 @@
+package com.pcagrad.magic.util;
+
+import com.pcagrad.magic.entity.MagicCard;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CardFacetIndexTest {
+
+    @Test
+    void countIgnoresOwnFacetSelection() {
+        CardCatalogue.Builder builder = new CardCatalogue.Builder();
+        builder.add(card("AAA", "common"));
+        builder.add(card("AAA", "common"));
+        builder.add(card("AAA", "rare"));
+        builder.add(card("BBB", "rare"));
+        builder.add(card("BBB", "mythic"));
+        CardFacetIndex index = CardFacetIndex.build(builder.build());
+
+        Map<CardFacetIndex.Facet, Set<String>> selected = new EnumMap<>(CardFacetIndex.Facet.class);
+        selected.put(CardFacetIndex.Facet.RARITY, Set.of("rare"));
+        CardFacetIndex.FacetCounts counts = index.count(null, null, selected);
+
+        assertThat(counts.total()).isEqualTo(2);
+        // Les autres raretés restent proposées avec leurs comptages sans la sélection de rareté
+        assertThat(counts.facets().get(CardFacetIndex.Facet.RARITY))
+                .containsEntry("common", 2L)
+                .containsEntry("rare", 2L)
+                .containsEntry("mythic", 1L);
+        // Les autres facettes sont comptées dans la sélection
+        assertThat(counts.facets().get(CardFacetIndex.Facet.SET))
+                .containsEntry("AAA", 1L)
+                .containsEntry("BBB", 1L);
+    }
+
+    @Test
+    void countCombinesFacetsAndScopesToSet() {
+        CardCatalogue.Builder builder = new CardCatalogue.Builder();
+        builder.add(card("AAA", "common"));
+        builder.add(card("AAA", "rare"));
+        builder.add(card("BBB", "rare"));
+        CardFacetIndex index = CardFacetIndex.build(builder.build());
+
+        Map<CardFacetIndex.Facet, Set<String>> selected = new EnumMap<>(CardFacetIndex.Facet.class);
+        selected.put(CardFacetIndex.Facet.RARITY, Set.of("rare"));
+        CardFacetIndex.FacetCounts counts = index.count("aaa", null, selected);
+
+        assertThat(counts.total()).isEqualTo(1);
+        assertThat(counts.facets().get(CardFacetIndex.Facet.SET)).containsOnlyKeys("AAA");
+    }
+
+    @Test
+    void sparseBelowOneCardInThirtyTwo() {
+        // 64 cartes : une liste de k identifiants pèse 16 + 4k octets, un mot 16 + 8 octets.
+        // 1 carte (1 * 32 < 64) reste une liste, à partir de 2 cartes (2 * 32 = 64) on passe en mots.
+        long base = CardFacetIndex.build(catalogueWithMythics(0)).estimatedBytes();
+
+        assertThat(CardFacetIndex.build(catalogueWithMythics(1)).estimatedBytes() - base).isEqualTo(20);
+        assertThat(CardFacetIndex.build(catalogueWithMythics(2)).estimatedBytes() - base).isEqualTo(24);
+        assertThat(CardFacetIndex.build(catalogueWithMythics(3)).estimatedBytes() - base).isEqualTo(24);
+
+        // Les deux représentations comptent de la même façon
+        CardFacetIndex.FacetCounts counts = CardFacetIndex.build(catalogueWithMythics(1)).count(null, null, Map.of());
+        assertThat(counts.facets().get(CardFacetIndex.Facet.RARITY))
+                .containsEntry("mythic", 1L)
+                .containsEntry("common", 63L);
+        counts = CardFacetIndex.build(catalogueWithMythics(3)).count(null, null, Map.of());
+        assertThat(counts.facets().get(CardFacetIndex.Facet.RARITY))
+                .containsEntry("mythic", 3L)
+                .containsEntry("common", 61L);
+    }
+
+    @Test
+    void fillMasksTailWord() {
+        // 70 cartes : le dernier mot ne doit porter que 6 bits
+        CardCatalogue.Builder builder = new CardCatalogue.Builder();
+        for (int i = 0; i < 70; i++) {
+            builder.add(card(i % 2 == 0 ? "AAA" : "BBB", "common"));
+        }
+        CardFacetIndex index = CardFacetIndex.build(builder.build());
+
+        CardFacetIndex.FacetCounts counts = index.count(null, null, Map.of());
+
+        assertThat(counts.total()).isEqualTo(70);
+        assertThat(counts.facets().get(CardFacetIndex.Facet.SET))
+                .containsEntry("AAA", 35L)
+                .containsEntry("BBB", 35L);
+    }
+
+    @Test
+    void fillOnExactWordBoundary() {
+        CardCatalogue.Builder builder = new CardCatalogue.Builder();
+        for (int i = 0; i < 128; i++) {
+            builder.add(card("AAA", "common"));
+        }
+        CardFacetIndex index = CardFacetIndex.build(builder.build());
+
+        assertThat(index.count(null, null, Map.of()).total()).isEqualTo(128);
+    }
+
+    private static CardCatalogue catalogueWithMythics(int mythics) {
+        CardCatalogue.Builder builder = new CardCatalogue.Builder();
+        for (int i = 0; i < 64; i++) {
+            builder.add(card("AAA", i < mythics ? "mythic" : "common"));
+        }
+        return builder.build();
+    }
+
+    private static MagicCard card(String setCode, String rarity) {
+        MagicCard card = new MagicCard(null, "Carte " + UUID.randomUUID(), setCode);
+        card.setId(UUID.randomUUID());
+        card.setRarity(rarity);
+        return card;
+    }
+}
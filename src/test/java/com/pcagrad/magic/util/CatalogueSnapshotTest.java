@@ -0,0 +1,107 @@
+package com.pcagrad.magic.util;
+
+import com.pcagrad.magic.model.MtgCard;
+import com.pcagrad.magic.model.MtgSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CatalogueSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripsEveryCardField() throws IOException {
+        MtgCard card = new MtgCard("abc123", "Cloud, Ex-SOLDIER", "{2}{R}{W}", 4,
+                List.of("R", "W"), List.of("R", "W"), "Legendary Creature — Human Soldier",
+                List.of("Legendary"), List.of("Creature"), List.of("Human", "Soldier"), "mythic", "FIN",
+                "Final Fantasy", "Haste", "Artiste", "12a", "4", "4", "normal", 654321, "/api/images/x");
+        CatalogueSnapshot.Writer writer = new CatalogueSnapshot.Writer();
+        writer.addSet(set("FIN"));
+        writer.addCard(card);
+
+        CatalogueSnapshot snapshot = write(writer);
+
+        assertThat(snapshot.getCards("FIN")).containsExactly(card);
+    }
+
+    @Test
+    void keepsNullsApartFromEmptyLists() throws IOException {
+        MtgCard card = new MtgCard("abc123", "Moogle", null, null, List.of(), null, null, List.of(), null, null,
+                null, "FIN", null, null, null, null, null, null, null, null, null);
+        CatalogueSnapshot.Writer writer = new CatalogueSnapshot.Writer();
+        writer.addCard(card);
+
+        CatalogueSnapshot snapshot = write(writer);
+
+        assertThat(snapshot.getCards("FIN")).containsExactly(card);
+    }
+
+    @Test
+    void groupsCardsBySetSortedByName() throws IOException {
+        CatalogueSnapshot.Writer writer = new CatalogueSnapshot.Writer();
+        writer.addSet(set("FIN"));
+        writer.addSet(set("NEO"));
+        writer.addCard(card("3", "zidane", "FIN"));
+        writer.addCard(card("1", "Kaito", "NEO"));
+        writer.addCard(card("2", "Aerith", "FIN"));
+        writer.addCard(card("4", "bahamut", "FIN"));
+
+        CatalogueSnapshot snapshot = write(writer);
+
+        assertThat(snapshot.getSetCount()).isEqualTo(2);
+        assertThat(snapshot.getCardCount()).isEqualTo(4);
+        // Tri insensible à la casse, codes d'extension normalisés à la lecture
+        assertThat(snapshot.getCards(" fin ")).extracting(MtgCard::name)
+                .containsExactly("Aerith", "bahamut", "zidane");
+        assertThat(snapshot.getCards("NEO")).extracting(MtgCard::name).containsExactly("Kaito");
+        assertThat(snapshot.getCards("XXX")).isEmpty();
+    }
+
+    @Test
+    void servesCardsOfUnknownSetWithoutListingIt() throws IOException {
+        CatalogueSnapshot.Writer writer = new CatalogueSnapshot.Writer();
+        writer.addSet(set("FIN"));
+        writer.addCard(card("1", "Tonberry", "ORPHAN"));
+
+        CatalogueSnapshot snapshot = write(writer);
+
+        assertThat(snapshot.getSets()).extracting(MtgSet::code).containsExactly("FIN");
+        assertThat(snapshot.findSet("FIN")).contains(set("FIN"));
+        assertThat(snapshot.findSet("ORPHAN")).isEmpty();
+        assertThat(snapshot.getCards("ORPHAN")).extracting(MtgCard::name).containsExactly("Tonberry");
+        assertThat(snapshot.getCards("FIN")).isEmpty();
+    }
+
+    @Test
+    void rejectsForeignFile() throws IOException {
+        Path file = directory.resolve("foreign.snap");
+        Files.write(file, new byte[64]);
+
+        assertThatThrownBy(() -> CatalogueSnapshot.open(file)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private CatalogueSnapshot write(CatalogueSnapshot.Writer writer) throws IOException {
+        Path file = directory.resolve("catalogue.snap");
+        writer.writeTo(file);
+        return CatalogueSnapshot.open(file);
+    }
+
+    private static MtgSet set(String code) {
+        return new MtgSet(code, "Extension " + code, "expansion", null, "2025-06-13", null, null, "black",
+                false, null);
+    }
+
+    private static MtgCard card(String id, String name, String setCode) {
+        return new MtgCard(id, name, null, null, null, null, null, null, null, null, "common", setCode,
+                null, null, null, null, null, null, "normal", null, null);
+    }
+}
@@ -0,0 +1,47 @@
+package com.pcagrad.magic.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeysetCursorTest {
+
+    @Test
+    void roundTripsScopeSortKeyAndId() {
+        KeysetCursor cursor = new KeysetCursor("search:dragon:FIN", "Æther Vial — éd. 2", UUID.randomUUID());
+
+        assertThat(KeysetCursor.decode(cursor.encode(), cursor.scope())).isEqualTo(cursor);
+    }
+
+    @Test
+    void roundTripsMissingSortKey() {
+        // Carte sans numéro : la position ne garde que l'id
+        KeysetCursor cursor = new KeysetCursor("set:FIN", null, UUID.randomUUID());
+
+        assertThat(KeysetCursor.decode(cursor.encode(), "set:FIN")).isEqualTo(cursor);
+    }
+
+    @Test
+    void encodesUrlSafeWithoutPadding() {
+        String encoded = new KeysetCursor("set:FIN", "42", UUID.randomUUID()).encode();
+
+        assertThat(encoded).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void rejectsCursorFromAnotherScope() {
+        String encoded = new KeysetCursor("set:FIN", "42", UUID.randomUUID()).encode();
+
+        assertThatThrownBy(() -> KeysetCursor.decode(encoded, "set:NEO"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsUnreadableCursor() {
+        assertThatThrownBy(() -> KeysetCursor.decode("%%%", "set:FIN"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}